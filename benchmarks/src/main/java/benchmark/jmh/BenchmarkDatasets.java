@@ -0,0 +1,109 @@
+package benchmark.jmh;
+
+import output.NullOutputSink;
+import pojo.Course;
+import pojo.Student;
+import tracker.CourseCatalog;
+import tracker.LearningPlatform;
+import tracker.PlatformCourse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded synthetic datasets, so that every run and every fork measures the same students and points.
+ * A student is enrolled in a course with a probability of one half and has up to 10 points in it.
+ * */
+final class BenchmarkDatasets {
+
+    static final long SEED = 42L;
+    // ids of a fresh platform start here, every JMH fork starts with a fresh platform
+    static final long FIRST_STUDENT_ID = 10000L;
+    private static final int MAX_POINTS = 10;
+    private static final String[] FIRST_NAMES = {"John", "Anny", "Jean", "Robert", "Maria", "Olga", "Ivan", "Li",
+            "Ahmed", "Sofia", "Lucas", "Emma", "Noah", "Mia", "Yuki", "Chen"};
+    private static final String[] LAST_NAMES = {"Smith", "Doolittle", "van Helsing", "Owen", "Garcia", "Petrova",
+            "Kim", "Nguyen", "Mueller", "Rossi", "Silva", "Kowalski", "Tanaka", "Wang", "Brown", "Jones"};
+
+    private BenchmarkDatasets() {
+    }
+
+    static String credentials(SplittableRandom random, String email) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + ' ' + LAST_NAMES[random.nextInt(LAST_NAMES.length)]
+                + ' ' + email;
+    }
+
+    /**
+     * @return points lines of random registered students, as typed into "add points"
+     * */
+    static String[] pointsLines(SplittableRandom random, int students, int numberOfCourses, int numberOfLines) {
+        String[] pointsLines = new String[numberOfLines];
+        StringBuilder pointsLine = new StringBuilder();
+        for (int i = 0; i < numberOfLines; i++) {
+            pointsLine.setLength(0);
+            pointsLine.append(FIRST_STUDENT_ID + random.nextInt(students));
+            for (int course = 0; course < numberOfCourses; course++) {
+                pointsLine.append(' ').append(randomPoints(random));
+            }
+            pointsLines[i] = pointsLine.toString();
+        }
+        return pointsLines;
+    }
+
+    /**
+     * Registers the students on the singleton platform of this fork and gives each of them one points line
+     * */
+    static LearningPlatform fillPlatform(int students) {
+        LearningPlatform learningPlatform = LearningPlatform.getInstance();
+        learningPlatform.setOutputSink(new NullOutputSink());
+        SplittableRandom random = new SplittableRandom(SEED);
+        int numberOfCourses = learningPlatform.getCourseCatalog().size();
+        StringBuilder pointsLine = new StringBuilder();
+        for (int student = 0; student < students; student++) {
+            learningPlatform.registerStudentToPlatform(credentials(random, "s" + student + "@bench.com"));
+        }
+        for (int student = 0; student < students; student++) {
+            pointsLine.setLength(0);
+            pointsLine.append(FIRST_STUDENT_ID + student);
+            for (int course = 0; course < numberOfCourses; course++) {
+                pointsLine.append(' ').append(randomPoints(random));
+            }
+            learningPlatform.addPoints(pointsLine.toString());
+        }
+        return learningPlatform;
+    }
+
+    /**
+     * Builds standalone courses of the default catalog with the same distribution of points as the platform
+     * */
+    static List<Course> fillCourses(int students) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<PlatformCourse> platformCourses = CourseCatalog.defaultCatalog().getCourses();
+        int numberOfCourses = platformCourses.size();
+        long[] studentIds = new long[students];
+        Student[] enrolledStudents = new Student[students];
+        int[] points = new int[students * numberOfCourses];
+        for (int student = 0; student < students; student++) {
+            studentIds[student] = FIRST_STUDENT_ID + student;
+            enrolledStudents[student] = new Student(String.valueOf(studentIds[student]),
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                    "s" + student + "@bench.com");
+            for (int course = 0; course < numberOfCourses; course++) {
+                points[student * numberOfCourses + course] = randomPoints(random);
+            }
+        }
+        List<Course> courses = new ArrayList<>(numberOfCourses);
+        for (PlatformCourse platformCourse : platformCourses) {
+            Course course = new Course(platformCourse);
+            course.addPointsToTheCourse(studentIds, enrolledStudents, points, platformCourse.getIndex(),
+                    numberOfCourses, students);
+            courses.add(course);
+        }
+        return courses;
+    }
+
+    private static int randomPoints(SplittableRandom random) {
+        return random.nextBoolean() ? 0 : 1 + random.nextInt(MAX_POINTS);
+    }
+}
@@ -0,0 +1,89 @@
+package benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import output.NullOutputSink;
+import output.OutputSink;
+import pojo.Course;
+import tracker.CourseStatisticAnalyzer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leaderboards and the six statistics queries over standalone courses with {@code students} students.
+ * A new analyzer is created for every query, as the console does for every "statistics" command
+ * */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class CourseBenchmark {
+
+    private static final int TOP_LEARNERS = 10;
+
+    @Param({"1000", "100000", "1000000"})
+    private int students;
+
+    private List<Course> courses;
+    private Course course;
+    private OutputSink outputSink;
+
+    @Setup
+    public void setUp() {
+        courses = BenchmarkDatasets.fillCourses(students);
+        course = courses.get(0);
+        outputSink = new NullOutputSink();
+    }
+
+    @Benchmark
+    public void getTopLearnersPage() {
+        course.getTopLearners(outputSink, 0, TOP_LEARNERS);
+    }
+
+    @Benchmark
+    public void getTopLearners() {
+        course.getTopLearners(outputSink);
+    }
+
+    @Benchmark
+    public String getMostPopularCourse() {
+        return new CourseStatisticAnalyzer(courses).getMostPopularCourse();
+    }
+
+    @Benchmark
+    public String getLeastPopularCourse() {
+        return new CourseStatisticAnalyzer(courses).getLeastPopularCourse();
+    }
+
+    @Benchmark
+    public String getHighestActivityCourse() {
+        return new CourseStatisticAnalyzer(courses).getHighestActivityCourse();
+    }
+
+    @Benchmark
+    public String getLowestActivityCourse() {
+        return new CourseStatisticAnalyzer(courses).getLowestActivityCourse();
+    }
+
+    @Benchmark
+    public String getEasiestCourse() {
+        return new CourseStatisticAnalyzer(courses).getEasiestCourse();
+    }
+
+    @Benchmark
+    public String getHardestCourse() {
+        return new CourseStatisticAnalyzer(courses).getHardestCourse();
+    }
+}
@@ -0,0 +1,67 @@
+package benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.LearningPlatform;
+import tracker.PlatformCourse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One "notify" run after every student has completed one more course.
+ * A student completes a course once, so a fork runs one iteration per catalog course:
+ * before an iteration every student gets the points that finish the next course.
+ * The score is the time of the whole run, divide it by {@code students} for the time per notification
+ * */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class NotificationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int students;
+
+    private LearningPlatform learningPlatform;
+    private int nextCourse;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        learningPlatform = BenchmarkDatasets.fillPlatform(students);
+        // the students of the dataset have not completed anything, nothing is pending
+        learningPlatform.notifyStudentByEmailIfCourseComplete();
+    }
+
+    @Setup(Level.Iteration)
+    public void completeNextCourse() {
+        PlatformCourse platformCourse = learningPlatform.getCourseCatalog().getByIndex(nextCourse++);
+        int numberOfCourses = learningPlatform.getCourseCatalog().size();
+        StringBuilder pointsLine = new StringBuilder();
+        for (int student = 0; student < students; student++) {
+            pointsLine.setLength(0);
+            pointsLine.append(BenchmarkDatasets.FIRST_STUDENT_ID + student);
+            for (int course = 0; course < numberOfCourses; course++) {
+                pointsLine.append(' ')
+                        .append(course == platformCourse.getIndex() ? platformCourse.getTotalNumberOfPointsToFinish() : 0);
+            }
+            learningPlatform.addPoints(pointsLine.toString());
+        }
+    }
+
+    @Benchmark
+    public void notifyStudentByEmailIfCourseComplete() {
+        learningPlatform.notifyStudentByEmailIfCourseComplete();
+    }
+}
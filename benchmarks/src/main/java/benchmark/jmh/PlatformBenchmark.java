@@ -0,0 +1,63 @@
+package benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tracker.LearningPlatform;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registrations and points typed into the console, on a platform that already has {@code students} students.
+ * The platform is a singleton, so every dataset needs its own fork.
+ * */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class PlatformBenchmark {
+
+    private static final int POINTS_LINES = 1 << 16;
+
+    @Param({"1000", "100000", "1000000"})
+    private int students;
+
+    private LearningPlatform learningPlatform;
+    private SplittableRandom random;
+    private String[] pointsLines;
+    private int nextPointsLine;
+    private long nextEmail;
+
+    @Setup
+    public void setUp() {
+        learningPlatform = BenchmarkDatasets.fillPlatform(students);
+        random = new SplittableRandom(BenchmarkDatasets.SEED);
+        pointsLines = BenchmarkDatasets.pointsLines(random, students, learningPlatform.getCourseCatalog().size(),
+                POINTS_LINES);
+    }
+
+    /**
+     * Every call registers a new student, the credentials line is built in the call
+     * */
+    @Benchmark
+    public boolean registerStudentToPlatform() {
+        return learningPlatform.registerStudentToPlatform(
+                BenchmarkDatasets.credentials(random, "new" + nextEmail++ + "@bench.com"));
+    }
+
+    @Benchmark
+    public void addPoints() {
+        learningPlatform.addPoints(pointsLines[nextPointsLine++ & (POINTS_LINES - 1)]);
+    }
+}
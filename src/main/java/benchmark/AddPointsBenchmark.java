@@ -0,0 +1,65 @@
+package benchmark;
+
+import output.BufferedOutputSink;
+import tracker.LearningPlatform;
+
+import java.util.Random;
+
+/**
+ * Regression benchmark for the "add points" path.
+ * Registers students in growing cohorts and measures the average latency of
+ * {@link LearningPlatform#addPoints(String)}, which should stay flat while the number of students grows.
+ * Usage: {@code java benchmark.AddPointsBenchmark [cohortSizes] [operationsPerCohort]},
+ * e.g. {@code java benchmark.AddPointsBenchmark 1000,10000,100000,1000000 200000}
+ * */
+public class AddPointsBenchmark {
+
+    private static final long FIRST_STUDENT_ID = 10000L;
+    private static final String DEFAULT_COHORT_SIZES = "1000,10000,100000,1000000";
+    private static final int DEFAULT_OPERATIONS = 200_000;
+    private static final long SEED = 42L;
+
+    public static void main(String[] args) {
+        String[] cohortSizes = (args.length > 0 ? args[0] : DEFAULT_COHORT_SIZES).split(",");
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_OPERATIONS;
+        LearningPlatform learningPlatform = LearningPlatform.getInstance();
+        learningPlatform.setOutputSink(BufferedOutputSink.discarding());
+        Random random = new Random(SEED);
+        int registeredStudents = 0;
+
+        System.out.printf("%-12s%-14s%-14s%n", "students", "ns/op", "ops/s");
+        for (String cohortSize : cohortSizes) {
+            int targetSize = Integer.parseInt(cohortSize.trim());
+            while (registeredStudents < targetSize) {
+                learningPlatform.registerStudentToPlatform(
+                        "Student Number" + " s" + registeredStudents + "@bench.com");
+                registeredStudents++;
+            }
+            String[] pointsLines = createPointsLines(random, registeredStudents, operations);
+            // warm up with the same lines so that the measured run hits compiled code
+            runAddPoints(learningPlatform, pointsLines);
+            long elapsedNanos = runAddPoints(learningPlatform, pointsLines);
+            double nanosPerOperation = (double) elapsedNanos / operations;
+            System.out.printf("%-12d%-14.1f%-14.0f%n", registeredStudents, nanosPerOperation,
+                    1_000_000_000.0 / nanosPerOperation);
+        }
+    }
+
+    private static String[] createPointsLines(Random random, int registeredStudents, int operations) {
+        String[] pointsLines = new String[operations];
+        for (int i = 0; i < operations; i++) {
+            long studentId = FIRST_STUDENT_ID + random.nextInt(registeredStudents);
+            pointsLines[i] = studentId + " " + random.nextInt(10) + " " + random.nextInt(10) + " "
+                    + random.nextInt(10) + " " + random.nextInt(10);
+        }
+        return pointsLines;
+    }
+
+    private static long runAddPoints(LearningPlatform learningPlatform, String[] pointsLines) {
+        long start = System.nanoTime();
+        for (String pointsLine : pointsLines) {
+            learningPlatform.addPoints(pointsLine);
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,76 @@
+package benchmark;
+
+import output.NullOutputSink;
+import tracker.LearningPlatform;
+
+import java.util.Random;
+
+/**
+ * Throughput of {@link LearningPlatform#addPoints(String)} fed from several ingestion threads at once.
+ * Every thread sends its own pre-built points lines; the table shows the total throughput
+ * and the speedup over the first thread count.
+ * Usage: {@code java benchmark.ConcurrentAddPointsBenchmark [threadCounts] [students] [operationsPerThread]},
+ * e.g. {@code java benchmark.ConcurrentAddPointsBenchmark 1,4,8,16 100000 500000}
+ * */
+public class ConcurrentAddPointsBenchmark {
+
+    private static final long FIRST_STUDENT_ID = 10000L;
+    private static final String DEFAULT_THREAD_COUNTS = "1,4,8,16";
+    private static final int DEFAULT_STUDENTS = 100_000;
+    private static final int DEFAULT_OPERATIONS = 500_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] threadCounts = (args.length > 0 ? args[0] : DEFAULT_THREAD_COUNTS).split(",");
+        int students = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_STUDENTS;
+        int operationsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_OPERATIONS;
+        LearningPlatform learningPlatform = LearningPlatform.getInstance();
+        learningPlatform.setOutputSink(new NullOutputSink());
+        for (int student = 0; student < students; student++) {
+            learningPlatform.registerStudentToPlatform("Student Number" + " s" + student + "@bench.com");
+        }
+
+        System.out.printf("%-10s%-16s%-10s%n", "threads", "ops/s", "speedup");
+        double firstThroughput = 0;
+        for (String threadCount : threadCounts) {
+            int threads = Integer.parseInt(threadCount.trim());
+            String[][] pointsLines = new String[threads][];
+            for (int thread = 0; thread < threads; thread++) {
+                pointsLines[thread] = createPointsLines(new Random(thread), students,
+                        learningPlatform.getCourseCatalog().size(), operationsPerThread);
+            }
+            // warm up with the same lines so that the measured run hits compiled code
+            runAddPoints(learningPlatform, pointsLines);
+            long elapsedNanos = runAddPoints(learningPlatform, pointsLines);
+            double throughput = (double) threads * operationsPerThread * 1_000_000_000.0 / elapsedNanos;
+            if (firstThroughput == 0) {
+                firstThroughput = throughput;
+            }
+            System.out.printf("%-10d%-16.0f%-10.2f%n", threads, throughput, throughput / firstThroughput);
+        }
+    }
+
+    private static String[] createPointsLines(Random random, int students, int numberOfCourses, int operations) {
+        String[] pointsLines = new String[operations];
+        StringBuilder pointsLine = new StringBuilder();
+        for (int i = 0; i < operations; i++) {
+            pointsLine.setLength(0);
+            pointsLine.append(FIRST_STUDENT_ID + random.nextInt(students));
+            for (int course = 0; course < numberOfCourses; course++) {
+                pointsLine.append(' ').append(random.nextInt(10));
+            }
+            pointsLines[i] = pointsLine.toString();
+        }
+        return pointsLines;
+    }
+
+    private static long runAddPoints(LearningPlatform learningPlatform, String[][] pointsLines)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        ConcurrentStressTest.runConcurrently(pointsLines.length, thread -> {
+            for (String pointsLine : pointsLines[thread]) {
+                learningPlatform.addPoints(pointsLine);
+            }
+        });
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,212 @@
+package benchmark;
+
+import output.NullOutputSink;
+import pojo.Course;
+import pojo.CourseAggregates;
+import tracker.CourseCatalog;
+import tracker.CourseStatisticAnalyzer;
+import tracker.LearningPlatform;
+import tracker.PlatformCourse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Multi-threaded stress test of {@link LearningPlatform}.
+ * <ul>
+ * <li>writer threads register the same emails at once, every email must be accepted exactly once</li>
+ * <li>writer threads add points to random students while a reader thread queries leaderboards and statistics;
+ * every course snapshot must be consistent (each enrolled student has made a submission) and never go back</li>
+ * <li>in the end every student's points and every running aggregate must match what the writers have sent</li>
+ * </ul>
+ * Exits with status 1 on the first violation.
+ * Usage: {@code java benchmark.ConcurrentStressTest [threads] [students] [operationsPerThread]}
+ * */
+public class ConcurrentStressTest {
+
+    private static final long FIRST_STUDENT_ID = 10000L;
+    private static final int DEFAULT_THREADS = 8;
+    private static final int DEFAULT_STUDENTS = 10_000;
+    private static final int DEFAULT_OPERATIONS = 200_000;
+    private static final int MAX_POINTS = 10;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_THREADS;
+        int students = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_STUDENTS;
+        int operationsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_OPERATIONS;
+        LearningPlatform learningPlatform = LearningPlatform.getInstance();
+        learningPlatform.setOutputSink(new NullOutputSink());
+
+        checkRegistrations(learningPlatform, threads, students);
+        checkPoints(learningPlatform, threads, students, operationsPerThread);
+        System.out.printf("OK: %d threads, %d students, %d operations%n", threads, students,
+                (long) threads * operationsPerThread);
+    }
+
+    /**
+     * Every thread tries to register all students, in its own order
+     * */
+    private static void checkRegistrations(LearningPlatform learningPlatform, int threads, int students)
+            throws InterruptedException {
+        AtomicInteger[] acceptedPerEmail = new AtomicInteger[students];
+        for (int i = 0; i < students; i++) {
+            acceptedPerEmail[i] = new AtomicInteger();
+        }
+        runConcurrently(threads, thread -> {
+            for (int i = 0; i < students; i++) {
+                int student = (i + thread * (students / threads)) % students;
+                if (learningPlatform.registerStudentToPlatform("Stress Student s" + student + "@stress.com")) {
+                    acceptedPerEmail[student].incrementAndGet();
+                }
+            }
+        });
+        for (int student = 0; student < students; student++) {
+            if (acceptedPerEmail[student].get() != 1) {
+                fail("s" + student + "@stress.com was accepted " + acceptedPerEmail[student].get() + " times");
+            }
+        }
+    }
+
+    private static void checkPoints(LearningPlatform learningPlatform, int threads, int students,
+                                    int operationsPerThread) throws InterruptedException {
+        CourseCatalog courseCatalog = learningPlatform.getCourseCatalog();
+        int numberOfCourses = courseCatalog.size();
+        List<Course> courses = new ArrayList<>();
+        for (PlatformCourse platformCourse : courseCatalog.getCourses()) {
+            courses.add(learningPlatform.getCourse(platformCourse));
+        }
+        // sentPoints[thread][student * numberOfCourses + course], sentSubmissions likewise
+        long[][] sentPoints = new long[threads][students * numberOfCourses];
+        long[][] sentSubmissions = new long[threads][students * numberOfCourses];
+        AtomicBoolean writersDone = new AtomicBoolean();
+        AtomicReference<String> readerFailure = new AtomicReference<>();
+        Thread reader = new Thread(() -> readWhileWriting(courses, writersDone, readerFailure));
+        reader.start();
+
+        runConcurrently(threads, thread -> {
+            Random random = new Random(thread);
+            StringBuilder pointsLine = new StringBuilder();
+            for (int operation = 0; operation < operationsPerThread; operation++) {
+                int student = random.nextInt(students);
+                pointsLine.setLength(0);
+                pointsLine.append(FIRST_STUDENT_ID + student);
+                for (int course = 0; course < numberOfCourses; course++) {
+                    int points = random.nextInt(MAX_POINTS);
+                    pointsLine.append(' ').append(points);
+                    if (points != 0) {
+                        sentPoints[thread][student * numberOfCourses + course] += points;
+                        sentSubmissions[thread][student * numberOfCourses + course]++;
+                    }
+                }
+                learningPlatform.addPoints(pointsLine.toString());
+            }
+        });
+        writersDone.set(true);
+        reader.join();
+        if (readerFailure.get() != null) {
+            fail(readerFailure.get());
+        }
+
+        for (int course = 0; course < numberOfCourses; course++) {
+            Course platformCourse = courses.get(course);
+            platformCourse.verifyAggregates();
+            long expectedSubmissions = 0;
+            long expectedPoints = 0;
+            for (int student = 0; student < students; student++) {
+                long studentPoints = 0;
+                long studentSubmissions = 0;
+                for (int thread = 0; thread < threads; thread++) {
+                    studentPoints += sentPoints[thread][student * numberOfCourses + course];
+                    studentSubmissions += sentSubmissions[thread][student * numberOfCourses + course];
+                }
+                long studentId = FIRST_STUDENT_ID + student;
+                if (platformCourse.getStudentPoints(studentId) != studentPoints
+                        || platformCourse.getNumberOfSubmissionsForTheStudent(studentId) != studentSubmissions) {
+                    fail(String.format("%s: student %d has %d points in %d submissions, expected %d in %d",
+                            platformCourse, studentId, platformCourse.getStudentPoints(studentId),
+                            platformCourse.getNumberOfSubmissionsForTheStudent(studentId),
+                            studentPoints, studentSubmissions));
+                }
+                expectedPoints += studentPoints;
+                expectedSubmissions += studentSubmissions;
+            }
+            CourseAggregates courseAggregates = platformCourse.getAggregates();
+            if (courseAggregates.getTotalNumberOfEarnedPoints() != expectedPoints
+                    || courseAggregates.getTotalNumberOfSubmissions() != expectedSubmissions) {
+                fail(String.format("%s: %d points in %d submissions, expected %d in %d", platformCourse,
+                        courseAggregates.getTotalNumberOfEarnedPoints(), courseAggregates.getTotalNumberOfSubmissions(),
+                        expectedPoints, expectedSubmissions));
+            }
+        }
+    }
+
+    private static void readWhileWriting(List<Course> courses, AtomicBoolean writersDone,
+                                         AtomicReference<String> readerFailure) {
+        long[] lastSubmissions = new long[courses.size()];
+        while (!writersDone.get()) {
+            new CourseStatisticAnalyzer(courses).analyze();
+            for (int course = 0; course < courses.size(); course++) {
+                CourseAggregates courseAggregates = courses.get(course).getAggregates();
+                if (courseAggregates.getTotalNumberOfSubmissions() < courseAggregates.getNumberOfEnrolledStudents()
+                        || courseAggregates.getNumberOfStudentsCompletedCourse()
+                        > courseAggregates.getNumberOfEnrolledStudents()) {
+                    readerFailure.compareAndSet(null, courses.get(course) + " snapshot is inconsistent");
+                    return;
+                }
+                if (courseAggregates.getTotalNumberOfSubmissions() < lastSubmissions[course]) {
+                    readerFailure.compareAndSet(null, courses.get(course) + " submissions went back");
+                    return;
+                }
+                lastSubmissions[course] = courseAggregates.getTotalNumberOfSubmissions();
+                long[] topLearnerIds = courses.get(course).getTopLearnerIds(10);
+                if (topLearnerIds.length > 0 && courses.get(course).getRankOfStudent(topLearnerIds[0]) < 1) {
+                    readerFailure.compareAndSet(null, courses.get(course) + " leader has no rank");
+                    return;
+                }
+            }
+        }
+    }
+
+    interface ThreadBody {
+        void run(int thread);
+    }
+
+    /**
+     * Starts the threads at once and waits for all of them, a failure in any thread fails the test
+     * */
+    static void runConcurrently(int threads, ThreadBody threadBody) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] workers = new Thread[threads];
+        for (int thread = 0; thread < threads; thread++) {
+            int threadNumber = thread;
+            workers[thread] = new Thread(() -> {
+                try {
+                    start.await();
+                    threadBody.run(threadNumber);
+                } catch (Throwable throwable) {
+                    failure.compareAndSet(null, throwable);
+                }
+            });
+            workers[thread].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure.get() != null) {
+            failure.get().printStackTrace();
+            fail("a worker thread failed");
+        }
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,193 @@
+package benchmark;
+
+import metrics.LatencyHistogram;
+import server.TrackerServer;
+import tracker.CourseCatalog;
+import tracker.PlatformCourse;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a running {@link TrackerServer} from several connections and reports requests per second and the latency
+ * percentiles of every kind of request.
+ * <p>
+ * Registers the students first, then every connection keeps up to {@code load.pipeline} requests in flight:
+ * points submissions, finds and top-10 pages, the students and the courses Zipf-distributed like in
+ * {@link WorkloadGenerator}. Latency is measured from writing a request to reading its response, so it includes
+ * the time a request waits behind the earlier ones of its pipeline.
+ * Configured with system properties, e.g. {@code -Dload.connections=8 -Dload.pipeline=32 -Dload.seconds=10}.
+ * Usage: {@code java benchmark.LoadClient [port | unix:socketFile]}
+ * */
+public class LoadClient {
+
+    private static final int MAX_POINTS = 10;
+    private static final int TOP_PAGE_SIZE = 10;
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final String[] REQUEST_TYPES = {"POINTS", "FIND", "TOP"};
+    private static final int POINTS = 0;
+    private static final int FIND = 1;
+    private static final int TOP = 2;
+
+    private final int connections = Integer.getInteger("load.connections", 4);
+    private final int pipeline = Integer.getInteger("load.pipeline", 16);
+    private final int students = Integer.getInteger("load.students", 10_000);
+    private final long durationNanos = Long.getLong("load.seconds", 10L) * 1_000_000_000L;
+    private final int pointsPercent = Integer.getInteger("load.pointsPercent", 80);
+    private final int findPercent = Integer.getInteger("load.findPercent", 15);
+    private final double zipfExponent = Double.parseDouble(System.getProperty("load.zipfExponent", "1.0"));
+    private final long seed = Long.getLong("load.seed", 42L);
+
+    private final List<PlatformCourse> courses = CourseCatalog.load().getCourses();
+    private final LatencyHistogram[] latencies = {new LatencyHistogram(), new LatencyHistogram(),
+            new LatencyHistogram()};
+    private final AtomicLong errors = new AtomicLong();
+    private long[] studentIds;
+
+    public static void main(String[] args) throws Exception {
+        SocketAddress address = TrackerServer.parseAddress(
+                args.length > 0 ? args[0] : String.valueOf(TrackerServer.DEFAULT_PORT));
+        new LoadClient().run(address);
+    }
+
+    private void run(SocketAddress address) throws InterruptedException, IOException {
+        long registrationStart = System.nanoTime();
+        registerStudents(address);
+        System.out.printf("%d students registered in %d ms%n", students,
+                (System.nanoTime() - registrationStart) / 1_000_000);
+
+        List<Thread> threads = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int connection = 0; connection < connections; connection++) {
+            long connectionSeed = seed + connection;
+            Thread thread = new Thread(() -> drive(address, connectionSeed, start + durationNanos),
+                    "load-client-" + connection);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%-8s%12s%12s%12s%12s%12s%n", "request", "count", "p50 us", "p99 us", "p999 us",
+                "max us");
+        long totalRequests = 0;
+        for (int requestType = 0; requestType < REQUEST_TYPES.length; requestType++) {
+            LatencyHistogram.Snapshot snapshot = latencies[requestType].snapshot();
+            System.out.printf("%-8s%12d", REQUEST_TYPES[requestType], snapshot.getCount());
+            for (double percentile : PERCENTILES) {
+                System.out.printf("%12.1f", snapshot.getPercentile(percentile) / 1e3);
+            }
+            System.out.printf("%12.1f%n", snapshot.getMax() / 1e3);
+            totalRequests += snapshot.getCount();
+        }
+        System.out.printf("%d requests from %d connections, pipeline %d, in %.2f s: %.0f requests/s, %d errors%n",
+                totalRequests, connections, pipeline, elapsedSeconds, totalRequests / elapsedSeconds, errors.get());
+    }
+
+    /**
+     * Registers the students over one pipelined connection and keeps their ids
+     * */
+    private void registerStudents(SocketAddress address) throws IOException {
+        studentIds = new long[students];
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            BufferedWriter writer = writer(channel);
+            BufferedReader reader = reader(channel);
+            // the run id keeps the emails unique when the same server is loaded again
+            long runId = System.currentTimeMillis();
+            for (int written = 0, read = 0; read < students; ) {
+                while (written < students && written - read < pipeline * 64) {
+                    writer.write("REGISTER Load Client l" + runId + "x" + written + "@load.test\n");
+                    written++;
+                }
+                writer.flush();
+                String response = reader.readLine();
+                if (response == null || !response.startsWith("OK ")) {
+                    throw new IllegalStateException("Cannot register a student: " + response);
+                }
+                studentIds[read++] = Long.parseLong(response.substring(3));
+            }
+            writer.write("QUIT\n");
+            writer.flush();
+        }
+    }
+
+    private void drive(SocketAddress address, long connectionSeed, long deadline) {
+        SplittableRandom random = new SplittableRandom(connectionSeed);
+        ZipfSampler zipfSampler = new ZipfSampler(zipfExponent);
+        ArrayDeque<long[]> inFlight = new ArrayDeque<>();
+        StringBuilder request = new StringBuilder();
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            BufferedWriter writer = writer(channel);
+            BufferedReader reader = reader(channel);
+            while (System.nanoTime() < deadline || !inFlight.isEmpty()) {
+                // refill the pipeline when half of it is answered, so a write carries many requests
+                if (inFlight.size() <= pipeline / 2 && System.nanoTime() < deadline) {
+                    while (inFlight.size() < pipeline) {
+                        int requestType = nextRequest(random, zipfSampler, request);
+                        writer.append(request).append('\n');
+                        inFlight.add(new long[]{requestType, System.nanoTime()});
+                    }
+                    writer.flush();
+                }
+                String response = reader.readLine();
+                if (response == null) {
+                    throw new IllegalStateException("The server closed the connection");
+                }
+                long[] sentRequest = inFlight.remove();
+                latencies[(int) sentRequest[0]].record(System.nanoTime() - sentRequest[1]);
+                if (!response.startsWith("OK")) {
+                    errors.incrementAndGet();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the next request into {@code request}
+     * @return the request type
+     * */
+    private int nextRequest(SplittableRandom random, ZipfSampler zipfSampler, StringBuilder request) {
+        request.setLength(0);
+        int percent = random.nextInt(100);
+        if (percent < pointsPercent) {
+            request.append("POINTS ").append(studentIds[zipfSampler.sample(random, students) - 1]);
+            int submittedCourse = zipfSampler.sample(random, courses.size()) - 1;
+            for (int course = 0; course < courses.size(); course++) {
+                request.append(' ').append(course == submittedCourse ? 1 + random.nextInt(MAX_POINTS) : 0);
+            }
+            return POINTS;
+        }
+        if (percent < pointsPercent + findPercent) {
+            request.append("FIND ").append(studentIds[zipfSampler.sample(random, students) - 1]);
+            return FIND;
+        }
+        request.append("TOP 0 ").append(TOP_PAGE_SIZE).append(' ')
+                .append(courses.get(zipfSampler.sample(random, courses.size()) - 1).getCourseName());
+        return TOP;
+    }
+
+    private static BufferedWriter writer(SocketChannel channel) {
+        return new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+    }
+
+    private static BufferedReader reader(SocketChannel channel) {
+        return new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,77 @@
+package benchmark;
+
+import notifications.AsyncNotificationDispatcher;
+import notifications.FakeSmtpNotification;
+import notifications.Notification;
+import notifications.NotificationService;
+import pojo.Student;
+import tracker.CourseCatalog;
+import tracker.PlatformCourse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Compares sending notifications one call at a time with the batched {@link AsyncNotificationDispatcher},
+ * both against a {@link FakeSmtpNotification} server with a fixed round trip.
+ * The last rows let the server fail to show the retries.
+ * Usage: {@code java benchmark.NotificationDispatchBenchmark [notifications] [latencyMillis]}
+ * */
+public class NotificationDispatchBenchmark {
+
+    private static final int DEFAULT_NOTIFICATIONS = 2_000;
+    private static final long DEFAULT_LATENCY_MILLIS = 5;
+    private static final double FAILURE_PROBABILITY = 0.2;
+    private static final long SEED = 42L;
+
+    public static void main(String[] args) {
+        int numberOfNotifications = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NOTIFICATIONS;
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_LATENCY_MILLIS;
+        List<Notification> notifications = createNotifications(numberOfNotifications);
+
+        System.out.printf("%-26s%-14s%-12s%-10s%s%n", "dispatch", "sends/s", "delivered", "trips", "dispatcher");
+        FakeSmtpNotification server = new FakeSmtpNotification(latencyMillis);
+        long start = System.nanoTime();
+        for (Notification notification : notifications) {
+            server.sendNotification(notification.getCompletedCourse(), notification.getStudent());
+        }
+        printRow("synchronous", start, server, "");
+
+        runDispatcher("async, 1 worker", notifications, new FakeSmtpNotification(latencyMillis), 1);
+        runDispatcher("async, 4 workers", notifications, new FakeSmtpNotification(latencyMillis), 4);
+        runDispatcher("async, 4 workers, faults", notifications,
+                new FakeSmtpNotification(latencyMillis, FAILURE_PROBABILITY, SEED), 4);
+    }
+
+    private static void runDispatcher(String name, List<Notification> notifications, FakeSmtpNotification server,
+                                      int numberOfWorkers) {
+        // a queue smaller than the load, so the caller also feels the backpressure
+        try (AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(server, 256, numberOfWorkers,
+                AsyncNotificationDispatcher.DEFAULT_MAX_BATCH_SIZE, 5, 1)) {
+            long start = System.nanoTime();
+            try {
+                dispatcher.sendNotifications(notifications).join();
+            } catch (CompletionException e) {
+                // counted by the metrics
+            }
+            printRow(name, start, server, dispatcher.getMetrics().toString());
+        }
+    }
+
+    private static void printRow(String name, long start, FakeSmtpNotification server, String dispatcherMetrics) {
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-26s%-14.0f%-12d%-10d%s%n", name, server.getDeliveredNotifications() / elapsedSeconds,
+                server.getDeliveredNotifications(), server.getRoundTrips(), dispatcherMetrics);
+    }
+
+    private static List<Notification> createNotifications(int numberOfNotifications) {
+        List<PlatformCourse> courses = CourseCatalog.defaultCatalog().getCourses();
+        List<Notification> notifications = new ArrayList<>(numberOfNotifications);
+        for (int i = 0; i < numberOfNotifications; i++) {
+            Student student = new Student(String.valueOf(10000 + i), "Student", "Number" + i, "s" + i + "@bench.com");
+            notifications.add(new Notification(courses.get(i % courses.size()), student));
+        }
+        return notifications;
+    }
+}
@@ -0,0 +1,138 @@
+package benchmark;
+
+import pojo.Course;
+import pojo.ScanParallelism;
+import pojo.Student;
+import tracker.PlatformCourse;
+
+import java.util.SplittableRandom;
+
+/**
+ * Compares the sequential and the fork-join scans of a course, see {@link ScanParallelism}, over growing courses.
+ * <ul>
+ * <li>completed: {@link Course#getStudentsFinishedCourse()}, a filter of the completed students</li>
+ * <li>verify: {@link Course#verifyAggregates()}, sums of the columns</li>
+ * <li>top 10: {@link Course#getTopLearnerIds(int)} of a leaderboard that is due a rebuild, a partial top-K</li>
+ * <li>rebuild: the first leaderboard page after a sixth of the students got points, a sort of every slot</li>
+ * </ul>
+ * The parallel scans run with a threshold of 0, so the speedup column shows the crossover: the smallest course
+ * where the parallel scan wins is where {@code -Dtracker.parallelScanThreshold} belongs on the machine.
+ * Usage: {@code java benchmark.ParallelScanBenchmark [courseSizes] [threads]},
+ * e.g. {@code java -Xmx4g benchmark.ParallelScanBenchmark 1000,10000,100000,1000000,4000000 8}
+ * */
+public class ParallelScanBenchmark {
+
+    private static final String DEFAULT_COURSE_SIZES = "1000,10000,100000,1000000,4000000";
+    private static final int POINTS_TO_FINISH = 600;
+    private static final int TOP_LEARNERS = 10;
+    private static final int UPDATED_SHARE_DIVISOR = 6;
+    private static final int BATCH_SIZE = 4096;
+    private static final long MIN_MEASURED_NANOS = 200_000_000L;
+    private static final int MIN_REPETITIONS = 5;
+    private static final long SEED = 42L;
+
+    private final SplittableRandom random = new SplittableRandom(SEED);
+
+    public static void main(String[] args) {
+        String[] courseSizes = (args.length > 0 ? args[0] : DEFAULT_COURSE_SIZES).split(",");
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        try (ScanParallelism parallel = ScanParallelism.of(threads, 0)) {
+            System.out.printf("parallel scans: %s, %d cores%n", parallel, Runtime.getRuntime().availableProcessors());
+            System.out.printf("%-10s%-12s%-16s%-16s%-10s%n", "students", "scan", "sequential us", "parallel us",
+                    "speedup");
+            ParallelScanBenchmark parallelScanBenchmark = new ParallelScanBenchmark();
+            for (String courseSize : courseSizes) {
+                parallelScanBenchmark.compare(Integer.parseInt(courseSize.trim()), parallel);
+            }
+        }
+    }
+
+    private void compare(int students, ScanParallelism parallel) {
+        Course course = createCourse(students);
+        compare(students, "completed", course, parallel, timed(course::getStudentsFinishedCourse));
+        compare(students, "verify", course, parallel, timed(course::verifyAggregates));
+        // the leaderboard stays due a rebuild, a top that is answered by a scan does not rebuild it
+        addPointsToShare(course, students);
+        compare(students, "top " + TOP_LEARNERS, course, parallel,
+                timed(() -> course.getTopLearnerIds(TOP_LEARNERS)));
+        compare(students, "rebuild", course, parallel, () -> {
+            addPointsToShare(course, students);
+            long start = System.nanoTime();
+            course.getLeaderboardPage(0, TOP_LEARNERS);
+            return System.nanoTime() - start;
+        });
+    }
+
+    private void compare(int students, String scan, Course course, ScanParallelism parallel, TimedScan timedScan) {
+        course.setScanParallelism(ScanParallelism.SEQUENTIAL);
+        double sequentialNanos = measure(timedScan);
+        course.setScanParallelism(parallel);
+        double parallelNanos = measure(timedScan);
+        System.out.printf("%-10d%-12s%-16.1f%-16.1f%-10.2f%n", students, scan, sequentialNanos / 1e3,
+                parallelNanos / 1e3, sequentialNanos / parallelNanos);
+    }
+
+    /**
+     * @return average time of one scan, after a warm-up of the same length
+     * */
+    private static double measure(TimedScan timedScan) {
+        double averageNanos = 0;
+        for (int round = 0; round < 2; round++) {
+            int repetitions = 0;
+            long measuredNanos = 0;
+            long start = System.nanoTime();
+            while (System.nanoTime() - start < MIN_MEASURED_NANOS || repetitions < MIN_REPETITIONS) {
+                measuredNanos += timedScan.runNanos();
+                repetitions++;
+            }
+            averageNanos = (double) measuredNanos / repetitions;
+        }
+        return averageNanos;
+    }
+
+    private static TimedScan timed(Runnable scan) {
+        return () -> {
+            long start = System.nanoTime();
+            scan.run();
+            return System.nanoTime() - start;
+        };
+    }
+
+    /**
+     * Enrolls every student with random points, about a fifth of them complete the course.
+     * The students share one {@link Student}, the scans read the columns only
+     * */
+    private Course createCourse(int students) {
+        Course course = new Course(new PlatformCourse(0, "Bench", POINTS_TO_FINISH));
+        Student student = new Student("0", "Bench", "Student", "bench@bench.com");
+        long[] studentIds = new long[BATCH_SIZE];
+        Student[] rowStudents = new Student[BATCH_SIZE];
+        int[] points = new int[BATCH_SIZE];
+        for (int first = 0; first < students; first += BATCH_SIZE) {
+            int rows = Math.min(BATCH_SIZE, students - first);
+            for (int row = 0; row < rows; row++) {
+                studentIds[row] = first + row;
+                rowStudents[row] = student;
+                points[row] = 1 + random.nextInt(POINTS_TO_FINISH * 5 / 4);
+            }
+            course.addPointsToTheCourse(studentIds, rowStudents, points, 0, 1, rows);
+        }
+        return course;
+    }
+
+    /**
+     * Adds a point to a random sixth of the students, more than the leaderboard repositions one by one
+     * */
+    private void addPointsToShare(Course course, int students) {
+        for (int i = 0; i < students / UPDATED_SHARE_DIVISOR + 1; i++) {
+            course.addPointsToTheCourse(random.nextInt(students), 1);
+        }
+    }
+
+    private interface TimedScan {
+        /**
+         * @return time of the scan alone, without the updates that prepare it
+         * */
+        long runNanos();
+    }
+}
@@ -0,0 +1,112 @@
+package benchmark;
+
+import persistence.WriteAheadLog;
+import tracker.CourseCatalog;
+import tracker.LearningPlatform;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Measures the append rate of the {@link WriteAheadLog} and the time to recover the platform from it.
+ * <ol>
+ * <li>appends {@code events} events (1% registrations, the rest points) to a fresh data directory</li>
+ * <li>starts a new JVM which recovers the platform by replaying the whole log, then writes a snapshot</li>
+ * <li>starts another JVM which recovers from the snapshot</li>
+ * </ol>
+ * Usage: {@code java benchmark.PersistenceBenchmark [events] [dataDirectory]}
+ * */
+public class PersistenceBenchmark {
+
+    private static final long FIRST_STUDENT_ID = 10000L;
+    private static final int DEFAULT_EVENTS = 10_000_000;
+    private static final int REGISTRATIONS_PER_HUNDRED_EVENTS = 1;
+    private static final long SYNC_INTERVAL_MILLIS = 50;
+    private static final String RECOVER_MODE = "--recover";
+    private static final long SEED = 42L;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals(RECOVER_MODE)) {
+            recover(args.length > 1 && Boolean.parseBoolean(args[1]));
+            return;
+        }
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_EVENTS;
+        Path dataDirectory = args.length > 1 ? Path.of(args[1]) : Files.createTempDirectory("tracker-wal");
+        deleteDirectory(dataDirectory);
+
+        int numberOfCourses = CourseCatalog.load().size();
+        int numberOfStudents = Math.max(1, events / 100 * REGISTRATIONS_PER_HUNDRED_EVENTS);
+        Random random = new Random(SEED);
+        int[] points = new int[numberOfCourses];
+        long start = System.nanoTime();
+        try (WriteAheadLog writeAheadLog = WriteAheadLog.open(dataDirectory, 0, SYNC_INTERVAL_MILLIS)) {
+            for (int student = 0; student < numberOfStudents; student++) {
+                writeAheadLog.appendRegistration(FIRST_STUDENT_ID + student, "Student", "Number",
+                        "s" + student + "@bench.com");
+            }
+            for (int event = numberOfStudents; event < events; event++) {
+                for (int course = 0; course < numberOfCourses; course++) {
+                    points[course] = random.nextInt(10);
+                }
+                writeAheadLog.appendPoints(FIRST_STUDENT_ID + random.nextInt(numberOfStudents), points, 0,
+                        numberOfCourses);
+            }
+            writeAheadLog.sync();
+        }
+        double appendSeconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("appended %d events in %.2f s: %.0f events/s, log %d MB%n", events, appendSeconds,
+                events / appendSeconds, directorySize(dataDirectory) >> 20);
+
+        runRecovery(dataDirectory, "log replay", true);
+        runRecovery(dataDirectory, "snapshot", false);
+        deleteDirectory(dataDirectory);
+    }
+
+    private static void runRecovery(Path dataDirectory, String name, boolean takeSnapshot)
+            throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), "-Dtracker.dataDir=" + dataDirectory,
+                PersistenceBenchmark.class.getName(), RECOVER_MODE, String.valueOf(takeSnapshot))
+                .inheritIO().start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Recovery from the " + name + " has failed");
+        }
+    }
+
+    private static void recover(boolean takeSnapshot) {
+        long start = System.nanoTime();
+        LearningPlatform learningPlatform = LearningPlatform.getInstance();
+        double recoverySeconds = (System.nanoTime() - start) / 1e9;
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("recovered in %.2f s, heap %d MB%n", recoverySeconds,
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+        if (takeSnapshot) {
+            start = System.nanoTime();
+            learningPlatform.takeSnapshot();
+            System.out.printf("snapshot written in %.2f s%n", (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                if (!file.equals(directory)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
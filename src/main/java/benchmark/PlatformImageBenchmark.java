@@ -0,0 +1,205 @@
+package benchmark;
+
+import output.NullOutputSink;
+import output.OutputSink;
+import persistence.PlatformImage;
+import persistence.PlatformSnapshot;
+import persistence.SnapshotFile;
+import pojo.CourseSnapshot;
+import pojo.Student;
+import tracker.CourseCatalog;
+import tracker.LearningPlatform;
+import tracker.PlatformCourse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Compares starting the platform from a memory-mapped {@link PlatformImage} with recovering it from a snapshot.
+ * <ol>
+ * <li>a new JVM generates {@code students} students with points in every course and writes both files</li>
+ * <li>a new JVM opens the image and runs random finds and the top 10 of every course on it</li>
+ * <li>a new JVM recovers the platform from the snapshot and runs the same queries</li>
+ * </ol>
+ * Every JVM reports its startup time and the heap used after a GC. The files go to a fresh temporary directory,
+ * created in {@code parentDirectory} if given, which is deleted afterwards; nothing else is touched.
+ * Usage: {@code java benchmark.PlatformImageBenchmark [students] [parentDirectory]}
+ * */
+public class PlatformImageBenchmark {
+
+    private static final int DEFAULT_STUDENTS = 5_000_000;
+    private static final long FIRST_STUDENT_ID = 10000L;
+    private static final int ENROLLMENTS_PER_HUNDRED_STUDENTS = 50;
+    private static final int FINDS = 100_000;
+    private static final int TOP_LEARNERS = 10;
+    private static final String IMAGE_FILE = "platform.img";
+    private static final String CHILD_HEAP = System.getProperty("benchmark.childHeap", "3g");
+    private static final long SEED = 42L;
+    private static final String[] FIRST_NAMES = {"John", "Anny", "Jean", "Robert", "Maria", "Olga", "Ivan", "Li",
+            "Ahmed", "Sofia", "Lucas", "Emma", "Noah", "Mia", "Yuki", "Chen"};
+    private static final String[] LAST_NAMES = {"Smith", "Doolittle", "van Helsing", "Owen", "Garcia", "Petrova",
+            "Kim", "Nguyen", "Mueller", "Rossi", "Silva", "Kowalski", "Tanaka", "Wang", "Brown", "Jones"};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 2) {
+            Path directory = Path.of(args[1]);
+            int students = Integer.parseInt(args[2]);
+            switch (args[0]) {
+                case "--generate" -> generate(directory, students);
+                case "--image" -> queryImage(directory, students);
+                case "--snapshot" -> querySnapshot(students);
+                default -> throw new IllegalArgumentException("Unknown mode " + args[0]);
+            }
+            return;
+        }
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_STUDENTS;
+        Path directory = args.length > 1 ? Files.createTempDirectory(Path.of(args[1]), "tracker-image")
+                : Files.createTempDirectory("tracker-image");
+        try {
+            runChild(directory, students, "--generate");
+            runChild(directory, students, "--image");
+            runChild(directory, students, "--snapshot");
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    private static void runChild(Path directory, int students, String mode) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx" + CHILD_HEAP, "-cp", System.getProperty("java.class.path"),
+                "-Dtracker.dataDir=" + directory, PlatformImageBenchmark.class.getName(), mode,
+                directory.toString(), String.valueOf(students))
+                .inheritIO().start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("The " + mode + " run has failed");
+        }
+    }
+
+    private static void generate(Path directory, int numberOfStudents) throws IOException {
+        List<PlatformCourse> courses = CourseCatalog.load().getCourses();
+        Random random = new Random(SEED);
+        List<Student> students = new ArrayList<>(numberOfStudents);
+        for (int i = 0; i < numberOfStudents; i++) {
+            students.add(new Student(String.valueOf(FIRST_STUDENT_ID + i),
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                    "s" + i + "@bench.com"));
+        }
+        List<String> courseNames = new ArrayList<>(courses.size());
+        List<CourseSnapshot> courseSnapshots = new ArrayList<>(courses.size());
+        for (PlatformCourse course : courses) {
+            courseNames.add(course.getCourseName());
+            courseSnapshots.add(generateCourse(random, numberOfStudents, course.getTotalNumberOfPointsToFinish()));
+        }
+        PlatformSnapshot platformSnapshot = new PlatformSnapshot(0, FIRST_STUDENT_ID + numberOfStudents,
+                courseNames, students, courseSnapshots);
+
+        long start = System.nanoTime();
+        PlatformImage.write(directory.resolve(IMAGE_FILE), platformSnapshot, courses);
+        System.out.printf("image: written in %.2f s, %d MB%n", (System.nanoTime() - start) / 1e9,
+                Files.size(directory.resolve(IMAGE_FILE)) >> 20);
+        start = System.nanoTime();
+        SnapshotFile.write(directory, platformSnapshot);
+        System.out.printf("snapshot: written in %.2f s, %d MB%n", (System.nanoTime() - start) / 1e9,
+                (directorySize(directory) - Files.size(directory.resolve(IMAGE_FILE))) >> 20);
+    }
+
+    private static CourseSnapshot generateCourse(Random random, int numberOfStudents, int totalNumberOfPointsToFinish) {
+        int enrolled = 0;
+        long[] studentIds = new long[numberOfStudents];
+        int[] earnedPoints = new int[numberOfStudents];
+        int[] submissions = new int[numberOfStudents];
+        for (int i = 0; i < numberOfStudents; i++) {
+            if (random.nextInt(100) < ENROLLMENTS_PER_HUNDRED_STUDENTS) {
+                studentIds[enrolled] = FIRST_STUDENT_ID + i;
+                submissions[enrolled] = 1 + random.nextInt(20);
+                earnedPoints[enrolled] = random.nextInt(totalNumberOfPointsToFinish);
+                enrolled++;
+            }
+        }
+        return new CourseSnapshot(Arrays.copyOf(studentIds, enrolled),
+                Arrays.copyOf(earnedPoints, enrolled), Arrays.copyOf(submissions, enrolled),
+                new long[0]);
+    }
+
+    private static void queryImage(Path directory, int numberOfStudents) throws IOException {
+        long start = System.nanoTime();
+        PlatformImage platformImage = PlatformImage.open(directory.resolve(IMAGE_FILE));
+        report("image", start);
+        OutputSink outputSink = new NullOutputSink();
+        runQueries("image",
+                studentId -> platformImage.printStudentPointsInAllPlatformCourses(studentId, outputSink),
+                () -> {
+                    for (int course = 0; course < platformImage.getNumberOfCourses(); course++) {
+                        platformImage.getTopLearners(course, outputSink, 0, TOP_LEARNERS);
+                    }
+                }, numberOfStudents);
+    }
+
+    private static void querySnapshot(int numberOfStudents) {
+        long start = System.nanoTime();
+        LearningPlatform learningPlatform = LearningPlatform.getInstance();
+        report("snapshot", start);
+        OutputSink outputSink = new NullOutputSink();
+        learningPlatform.setOutputSink(outputSink);
+        runQueries("snapshot", learningPlatform::printStudentPointsInAllPlatformCourses,
+                () -> {
+                    for (PlatformCourse course : learningPlatform.getCourseCatalog().getCourses()) {
+                        learningPlatform.getCourse(course).getTopLearners(outputSink, 0, TOP_LEARNERS);
+                    }
+                }, numberOfStudents);
+    }
+
+    private static void report(String name, long start) {
+        double startupMillis = (System.nanoTime() - start) / 1e6;
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("%s: started in %.1f ms, heap after GC %d MB%n", name, startupMillis,
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+    }
+
+    /**
+     * The first top 10 includes building the leaderboard, so it is reported apart from the following ones
+     * */
+    private static void runQueries(String name, Consumer<String> find, Runnable topLearners,
+                                   int numberOfStudents) {
+        long start = System.nanoTime();
+        topLearners.run();
+        double firstTopMillis = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        topLearners.run();
+        double topMillis = (System.nanoTime() - start) / 1e6;
+        Random random = new Random(SEED);
+        start = System.nanoTime();
+        for (int i = 0; i < FINDS; i++) {
+            find.accept(String.valueOf(FIRST_STUDENT_ID + random.nextInt(numberOfStudents)));
+        }
+        double findMicros = (System.nanoTime() - start) / 1e3 / FINDS;
+        System.out.printf("%s: first top %d of all courses %.1f ms, next %.2f ms, find %.2f us%n", name,
+                TOP_LEARNERS, firstTopMillis, topMillis, findMicros);
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    /**
+     * Deletes the temporary directory of the run with everything the children wrote to it
+     * */
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
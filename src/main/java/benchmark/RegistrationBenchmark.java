@@ -0,0 +1,62 @@
+package benchmark;
+
+import output.BufferedOutputSink;
+import registry.EmailRegistry;
+import registry.EmailRegistryFactory;
+import tracker.LearningPlatform;
+
+/**
+ * Measures registration throughput while the cohort grows.
+ * The first table goes through {@link LearningPlatform#registerStudentToPlatform(String)}
+ * (select the registry with {@code -Dtracker.emailRegistry=hashed|compact}),
+ * the second one compares both email registries in isolation.
+ * Usage: {@code java benchmark.RegistrationBenchmark [cohortSizes]}
+ * */
+public class RegistrationBenchmark {
+
+    private static final String DEFAULT_COHORT_SIZES = "1000,10000,100000,200000,500000";
+
+    public static void main(String[] args) {
+        String[] cohortSizes = (args.length > 0 ? args[0] : DEFAULT_COHORT_SIZES).split(",");
+        LearningPlatform learningPlatform = LearningPlatform.getInstance();
+        learningPlatform.setOutputSink(BufferedOutputSink.discarding());
+        int registeredStudents = 0;
+
+        System.out.printf("Platform registration (%s registry)%n", System.getProperty("tracker.emailRegistry", "hashed"));
+        System.out.printf("%-12s%-16s%n", "students", "registrations/s");
+        for (String cohortSize : cohortSizes) {
+            int targetSize = Integer.parseInt(cohortSize.trim());
+            int cohort = targetSize - registeredStudents;
+            long start = System.nanoTime();
+            while (registeredStudents < targetSize) {
+                learningPlatform.registerStudentToPlatform("Student Number s" + registeredStudents + "@bench.com");
+                registeredStudents++;
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            System.out.printf("%-12d%-16.0f%n", registeredStudents, cohort * 1_000_000_000.0 / elapsedNanos);
+        }
+
+        System.out.printf("%nEmail registries%n");
+        System.out.printf("%-12s%-12s%-16s%-16s%n", "registry", "emails", "adds/s", "lookups/s");
+        int largestCohort = Integer.parseInt(cohortSizes[cohortSizes.length - 1].trim());
+        for (String registryType : new String[]{"hashed", "compact"}) {
+            EmailRegistry emailRegistry = EmailRegistryFactory.createEmailRegistry(registryType);
+            long start = System.nanoTime();
+            for (int i = 0; i < largestCohort; i++) {
+                emailRegistry.add("s" + i + "@bench.com");
+            }
+            long addNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            int found = 0;
+            for (int i = 0; i < largestCohort; i++) {
+                // every other lookup misses, like a mix of duplicates and fresh registrations
+                if (emailRegistry.contains((i % 2 == 0 ? "s" : "x") + i + "@bench.com")) {
+                    found++;
+                }
+            }
+            long lookupNanos = System.nanoTime() - start;
+            System.out.printf("%-12s%-12d%-16.0f%-16.0f%n", registryType, found * 2,
+                    largestCohort * 1_000_000_000.0 / addNanos, largestCohort * 1_000_000_000.0 / lookupNanos);
+        }
+    }
+}
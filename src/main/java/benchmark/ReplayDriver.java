@@ -0,0 +1,105 @@
+package benchmark;
+
+import output.NullOutputSink;
+import tracker.ConsoleSession;
+import tracker.LearningPlatform;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Pushes a console session through a {@link ConsoleSession} on a fresh platform without any output and
+ * reports the latency percentiles of every kind of command and the total throughput.
+ * A line is classified by {@link ConsoleSession#classify(String)} in the mode it is typed in.
+ * Usage: {@code java benchmark.ReplayDriver [workloadFile]}, without a file the session of
+ * {@link WorkloadGenerator} with the same system properties is generated in memory
+ * */
+public class ReplayDriver {
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    public static void main(String[] args) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (args.length > 0) {
+            lines = Files.readAllLines(Path.of(args[0]), StandardCharsets.UTF_8);
+        } else {
+            new WorkloadGenerator().generate(lines::add);
+        }
+
+        LearningPlatform learningPlatform = LearningPlatform.getInstance();
+        NullOutputSink outputSink = new NullOutputSink();
+        learningPlatform.setOutputSink(outputSink);
+        ConsoleSession consoleSession = new ConsoleSession(learningPlatform, outputSink);
+        Map<String, LatencyRecorder> latencies = new LinkedHashMap<>();
+        boolean isOpen = true;
+        long start = System.nanoTime();
+        for (int i = 0; i < lines.size() && isOpen; i++) {
+            String line = lines.get(i);
+            String command = consoleSession.classify(line).name().toLowerCase(Locale.ROOT);
+            long commandStart = System.nanoTime();
+            isOpen = consoleSession.processLine(line);
+            long latency = System.nanoTime() - commandStart;
+            latencies.computeIfAbsent(command, name -> new LatencyRecorder()).record(latency);
+        }
+        if (isOpen) {
+            learningPlatform.close();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%-14s%10s%12s%12s%12s%12s%n", "command", "count", "p50 us", "p99 us", "p999 us",
+                "max us");
+        long totalCommands = 0;
+        for (Map.Entry<String, LatencyRecorder> entry : latencies.entrySet()) {
+            LatencyRecorder latencyRecorder = entry.getValue();
+            latencyRecorder.sort();
+            System.out.printf("%-14s%10d", entry.getKey(), latencyRecorder.size());
+            for (double percentile : PERCENTILES) {
+                System.out.printf("%12.1f", latencyRecorder.percentile(percentile) / 1e3);
+            }
+            System.out.printf("%12.1f%n", latencyRecorder.percentile(1) / 1e3);
+            totalCommands += latencyRecorder.size();
+        }
+        System.out.printf("%d commands in %.2f s: %.0f commands/s%n", totalCommands, elapsedSeconds,
+                totalCommands / elapsedSeconds);
+    }
+
+    /**
+     * Every latency is kept, so the percentiles are exact
+     * */
+    private static class LatencyRecorder {
+
+        private long[] latencies = new long[1024];
+        private int size;
+
+        void record(long latencyNanos) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void sort() {
+            Arrays.sort(latencies, 0, size);
+        }
+
+        /**
+         * Nearest-rank percentile of the sorted latencies
+         * */
+        long percentile(double percentile) {
+            int rank = (int) Math.ceil(percentile * size);
+            return latencies[Math.max(0, rank - 1)];
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package benchmark;
+
+import metrics.LatencyHistogram;
+import output.BufferedOutputSink;
+import search.SearchField;
+import search.SearchPage;
+import search.StudentSearchIndex;
+import tracker.LearningPlatform;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Measures the student search index at scale: registers the students through
+ * {@link LearningPlatform#register(String)}, which keeps the index up to date, then reports the latency
+ * percentiles of prefix pages and of edit-distance queries on every field.
+ * Names are built from syllables, so there are thousands of distinct first and last names shared by many students,
+ * while every email is distinct. Queries are prefixes of registered values and registered values with random typos.
+ * Give the JVM enough heap for the students, e.g. {@code -Xmx4g} for 5000000.
+ * Usage: {@code java benchmark.SearchBenchmark [students] [queries]}
+ * */
+public class SearchBenchmark {
+
+    private static final String[] SYLLABLES = {"an", "ber", "cha", "dor", "el", "fin", "gar", "hel", "is", "jo",
+            "ka", "lin", "mar", "nor", "ol", "pet", "qui", "ros", "sa", "tor", "ul", "val", "wen", "ya", "zel"};
+    private static final String[] DOMAINS = {"mail.com", "school.edu", "example.org", "post.net"};
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_PAGE_OFFSET = 1000;
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final long SEED = 42L;
+
+    private final SplittableRandom random = new SplittableRandom(SEED);
+
+    public static void main(String[] args) {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        new SearchBenchmark().run(students, queries);
+    }
+
+    private void run(int students, int queries) {
+        LearningPlatform learningPlatform = LearningPlatform.getInstance();
+        learningPlatform.setOutputSink(BufferedOutputSink.discarding());
+        String[] firstNames = new String[students];
+        String[] lastNames = new String[students];
+        String[] emails = new String[students];
+        long start = System.nanoTime();
+        for (int i = 0; i < students; i++) {
+            firstNames[i] = name(2);
+            lastNames[i] = name(3);
+            emails[i] = firstNames[i].toLowerCase(Locale.ROOT) + '.' + lastNames[i].toLowerCase(Locale.ROOT) + i + '@'
+                    + DOMAINS[random.nextInt(DOMAINS.length)];
+            if (!learningPlatform.register(firstNames[i] + ' ' + lastNames[i] + ' ' + emails[i]).isRegistered()) {
+                throw new IllegalStateException("Cannot register " + emails[i]);
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        System.out.printf("%d students registered in %d ms: %.0f registrations/s%n", students,
+                elapsedNanos / 1_000_000, students * 1e9 / elapsedNanos);
+
+        // the first round only warms up the JIT, so that compilations do not show up in the percentiles
+        for (boolean isWarmUp : new boolean[]{true, false}) {
+            if (!isWarmUp) {
+                System.out.printf("%-22s%10s%12s%12s%12s%12s%12s%n", "query", "count", "hits/query", "p50 us",
+                        "p99 us", "p999 us", "max us");
+            }
+            measureQueries(learningPlatform, queries, firstNames, lastNames, emails, isWarmUp);
+        }
+    }
+
+    private void measureQueries(LearningPlatform learningPlatform, int queries, String[] firstNames,
+                                String[] lastNames, String[] emails, boolean isWarmUp) {
+        for (SearchField searchField : SearchField.values()) {
+            String[] values = searchField == SearchField.FIRST_NAME ? firstNames
+                    : searchField == SearchField.LAST_NAME ? lastNames : emails;
+            int prefixLength = searchField == SearchField.EMAIL ? 6 : 3;
+            measure(searchField.getShortName() + " prefix", queries, isWarmUp, () ->
+                    learningPlatform.searchStudents(searchField, prefix(values, prefixLength), 0, PAGE_SIZE));
+            measure(searchField.getShortName() + " prefix deep", queries, isWarmUp, () ->
+                    learningPlatform.searchStudents(searchField, prefix(values, 1), DEEP_PAGE_OFFSET, PAGE_SIZE));
+            for (int maxEdits = 1; maxEdits <= StudentSearchIndex.MAX_EDITS; maxEdits++) {
+                int edits = maxEdits;
+                measure(searchField.getShortName() + " similar " + maxEdits, queries, isWarmUp, () ->
+                        learningPlatform.findSimilarStudents(searchField, typo(values, edits), edits, PAGE_SIZE));
+            }
+        }
+    }
+
+    private void measure(String query, int queries, boolean isWarmUp, QueryRunner queryRunner) {
+        LatencyHistogram latencies = new LatencyHistogram();
+        long hits = 0;
+        for (int i = 0; i < queries; i++) {
+            long start = System.nanoTime();
+            SearchPage searchPage = queryRunner.run();
+            latencies.record(System.nanoTime() - start);
+            hits += searchPage.size();
+        }
+        if (isWarmUp) {
+            return;
+        }
+        LatencyHistogram.Snapshot snapshot = latencies.snapshot();
+        System.out.printf("%-22s%10d%12.1f", query, snapshot.getCount(), (double) hits / queries);
+        for (double percentile : PERCENTILES) {
+            System.out.printf("%12.1f", snapshot.getPercentile(percentile) / 1e3);
+        }
+        System.out.printf("%12.1f%n", snapshot.getMax() / 1e3);
+    }
+
+    private String name(int syllables) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    private String prefix(String[] values, int length) {
+        String value = values[random.nextInt(values.length)];
+        return value.substring(0, Math.min(length, value.length()));
+    }
+
+    /**
+     * @return a registered value with that many random substitutions, insertions or deletions
+     * */
+    private String typo(String[] values, int edits) {
+        StringBuilder value = new StringBuilder(values[random.nextInt(values.length)]);
+        for (int i = 0; i < edits; i++) {
+            int position = random.nextInt(value.length());
+            char character = (char) ('a' + random.nextInt(26));
+            switch (random.nextInt(3)) {
+                case 0:
+                    value.setCharAt(position, character);
+                    break;
+                case 1:
+                    value.insert(position, character);
+                    break;
+                default:
+                    if (value.length() > 1) {
+                        value.deleteCharAt(position);
+                    }
+                    break;
+            }
+        }
+        return value.toString();
+    }
+
+    private interface QueryRunner {
+        SearchPage run();
+    }
+}
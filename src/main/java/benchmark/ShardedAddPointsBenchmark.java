@@ -0,0 +1,81 @@
+package benchmark;
+
+import tracker.ShardedPlatform;
+
+import java.util.Random;
+
+/**
+ * Throughput of {@link ShardedPlatform#submitPoints(long[], int[], int)} with as many ingestion threads as shards.
+ * Every thread sends its own pre-built batches of points rows without waiting for them to be applied,
+ * the clock stops once every shard has applied every row. The table shows the total throughput in rows per second
+ * and the speedup over the first shard count, which should grow with the shards up to the number of cores.
+ * Usage: {@code java benchmark.ShardedAddPointsBenchmark [shardCounts] [students] [rowsPerThread] [batchSize]},
+ * e.g. {@code java benchmark.ShardedAddPointsBenchmark 1,2,4,8 100000 1000000 256}
+ * */
+public class ShardedAddPointsBenchmark {
+
+    private static final long FIRST_STUDENT_ID = 10000L;
+    private static final String DEFAULT_SHARD_COUNTS = "1,2,4,8";
+    private static final int DEFAULT_STUDENTS = 100_000;
+    private static final int DEFAULT_ROWS = 1_000_000;
+    private static final int DEFAULT_BATCH_SIZE = 256;
+    private static final int MAX_POINTS = 10;
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] shardCounts = (args.length > 0 ? args[0] : DEFAULT_SHARD_COUNTS).split(",");
+        int students = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_STUDENTS;
+        int rowsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ROWS;
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_BATCH_SIZE;
+
+        System.out.printf("%-10s%-16s%-10s%n", "shards", "rows/s", "speedup");
+        double firstThroughput = 0;
+        for (String shardCount : shardCounts) {
+            int shards = Integer.parseInt(shardCount.trim());
+            try (ShardedPlatform shardedPlatform = new ShardedPlatform(shards)) {
+                for (int student = 0; student < students; student++) {
+                    shardedPlatform.register("Student Number" + " s" + student + "@bench.com");
+                }
+                int numberOfCourses = shardedPlatform.getCourseCatalog().size();
+                long[][] studentIds = new long[shards][];
+                int[][] points = new int[shards][];
+                for (int thread = 0; thread < shards; thread++) {
+                    Random random = new Random(thread);
+                    studentIds[thread] = new long[rowsPerThread];
+                    points[thread] = new int[rowsPerThread * numberOfCourses];
+                    for (int row = 0; row < rowsPerThread; row++) {
+                        studentIds[thread][row] = FIRST_STUDENT_ID + random.nextInt(students);
+                        for (int course = 0; course < numberOfCourses; course++) {
+                            points[thread][row * numberOfCourses + course] = random.nextInt(MAX_POINTS);
+                        }
+                    }
+                }
+                // warm up with the same rows so that the measured run hits compiled code
+                runAddPoints(shardedPlatform, studentIds, points, numberOfCourses, batchSize);
+                long elapsedNanos = runAddPoints(shardedPlatform, studentIds, points, numberOfCourses, batchSize);
+                double throughput = (double) shards * rowsPerThread * 1_000_000_000.0 / elapsedNanos;
+                if (firstThroughput == 0) {
+                    firstThroughput = throughput;
+                }
+                System.out.printf("%-10d%-16.0f%-10.2f%n", shards, throughput, throughput / firstThroughput);
+            }
+        }
+    }
+
+    private static long runAddPoints(ShardedPlatform shardedPlatform, long[][] studentIds, int[][] points,
+                                     int numberOfCourses, int batchSize) throws InterruptedException {
+        long start = System.nanoTime();
+        ConcurrentStressTest.runConcurrently(studentIds.length, thread -> {
+            long[] batchStudentIds = new long[batchSize];
+            int[] batchPoints = new int[batchSize * numberOfCourses];
+            for (int first = 0; first < studentIds[thread].length; first += batchSize) {
+                int rows = Math.min(batchSize, studentIds[thread].length - first);
+                System.arraycopy(studentIds[thread], first, batchStudentIds, 0, rows);
+                System.arraycopy(points[thread], first * numberOfCourses, batchPoints, 0, rows * numberOfCourses);
+                shardedPlatform.submitPoints(batchStudentIds, batchPoints, rows);
+            }
+        });
+        // every batch is queued by now, the flush waits until the shards have applied them
+        shardedPlatform.flush();
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,70 @@
+package benchmark;
+
+import pojo.Student;
+import registry.StudentTable;
+import registry.StudentTableFactory;
+
+import java.util.SplittableRandom;
+
+/**
+ * Heap footprint of the student tables: the hashed table keeps a {@link Student} with four strings per student,
+ * the compact table keeps columns, interned names and a byte arena, see {@code registry.CompactStudentTable}.
+ * Both tables are filled with the same students, most names come from pools of common first and last names,
+ * a tenth of the last names are unique, every email is unique. The bytes per student are the growth of the heap
+ * after a GC divided by the students; the lookups read the email of random students, like a notification.
+ * Usage: {@code java benchmark.StudentFootprintBenchmark [students]},
+ * e.g. {@code java -Xmx4g benchmark.StudentFootprintBenchmark 5000000}
+ * */
+public class StudentFootprintBenchmark {
+
+    private static final int DEFAULT_STUDENTS = 1_000_000;
+    private static final long FIRST_STUDENT_ID = 10000L;
+    private static final int COMMON_FIRST_NAMES = 2_000;
+    private static final int COMMON_LAST_NAMES = 20_000;
+    private static final int UNIQUE_LAST_NAME_DIVISOR = 10;
+    private static final int LOOKUPS = 1_000_000;
+    private static final int GC_ROUNDS = 5;
+    private static final long SEED = 42L;
+
+    public static void main(String[] args) throws InterruptedException {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_STUDENTS;
+        System.out.printf("%-10s%-12s%-16s%-12s%-16s%n", "table", "students", "bytes/student", "adds/s", "lookups/s");
+        for (String tableType : new String[]{"hashed", "compact"}) {
+            long heapBefore = usedHeapAfterGc();
+            StudentTable studentTable = StudentTableFactory.createStudentTable(tableType);
+            SplittableRandom random = new SplittableRandom(SEED);
+            long start = System.nanoTime();
+            for (int student = 0; student < students; student++) {
+                String firstName = "First" + random.nextInt(COMMON_FIRST_NAMES);
+                String lastName = random.nextInt(UNIQUE_LAST_NAME_DIVISOR) == 0 ? "Unique" + student
+                        : "Last" + random.nextInt(COMMON_LAST_NAMES);
+                studentTable.add(FIRST_STUDENT_ID + student, firstName, lastName,
+                        firstName + "." + lastName + student + "@bench.com");
+            }
+            long addNanos = System.nanoTime() - start;
+            long heapAfter = usedHeapAfterGc();
+
+            start = System.nanoTime();
+            long emailLengths = 0;
+            for (int lookup = 0; lookup < LOOKUPS; lookup++) {
+                emailLengths += studentTable.get(FIRST_STUDENT_ID + random.nextInt(students)).getEmail().length();
+            }
+            long lookupNanos = System.nanoTime() - start;
+            if (emailLengths == 0) {
+                throw new IllegalStateException("No email was read");
+            }
+            System.out.printf("%-10s%-12d%-16.1f%-12.0f%-16.0f%n", tableType, studentTable.size(),
+                    (double) (heapAfter - heapBefore) / students, students * 1_000_000_000.0 / addNanos,
+                    LOOKUPS * 1_000_000_000.0 / lookupNanos);
+        }
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int round = 0; round < GC_ROUNDS; round++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
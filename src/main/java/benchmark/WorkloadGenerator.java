@@ -0,0 +1,209 @@
+package benchmark;
+
+import tracker.CourseCatalog;
+import tracker.PlatformCourse;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Emits a seeded console session, as typed into {@code Main}, for {@link ReplayDriver} or for the console itself.
+ * <ul>
+ * <li>an initial registration burst, then blocks picked by weight until the session has enough lines:
+ * registration bursts, points submissions, finds, statistics with top learners and notify runs</li>
+ * <li>submissions are Zipf-distributed over the students (the earliest registered are the most active) and
+ * over the catalog courses (the first courses are the most popular)</li>
+ * <li>any line inside a block is replaced by a malformed one at the configured rate</li>
+ * </ul>
+ * The ids in the points lines assume a fresh platform, whose ids start at 10000.
+ * Configured with system properties, e.g. {@code -Dworkload.lines=1000000 -Dworkload.malformedRate=0.05}.
+ * Usage: {@code java benchmark.WorkloadGenerator [outputFile]}, writes to the standard output without a file
+ * */
+public class WorkloadGenerator {
+
+    private static final long FIRST_STUDENT_ID = 10000L;
+    private static final int MAX_POINTS = 10;
+    private static final String[] FIRST_NAMES = {"John", "Anny", "Jean-Clause", "Robert", "Maria", "Olga", "Ivan",
+            "Ahmed", "Sofia", "Lucas", "Emma", "Noah", "Mia", "Yuki", "Chen", "O'Neil"};
+    private static final String[] LAST_NAMES = {"Smith", "Doolittle", "van Helsing", "Owen", "Garcia", "Petrova",
+            "Kim", "Nguyen", "Mueller", "Rossi", "Silva", "Kowalski", "Tanaka", "Wang", "Brown", "Jones"};
+    private static final String[] MALFORMED_CREDENTIALS = {"x", "John Smith", "J Smith js@mail.com",
+            "John Smith jsmith@mail", "John S1 js@mail.com", "onlytwo a@b.c"};
+    private static final String[] MALFORMED_COMMANDS = {"", "   ", "statistic", "add student", "remove points"};
+
+    private final long seed = Long.getLong("workload.seed", 42L);
+    private final long lines = Long.getLong("workload.lines", 1_000_000L);
+    private final int initialStudents = Integer.getInteger("workload.initialStudents", 10_000);
+    private final int maxBurstSize = Integer.getInteger("workload.maxBurstSize", 100);
+    private final int maxPointsBlockSize = Integer.getInteger("workload.maxPointsBlockSize", 500);
+    private final int maxQueriesPerBlock = Integer.getInteger("workload.maxQueriesPerBlock", 5);
+    private final double zipfExponent = Double.parseDouble(System.getProperty("workload.zipfExponent", "1.0"));
+    private final double malformedRate = Double.parseDouble(System.getProperty("workload.malformedRate", "0.01"));
+    // relative weights of the blocks after the initial burst
+    private final int registrationWeight = Integer.getInteger("workload.registrationWeight", 5);
+    private final int pointsWeight = Integer.getInteger("workload.pointsWeight", 70);
+    private final int findWeight = Integer.getInteger("workload.findWeight", 15);
+    private final int statisticsWeight = Integer.getInteger("workload.statisticsWeight", 5);
+    private final int notifyWeight = Integer.getInteger("workload.notifyWeight", 5);
+
+    private final List<PlatformCourse> courses = CourseCatalog.load().getCourses();
+    private final ZipfSampler zipfSampler = new ZipfSampler(zipfExponent);
+    private SplittableRandom random;
+    private Consumer<String> output;
+    private long emittedLines;
+    private int registeredStudents;
+
+    public static void main(String[] args) throws IOException {
+        Writer writer = args.length > 0 ? Files.newBufferedWriter(Path.of(args[0]), StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (writer) {
+            long lines = new WorkloadGenerator().generate(line -> {
+                try {
+                    writer.write(line);
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            System.err.printf("%d lines generated%n", lines);
+        }
+    }
+
+    /**
+     * Emits the whole session, the same lines for the same configuration, ending with "exit"
+     * @return number of emitted lines
+     * */
+    public long generate(Consumer<String> output) {
+        this.random = new SplittableRandom(seed);
+        this.output = output;
+        this.emittedLines = 0;
+        this.registeredStudents = 0;
+        registrationBurst(initialStudents);
+        int totalWeight = registrationWeight + pointsWeight + findWeight + statisticsWeight + notifyWeight;
+        while (emittedLines < lines) {
+            int block = random.nextInt(totalWeight);
+            if ((block -= registrationWeight) < 0) {
+                registrationBurst(1 + random.nextInt(maxBurstSize));
+            } else if ((block -= pointsWeight) < 0) {
+                pointsBlock(1 + random.nextInt(maxPointsBlockSize));
+            } else if ((block -= findWeight) < 0) {
+                findBlock(1 + random.nextInt(maxQueriesPerBlock));
+            } else if ((block -= statisticsWeight) < 0) {
+                statisticsBlock(1 + random.nextInt(maxQueriesPerBlock));
+            } else {
+                notifyBlock(random.nextInt(maxQueriesPerBlock));
+            }
+            if (isMalformed()) {
+                emit(MALFORMED_COMMANDS[random.nextInt(MALFORMED_COMMANDS.length)]);
+            }
+        }
+        emit("exit");
+        return emittedLines;
+    }
+
+    private void registrationBurst(int students) {
+        emit("add students");
+        for (int i = 0; i < students; i++) {
+            if (isMalformed()) {
+                emit(MALFORMED_CREDENTIALS[random.nextInt(MALFORMED_CREDENTIALS.length)]);
+            } else {
+                emit(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + ' '
+                        + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " w" + registeredStudents + "@load.test");
+                registeredStudents++;
+            }
+        }
+        emit("back");
+    }
+
+    private void pointsBlock(int submissions) {
+        if (registeredStudents == 0) {
+            return;
+        }
+        emit("add points");
+        StringBuilder pointsLine = new StringBuilder();
+        for (int i = 0; i < submissions; i++) {
+            pointsLine.setLength(0);
+            if (isMalformed()) {
+                malformedPoints(pointsLine);
+            } else {
+                pointsLine.append(randomStudentId());
+                int submittedCourse = zipfSampler.sample(random, courses.size()) - 1;
+                for (int course = 0; course < courses.size(); course++) {
+                    pointsLine.append(' ').append(course == submittedCourse ? 1 + random.nextInt(MAX_POINTS) : 0);
+                }
+            }
+            emit(pointsLine.toString());
+        }
+        emit("back");
+    }
+
+    private void malformedPoints(StringBuilder pointsLine) {
+        switch (random.nextInt(3)) {
+            case 0:
+                // unknown student
+                pointsLine.append(FIRST_STUDENT_ID + registeredStudents + random.nextInt(1_000_000));
+                break;
+            case 1:
+                pointsLine.append(randomStudentId()).append(" a");
+                break;
+            default:
+                // one course short
+                pointsLine.append(randomStudentId());
+                break;
+        }
+        for (int course = 1; course < courses.size(); course++) {
+            pointsLine.append(' ').append(random.nextInt(MAX_POINTS));
+        }
+    }
+
+    private void findBlock(int queries) {
+        emit("find");
+        for (int i = 0; i < queries; i++) {
+            emit(isMalformed() ? "abc" : String.valueOf(randomStudentId()));
+        }
+        emit("back");
+    }
+
+    private void statisticsBlock(int queries) {
+        emit("statistics");
+        for (int i = 0; i < queries; i++) {
+            emit(isMalformed() ? "unknown"
+                    : courses.get(zipfSampler.sample(random, courses.size()) - 1).getCourseName());
+        }
+        emit("back");
+    }
+
+    /**
+     * "notify" runs once on its own and once more for every following line
+     * */
+    private void notifyBlock(int repeats) {
+        emit("notify");
+        for (int i = 0; i < repeats; i++) {
+            emit("");
+        }
+        emit("back");
+    }
+
+    private long randomStudentId() {
+        return registeredStudents == 0 ? FIRST_STUDENT_ID
+                : FIRST_STUDENT_ID + zipfSampler.sample(random, registeredStudents) - 1;
+    }
+
+    private boolean isMalformed() {
+        return random.nextDouble() < malformedRate;
+    }
+
+    private void emit(String line) {
+        output.accept(line);
+        emittedLines++;
+    }
+}
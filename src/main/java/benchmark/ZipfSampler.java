@@ -0,0 +1,66 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+
+/**
+ * Samples ranks 1..n with probabilities proportional to {@code 1 / rank^exponent}.
+ * Uses rejection-inversion (W. Hormann, G. Derflinger), so a sample takes constant time and memory
+ * whatever n is, and n may change from one sample to the next.
+ * */
+final class ZipfSampler {
+
+    private static final double TAYLOR_THRESHOLD = 1e-8;
+
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double s;
+
+    ZipfSampler(double exponent) {
+        if (!(exponent > 0)) {
+            throw new IllegalArgumentException("The Zipf exponent must be positive: " + exponent);
+        }
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * @return a rank from 1 to {@code numberOfElements}, 1 is the most frequent
+     * */
+    int sample(SplittableRandom random, int numberOfElements) {
+        double hIntegralNumberOfElements = hIntegral(numberOfElements + 0.5);
+        while (true) {
+            double u = hIntegralNumberOfElements + random.nextDouble() * (hIntegralX1 - hIntegralNumberOfElements);
+            double x = hIntegralInverse(u);
+            int k = (int) Math.max(1, Math.min(numberOfElements, x + 0.5));
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    /**
+     * Integral of h, {@code (x^(1 - exponent) - 1) / (1 - exponent)}, also for an exponent of 1
+     * */
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return expm1OverX((1 - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = Math.max(-1, x * (1 - exponent));
+        return Math.exp(log1pOverX(t) * x);
+    }
+
+    private static double log1pOverX(double x) {
+        return Math.abs(x) > TAYLOR_THRESHOLD ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    private static double expm1OverX(double x) {
+        return Math.abs(x) > TAYLOR_THRESHOLD ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+    }
+}
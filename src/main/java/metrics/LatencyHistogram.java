@@ -0,0 +1,119 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram of non-negative values, in the manner of HdrHistogram.
+ * Every power of two is split into {@value #SUB_BUCKETS} linear buckets, so a recorded value is known within 1/32
+ * of itself (about 3%) with a fixed footprint of a few kilobytes. Values up to 2^42 (73 minutes in nanoseconds)
+ * are kept apart, larger ones share the last bucket.
+ * <p>
+ * Recording is lock-free and safe from any thread; a {@link #snapshot()} taken while values are recorded may miss
+ * the latest ones.
+ * */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 42;
+    private static final int NUMBER_OF_BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUMBER_OF_BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long value) {
+        long nonNegativeValue = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(nonNegativeValue));
+        total.add(nonNegativeValue);
+        max.accumulate(nonNegativeValue);
+    }
+
+    public Snapshot snapshot() {
+        long[] bucketCounts = new long[NUMBER_OF_BUCKETS];
+        long count = 0;
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            bucketCounts[bucket] = counts.get(bucket);
+            count += bucketCounts[bucket];
+        }
+        return new Snapshot(bucketCounts, count, total.sum(), max.get());
+    }
+
+    /**
+     * Values below {@value #SUB_BUCKETS} have a bucket each,
+     * above them the exponent selects the group and the next bits the bucket within it
+     * */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(value));
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = exponent == MAX_EXPONENT && value >>> shift >= 2 * SUB_BUCKETS ? SUB_BUCKETS - 1
+                : (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return the highest value that falls into the bucket
+     * */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowestValue = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowestValue + (1L << shift) - 1;
+    }
+
+    /**
+     * Immutable copy of the histogram
+     * */
+    public static class Snapshot {
+
+        private final long[] bucketCounts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Snapshot(long[] bucketCounts, long count, long total, long max) {
+            this.bucketCounts = bucketCounts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) total / count;
+        }
+
+        /**
+         * @param percentile from 0 to 1
+         * @return nearest-rank percentile, within the precision of a bucket and never above the maximum
+         * */
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile * count));
+            long seen = 0;
+            for (int bucket = 0; bucket < bucketCounts.length; bucket++) {
+                seen += bucketCounts[bucket];
+                if (seen >= rank) {
+                    return Math.min(max, highestValueOf(bucket));
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replaces a file with the current metrics every interval and once more on {@link #close()}.
+ * A file ending with ".json" gets JSON, any other file the text report; rates cover the last interval.
+ * The file is written aside and moved over the previous one, so a reader never sees half a report
+ * */
+public class MetricsDumper implements AutoCloseable {
+
+    private final MetricsRegistry metricsRegistry;
+    private final Path file;
+    private final boolean isJson;
+    private final ScheduledExecutorService dumper;
+    private MetricsSnapshot previousSnapshot;
+
+    public MetricsDumper(MetricsRegistry metricsRegistry, Path file, long intervalMillis) {
+        this.metricsRegistry = metricsRegistry;
+        this.file = file;
+        this.isJson = file.getFileName().toString().endsWith(".json");
+        this.dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dumper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(this::dumpQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void dump() {
+        MetricsSnapshot snapshot = metricsRegistry.snapshot();
+        String report = isJson ? snapshot.toJson(previousSnapshot) + System.lineSeparator()
+                : snapshot.toText(previousSnapshot);
+        previousSnapshot = snapshot;
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.writeString(temporaryFile, report, StandardCharsets.UTF_8);
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write the metrics to " + file, e);
+        }
+    }
+
+    /**
+     * A failed dump must not cancel the following ones
+     * */
+    private void dumpQuietly() {
+        try {
+            dump();
+        } catch (UncheckedIOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        dumper.shutdown();
+        dump();
+    }
+}
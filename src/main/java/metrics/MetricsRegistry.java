@@ -0,0 +1,77 @@
+package metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Named counters, gauges and timers of the process.
+ * Components look their metrics up once and keep them in fields, so recording never touches the registry;
+ * asking for an existing name returns the same metric.
+ * <ul>
+ * <li>counters and cumulative gauges only grow, reports show their rate</li>
+ * <li>gauges are read when a snapshot is taken, a gauge registered again replaces the previous one</li>
+ * </ul>
+ * */
+public class MetricsRegistry {
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> cumulativeGauges = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private static class InstanceHolder {
+        private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+    }
+
+    public static MetricsRegistry getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, counterName -> new Counter());
+    }
+
+    /**
+     * @param sampleEvery a power of two, the timer records the latency of one call in {@code sampleEvery}
+     * */
+    public Timer timer(String name, int sampleEvery) {
+        return timers.computeIfAbsent(name, timerName -> new Timer(sampleEvery));
+    }
+
+    /**
+     * Registers a value that only grows and is kept elsewhere, e.g. a running total of a course
+     * */
+    public void registerCumulativeGauge(String name, LongSupplier value) {
+        cumulativeGauges.put(name, value);
+    }
+
+    public void registerGauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Removes the gauge of a closed component unless another one has replaced it meanwhile
+     * */
+    public void unregisterGauge(String name, LongSupplier value) {
+        gauges.remove(name, value);
+    }
+
+    /**
+     * Reads every metric, sorted by name
+     * */
+    public MetricsSnapshot snapshot() {
+        long nanoTime = System.nanoTime();
+        Map<String, Long> totals = new TreeMap<>();
+        counters.forEach((name, counter) -> totals.put(name, counter.sum()));
+        cumulativeGauges.forEach((name, value) -> totals.put(name, value.getAsLong()));
+        Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, value) -> values.put(name, value.getAsLong()));
+        Map<String, MetricsSnapshot.TimerSnapshot> timerSnapshots = new TreeMap<>();
+        timers.forEach((name, timer) ->
+                timerSnapshots.put(name, new MetricsSnapshot.TimerSnapshot(timer.getCount(), timer.getLatencies())));
+        return new MetricsSnapshot(nanoTime, nanoTime - startNanos, totals, values, timerSnapshots);
+    }
+}
@@ -0,0 +1,152 @@
+package metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Values of all metrics at one moment, rendered as text or JSON.
+ * Rates are calculated against an earlier snapshot, or since the start of the process without one
+ * */
+public class MetricsSnapshot {
+
+    private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long nanoTime;
+    private final long uptimeNanos;
+    private final Map<String, Long> totals;
+    private final Map<String, Long> gauges;
+    private final Map<String, TimerSnapshot> timers;
+
+    MetricsSnapshot(long nanoTime, long uptimeNanos, Map<String, Long> totals, Map<String, Long> gauges,
+                    Map<String, TimerSnapshot> timers) {
+        this.nanoTime = nanoTime;
+        this.uptimeNanos = uptimeNanos;
+        this.totals = totals;
+        this.gauges = gauges;
+        this.timers = timers;
+    }
+
+    /**
+     * @return counters and cumulative gauges by name
+     * */
+    public Map<String, Long> getTotals() {
+        return totals;
+    }
+
+    public Map<String, Long> getGauges() {
+        return gauges;
+    }
+
+    public Map<String, TimerSnapshot> getTimers() {
+        return timers;
+    }
+
+    /**
+     * @param previous earlier snapshot of the same registry or {@code null}
+     * */
+    public double getRatePerSecond(String name, MetricsSnapshot previous) {
+        long total = totals.getOrDefault(name, 0L);
+        if (previous == null) {
+            return uptimeNanos == 0 ? 0 : total * NANOS_PER_SECOND / uptimeNanos;
+        }
+        long elapsedNanos = nanoTime - previous.nanoTime;
+        return elapsedNanos == 0 ? 0 : (total - previous.totals.getOrDefault(name, 0L)) * NANOS_PER_SECOND / elapsedNanos;
+    }
+
+    public String toText(MetricsSnapshot previous) {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "uptime %.1f s%n", uptimeNanos / NANOS_PER_SECOND));
+        text.append(String.format(Locale.ROOT, "%-40s%14s%14s%n", "counter", "total", "rate/s"));
+        totals.forEach((name, total) -> text.append(String.format(Locale.ROOT, "%-40s%14d%14.1f%n", name, total,
+                getRatePerSecond(name, previous))));
+        if (!gauges.isEmpty()) {
+            text.append(String.format(Locale.ROOT, "%-40s%14s%n", "gauge", "value"));
+            gauges.forEach((name, value) -> text.append(String.format(Locale.ROOT, "%-40s%14d%n", name, value)));
+        }
+        text.append(String.format(Locale.ROOT, "%-40s%14s%10s%10s%10s%10s%10s%n", "timer", "count", "sampled",
+                "p50 us", "p99 us", "p999 us", "max us"));
+        timers.forEach((name, timer) -> text.append(String.format(Locale.ROOT,
+                "%-40s%14d%10d%10.1f%10.1f%10.1f%10.1f%n", name, timer.getCount(), timer.getLatencies().getCount(),
+                timer.getPercentileMicros(0.5), timer.getPercentileMicros(0.99), timer.getPercentileMicros(0.999),
+                timer.getLatencies().getMax() / NANOS_PER_MICRO)));
+        return text.toString();
+    }
+
+    public String toJson(MetricsSnapshot previous) {
+        StringBuilder json = new StringBuilder("{");
+        json.append(String.format(Locale.ROOT, "\"uptimeSeconds\":%.3f,\"counters\":{", uptimeNanos / NANOS_PER_SECOND));
+        String separator = "";
+        for (Map.Entry<String, Long> total : totals.entrySet()) {
+            json.append(separator);
+            appendJsonString(json, total.getKey());
+            json.append(String.format(Locale.ROOT, ":{\"total\":%d,\"ratePerSecond\":%.3f}", total.getValue(),
+                    getRatePerSecond(total.getKey(), previous)));
+            separator = ",";
+        }
+        json.append("},\"gauges\":{");
+        separator = "";
+        for (Map.Entry<String, Long> gauge : gauges.entrySet()) {
+            json.append(separator);
+            appendJsonString(json, gauge.getKey());
+            json.append(':').append(gauge.getValue());
+            separator = ",";
+        }
+        json.append("},\"timers\":{");
+        separator = "";
+        for (Map.Entry<String, TimerSnapshot> entry : timers.entrySet()) {
+            TimerSnapshot timer = entry.getValue();
+            json.append(separator);
+            appendJsonString(json, entry.getKey());
+            json.append(String.format(Locale.ROOT, ":{\"count\":%d,\"sampled\":%d,\"meanMicros\":%.3f,"
+                            + "\"p50Micros\":%.3f,\"p99Micros\":%.3f,\"p999Micros\":%.3f,\"maxMicros\":%.3f}",
+                    timer.getCount(), timer.getLatencies().getCount(), timer.getLatencies().getMean() / NANOS_PER_MICRO,
+                    timer.getPercentileMicros(0.5), timer.getPercentileMicros(0.99), timer.getPercentileMicros(0.999),
+                    timer.getLatencies().getMax() / NANOS_PER_MICRO));
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+
+    private static void appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character == '"' || character == '\\') {
+                json.append('\\').append(character);
+            } else if (character < ' ') {
+                json.append(String.format("\\u%04x", (int) character));
+            } else {
+                json.append(character);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Number of calls and the latencies of the sampled ones
+     * */
+    public static class TimerSnapshot {
+
+        private final long count;
+        private final LatencyHistogram.Snapshot latencies;
+
+        TimerSnapshot(long count, LatencyHistogram.Snapshot latencies) {
+            this.count = count;
+            this.latencies = latencies;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public LatencyHistogram.Snapshot getLatencies() {
+            return latencies;
+        }
+
+        public double getPercentileMicros(double percentile) {
+            return latencies.getPercentile(percentile) / NANOS_PER_MICRO;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package notifications;
+
+import metrics.MetricsRegistry;
+import metrics.Timer;
+import pojo.Student;
+import tracker.PlatformCourse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Delivers notifications through a backend service asynchronously.
+ * <ul>
+ * <li>notifications wait in a bounded queue, a caller blocks while the queue is full (backpressure)</li>
+ * <li>workers take up to {@code maxBatchSize} queued notifications and hand them to
+ * {@link NotificationService#sendNotifications(Collection)} of the backend in one call</li>
+ * <li>the failed notifications of a batch are retried with exponential backoff, the delivered ones are not sent
+ * again; after the last attempt the futures of the failed ones fail</li>
+ * <li>an {@link Error} of the backend stops the dispatcher, the batch and every queued notification fail</li>
+ * </ul>
+ * With a single worker the notifications reach the backend in the order they were queued.
+ * Besides its own {@link NotificationMetrics} the dispatcher records the time of every batch and the time from
+ * queueing to delivery of every notification in the {@link MetricsRegistry}.
+ * Workers are daemon threads, {@link #close()} delivers what is queued and stops them.
+ * */
+public class AsyncNotificationDispatcher implements NotificationService, AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 50;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final String QUEUE_DEPTH_GAUGE = "notifications.queueDepth";
+
+    private final NotificationService backend;
+    private final BlockingQueue<PendingNotification> queue;
+    private final int maxBatchSize;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final ExecutorService workers;
+    private final NotificationMetrics metrics;
+    private final Timer batchDeliveries;
+    private final Timer deliveries;
+    private final LongSupplier queueDepthGauge;
+    private volatile boolean closed;
+
+    public AsyncNotificationDispatcher(NotificationService backend) {
+        this(backend, DEFAULT_QUEUE_CAPACITY, 1, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_ATTEMPTS,
+                DEFAULT_INITIAL_BACKOFF_MILLIS);
+    }
+
+    public AsyncNotificationDispatcher(NotificationService backend, int queueCapacity, int numberOfWorkers,
+                                       int maxBatchSize, int maxAttempts, long initialBackoffMillis) {
+        if (queueCapacity < 1 || numberOfWorkers < 1 || maxBatchSize < 1 || maxAttempts < 1
+                || initialBackoffMillis < 0) {
+            throw new IllegalArgumentException("Capacity, workers, batch size and attempts must be positive");
+        }
+        this.backend = backend;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.metrics = new NotificationMetrics(queue::size);
+        MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+        this.batchDeliveries = metricsRegistry.timer("notifications.batch", 1);
+        this.deliveries = metricsRegistry.timer("notifications.delivery", 1);
+        this.queueDepthGauge = queue::size;
+        metricsRegistry.registerGauge(QUEUE_DEPTH_GAUGE, queueDepthGauge);
+        this.workers = Executors.newFixedThreadPool(numberOfWorkers, runnable -> {
+            Thread worker = new Thread(runnable, "notification-dispatcher");
+            worker.setDaemon(true);
+            return worker;
+        });
+        for (int i = 0; i < numberOfWorkers; i++) {
+            workers.execute(this::deliverQueuedNotifications);
+        }
+    }
+
+    @Override
+    public void sendNotification(PlatformCourse completedCourse, Student student) {
+        dispatch(new Notification(completedCourse, student));
+    }
+
+    @Override
+    public List<CompletableFuture<Void>> sendEach(Collection<Notification> notifications) {
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            deliveries.add(dispatch(notification));
+        }
+        return deliveries;
+    }
+
+    /**
+     * Queues the notification, blocking while the queue is full
+     * @return future completed when the backend has accepted the notification
+     * */
+    public CompletableFuture<Void> dispatch(Notification notification) {
+        CompletableFuture<Void> delivery = new CompletableFuture<>();
+        if (closed) {
+            delivery.completeExceptionally(new IllegalStateException("The dispatcher is closed"));
+            return delivery;
+        }
+        PendingNotification pendingNotification = new PendingNotification(notification, delivery);
+        try {
+            queue.put(pendingNotification);
+            metrics.recordEnqueued();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            delivery.completeExceptionally(e);
+            return delivery;
+        }
+        // closed meanwhile: the workers may have left already, unless one of them has taken the notification
+        if (closed && queue.remove(pendingNotification)) {
+            fail(List.of(pendingNotification), new IllegalStateException("The dispatcher is closed"));
+        }
+        return delivery;
+    }
+
+    public NotificationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Stops accepting notifications and waits until the queued ones are delivered.
+     * Notifications still queued once the workers have left fail, the queue depth gauge is removed
+     * */
+    @Override
+    public void close() {
+        closed = true;
+        MetricsRegistry.getInstance().unregisterGauge(QUEUE_DEPTH_GAUGE, queueDepthGauge);
+        workers.shutdown();
+        try {
+            while (!workers.awaitTermination(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                // the workers leave once the queue is empty
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        failQueued(new IllegalStateException("The dispatcher is closed"));
+    }
+
+    private void deliverQueuedNotifications() {
+        List<PendingNotification> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (true) {
+                PendingNotification first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                deliver(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            if (!batch.isEmpty()) {
+                fail(batch, e);
+            }
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            // the worker dies, nothing queued would be delivered by it and the other workers may share its fate
+            closed = true;
+            fail(batch, e);
+            failQueued(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Completes the futures of the batch: an attempt sends the notifications that are not delivered yet
+     * */
+    private void deliver(List<PendingNotification> batch) throws InterruptedException {
+        List<PendingNotification> undelivered = batch;
+        long backoffMillis = initialBackoffMillis;
+        long start = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            List<PendingNotification> failed = new ArrayList<>();
+            Throwable failure = sendOnce(undelivered, failed);
+            if (failed.isEmpty()) {
+                batchDeliveries.record(System.nanoTime() - start);
+                metrics.recordSentBatch();
+                return;
+            }
+            if (attempt == maxAttempts) {
+                if (failed.size() < batch.size()) {
+                    metrics.recordSentBatch();
+                }
+                fail(failed, failure);
+                return;
+            }
+            metrics.recordRetry();
+            TimeUnit.MILLISECONDS.sleep(backoffMillis);
+            backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+            undelivered = failed;
+        }
+    }
+
+    /**
+     * Sends the notifications to the backend once and completes the futures of the delivered ones
+     * @param failed receives the notifications that were not delivered
+     * @return cause of the last failure, {@code null} if every notification was delivered
+     * */
+    private Throwable sendOnce(List<PendingNotification> pendingNotifications, List<PendingNotification> failed) {
+        List<Notification> notifications = new ArrayList<>(pendingNotifications.size());
+        for (PendingNotification pendingNotification : pendingNotifications) {
+            notifications.add(pendingNotification.notification);
+        }
+        List<CompletableFuture<Void>> results;
+        try {
+            results = backend.sendEach(notifications);
+        } catch (RuntimeException e) {
+            failed.addAll(pendingNotifications);
+            return e;
+        }
+        Throwable failure = null;
+        int sent = 0;
+        for (int i = 0; i < pendingNotifications.size(); i++) {
+            PendingNotification pendingNotification = pendingNotifications.get(i);
+            try {
+                results.get(i).join();
+            } catch (CompletionException | CancellationException e) {
+                failure = e instanceof CompletionException ? e.getCause() : e;
+                failed.add(pendingNotification);
+                continue;
+            }
+            deliveries.record(System.nanoTime() - pendingNotification.enqueuedNanos);
+            pendingNotification.delivery.complete(null);
+            sent++;
+        }
+        if (sent > 0) {
+            metrics.recordSent(sent);
+        }
+        return failure;
+    }
+
+    private void failQueued(Throwable cause) {
+        List<PendingNotification> queued = new ArrayList<>();
+        queue.drainTo(queued);
+        if (!queued.isEmpty()) {
+            fail(queued, cause);
+        }
+    }
+
+    private void fail(List<PendingNotification> batch, Throwable cause) {
+        metrics.recordFailed(batch.size());
+        for (PendingNotification pendingNotification : batch) {
+            pendingNotification.delivery.completeExceptionally(cause);
+        }
+    }
+
+    private static class PendingNotification {
+
+        private final Notification notification;
+        private final CompletableFuture<Void> delivery;
+        private final long enqueuedNanos = System.nanoTime();
+
+        private PendingNotification(Notification notification, CompletableFuture<Void> delivery) {
+            this.notification = notification;
+            this.delivery = delivery;
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package notifications;
 
+import output.OutputSink;
 import pojo.Student;
-import tracker.PlatformCourses;
+import tracker.PlatformCourse;
 
 public class EmailNotification implements NotificationService {
 
+    private final OutputSink outputSink;
+
+    public EmailNotification(OutputSink outputSink) {
+        this.outputSink = outputSink;
+    }
+
     @Override
-    public void sendNotification(PlatformCourses completedCourse, Student student) {
+    public void sendNotification(PlatformCourse completedCourse, Student student) {
         String emailTemplate = "To: %s\nRe: Your Learning Progress\nHello, %s! You have accomplished our %s course!\n";
-        System.out.printf(emailTemplate, student.getEmail(), student.getFirstName() + " "
+        outputSink.printf(emailTemplate, student.getEmail(), student.getFirstName() + " "
                 + student.getLastName(), completedCourse.getCourseName());
     }
 }
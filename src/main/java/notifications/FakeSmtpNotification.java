@@ -0,0 +1,83 @@
+package notifications;
+
+import pojo.Student;
+import tracker.PlatformCourse;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for a mail server: every call costs one round trip of {@code latencyMillis},
+ * a batch is delivered in a single round trip. A call fails with the given probability, failed calls deliver nothing.
+ * The messages themselves are only counted.
+ * */
+public class FakeSmtpNotification implements NotificationService {
+
+    private final long latencyMillis;
+    private final double failureProbability;
+    private final Random random;
+    private final LongAdder deliveredNotifications = new LongAdder();
+    private final LongAdder roundTrips = new LongAdder();
+
+    public FakeSmtpNotification(long latencyMillis) {
+        this(latencyMillis, 0, 0);
+    }
+
+    public FakeSmtpNotification(long latencyMillis, double failureProbability, long seed) {
+        this.latencyMillis = latencyMillis;
+        this.failureProbability = failureProbability;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void sendNotification(PlatformCourse completedCourse, Student student) {
+        roundTrip();
+        deliveredNotifications.increment();
+    }
+
+    /**
+     * One round trip for the whole batch, which is delivered or fails as a whole
+     * */
+    @Override
+    public List<CompletableFuture<Void>> sendEach(Collection<Notification> notifications) {
+        CompletableFuture<Void> delivery = new CompletableFuture<>();
+        try {
+            roundTrip();
+            deliveredNotifications.add(notifications.size());
+            delivery.complete(null);
+        } catch (RuntimeException e) {
+            delivery.completeExceptionally(e);
+        }
+        return Collections.nCopies(notifications.size(), delivery);
+    }
+
+    public long getDeliveredNotifications() {
+        return deliveredNotifications.sum();
+    }
+
+    public long getRoundTrips() {
+        return roundTrips.sum();
+    }
+
+    private void roundTrip() {
+        roundTrips.increment();
+        try {
+            TimeUnit.MILLISECONDS.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending", e);
+        }
+        boolean failed;
+        synchronized (random) {
+            failed = random.nextDouble() < failureProbability;
+        }
+        if (failed) {
+            throw new IllegalStateException("451 Requested action aborted: local error in processing");
+        }
+    }
+}
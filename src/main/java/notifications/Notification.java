@@ -0,0 +1,26 @@
+package notifications;
+
+import pojo.Student;
+import tracker.PlatformCourse;
+
+/**
+ * Message to a student who has completed a course
+ * */
+public class Notification {
+
+    private final PlatformCourse completedCourse;
+    private final Student student;
+
+    public Notification(PlatformCourse completedCourse, Student student) {
+        this.completedCourse = completedCourse;
+        this.student = student;
+    }
+
+    public PlatformCourse getCompletedCourse() {
+        return completedCourse;
+    }
+
+    public Student getStudent() {
+        return student;
+    }
+}
@@ -0,0 +1,91 @@
+package notifications;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters of an {@link AsyncNotificationDispatcher}, safe to read while the dispatcher is running
+ * */
+public class NotificationMetrics {
+
+    private final IntSupplier queueDepth;
+    private final long startNanos = System.nanoTime();
+    private final LongAdder enqueuedNotifications = new LongAdder();
+    private final LongAdder sentNotifications = new LongAdder();
+    private final LongAdder failedNotifications = new LongAdder();
+    private final LongAdder sentBatches = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    NotificationMetrics(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    void recordEnqueued() {
+        enqueuedNotifications.increment();
+    }
+
+    void recordSent(int numberOfNotifications) {
+        sentNotifications.add(numberOfNotifications);
+    }
+
+    /**
+     * Counts a batch once, however many attempts it took
+     * */
+    void recordSentBatch() {
+        sentBatches.increment();
+    }
+
+    void recordFailed(int batchSize) {
+        failedNotifications.add(batchSize);
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    /**
+     * @return number of notifications waiting for a worker
+     * */
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    public long getEnqueuedNotifications() {
+        return enqueuedNotifications.sum();
+    }
+
+    public long getSentNotifications() {
+        return sentNotifications.sum();
+    }
+
+    /**
+     * @return number of notifications given up after the last retry
+     * */
+    public long getFailedNotifications() {
+        return failedNotifications.sum();
+    }
+
+    public long getSentBatches() {
+        return sentBatches.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return average rate of delivered notifications since the dispatcher has started
+     * */
+    public double getSendsPerSecond() {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        return elapsedNanos == 0 ? 0 : getSentNotifications() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("queue depth %d, enqueued %d, sent %d in %d batches, failed %d, retries %d, %.1f sends/s",
+                getQueueDepth(), getEnqueuedNotifications(), getSentNotifications(), getSentBatches(),
+                getFailedNotifications(), getRetries(), getSendsPerSecond());
+    }
+}
@@ -1,10 +1,44 @@
 package notifications;
 
 import pojo.Student;
-import tracker.PlatformCourses;
+import tracker.PlatformCourse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface NotificationService {
 
-    void sendNotification(PlatformCourses completedCourse, Student student);
+    void sendNotification(PlatformCourse completedCourse, Student student);
+
+    /**
+     * Sends the notifications in the given order.
+     * @return future completed once every notification has been delivered, failed if any of them failed
+     * */
+    default CompletableFuture<Void> sendNotifications(Collection<Notification> notifications) {
+        return CompletableFuture.allOf(sendEach(notifications).toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Sends the notifications in the given order, a failed notification does not stop the ones after it.
+     * The default implementation sends them one by one and returns completed futures,
+     * an asynchronous service returns futures completed once the notification has been delivered
+     * @return a future for every notification, in the given order
+     * */
+    default List<CompletableFuture<Void>> sendEach(Collection<Notification> notifications) {
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            CompletableFuture<Void> delivery = new CompletableFuture<>();
+            try {
+                sendNotification(notification.getCompletedCourse(), notification.getStudent());
+                delivery.complete(null);
+            } catch (RuntimeException e) {
+                delivery.completeExceptionally(e);
+            }
+            deliveries.add(delivery);
+        }
+        return deliveries;
+    }
 
 }
@@ -1,12 +1,26 @@
 package notifications;
 
+import output.OutputSink;
+
 public class NotificationsFactory {
 
-    public static NotificationService createNotificationService(String notificationType) {
+    // round trip of the fake mail server, -Dtracker.smtpLatencyMillis
+    private static final long FAKE_SMTP_LATENCY_MILLIS = Long.getLong("tracker.smtpLatencyMillis", 50L);
+
+    /**
+     * @param notificationType "email" prints the emails synchronously, "async-email" prints them
+     *                         through an {@link AsyncNotificationDispatcher}, "fake-smtp" dispatches them
+     *                         to a {@link FakeSmtpNotification} server
+     * */
+    public static NotificationService createNotificationService(String notificationType, OutputSink outputSink) {
         NotificationService notificationService = null;
 
         if (notificationType.equals("email")) {
-            notificationService = new EmailNotification();
+            notificationService = new EmailNotification(outputSink);
+        } else if (notificationType.equals("async-email")) {
+            notificationService = new AsyncNotificationDispatcher(new EmailNotification(outputSink));
+        } else if (notificationType.equals("fake-smtp")) {
+            notificationService = new AsyncNotificationDispatcher(new FakeSmtpNotification(FAKE_SMTP_LATENCY_MILLIS));
         }
         return notificationService;
     }
@@ -0,0 +1,109 @@
+package output;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Formatter;
+
+/**
+ * Collects output in memory and hands it to the writer only on {@link #flush()}
+ * or when the buffer grows past its limit, so a command producing many lines costs one write.
+ * Methods are synchronized, the sink can be shared between threads.
+ * */
+public class BufferedOutputSink implements OutputSink {
+
+    private static final int MAX_BUFFERED_CHARACTERS = 1 << 16;
+
+    private final Writer writer;
+    private final StringBuilder buffer = new StringBuilder(MAX_BUFFERED_CHARACTERS);
+    private final Formatter formatter = new Formatter(buffer);
+
+    public BufferedOutputSink(Writer writer) {
+        this.writer = writer;
+    }
+
+    public static BufferedOutputSink toConsole() {
+        return new BufferedOutputSink(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out),
+                Charset.defaultCharset()));
+    }
+
+    public static BufferedOutputSink discarding() {
+        return new BufferedOutputSink(Writer.nullWriter());
+    }
+
+    @Override
+    public synchronized void print(String text) {
+        buffer.append(text);
+        flushIfFull();
+    }
+
+    @Override
+    public synchronized void println(String text) {
+        buffer.append(text).append(System.lineSeparator());
+        flushIfFull();
+    }
+
+    @Override
+    public synchronized void println() {
+        buffer.append(System.lineSeparator());
+        flushIfFull();
+    }
+
+    @Override
+    public synchronized void printf(String format, Object... args) {
+        formatter.format(format, args);
+        flushIfFull();
+    }
+
+    @Override
+    public synchronized void printPadded(String text, int width) {
+        buffer.append(text);
+        appendPadding(width - text.length());
+        flushIfFull();
+    }
+
+    @Override
+    public synchronized void printPadded(long number, int width) {
+        int start = buffer.length();
+        buffer.append(number);
+        appendPadding(width - (buffer.length() - start));
+        flushIfFull();
+    }
+
+    @Override
+    public synchronized void printTenths(long tenths) {
+        if (tenths < 0) {
+            buffer.append('-');
+            tenths = -tenths;
+        }
+        buffer.append(tenths / 10).append('.').append(tenths % 10);
+        flushIfFull();
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            writer.append(buffer);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.setLength(0);
+    }
+
+    private void appendPadding(int padding) {
+        for (int i = 0; i < padding; i++) {
+            buffer.append(' ');
+        }
+    }
+
+    private void flushIfFull() {
+        if (buffer.length() >= MAX_BUFFERED_CHARACTERS) {
+            flush();
+        }
+    }
+}
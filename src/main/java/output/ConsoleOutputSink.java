@@ -0,0 +1,48 @@
+package output;
+
+/**
+ * Writes straight to {@link System#out}, every call is visible immediately
+ * */
+public class ConsoleOutputSink implements OutputSink {
+
+    @Override
+    public void print(String text) {
+        System.out.print(text);
+    }
+
+    @Override
+    public void println(String text) {
+        System.out.println(text);
+    }
+
+    @Override
+    public void println() {
+        System.out.println();
+    }
+
+    @Override
+    public void printf(String format, Object... args) {
+        System.out.printf(format, args);
+    }
+
+    @Override
+    public void printPadded(String text, int width) {
+        System.out.print(text);
+        System.out.print(" ".repeat(Math.max(0, width - text.length())));
+    }
+
+    @Override
+    public void printPadded(long number, int width) {
+        printPadded(String.valueOf(number), width);
+    }
+
+    @Override
+    public void printTenths(long tenths) {
+        System.out.print((tenths < 0 ? "-" : "") + Math.abs(tenths) / 10 + "." + Math.abs(tenths) % 10);
+    }
+
+    @Override
+    public void flush() {
+        System.out.flush();
+    }
+}
@@ -0,0 +1,40 @@
+package output;
+
+/**
+ * Sink that drops everything without buffering or locking,
+ * for measurements where even a discarding {@link BufferedOutputSink} would be a point of contention
+ * */
+public class NullOutputSink implements OutputSink {
+
+    @Override
+    public void print(String text) {
+    }
+
+    @Override
+    public void println(String text) {
+    }
+
+    @Override
+    public void println() {
+    }
+
+    @Override
+    public void printf(String format, Object... args) {
+    }
+
+    @Override
+    public void printPadded(String text, int width) {
+    }
+
+    @Override
+    public void printPadded(long number, int width) {
+    }
+
+    @Override
+    public void printTenths(long tenths) {
+    }
+
+    @Override
+    public void flush() {
+    }
+}
@@ -0,0 +1,36 @@
+package output;
+
+/**
+ * Destination of everything the tracker prints.
+ * Besides {@link #printf(String, Object...)} it offers format-free methods for fixed-width tables.
+ * */
+public interface OutputSink {
+
+    void print(String text);
+
+    void println(String text);
+
+    void println();
+
+    void printf(String format, Object... args);
+
+    /**
+     * Prints the text left-aligned in a column of the given width, like {@code %-<width>s}
+     * */
+    void printPadded(String text, int width);
+
+    /**
+     * Prints the number left-aligned in a column of the given width, like {@code %-<width>d}
+     * */
+    void printPadded(long number, int width);
+
+    /**
+     * Prints a value given in tenths with exactly one decimal digit, e.g. 125 as "12.5"
+     * */
+    void printTenths(long tenths);
+
+    /**
+     * Writes buffered output to the destination
+     * */
+    void flush();
+}
@@ -0,0 +1,147 @@
+package parser;
+
+import java.util.Arrays;
+
+/**
+ * Single-pass parser for a student credentials line: {@code firstName lastName [lastName...] email}.
+ * Tokens are separated by single whitespace characters exactly like {@code String.split("\\s")},
+ * names follow {@code [^-']([A-Za-z]*[-']?[A-Za-z])+} and the email follows {@code [\w.]+@\w+\.\w+}.
+ * The parser keeps token bounds in reusable arrays and creates strings only for a valid line.
+ * An instance is not thread-safe.
+ * */
+public class CredentialsParser {
+
+    private static final int MIN_NUMBER_OF_TOKENS = 3;
+    private static final int INITIAL_TOKENS_CAPACITY = 8;
+
+    private int[] tokenStarts = new int[INITIAL_TOKENS_CAPACITY];
+    private int[] tokenEnds = new int[INITIAL_TOKENS_CAPACITY];
+    private int numberOfTokens;
+    private CharSequence line;
+
+    public CredentialsParsingResult parse(CharSequence credentialsLine) {
+        line = credentialsLine;
+        tokenize();
+        if (numberOfTokens < MIN_NUMBER_OF_TOKENS) {
+            return CredentialsParsingResult.INCORRECT_CREDENTIALS;
+        }
+        if (!isNameValid(tokenStarts[0], tokenEnds[0])) {
+            return CredentialsParsingResult.INCORRECT_FIRST_NAME;
+        }
+        for (int i = 1; i < numberOfTokens - 1; i++) {
+            if (!isNameValid(tokenStarts[i], tokenEnds[i])) {
+                return CredentialsParsingResult.INCORRECT_LAST_NAME;
+            }
+        }
+        if (!isEmailValid(tokenStarts[numberOfTokens - 1], tokenEnds[numberOfTokens - 1])) {
+            return CredentialsParsingResult.INCORRECT_EMAIL;
+        }
+        return CredentialsParsingResult.VALID;
+    }
+
+    public String getFirstName() {
+        return line.subSequence(tokenStarts[0], tokenEnds[0]).toString();
+    }
+
+    /**
+     * Last name can consist of two or more words, they are joined without a separator
+     * */
+    public String getLastName() {
+        if (numberOfTokens == MIN_NUMBER_OF_TOKENS) {
+            return line.subSequence(tokenStarts[1], tokenEnds[1]).toString();
+        }
+        StringBuilder lastName = new StringBuilder();
+        for (int i = 1; i < numberOfTokens - 1; i++) {
+            lastName.append(line, tokenStarts[i], tokenEnds[i]);
+        }
+        return lastName.toString();
+    }
+
+    public String getEmail() {
+        return line.subSequence(tokenStarts[numberOfTokens - 1], tokenEnds[numberOfTokens - 1]).toString();
+    }
+
+    private void tokenize() {
+        numberOfTokens = 0;
+        int tokenStart = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (InputCharacters.isWhitespace(line.charAt(i))) {
+                addToken(tokenStart, i);
+                tokenStart = i + 1;
+            }
+        }
+        addToken(tokenStart, line.length());
+        // String.split drops trailing empty tokens unless the line has no separators at all
+        int lastNonEmptyToken = numberOfTokens - 1;
+        while (lastNonEmptyToken >= 0 && tokenStarts[lastNonEmptyToken] == tokenEnds[lastNonEmptyToken]) {
+            lastNonEmptyToken--;
+        }
+        numberOfTokens = numberOfTokens == 1 ? 1 : lastNonEmptyToken + 1;
+    }
+
+    private void addToken(int start, int end) {
+        if (numberOfTokens == tokenStarts.length) {
+            tokenStarts = Arrays.copyOf(tokenStarts, numberOfTokens * 2);
+            tokenEnds = Arrays.copyOf(tokenEnds, numberOfTokens * 2);
+        }
+        tokenStarts[numberOfTokens] = start;
+        tokenEnds[numberOfTokens] = end;
+        numberOfTokens++;
+    }
+
+    private boolean isNameValid(int start, int end) {
+        if (end - start < 2) {
+            return false;
+        }
+        char firstCharacter = line.charAt(start);
+        if (firstCharacter == '-' || firstCharacter == '\'') {
+            return false;
+        }
+        int position = start + 1;
+        // the first character may be any code point, including a surrogate pair
+        if (Character.isHighSurrogate(firstCharacter) && Character.isLowSurrogate(line.charAt(position))) {
+            position++;
+        }
+        if (position == end) {
+            return false;
+        }
+        boolean previousIsSeparator = false;
+        for (; position < end; position++) {
+            char character = line.charAt(position);
+            if (character == '-' || character == '\'') {
+                if (previousIsSeparator) {
+                    return false;
+                }
+                previousIsSeparator = true;
+            } else if (InputCharacters.isLetter(character)) {
+                previousIsSeparator = false;
+            } else {
+                return false;
+            }
+        }
+        return !previousIsSeparator;
+    }
+
+    private boolean isEmailValid(int start, int end) {
+        int position = start;
+        while (position < end && (InputCharacters.isWordCharacter(line.charAt(position))
+                || line.charAt(position) == '.')) {
+            position++;
+        }
+        if (position == start || position == end || line.charAt(position) != '@') {
+            return false;
+        }
+        int domainStart = ++position;
+        while (position < end && InputCharacters.isWordCharacter(line.charAt(position))) {
+            position++;
+        }
+        if (position == domainStart || position == end || line.charAt(position) != '.') {
+            return false;
+        }
+        int topLevelDomainStart = ++position;
+        while (position < end && InputCharacters.isWordCharacter(line.charAt(position))) {
+            position++;
+        }
+        return position == end && position != topLevelDomainStart;
+    }
+}
@@ -0,0 +1,19 @@
+package parser;
+
+public enum CredentialsParsingResult {
+    VALID(""),
+    INCORRECT_CREDENTIALS("Incorrect credentials."),
+    INCORRECT_FIRST_NAME("Incorrect first name."),
+    INCORRECT_LAST_NAME("Incorrect last name."),
+    INCORRECT_EMAIL("Incorrect email.");
+
+    private final String message;
+
+    CredentialsParsingResult(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,30 @@
+package parser;
+
+final class InputCharacters {
+
+    private InputCharacters() {
+    }
+
+    /**
+     * Same set of characters as {@code \s} in {@link java.util.regex.Pattern}
+     * */
+    static boolean isWhitespace(char character) {
+        return character == ' ' || character == '\t' || character == '\n'
+                || character == '\u000B' || character == '\f' || character == '\r';
+    }
+
+    /**
+     * Same set of characters as {@code \w} in {@link java.util.regex.Pattern}
+     * */
+    static boolean isWordCharacter(char character) {
+        return isLetter(character) || isDigit(character) || character == '_';
+    }
+
+    static boolean isLetter(char character) {
+        return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z');
+    }
+
+    static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+}
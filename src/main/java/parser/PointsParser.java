@@ -0,0 +1,65 @@
+package parser;
+
+/**
+ * Single-pass parser for a points line: {@code studentId points [points...]},
+ * equivalent to matching {@code \w+\s(\d+\s){n-1}\d+} for {@code n} courses.
+ * Every number is parsed once while scanning, values that do not fit into an {@code int} are rejected.
+ * Parsed points are kept in a reusable array, so the only allocation per line is the student id.
+ * An instance is not thread-safe.
+ * */
+public class PointsParser {
+
+    private final int[] points;
+    private String studentId;
+
+    public PointsParser(int numberOfCourses) {
+        this.points = new int[numberOfCourses];
+    }
+
+    public boolean parse(CharSequence pointsLine) {
+        int length = pointsLine.length();
+        int position = 0;
+        while (position < length && InputCharacters.isWordCharacter(pointsLine.charAt(position))) {
+            position++;
+        }
+        if (position == 0) {
+            return false;
+        }
+        int studentIdEnd = position;
+        for (int course = 0; course < points.length; course++) {
+            if (position == length || !InputCharacters.isWhitespace(pointsLine.charAt(position))) {
+                return false;
+            }
+            int numberStart = ++position;
+            long number = 0;
+            while (position < length && InputCharacters.isDigit(pointsLine.charAt(position))) {
+                number = number * 10 + (pointsLine.charAt(position) - '0');
+                if (number > Integer.MAX_VALUE) {
+                    return false;
+                }
+                position++;
+            }
+            if (position == numberStart) {
+                return false;
+            }
+            points[course] = (int) number;
+        }
+        if (position != length) {
+            return false;
+        }
+        studentId = pointsLine.subSequence(0, studentIdEnd).toString();
+        return true;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public int getPoints(int courseIndex) {
+        return points[courseIndex];
+    }
+
+    public int getNumberOfCourses() {
+        return points.length;
+    }
+}
@@ -0,0 +1,99 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads what {@link BinaryWriter} has written, pulling the file through a buffer
+ * */
+final class BinaryReader {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long consumedBytes;
+
+    BinaryReader(FileChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.buffer.limit(0);
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * @return {@code false} if the file ends before {@code numberOfBytes} more bytes
+     * */
+    boolean request(int numberOfBytes) throws IOException {
+        if (numberOfBytes > buffer.capacity()) {
+            throw new IOException("A record of " + numberOfBytes + " bytes does not fit into the read buffer");
+        }
+        if (buffer.remaining() >= numberOfBytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < numberOfBytes) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    void require(int numberOfBytes) throws IOException {
+        if (!request(numberOfBytes)) {
+            throw new IOException("Unexpected end of file");
+        }
+    }
+
+    byte getByte() throws IOException {
+        require(Byte.BYTES);
+        consumedBytes += Byte.BYTES;
+        return buffer.get();
+    }
+
+    int getInt() throws IOException {
+        require(Integer.BYTES);
+        consumedBytes += Integer.BYTES;
+        return buffer.getInt();
+    }
+
+    long getLong() throws IOException {
+        require(Long.BYTES);
+        consumedBytes += Long.BYTES;
+        return buffer.getLong();
+    }
+
+    String getString() throws IOException {
+        int length = getInt();
+        require(length);
+        consumedBytes += length;
+        return decodeString(buffer, length);
+    }
+
+    /**
+     * Moves past bytes that have been read straight from {@link #buffer()}
+     * */
+    void skip(int numberOfBytes) {
+        buffer.position(buffer.position() + numberOfBytes);
+        consumedBytes += numberOfBytes;
+    }
+
+    /**
+     * @return number of bytes read from the start of the file
+     * */
+    long position() {
+        return consumedBytes;
+    }
+
+    static String decodeString(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,69 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Big-endian primitives and UTF-8 strings written through a buffer to a {@link FileChannel}
+ * */
+final class BinaryWriter {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    BinaryWriter(FileChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Makes room for {@code numberOfBytes} in the buffer, writing out what is buffered if needed
+     * */
+    void ensureCapacity(int numberOfBytes) throws IOException {
+        if (numberOfBytes > buffer.capacity()) {
+            throw new IOException("A record of " + numberOfBytes + " bytes does not fit into the write buffer");
+        }
+        if (buffer.remaining() < numberOfBytes) {
+            flush();
+        }
+    }
+
+    void putByte(byte value) throws IOException {
+        ensureCapacity(Byte.BYTES);
+        buffer.put(value);
+    }
+
+    void putInt(int value) throws IOException {
+        ensureCapacity(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    void putLong(long value) throws IOException {
+        ensureCapacity(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(Integer.BYTES + bytes.length);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    static int encodedLength(byte[] utf8String) {
+        return Integer.BYTES + utf8String.length;
+    }
+}
@@ -0,0 +1,16 @@
+package persistence;
+
+/**
+ * Receives the events of a {@link WriteAheadLog} while it is replayed, in the order they were appended
+ * */
+public interface LogEventHandler {
+
+    void onRegistration(long studentId, String firstName, String lastName, String email);
+
+    /**
+     * @param points points for every catalog course, the array is reused for the next event
+     * */
+    void onPoints(long studentId, int[] points);
+
+    void onNotified(int courseIndex, long studentId);
+}
@@ -0,0 +1,536 @@
+package persistence;
+
+import output.OutputSink;
+import pojo.Course;
+import pojo.CourseSnapshot;
+import pojo.Student;
+import tracker.PlatformCourse;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Read-only image of the platform that is memory-mapped instead of being loaded.
+ * <p>
+ * Opening an image reads only its header; queries read the mapped columns directly, and a {@link Student}
+ * is materialized only when asked for, so neither the startup time nor the heap grows with the number of students.
+ * <p>
+ * Layout, big-endian, every section 8-byte aligned, a section is located by its offset in the header:
+ * <ul>
+ * <li>header: magic, format version, number of students, courses and names, next student id, section offsets</li>
+ * <li>name pool: {@code int} offsets and UTF-8 bytes of every distinct first name, last name and course name</li>
+ * <li>students sorted by id: {@code long} ids, {@code int} first and last name references into the pool,
+ * {@code int} email offsets and the UTF-8 email bytes</li>
+ * <li>course table: name reference, points to finish, number of enrolled students and the offsets of
+ * the course columns</li>
+ * <li>per course: {@code int} points and submissions aligned with the students, and the ranking, which lists
+ * the indexes of the enrolled students in leaderboard order (points descending, id ascending)</li>
+ * </ul>
+ * The whole image is mapped at once, so it is limited to 2 GB.
+ * */
+public class PlatformImage {
+
+    private static final long MAGIC = 0x54524B494D473031L; // "TRKIMG01"
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int NOT_FOUND = -1;
+    private static final int MAX_COUNTED_POINTS_PER_STUDENT = 16;
+    private static final Pattern WHITESPACES_PATTERN = Pattern.compile("\\s+");
+
+    private static final int NUMBER_OF_STUDENTS_OFFSET = 12;
+    private static final int NUMBER_OF_COURSES_OFFSET = 16;
+    private static final int NUMBER_OF_NAMES_OFFSET = 20;
+    private static final int NEXT_STUDENT_ID_OFFSET = 24;
+    private static final int SECTIONS_OFFSET = 32;
+    private static final int NAME_OFFSETS = 0;
+    private static final int NAME_BYTES = 1;
+    private static final int STUDENT_IDS = 2;
+    private static final int FIRST_NAMES = 3;
+    private static final int LAST_NAMES = 4;
+    private static final int EMAIL_OFFSETS = 5;
+    private static final int EMAIL_BYTES = 6;
+    private static final int COURSE_TABLE = 7;
+    private static final int NUMBER_OF_SECTIONS = 8;
+    private static final int HEADER_SIZE = SECTIONS_OFFSET + NUMBER_OF_SECTIONS * Long.BYTES;
+
+    private static final int COURSE_NAME = 0;
+    private static final int COURSE_POINTS_TO_FINISH = 4;
+    private static final int COURSE_ENROLLED_STUDENTS = 8;
+    private static final int COURSE_POINTS = 16;
+    private static final int COURSE_SUBMISSIONS = 24;
+    private static final int COURSE_RANKING = 32;
+    private static final int COURSE_RECORD_SIZE = 40;
+
+    private final MappedByteBuffer image;
+    private final int numberOfStudents;
+    private final int numberOfCourses;
+    private final int[] sections = new int[NUMBER_OF_SECTIONS];
+
+    private PlatformImage(MappedByteBuffer image) throws IOException {
+        this.image = image;
+        if (image.capacity() < HEADER_SIZE || image.getLong(0) != MAGIC) {
+            throw new IOException("Not a platform image");
+        }
+        int formatVersion = image.getInt(Long.BYTES);
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported image format version " + formatVersion);
+        }
+        this.numberOfStudents = image.getInt(NUMBER_OF_STUDENTS_OFFSET);
+        this.numberOfCourses = image.getInt(NUMBER_OF_COURSES_OFFSET);
+        for (int section = 0; section < NUMBER_OF_SECTIONS; section++) {
+            sections[section] = Math.toIntExact(image.getLong(SECTIONS_OFFSET + section * Long.BYTES));
+        }
+    }
+
+    /**
+     * Maps the image, only the header is read
+     * */
+    public static PlatformImage open(Path imageFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(imageFile, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Images larger than 2 GB are not supported");
+            }
+            // the mapping stays valid after the channel is closed
+            return new PlatformImage(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int getNumberOfStudents() {
+        return numberOfStudents;
+    }
+
+    public int getNumberOfCourses() {
+        return numberOfCourses;
+    }
+
+    public long getNextStudentId() {
+        return image.getLong(NEXT_STUDENT_ID_OFFSET);
+    }
+
+    public String getCourseName(int courseIndex) {
+        return readName(image.getInt(courseRecord(courseIndex) + COURSE_NAME));
+    }
+
+    public int getTotalNumberOfPointsToFinish(int courseIndex) {
+        return image.getInt(courseRecord(courseIndex) + COURSE_POINTS_TO_FINISH);
+    }
+
+    public int getNumberOfEnrolledStudents(int courseIndex) {
+        return image.getInt(courseRecord(courseIndex) + COURSE_ENROLLED_STUDENTS);
+    }
+
+    /**
+     * @return index of the course with the given name ignoring case, or -1
+     * */
+    public int findCourse(String courseName) {
+        String normalizedName = courseName.toLowerCase(Locale.ROOT);
+        for (int courseIndex = 0; courseIndex < numberOfCourses; courseIndex++) {
+            if (getCourseName(courseIndex).toLowerCase(Locale.ROOT).equals(normalizedName)) {
+                return courseIndex;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Binary search over the mapped ids
+     * @return index of the student or -1
+     * */
+    public int findStudent(long studentId) {
+        int low = 0;
+        int high = numberOfStudents - 1;
+        int ids = sections[STUDENT_IDS];
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = image.getLong(ids + middle * Long.BYTES);
+            if (middleId < studentId) {
+                low = middle + 1;
+            } else if (middleId > studentId) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    public long getStudentId(int studentIndex) {
+        return image.getLong(sections[STUDENT_IDS] + studentIndex * Long.BYTES);
+    }
+
+    /**
+     * Materializes the student, the image keeps no objects
+     * */
+    public Student getStudent(int studentIndex) {
+        int emailOffsets = sections[EMAIL_OFFSETS];
+        int emailStart = image.getInt(emailOffsets + studentIndex * Integer.BYTES);
+        int emailEnd = image.getInt(emailOffsets + (studentIndex + 1) * Integer.BYTES);
+        return new Student(String.valueOf(getStudentId(studentIndex)),
+                readName(image.getInt(sections[FIRST_NAMES] + studentIndex * Integer.BYTES)),
+                readName(image.getInt(sections[LAST_NAMES] + studentIndex * Integer.BYTES)),
+                readString(sections[EMAIL_BYTES] + emailStart, emailEnd - emailStart));
+    }
+
+    public int getPoints(int courseIndex, int studentIndex) {
+        return image.getInt(courseColumn(courseIndex, COURSE_POINTS) + studentIndex * Integer.BYTES);
+    }
+
+    public int getSubmissions(int courseIndex, int studentIndex) {
+        return image.getInt(courseColumn(courseIndex, COURSE_SUBMISSIONS) + studentIndex * Integer.BYTES);
+    }
+
+    /**
+     * @return index of the student at the 0-based leaderboard position of the course
+     * */
+    public int getStudentAtRank(int courseIndex, int rank) {
+        return image.getInt(courseColumn(courseIndex, COURSE_RANKING) + rank * Integer.BYTES);
+    }
+
+    /**
+     * Same output as {@code LearningPlatform.printStudentPointsInAllPlatformCourses}
+     * */
+    public void printStudentPointsInAllPlatformCourses(String studentToFind, OutputSink outputSink) {
+        String studentId = WHITESPACES_PATTERN.split(studentToFind, 2)[0];
+        int studentIndex = isStudentId(studentId) ? findStudent(Long.parseLong(studentId)) : NOT_FOUND;
+        if (studentIndex == NOT_FOUND) {
+            outputSink.println("No student is found for id=" + studentId + ".");
+            return;
+        }
+        StringBuilder studentPoints = new StringBuilder(studentId).append(" points: ");
+        for (int courseIndex = 0; courseIndex < numberOfCourses; courseIndex++) {
+            if (courseIndex != 0) {
+                studentPoints.append("; ");
+            }
+            studentPoints.append(getCourseName(courseIndex)).append('=').append(getPoints(courseIndex, studentIndex));
+        }
+        outputSink.println(studentPoints.toString());
+    }
+
+    /**
+     * Same output as {@code LearningPlatform.getTopLearnersForSpecificCourse}
+     * */
+    public boolean getTopLearnersForSpecificCourse(String courseName, OutputSink outputSink) {
+        int courseIndex = findCourse(courseName);
+        if (courseIndex == NOT_FOUND) {
+            outputSink.println("Unknown course.");
+            return false;
+        }
+        outputSink.println(getCourseName(courseIndex));
+        getTopLearners(courseIndex, outputSink, 0, Integer.MAX_VALUE);
+        return true;
+    }
+
+    /**
+     * Prints a page of the leaderboard straight from the ranking column
+     * */
+    public void getTopLearners(int courseIndex, OutputSink outputSink, int offset, int limit) {
+        int totalNumberOfPointsToFinish = getTotalNumberOfPointsToFinish(courseIndex);
+        int end = (int) Math.min(getNumberOfEnrolledStudents(courseIndex), (long) offset + Math.max(0, limit));
+        outputSink.println("id    points    completed");
+        for (int rank = offset; rank < end; rank++) {
+            int studentIndex = getStudentAtRank(courseIndex, rank);
+            int points = getPoints(courseIndex, studentIndex);
+            outputSink.printPadded(getStudentId(studentIndex), 6);
+            outputSink.printPadded(points, 10);
+            outputSink.printTenths(Course.calculateCourseCompletionTenths(points, totalNumberOfPointsToFinish));
+            outputSink.println("%");
+        }
+    }
+
+    private int courseRecord(int courseIndex) {
+        return sections[COURSE_TABLE] + courseIndex * COURSE_RECORD_SIZE;
+    }
+
+    private int courseColumn(int courseIndex, int column) {
+        return (int) image.getLong(courseRecord(courseIndex) + column);
+    }
+
+    private String readName(int nameReference) {
+        int nameOffsets = sections[NAME_OFFSETS];
+        int start = image.getInt(nameOffsets + nameReference * Integer.BYTES);
+        int end = image.getInt(nameOffsets + (nameReference + 1) * Integer.BYTES);
+        return readString(sections[NAME_BYTES] + start, end - start);
+    }
+
+    private String readString(int position, int length) {
+        byte[] bytes = new byte[length];
+        image.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Ids are registered as the decimal form of a number, so "007" is not the id of student 7
+     * */
+    private static boolean isStudentId(String text) {
+        if (text.isEmpty() || text.length() > 18 || (text.charAt(0) == '0' && text.length() > 1)) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the image of a snapshot, through a temporary file moved over the target
+     * */
+    public static void write(Path imageFile, PlatformSnapshot snapshot, List<PlatformCourse> courses)
+            throws IOException {
+        // ids are parsed once and sorted as primitives, every student then goes to the index of its id
+        int numberOfStudents = snapshot.getStudents().size();
+        long[] studentIds = new long[numberOfStudents];
+        for (int i = 0; i < numberOfStudents; i++) {
+            studentIds[i] = Long.parseLong(snapshot.getStudents().get(i).getId());
+        }
+        long[] unsortedStudentIds = studentIds.clone();
+        Arrays.sort(studentIds);
+        Student[] students = new Student[numberOfStudents];
+        for (int i = 0; i < numberOfStudents; i++) {
+            students[Arrays.binarySearch(studentIds, unsortedStudentIds[i])] = snapshot.getStudents().get(i);
+        }
+
+        NamePool namePool = new NamePool();
+        int[] firstNames = new int[numberOfStudents];
+        int[] lastNames = new int[numberOfStudents];
+        int[] emailOffsets = new int[numberOfStudents + 1];
+        List<byte[]> emails = new ArrayList<>(numberOfStudents);
+        for (int i = 0; i < numberOfStudents; i++) {
+            Student student = students[i];
+            firstNames[i] = namePool.intern(student.getFirstName());
+            lastNames[i] = namePool.intern(student.getLastName());
+            byte[] email = student.getEmail().getBytes(StandardCharsets.UTF_8);
+            emails.add(email);
+            emailOffsets[i + 1] = Math.addExact(emailOffsets[i], email.length);
+        }
+        int[] courseNames = new int[courses.size()];
+        for (PlatformCourse course : courses) {
+            courseNames[course.getIndex()] = namePool.intern(course.getCourseName());
+        }
+
+        long[] sections = new long[NUMBER_OF_SECTIONS];
+        long position = HEADER_SIZE;
+        sections[NAME_OFFSETS] = position;
+        position = align(position + (long) (namePool.size() + 1) * Integer.BYTES);
+        sections[NAME_BYTES] = position;
+        position = align(position + namePool.byteLength());
+        sections[STUDENT_IDS] = position;
+        position = align(position + (long) numberOfStudents * Long.BYTES);
+        sections[FIRST_NAMES] = position;
+        position = align(position + (long) numberOfStudents * Integer.BYTES);
+        sections[LAST_NAMES] = position;
+        position = align(position + (long) numberOfStudents * Integer.BYTES);
+        sections[EMAIL_OFFSETS] = position;
+        position = align(position + (long) (numberOfStudents + 1) * Integer.BYTES);
+        sections[EMAIL_BYTES] = position;
+        position = align(position + emailOffsets[numberOfStudents]);
+        sections[COURSE_TABLE] = position;
+        position += (long) courses.size() * COURSE_RECORD_SIZE;
+
+        Path temporaryFile = imageFile.resolveSibling(imageFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BinaryWriter writer = new BinaryWriter(channel, BUFFER_SIZE);
+            writer.putLong(MAGIC);
+            writer.putInt(FORMAT_VERSION);
+            writer.putInt(numberOfStudents);
+            writer.putInt(courses.size());
+            writer.putInt(namePool.size());
+            writer.putLong(snapshot.getNextStudentId());
+            for (long section : sections) {
+                writer.putLong(section);
+            }
+            long written = HEADER_SIZE;
+            written = namePool.write(writer, written);
+            written = pad(writer, written);
+            for (long studentId : studentIds) {
+                writer.putLong(studentId);
+            }
+            written = pad(writer, written + (long) numberOfStudents * Long.BYTES);
+            written = pad(writer, putInts(writer, firstNames, written));
+            written = pad(writer, putInts(writer, lastNames, written));
+            written = pad(writer, putInts(writer, emailOffsets, written));
+            for (byte[] email : emails) {
+                writer.ensureCapacity(email.length);
+                writer.buffer().put(email);
+            }
+            written = pad(writer, written + emailOffsets[numberOfStudents]);
+
+            // the course columns follow the course table
+            long columns = position;
+            List<int[][]> courseColumns = new ArrayList<>(courses.size());
+            for (int courseIndex = 0; courseIndex < courses.size(); courseIndex++) {
+                int[][] columnsOfCourse = alignColumns(snapshot.getCourses().get(courseIndex), studentIds);
+                courseColumns.add(columnsOfCourse);
+                writer.putInt(courseNames[courseIndex]);
+                writer.putInt(courses.get(courseIndex).getTotalNumberOfPointsToFinish());
+                writer.putInt(columnsOfCourse[2].length);
+                writer.putInt(0);
+                writer.putLong(columns);
+                columns = align(columns + (long) numberOfStudents * Integer.BYTES);
+                writer.putLong(columns);
+                columns = align(columns + (long) numberOfStudents * Integer.BYTES);
+                writer.putLong(columns);
+                columns = align(columns + (long) columnsOfCourse[2].length * Integer.BYTES);
+            }
+            written += (long) courses.size() * COURSE_RECORD_SIZE;
+            for (int[][] columnsOfCourse : courseColumns) {
+                for (int[] column : columnsOfCourse) {
+                    written = pad(writer, putInts(writer, column, written));
+                }
+            }
+            if (written > Integer.MAX_VALUE) {
+                throw new IOException("Images larger than 2 GB are not supported");
+            }
+            writer.flush();
+            channel.force(true);
+        }
+        Files.move(temporaryFile, imageFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return points and submissions aligned with the sorted student ids, and the ranking of the course
+     * */
+    private static int[][] alignColumns(CourseSnapshot courseSnapshot, long[] studentIds) throws IOException {
+        int[] points = new int[studentIds.length];
+        int[] submissions = new int[studentIds.length];
+        int maxPoints = 0;
+        for (int slot = 0; slot < courseSnapshot.size(); slot++) {
+            int studentIndex = Arrays.binarySearch(studentIds, courseSnapshot.getStudentIds()[slot]);
+            if (studentIndex < 0) {
+                throw new IOException("Student " + courseSnapshot.getStudentIds()[slot] + " is not registered");
+            }
+            points[studentIndex] = courseSnapshot.getEarnedPoints()[slot];
+            submissions[studentIndex] = courseSnapshot.getSubmissions()[slot];
+            maxPoints = Math.max(maxPoints, points[studentIndex]);
+        }
+        int[] ranking = maxPoints <= MAX_COUNTED_POINTS_PER_STUDENT * (long) courseSnapshot.size()
+                ? rankByCounting(points, submissions, maxPoints, courseSnapshot.size())
+                : rankBySorting(points, submissions, courseSnapshot.size());
+        return new int[][]{points, submissions, ranking};
+    }
+
+    /**
+     * Points descending, then student index ascending, which is the id order.
+     * A counting sort over the points, enrolled students have at least one submission
+     * */
+    private static int[] rankByCounting(int[] points, int[] submissions, int maxPoints, int numberOfEnrolled) {
+        int[] firstRankOfPoints = new int[maxPoints + 2];
+        for (int studentIndex = 0; studentIndex < points.length; studentIndex++) {
+            if (submissions[studentIndex] != 0) {
+                firstRankOfPoints[maxPoints - points[studentIndex] + 1]++;
+            }
+        }
+        for (int i = 1; i < firstRankOfPoints.length; i++) {
+            firstRankOfPoints[i] += firstRankOfPoints[i - 1];
+        }
+        int[] ranking = new int[numberOfEnrolled];
+        for (int studentIndex = 0; studentIndex < points.length; studentIndex++) {
+            if (submissions[studentIndex] != 0) {
+                ranking[firstRankOfPoints[maxPoints - points[studentIndex]]++] = studentIndex;
+            }
+        }
+        return ranking;
+    }
+
+    /**
+     * Same order as {@link #rankByCounting}, for points too spread out to be counted
+     * */
+    private static int[] rankBySorting(int[] points, int[] submissions, int numberOfEnrolled) {
+        long[] rankingKeys = new long[numberOfEnrolled];
+        int enrolled = 0;
+        for (int studentIndex = 0; studentIndex < points.length; studentIndex++) {
+            if (submissions[studentIndex] != 0) {
+                rankingKeys[enrolled++] = ((long) (Integer.MAX_VALUE - points[studentIndex]) << Integer.SIZE)
+                        | studentIndex;
+            }
+        }
+        Arrays.sort(rankingKeys);
+        int[] ranking = new int[numberOfEnrolled];
+        for (int rank = 0; rank < numberOfEnrolled; rank++) {
+            ranking[rank] = (int) rankingKeys[rank];
+        }
+        return ranking;
+    }
+
+    private static long putInts(BinaryWriter writer, int[] values, long written) throws IOException {
+        for (int value : values) {
+            writer.putInt(value);
+        }
+        return written + (long) values.length * Integer.BYTES;
+    }
+
+    private static long pad(BinaryWriter writer, long written) throws IOException {
+        long aligned = align(written);
+        for (long i = written; i < aligned; i++) {
+            writer.putByte((byte) 0);
+        }
+        return aligned;
+    }
+
+    private static long align(long position) {
+        return (position + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    /**
+     * Distinct names in the order they were first seen
+     * */
+    private static class NamePool {
+
+        private final Map<String, Integer> references = new HashMap<>();
+        private final List<byte[]> names = new ArrayList<>();
+        private int byteLength;
+
+        int intern(String name) {
+            Integer reference = references.get(name);
+            if (reference == null) {
+                reference = names.size();
+                references.put(name, reference);
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                names.add(bytes);
+                byteLength = Math.addExact(byteLength, bytes.length);
+            }
+            return reference;
+        }
+
+        int size() {
+            return names.size();
+        }
+
+        int byteLength() {
+            return byteLength;
+        }
+
+        /**
+         * Writes the offsets section, pads it and writes the bytes section
+         * */
+        long write(BinaryWriter writer, long written) throws IOException {
+            int offset = 0;
+            writer.putInt(offset);
+            for (byte[] name : names) {
+                offset += name.length;
+                writer.putInt(offset);
+            }
+            written = pad(writer, written + (long) (names.size() + 1) * Integer.BYTES);
+            for (byte[] name : names) {
+                writer.ensureCapacity(name.length);
+                writer.buffer().put(name);
+            }
+            return written + byteLength;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package persistence;
+
+import pojo.CourseSnapshot;
+import pojo.Student;
+
+import java.util.List;
+
+/**
+ * State of the platform after the log event {@code lastSequenceNumber}
+ * */
+public class PlatformSnapshot {
+
+    private final long lastSequenceNumber;
+    private final long nextStudentId;
+    private final List<String> courseNames;
+    private final List<Student> students;
+    private final List<CourseSnapshot> courses;
+
+    public PlatformSnapshot(long lastSequenceNumber, long nextStudentId, List<String> courseNames,
+                            List<Student> students, List<CourseSnapshot> courses) {
+        if (courseNames.size() != courses.size()) {
+            throw new IllegalArgumentException("Every course must have a name");
+        }
+        this.lastSequenceNumber = lastSequenceNumber;
+        this.nextStudentId = nextStudentId;
+        this.courseNames = courseNames;
+        this.students = students;
+        this.courses = courses;
+    }
+
+    public long getLastSequenceNumber() {
+        return lastSequenceNumber;
+    }
+
+    public long getNextStudentId() {
+        return nextStudentId;
+    }
+
+    public List<String> getCourseNames() {
+        return courseNames;
+    }
+
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    public List<CourseSnapshot> getCourses() {
+        return courses;
+    }
+}
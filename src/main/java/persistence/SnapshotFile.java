@@ -0,0 +1,137 @@
+package persistence;
+
+import pojo.CourseSnapshot;
+import pojo.Student;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary snapshot of the platform: the student registry followed by the columns of every course.
+ * <p>
+ * Layout: magic, format version, last log sequence number, next student id, course names,
+ * students {@code (id, first name, last name, email)}, then per course the number of students and
+ * the id, points and submissions columns one after another and the notified bits, and an end marker.
+ * A snapshot is written to a temporary file, forced to disk and moved over the previous one,
+ * so a crash leaves either the old or the new snapshot.
+ * */
+public class SnapshotFile {
+
+    private static final long MAGIC = 0x54524B534E503031L; // "TRKSNP01"
+    private static final int FORMAT_VERSION = 1;
+    private static final long END_MARKER = ~MAGIC;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final String SNAPSHOT_FILE_NAME = "snapshot.bin";
+
+    private SnapshotFile() {
+    }
+
+    public static void write(Path directory, PlatformSnapshot snapshot) throws IOException {
+        Files.createDirectories(directory);
+        Path temporaryFile = directory.resolve(SNAPSHOT_FILE_NAME + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BinaryWriter writer = new BinaryWriter(channel, BUFFER_SIZE);
+            writer.putLong(MAGIC);
+            writer.putInt(FORMAT_VERSION);
+            writer.putLong(snapshot.getLastSequenceNumber());
+            writer.putLong(snapshot.getNextStudentId());
+            writer.putInt(snapshot.getCourseNames().size());
+            for (String courseName : snapshot.getCourseNames()) {
+                writer.putString(courseName);
+            }
+            writer.putInt(snapshot.getStudents().size());
+            for (Student student : snapshot.getStudents()) {
+                writer.putLong(Long.parseLong(student.getId()));
+                writer.putString(student.getFirstName());
+                writer.putString(student.getLastName());
+                writer.putString(student.getEmail());
+            }
+            for (CourseSnapshot course : snapshot.getCourses()) {
+                writer.putInt(course.size());
+                for (long studentId : course.getStudentIds()) {
+                    writer.putLong(studentId);
+                }
+                for (int earnedPoints : course.getEarnedPoints()) {
+                    writer.putInt(earnedPoints);
+                }
+                for (int submissions : course.getSubmissions()) {
+                    writer.putInt(submissions);
+                }
+                writer.putInt(course.getNotifiedSlots().length);
+                for (long notifiedSlots : course.getNotifiedSlots()) {
+                    writer.putLong(notifiedSlots);
+                }
+            }
+            writer.putLong(END_MARKER);
+            writer.flush();
+            channel.force(true);
+        }
+        Files.move(temporaryFile, directory.resolve(SNAPSHOT_FILE_NAME), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the snapshot in the directory or {@code null} if none has been written yet
+     * */
+    public static PlatformSnapshot read(Path directory) throws IOException {
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE_NAME);
+        if (!Files.exists(snapshotFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            BinaryReader reader = new BinaryReader(channel, BUFFER_SIZE);
+            if (reader.getLong() != MAGIC) {
+                throw new IOException(snapshotFile + " is not a snapshot");
+            }
+            int formatVersion = reader.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format version " + formatVersion);
+            }
+            long lastSequenceNumber = reader.getLong();
+            long nextStudentId = reader.getLong();
+            int numberOfCourses = reader.getInt();
+            List<String> courseNames = new ArrayList<>(numberOfCourses);
+            for (int i = 0; i < numberOfCourses; i++) {
+                courseNames.add(reader.getString());
+            }
+            int numberOfStudents = reader.getInt();
+            List<Student> students = new ArrayList<>(numberOfStudents);
+            for (int i = 0; i < numberOfStudents; i++) {
+                String studentId = String.valueOf(reader.getLong());
+                students.add(new Student(studentId, reader.getString(), reader.getString(), reader.getString()));
+            }
+            List<CourseSnapshot> courses = new ArrayList<>(numberOfCourses);
+            for (int i = 0; i < numberOfCourses; i++) {
+                int size = reader.getInt();
+                long[] studentIds = new long[size];
+                int[] earnedPoints = new int[size];
+                int[] submissions = new int[size];
+                for (int slot = 0; slot < size; slot++) {
+                    studentIds[slot] = reader.getLong();
+                }
+                for (int slot = 0; slot < size; slot++) {
+                    earnedPoints[slot] = reader.getInt();
+                }
+                for (int slot = 0; slot < size; slot++) {
+                    submissions[slot] = reader.getInt();
+                }
+                long[] notifiedSlots = new long[reader.getInt()];
+                for (int word = 0; word < notifiedSlots.length; word++) {
+                    notifiedSlots[word] = reader.getLong();
+                }
+                courses.add(new CourseSnapshot(studentIds, earnedPoints, submissions, notifiedSlots));
+            }
+            if (reader.getLong() != END_MARKER) {
+                throw new IOException(snapshotFile + " is incomplete");
+            }
+            return new PlatformSnapshot(lastSequenceNumber, nextStudentId, courseNames, students, courses);
+        }
+    }
+}
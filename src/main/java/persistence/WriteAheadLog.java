@@ -0,0 +1,350 @@
+package persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of platform events.
+ * <p>
+ * The log is a sequence of segment files {@code wal-<first sequence number>.log}, every segment starts with
+ * an 8-byte magic and holds records {@code [int length][int CRC32 of the body][body]}, where the body is
+ * {@code [byte type][long sequence number][payload]}. Appends go to a buffer; a background thread writes the buffer
+ * out and forces it to disk every {@code syncIntervalMillis}, so one fsync covers every event of the interval
+ * and at most that interval of events is lost in a crash.
+ * <p>
+ * A record cut off by a crash or failing its checksum ends the replay, the segment is truncated before it.
+ * */
+public class WriteAheadLog implements AutoCloseable {
+
+    private static final long SEGMENT_MAGIC = 0x54524B57414C3031L; // "TRKWAL01"
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int BODY_HEADER_SIZE = Byte.BYTES + Long.BYTES;
+    private static final int MAX_BODY_SIZE = BUFFER_SIZE - RECORD_HEADER_SIZE;
+
+    private static final byte REGISTRATION = 1;
+    private static final byte POINTS = 2;
+    private static final byte NOTIFIED = 3;
+
+    private final Path directory;
+    private final CRC32 checksum = new CRC32();
+    private final ScheduledExecutorService syncer;
+    private FileChannel channel;
+    private BinaryWriter writer;
+    private long lastSequenceNumber;
+    private volatile IOException syncFailure;
+
+    private WriteAheadLog(Path directory, long lastSequenceNumber, long syncIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.lastSequenceNumber = lastSequenceNumber;
+        openSegment();
+        this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-ahead-log-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(this::syncInBackground, syncIntervalMillis, syncIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a new segment for the events after {@code lastSequenceNumber}
+     * */
+    public static WriteAheadLog open(Path directory, long lastSequenceNumber, long syncIntervalMillis)
+            throws IOException {
+        Files.createDirectories(directory);
+        return new WriteAheadLog(directory, lastSequenceNumber, syncIntervalMillis);
+    }
+
+    /**
+     * @return sequence number of the appended event
+     * */
+    public synchronized long appendRegistration(long studentId, String firstName, String lastName, String email) {
+        byte[] firstNameBytes = firstName.getBytes(StandardCharsets.UTF_8);
+        byte[] lastNameBytes = lastName.getBytes(StandardCharsets.UTF_8);
+        byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+        int payloadSize = Long.BYTES + BinaryWriter.encodedLength(firstNameBytes)
+                + BinaryWriter.encodedLength(lastNameBytes) + BinaryWriter.encodedLength(emailBytes);
+        ByteBuffer buffer = beginRecord(REGISTRATION, payloadSize);
+        buffer.putLong(studentId);
+        buffer.putInt(firstNameBytes.length).put(firstNameBytes);
+        buffer.putInt(lastNameBytes.length).put(lastNameBytes);
+        buffer.putInt(emailBytes.length).put(emailBytes);
+        return endRecord(payloadSize);
+    }
+
+    /**
+     * Appends {@code points[offset] .. points[offset + numberOfCourses - 1]} of the student
+     * @return sequence number of the appended event
+     * */
+    public synchronized long appendPoints(long studentId, int[] points, int offset, int numberOfCourses) {
+        int payloadSize = Long.BYTES + Integer.BYTES + numberOfCourses * Integer.BYTES;
+        ByteBuffer buffer = beginRecord(POINTS, payloadSize);
+        buffer.putLong(studentId);
+        buffer.putInt(numberOfCourses);
+        for (int course = 0; course < numberOfCourses; course++) {
+            buffer.putInt(points[offset + course]);
+        }
+        return endRecord(payloadSize);
+    }
+
+    /**
+     * @return sequence number of the appended event
+     * */
+    public synchronized long appendNotified(int courseIndex, long studentId) {
+        int payloadSize = Integer.BYTES + Long.BYTES;
+        ByteBuffer buffer = beginRecord(NOTIFIED, payloadSize);
+        buffer.putInt(courseIndex);
+        buffer.putLong(studentId);
+        return endRecord(payloadSize);
+    }
+
+    public synchronized long getLastSequenceNumber() {
+        return lastSequenceNumber;
+    }
+
+    private ByteBuffer beginRecord(byte type, int payloadSize) {
+        if (syncFailure != null) {
+            throw new UncheckedIOException("The write-ahead log cannot be written", syncFailure);
+        }
+        int bodySize = BODY_HEADER_SIZE + payloadSize;
+        if (bodySize > MAX_BODY_SIZE) {
+            throw new IllegalArgumentException("An event of " + bodySize + " bytes is too large for the log");
+        }
+        try {
+            writer.ensureCapacity(RECORD_HEADER_SIZE + bodySize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteBuffer buffer = writer.buffer();
+        buffer.putInt(bodySize);
+        buffer.putInt(0); // checksum, filled in by endRecord
+        buffer.put(type);
+        buffer.putLong(++lastSequenceNumber);
+        return buffer;
+    }
+
+    private long endRecord(int payloadSize) {
+        ByteBuffer buffer = writer.buffer();
+        int bodyEnd = buffer.position();
+        int bodyStart = bodyEnd - BODY_HEADER_SIZE - payloadSize;
+        ByteBuffer body = buffer.duplicate();
+        body.position(bodyStart).limit(bodyEnd);
+        checksum.reset();
+        checksum.update(body);
+        buffer.putInt(bodyStart - Integer.BYTES, (int) checksum.getValue());
+        return lastSequenceNumber;
+    }
+
+    /**
+     * Writes out the buffered events and forces them to disk
+     * */
+    public void sync() throws IOException {
+        FileChannel syncedChannel;
+        synchronized (this) {
+            writer.flush();
+            syncedChannel = channel;
+        }
+        try {
+            // appends go on while the disk catches up
+            syncedChannel.force(false);
+        } catch (ClosedChannelException e) {
+            // the segment has been rotated, which forces it before closing
+        }
+    }
+
+    private void syncInBackground() {
+        try {
+            sync();
+        } catch (IOException e) {
+            syncFailure = e;
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one. Together with {@link #deleteSegmentsUpTo(long)}
+     * it drops the part of the log covered by a snapshot
+     * @return sequence number of the last event in the closed segment
+     * */
+    public synchronized long rotate() throws IOException {
+        closeSegment();
+        openSegment();
+        return lastSequenceNumber;
+    }
+
+    /**
+     * Deletes the segments which hold only events up to {@code sequenceNumber}
+     * */
+    public synchronized void deleteSegmentsUpTo(long sequenceNumber) throws IOException {
+        List<Path> segments = listSegments(directory);
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            // a segment ends right before the first event of the next one
+            if (firstSequenceNumber(segments.get(i + 1)) - 1 <= sequenceNumber) {
+                Files.delete(segments.get(i));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncer.shutdown();
+        try {
+            syncer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closeSegment();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        Path segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, lastSequenceNumber + 1,
+                SEGMENT_SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        writer = new BinaryWriter(channel, BUFFER_SIZE);
+        writer.putLong(SEGMENT_MAGIC);
+    }
+
+    private void closeSegment() throws IOException {
+        writer.flush();
+        channel.force(false);
+        channel.close();
+    }
+
+    /**
+     * Replays the events with a sequence number above {@code afterSequenceNumber} from every segment in the directory
+     * @return sequence number of the last event in the log, or {@code afterSequenceNumber} if there is none above it
+     * */
+    public static long replay(Path directory, long afterSequenceNumber, int numberOfCourses,
+                              LogEventHandler eventHandler) throws IOException {
+        long lastSequenceNumber = afterSequenceNumber;
+        if (!Files.isDirectory(directory)) {
+            return lastSequenceNumber;
+        }
+        List<Path> segments = listSegments(directory);
+        int[] points = new int[numberOfCourses];
+        for (int i = 0; i < segments.size(); i++) {
+            boolean isLastSegment = i == segments.size() - 1;
+            lastSequenceNumber = Math.max(lastSequenceNumber,
+                    replaySegment(segments.get(i), afterSequenceNumber, points, eventHandler, isLastSegment));
+        }
+        return lastSequenceNumber;
+    }
+
+    private static long replaySegment(Path segment, long afterSequenceNumber, int[] points,
+                                      LogEventHandler eventHandler, boolean isLastSegment) throws IOException {
+        long lastSequenceNumber = afterSequenceNumber;
+        CRC32 checksum = new CRC32();
+        try (FileChannel segmentChannel = FileChannel.open(segment, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            BinaryReader reader = new BinaryReader(segmentChannel, BUFFER_SIZE);
+            if (!reader.request(Long.BYTES) || reader.getLong() != SEGMENT_MAGIC) {
+                return truncateTornTail(segment, segmentChannel, 0, isLastSegment, lastSequenceNumber);
+            }
+            while (true) {
+                long recordStart = reader.position();
+                if (!reader.request(RECORD_HEADER_SIZE)) {
+                    return truncateTornTail(segment, segmentChannel, recordStart, isLastSegment, lastSequenceNumber);
+                }
+                int bodySize = reader.getInt();
+                int expectedChecksum = reader.getInt();
+                if (bodySize < BODY_HEADER_SIZE || bodySize > MAX_BODY_SIZE || !reader.request(bodySize)) {
+                    return truncateTornTail(segment, segmentChannel, recordStart, isLastSegment, lastSequenceNumber);
+                }
+                ByteBuffer body = reader.buffer().duplicate();
+                body.limit(body.position() + bodySize);
+                checksum.reset();
+                checksum.update(body.duplicate());
+                if ((int) checksum.getValue() != expectedChecksum) {
+                    return truncateTornTail(segment, segmentChannel, recordStart, isLastSegment, lastSequenceNumber);
+                }
+                reader.skip(bodySize);
+                byte type = body.get();
+                long sequenceNumber = body.getLong();
+                if (sequenceNumber > afterSequenceNumber) {
+                    dispatch(type, body, points, eventHandler);
+                    lastSequenceNumber = sequenceNumber;
+                }
+            }
+        }
+    }
+
+    private static void dispatch(byte type, ByteBuffer body, int[] points, LogEventHandler eventHandler)
+            throws IOException {
+        switch (type) {
+            case REGISTRATION:
+                long studentId = body.getLong();
+                String firstName = BinaryReader.decodeString(body, body.getInt());
+                String lastName = BinaryReader.decodeString(body, body.getInt());
+                String email = BinaryReader.decodeString(body, body.getInt());
+                eventHandler.onRegistration(studentId, firstName, lastName, email);
+                break;
+            case POINTS:
+                long pointsStudentId = body.getLong();
+                int numberOfCourses = body.getInt();
+                if (numberOfCourses != points.length) {
+                    throw new IOException("The log was written for " + numberOfCourses + " courses, the catalog has "
+                            + points.length);
+                }
+                for (int course = 0; course < numberOfCourses; course++) {
+                    points[course] = body.getInt();
+                }
+                eventHandler.onPoints(pointsStudentId, points);
+                break;
+            case NOTIFIED:
+                int courseIndex = body.getInt();
+                eventHandler.onNotified(courseIndex, body.getLong());
+                break;
+            default:
+                throw new IOException("Unknown log event type " + type);
+        }
+    }
+
+    private static long truncateTornTail(Path segment, FileChannel segmentChannel, long validLength,
+                                         boolean isLastSegment, long lastSequenceNumber) throws IOException {
+        if (segmentChannel.size() == validLength) {
+            return lastSequenceNumber;
+        }
+        if (!isLastSegment) {
+            throw new IOException("Log segment " + segment + " is corrupt at byte " + validLength);
+        }
+        // an append interrupted by a crash, nothing after it has been acknowledged as durable
+        segmentChannel.truncate(validLength);
+        segmentChannel.force(false);
+        return lastSequenceNumber;
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> directoryStream =
+                     Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            directoryStream.forEach(segments::add);
+        }
+        // fixed-width names sort by the first sequence number
+        segments.sort(null);
+        return segments;
+    }
+
+    private static long firstSequenceNumber(Path segment) {
+        String fileName = segment.getFileName().toString();
+        return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+}
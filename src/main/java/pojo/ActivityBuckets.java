@@ -0,0 +1,189 @@
+package pojo;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolling activity counters of a course: ring buffers of minute, hour and day buckets.
+ * Every bucket counts the submissions, the earned points, the new enrollments and the completions of its period,
+ * so the activity of a window is the sum of at most {@value #DAY_BUCKETS} buckets, whatever the history behind it.
+ * <p>
+ * An update goes to the minute ring only. When a later minute begins, the finished one is folded into its hour,
+ * and a finished hour into its day in the same way, so the rings are kept without touching three of them on every
+ * update. The latest minute and the latest hour are not folded yet, a window over a coarser ring adds them.
+ * A late update, for a minute that is not the latest, goes to its minute and straight to its hour.
+ * A bucket is reused for a later period once its ring has turned, updates older than a ring are not counted in it.
+ * Not thread-safe, the course guards it.
+ * */
+final class ActivityBuckets {
+
+    private static final int MINUTE_BUCKETS = 120;
+    private static final int HOUR_BUCKETS = 72;
+    private static final int DAY_BUCKETS = 400;
+
+    private static final int SUBMISSIONS = 0;
+    private static final int EARNED_POINTS = 1;
+    private static final int ENROLLMENTS = 2;
+    private static final int COMPLETIONS = 3;
+    private static final int COUNTERS = 4;
+
+    private final Ring dayRing = new Ring(TimeUnit.DAYS.toMillis(1), DAY_BUCKETS, null);
+    private final Ring hourRing = new Ring(TimeUnit.HOURS.toMillis(1), HOUR_BUCKETS, dayRing);
+    private final Ring minuteRing = new Ring(TimeUnit.MINUTES.toMillis(1), MINUTE_BUCKETS, hourRing);
+    // finest first
+    private final Ring[] rings = {minuteRing, hourRing, dayRing};
+
+    /**
+     * @return the longest window the buckets can answer
+     * */
+    static long getMaxWindowMillis() {
+        return TimeUnit.DAYS.toMillis(DAY_BUCKETS);
+    }
+
+    void recordSubmission(long timestampMillis, int points, boolean isCompleted) {
+        minuteRing.add(timestampMillis, 1, points, 0, isCompleted ? 1 : 0);
+    }
+
+    void recordEnrollment(long timestampMillis) {
+        minuteRing.add(timestampMillis, 0, 0, 1, 0);
+    }
+
+    /**
+     * Sums the buckets of the finest ring that covers the window: the bucket of {@code nowMillis} and the ones before
+     * it up to {@code windowMillis}, so the window is accurate to one bucket of that ring.
+     * The number of enrolled students of the result is the number of new enrollments in the window
+     * */
+    CourseAggregates sum(long nowMillis, long windowMillis) {
+        if (windowMillis <= 0 || windowMillis > getMaxWindowMillis()) {
+            throw new IllegalArgumentException("The window must be from 1 ms to " + DAY_BUCKETS + " days: "
+                    + windowMillis + " ms");
+        }
+        int ringIndex = 0;
+        while (rings[ringIndex].getSpanMillis() < windowMillis) {
+            ringIndex++;
+        }
+        Ring ring = rings[ringIndex];
+        long lastPeriod = Math.floorDiv(nowMillis, ring.periodMillis);
+        long firstPeriod = lastPeriod - (windowMillis + ring.periodMillis - 1) / ring.periodMillis + 1;
+        long[] totals = new long[COUNTERS];
+        for (long period = firstPeriod; period <= lastPeriod; period++) {
+            int bucket = ring.heldBucket(period);
+            if (bucket != Ring.NOT_HELD) {
+                ring.addCountersTo(bucket, totals);
+            }
+        }
+        // the latest buckets of the finer rings are not folded into this one yet
+        for (int finerRingIndex = 0; finerRingIndex < ringIndex; finerRingIndex++) {
+            Ring finerRing = rings[finerRingIndex];
+            if (finerRing.hasLatestPeriod()) {
+                long period = Math.floorDiv(finerRing.latestStartMillis, ring.periodMillis);
+                if (period >= firstPeriod && period <= lastPeriod) {
+                    finerRing.addCountersTo(finerRing.latestBucket, totals);
+                }
+            }
+        }
+        return new CourseAggregates((int) totals[ENROLLMENTS], totals[SUBMISSIONS], totals[EARNED_POINTS],
+                (int) totals[COMPLETIONS]);
+    }
+
+    private static final class Ring {
+
+        static final int NOT_HELD = -1;
+
+        final long periodMillis;
+        // the period every bucket counts, Long.MIN_VALUE while the bucket is unused
+        final long[] periods;
+        // COUNTERS per bucket, so a bucket is updated within one cache line
+        final long[] counters;
+        // null for the coarsest ring
+        final Ring coarserRing;
+        // the latest period seen, the only one not folded into the coarser ring
+        long latestPeriod = Long.MIN_VALUE;
+        int latestBucket;
+        long latestStartMillis = Long.MAX_VALUE;
+        long latestEndMillis = Long.MIN_VALUE;
+
+        Ring(long periodMillis, int numberOfBuckets, Ring coarserRing) {
+            this.periodMillis = periodMillis;
+            this.periods = new long[numberOfBuckets];
+            this.counters = new long[numberOfBuckets * COUNTERS];
+            this.coarserRing = coarserRing;
+            Arrays.fill(periods, Long.MIN_VALUE);
+        }
+
+        long getSpanMillis() {
+            return periodMillis * periods.length;
+        }
+
+        boolean hasLatestPeriod() {
+            return latestPeriod != Long.MIN_VALUE;
+        }
+
+        void add(long timestampMillis, long submissions, long earnedPoints, long enrollments, long completions) {
+            int bucket;
+            if (timestampMillis >= latestStartMillis && timestampMillis < latestEndMillis) {
+                bucket = latestBucket;
+            } else {
+                long period = Math.floorDiv(timestampMillis, periodMillis);
+                if (period > latestPeriod) {
+                    if (coarserRing != null && hasLatestPeriod()) {
+                        int offset = latestBucket * COUNTERS;
+                        coarserRing.add(latestStartMillis, counters[offset + SUBMISSIONS],
+                                counters[offset + EARNED_POINTS], counters[offset + ENROLLMENTS],
+                                counters[offset + COMPLETIONS]);
+                    }
+                    bucket = claimBucket(period);
+                    latestPeriod = period;
+                    latestBucket = bucket;
+                    latestStartMillis = period * periodMillis;
+                    latestEndMillis = latestStartMillis + periodMillis;
+                } else {
+                    // the periods before the latest one are folded already
+                    if (coarserRing != null) {
+                        coarserRing.add(timestampMillis, submissions, earnedPoints, enrollments, completions);
+                    }
+                    int heldBucket = heldBucket(period);
+                    if (heldBucket == NOT_HELD) {
+                        int candidateBucket = bucketOf(period);
+                        if (periods[candidateBucket] > period) {
+                            // the ring has turned past the period
+                            return;
+                        }
+                        heldBucket = claimBucket(period);
+                    }
+                    bucket = heldBucket;
+                }
+            }
+            int offset = bucket * COUNTERS;
+            counters[offset + SUBMISSIONS] += submissions;
+            counters[offset + EARNED_POINTS] += earnedPoints;
+            counters[offset + ENROLLMENTS] += enrollments;
+            counters[offset + COMPLETIONS] += completions;
+        }
+
+        /**
+         * @return the bucket counting the period or {@link #NOT_HELD}
+         * */
+        int heldBucket(long period) {
+            int bucket = bucketOf(period);
+            return periods[bucket] == period ? bucket : NOT_HELD;
+        }
+
+        void addCountersTo(int bucket, long[] totals) {
+            for (int counter = 0; counter < COUNTERS; counter++) {
+                totals[counter] += counters[bucket * COUNTERS + counter];
+            }
+        }
+
+        private int bucketOf(long period) {
+            return (int) Math.floorMod(period, (long) periods.length);
+        }
+
+        private int claimBucket(long period) {
+            int bucket = bucketOf(period);
+            periods[bucket] = period;
+            Arrays.fill(counters, bucket * COUNTERS, (bucket + 1) * COUNTERS, 0L);
+            return bucket;
+        }
+    }
+}
@@ -1,133 +1,677 @@
 package pojo;
 
-import tracker.PlatformCourses;
+import output.OutputSink;
+import tracker.PlatformCourse;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
 
+/**
+ * Scores of one platform course.
+ * The course is safe for concurrent use: it is the lock stripe of the platform, so updates of different courses
+ * run in parallel, updates of the same course are serialized and readers see the course between two updates.
+ * <p>
+ * Submissions, enrollments and completions are timestamped with the clock of the course and counted in rolling
+ * minute, hour and day buckets for {@link #getActivity(Duration)}; the submissions themselves are kept only when
+ * the course keeps its submission history. Replayed and restored updates count in the totals only.
+ * */
 public class Course {
 
-    private final PlatformCourses platformCourse;
-    private Map<String, Student> idToStudent = new HashMap<>();
-    private Map<String, Integer> idToEarnedPoints = new HashMap<>();
-    private Map<String, Integer> idToNumberOfSubmissions = new HashMap<>();
+    /**
+     * Receives the submissions of {@link #forEachSubmission(long, long, SubmissionConsumer)}
+     * */
+    @FunctionalInterface
+    public interface SubmissionConsumer {
+        void accept(long timestampMillis, long studentId, int points);
+    }
+
+    private final PlatformCourse platformCourse;
+    private final LongSupplier currentTimeMillis;
+    private final ActivityBuckets activityBuckets = new ActivityBuckets();
+    // null unless the course keeps its submission history
+    private final SubmissionHistory submissionHistory;
+    // null when the scores keep a reference to every enrolled student
+    private final LongFunction<Student> studentLookup;
+    private final CourseScores courseScores;
+    private final CourseLeaderboard courseLeaderboard;
+    // running aggregates, kept in step with courseScores on every update
+    private long totalNumberOfSubmissions;
+    private long totalNumberOfEarnedPoints;
+    private int numberOfStudentsCompletedCourse;
+    // slots that have crossed the completion threshold since the last drain, in the order of completion
+    private int[] newlyCompletedSlots = new int[INITIAL_COMPLETED_SLOTS_CAPACITY];
+    private int numberOfNewlyCompletedSlots;
+    private final BitSet notifiedSlots = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+    // read and replaced under the lock like the scores
+    private ScanParallelism scanParallelism = ScanParallelism.getDefault();
     private static final int DEFAULT_POINTS_FOR_STUDENT = 0;
     private static final int DEFAULT_SUBMISSIONS_FOR_STUDENT = 0;
-    protected static final int BIG_DECIMAL_SCALE = 1;
+    private static final int COMPLETED_COURSE_TENTHS_OF_PERCENT = 1000;
+    private static final int INITIAL_COMPLETED_SLOTS_CAPACITY = 16;
+    // a larger top is read from the rebuilt leaderboard rather than selected by a scan
+    private static final int MAX_SCANNED_TOP_LEARNERS = 1024;
+    // the timestamp of replayed and restored updates, which are not counted in the activity buckets
+    private static final long NOT_TIMESTAMPED = Long.MIN_VALUE;
+
 
+    public Course(PlatformCourse platformCourse) {
+        this(platformCourse, System::currentTimeMillis, false);
+    }
+
+    /**
+     * @param currentTimeMillis the clock of the timestamps, in milliseconds since the epoch
+     * */
+    public Course(PlatformCourse platformCourse, LongSupplier currentTimeMillis, boolean keepsSubmissionHistory) {
+        this(platformCourse, currentTimeMillis, keepsSubmissionHistory, null);
+    }
 
-    public Course(PlatformCourses platformCourse) {
+    /**
+     * A course that keeps only the ids of its students and looks the students up when it hands them out,
+     * so its points are added by id, see {@link #addPointsToTheCourse(long[], int[], int, int, int, long)}
+     * @param studentLookup resolves the id of an enrolled student, called under the lock of the course
+     * */
+    public Course(PlatformCourse platformCourse, LongSupplier currentTimeMillis, boolean keepsSubmissionHistory,
+                  LongFunction<Student> studentLookup) {
         this.platformCourse = platformCourse;
+        this.currentTimeMillis = currentTimeMillis;
+        this.submissionHistory = keepsSubmissionHistory ? new SubmissionHistory() : null;
+        this.studentLookup = studentLookup;
+        this.courseScores = new CourseScores(studentLookup == null);
+        this.courseLeaderboard = new CourseLeaderboard(courseScores);
     }
 
-    public int getEarnedCoursePoints(String studentId) {
-        return idToEarnedPoints.get(studentId);
+    /**
+     * Replaces how the full scans of the course run from now on: the completed students, the verification of the
+     * aggregates, the top learners of a stale leaderboard and the sort of a leaderboard rebuild
+     * */
+    public void setScanParallelism(ScanParallelism scanParallelism) {
+        writeLock.lock();
+        try {
+            this.scanParallelism = scanParallelism;
+            courseLeaderboard.setScanParallelism(scanParallelism);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
-    public void addPointsToTheCourse(String studentId, int pointsToAdd) {
-        int numberOfSubmissions = idToNumberOfSubmissions.get(studentId);
-        int actualPoints = idToEarnedPoints.get(studentId);
-        idToEarnedPoints.replace(studentId, actualPoints + pointsToAdd);
-        idToNumberOfSubmissions.replace(studentId, numberOfSubmissions + 1);
+    public int getEarnedCoursePoints(long studentId) {
+        readLock.lock();
+        try {
+            return courseScores.getEarnedPoints(courseScores.findSlot(studentId));
+        } finally {
+            readLock.unlock();
+        }
     }
 
-    protected boolean isCourseFinished(String studentId) {
-        return getEarnedCoursePoints(studentId) >= platformCourse.getTotalNumberOfPointsToFinish();
+    /**
+     * Adds the points of a student who is enrolled in the course already
+     * @throws IllegalArgumentException if the student is not enrolled
+     * */
+    public void addPointsToTheCourse(long studentId, int pointsToAdd) {
+        long timestampMillis = currentTimeMillis.getAsLong();
+        writeLock.lock();
+        try {
+            int slot = courseScores.findSlot(studentId);
+            if (slot == CourseScores.NO_SLOT) {
+                throw new IllegalArgumentException("The student " + studentId + " is not enrolled in "
+                        + platformCourse.getCourseName());
+            }
+            addPointsToTheSlot(slot, pointsToAdd, timestampMillis);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
-    public void addStudentToTheCourse(String studentId, Student student) {
-        idToStudent.put(studentId, student);
-        idToEarnedPoints.put(studentId, DEFAULT_POINTS_FOR_STUDENT);
-        idToNumberOfSubmissions.put(studentId, DEFAULT_SUBMISSIONS_FOR_STUDENT);
+    /**
+     * Applies the non-zero points of {@code numberOfRows} rows under one lock acquisition, all with one timestamp.
+     * The points of row {@code r} are at {@code points[r * pointsStride + pointsOffset]}
+     * */
+    public void addPointsToTheCourse(long[] studentIds, Student[] students, int[] points, int pointsOffset,
+                                     int pointsStride, int numberOfRows) {
+        addPointsToTheCourse(studentIds, students, points, pointsOffset, pointsStride, numberOfRows,
+                currentTimeMillis.getAsLong());
     }
 
-    public Student getStudentByStudentId(String studentId) {
-        return idToStudent.get(studentId);
+    public void addPointsToTheCourse(long[] studentIds, Student[] students, int[] points, int pointsOffset,
+                                     int pointsStride, int numberOfRows, long timestampMillis) {
+        addPointsRows(studentIds, row -> students[row], points, pointsOffset, pointsStride, numberOfRows,
+                timestampMillis);
     }
 
-    public int getStudentPoints(String studentId) {
-        return idToEarnedPoints.getOrDefault(studentId, DEFAULT_POINTS_FOR_STUDENT);
+    /**
+     * Same as {@link #addPointsToTheCourse(long[], Student[], int[], int, int, int, long)} for a course that looks
+     * its students up, which enrolls them by id
+     * */
+    public void addPointsToTheCourse(long[] studentIds, int[] points, int pointsOffset, int pointsStride,
+                                     int numberOfRows, long timestampMillis) {
+        if (studentLookup == null) {
+            throw new IllegalStateException("The course " + platformCourse.getCourseName()
+                    + " keeps its students, it cannot enroll them by id");
+        }
+        addPointsRows(studentIds, row -> null, points, pointsOffset, pointsStride, numberOfRows, timestampMillis);
     }
 
-    public int getNumberOfSubmissionsForTheStudent(String studentId) {
-        return idToNumberOfSubmissions.getOrDefault(studentId, DEFAULT_SUBMISSIONS_FOR_STUDENT);
+    /**
+     * Replays rows like {@link #addPointsToTheCourse(long[], Student[], int[], int, int, int)}, the student is looked
+     * up only when it is enrolled. The time of a replayed submission is unknown, so it counts in the totals only
+     * */
+    public void addPointsToTheCourse(long[] studentIds, LongFunction<Student> students, int[] points,
+                                     int pointsOffset, int pointsStride, int numberOfRows) {
+        addPointsRows(studentIds, row -> students.apply(studentIds[row]), points, pointsOffset, pointsStride,
+                numberOfRows, NOT_TIMESTAMPED);
     }
 
-    public int getTotalNumberOfSubmissionOfAllStudents() {
-        int totalNumberOfSubmissions = 0;
-        for (Map.Entry<String, Integer> studentIdToNumberOfSubmissions : idToNumberOfSubmissions.entrySet()) {
-            totalNumberOfSubmissions += studentIdToNumberOfSubmissions.getValue();
+    private void addPointsRows(long[] studentIds, IntFunction<Student> studentOfRow, int[] points, int pointsOffset,
+                               int pointsStride, int numberOfRows, long timestampMillis) {
+        writeLock.lock();
+        try {
+            for (int row = 0; row < numberOfRows; row++) {
+                int pointsToAdd = points[row * pointsStride + pointsOffset];
+                if (pointsToAdd != 0) {
+                    int slot = courseScores.findSlot(studentIds[row]);
+                    if (slot == CourseScores.NO_SLOT) {
+                        slot = findOrEnrollSlot(studentIds[row], studentOfRow.apply(row), timestampMillis);
+                    }
+                    addPointsToTheSlot(slot, pointsToAdd, timestampMillis);
+                }
+            }
+        } finally {
+            writeLock.unlock();
         }
-        return totalNumberOfSubmissions;
     }
 
-    public int getTotalNumberOfEarnedPointsOfAllStudents() {
-        int totalNumberOfEarnedPoints = 0;
-        for (Map.Entry<String, Integer> studentIdToEarnedPoints : idToEarnedPoints.entrySet()) {
-            totalNumberOfEarnedPoints += studentIdToEarnedPoints.getValue();
+    private int findOrEnrollSlot(long studentId, Student student, long timestampMillis) {
+        int slot = courseScores.findSlot(studentId);
+        if (slot == CourseScores.NO_SLOT) {
+            slot = courseScores.enroll(studentId, student);
+            courseLeaderboard.add(slot);
+            if (timestampMillis != NOT_TIMESTAMPED) {
+                activityBuckets.recordEnrollment(timestampMillis);
+            }
+        }
+        return slot;
+    }
+
+    private void addPointsToTheSlot(int slot, int pointsToAdd, long timestampMillis) {
+        boolean wasCourseFinished = isCourseFinishedForSlot(slot);
+        courseScores.addPoints(slot, pointsToAdd);
+        if (pointsToAdd != 0) {
+            courseLeaderboard.markChanged(slot);
+        }
+        totalNumberOfSubmissions++;
+        totalNumberOfEarnedPoints += pointsToAdd;
+        boolean isCompleted = !wasCourseFinished && isCourseFinishedForSlot(slot);
+        if (isCompleted) {
+            numberOfStudentsCompletedCourse++;
+            addNewlyCompletedSlot(slot);
+        }
+        if (timestampMillis != NOT_TIMESTAMPED) {
+            recordSubmission(slot, pointsToAdd, isCompleted, timestampMillis);
+        }
+    }
+
+    private void recordSubmission(int slot, int pointsToAdd, boolean isCompleted, long timestampMillis) {
+        activityBuckets.recordSubmission(timestampMillis, pointsToAdd, isCompleted);
+        if (submissionHistory != null) {
+            submissionHistory.append(timestampMillis, courseScores.getId(slot), pointsToAdd);
+        }
+    }
+
+    private void addNewlyCompletedSlot(int slot) {
+        if (numberOfNewlyCompletedSlots == newlyCompletedSlots.length) {
+            newlyCompletedSlots = Arrays.copyOf(newlyCompletedSlots, numberOfNewlyCompletedSlots * 2);
+        }
+        newlyCompletedSlots[numberOfNewlyCompletedSlots++] = slot;
+    }
+
+    protected boolean isCourseFinished(long studentId) {
+        readLock.lock();
+        try {
+            return isCourseFinishedForSlot(courseScores.findSlot(studentId));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private boolean isCourseFinishedForSlot(int slot) {
+        return courseScores.getEarnedPoints(slot) >= platformCourse.getTotalNumberOfPointsToFinish();
+    }
+
+    public void addStudentToTheCourse(long studentId, Student student) {
+        long timestampMillis = currentTimeMillis.getAsLong();
+        writeLock.lock();
+        try {
+            findOrEnrollSlot(studentId, student, timestampMillis);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Student getStudentByStudentId(long studentId) {
+        readLock.lock();
+        try {
+            int slot = courseScores.findSlot(studentId);
+            return slot == CourseScores.NO_SLOT ? null : getStudentOfSlot(slot);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private Student getStudentOfSlot(int slot) {
+        return studentLookup == null ? courseScores.getStudent(slot) : studentLookup.apply(courseScores.getId(slot));
+    }
+
+    public int getStudentPoints(long studentId) {
+        readLock.lock();
+        try {
+            int slot = courseScores.findSlot(studentId);
+            return slot == CourseScores.NO_SLOT ? DEFAULT_POINTS_FOR_STUDENT : courseScores.getEarnedPoints(slot);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int getNumberOfSubmissionsForTheStudent(long studentId) {
+        readLock.lock();
+        try {
+            int slot = courseScores.findSlot(studentId);
+            return slot == CourseScores.NO_SLOT ? DEFAULT_SUBMISSIONS_FOR_STUDENT : courseScores.getSubmissions(slot);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public long getTotalNumberOfSubmissionOfAllStudents() {
+        readLock.lock();
+        try {
+            return totalNumberOfSubmissions;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public long getTotalNumberOfEarnedPointsOfAllStudents() {
+        readLock.lock();
+        try {
+            return totalNumberOfEarnedPoints;
+        } finally {
+            readLock.unlock();
         }
-        return totalNumberOfEarnedPoints;
     }
 
     public int getNumberOfEnrolledStudents() {
-        return idToStudent.size();
+        readLock.lock();
+        try {
+            return courseScores.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int getNumberOfStudentsCompletedCourse() {
+        readLock.lock();
+        try {
+            return numberOfStudentsCompletedCourse;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return the aggregates of the course taken together under one lock
+     * */
+    public CourseAggregates getAggregates() {
+        readLock.lock();
+        try {
+            return new CourseAggregates(courseScores.size(), totalNumberOfSubmissions, totalNumberOfEarnedPoints,
+                    numberOfStudentsCompletedCourse);
+        } finally {
+            readLock.unlock();
+        }
     }
 
-    public boolean isStudentExist(String studentId) {
-        return idToStudent.containsKey(studentId);
+    /**
+     * @return the activity of the last {@code window}: submissions, earned points and completions, with the new
+     * enrollments as the number of enrolled students. The window is rounded up to whole minutes, hours or days,
+     * the finest that covers it, and may be at most 400 days
+     * */
+    public CourseAggregates getActivity(Duration window) {
+        long nowMillis = currentTimeMillis.getAsLong();
+        readLock.lock();
+        try {
+            return activityBuckets.sum(nowMillis, window.toMillis());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public boolean keepsSubmissionHistory() {
+        return submissionHistory != null;
+    }
+
+    /**
+     * Passes the submissions from {@code fromMillis} inclusive to {@code toMillis} exclusive, oldest first
+     * @throws IllegalStateException if the course does not keep its submission history
+     * */
+    public void forEachSubmission(long fromMillis, long toMillis, SubmissionConsumer submissionConsumer) {
+        if (submissionHistory == null) {
+            throw new IllegalStateException(this + " does not keep its submission history");
+        }
+        readLock.lock();
+        try {
+            submissionHistory.forEachInRange(fromMillis, toMillis, submissionConsumer);
+        } finally {
+            readLock.unlock();
+        }
     }
 
-    public void listStudentsId() {
-        if (idToStudent.isEmpty()) {
-            System.out.println("No students found.");
-        } else {
-            System.out.println("Students: ");
-            idToStudent.forEach((studentId, student) -> System.out.println(studentId));
+    /**
+     * Recomputes the aggregates with a full scan of the enrolled students and compares them with the running ones
+     * @throws IllegalStateException if any aggregate is out of step
+     * */
+    public void verifyAggregates() {
+        readLock.lock();
+        try {
+            verifyAggregatesLocked();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void verifyAggregatesLocked() {
+        CourseScans.Totals scannedTotals = CourseScans.sumTotals(courseScores,
+                platformCourse.getTotalNumberOfPointsToFinish(), scanParallelism);
+        long scannedSubmissions = scannedTotals.submissions;
+        long scannedEarnedPoints = scannedTotals.earnedPoints;
+        int scannedStudentsCompletedCourse = scannedTotals.studentsCompletedCourse;
+        if (scannedSubmissions != totalNumberOfSubmissions || scannedEarnedPoints != totalNumberOfEarnedPoints
+                || scannedStudentsCompletedCourse != numberOfStudentsCompletedCourse) {
+            throw new IllegalStateException(String.format("%s aggregates are out of step: submissions %d/%d, "
+                            + "points %d/%d, completed %d/%d (running/scanned)", this,
+                    totalNumberOfSubmissions, scannedSubmissions, totalNumberOfEarnedPoints, scannedEarnedPoints,
+                    numberOfStudentsCompletedCourse, scannedStudentsCompletedCourse));
+        }
+    }
+
+    public boolean isStudentExist(long studentId) {
+        readLock.lock();
+        try {
+            return courseScores.contains(studentId);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public void listStudentsId(OutputSink outputSink) {
+        readLock.lock();
+        try {
+            if (courseScores.size() == 0) {
+                outputSink.println("No students found.");
+            } else {
+                outputSink.println("Students: ");
+                for (int slot = 0; slot < courseScores.size(); slot++) {
+                    outputSink.println(String.valueOf(courseScores.getId(slot)));
+                }
+            }
+        } finally {
+            readLock.unlock();
         }
     }
 
     public double getAverageGradePerAssignment() {
-        return (double) getTotalNumberOfEarnedPointsOfAllStudents() / getTotalNumberOfSubmissionOfAllStudents();
+        return getAggregates().getAverageGradePerAssignment();
+    }
+
+    private long calculateCourseCompletionTenthsForSlot(int slot) {
+        return calculateCourseCompletionTenths(courseScores.getEarnedPoints(slot),
+                platformCourse.getTotalNumberOfPointsToFinish());
+    }
+
+    /**
+     * Course completion in tenths of a percent, rounded half up
+     * */
+    public static long calculateCourseCompletionTenths(int earnedPoints, int totalNumberOfPointsToFinish) {
+        if (earnedPoints >= totalNumberOfPointsToFinish) {
+            return COMPLETED_COURSE_TENTHS_OF_PERCENT;
+        }
+        return (2L * COMPLETED_COURSE_TENTHS_OF_PERCENT * earnedPoints + totalNumberOfPointsToFinish)
+                / (2L * totalNumberOfPointsToFinish);
     }
 
-    private double calculateCourseCompletionForStudent(String studentId) {
-        if (isCourseFinished(studentId)) {
-            return 100.0;
+    public void getTopLearners(OutputSink outputSink) {
+        getTopLearners(outputSink, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Brings the leaderboard up to date under the write lock and downgrades to the read lock,
+     * so that several leaderboard queries can run at once. The caller releases the read lock
+     * */
+    private void lockRefreshedLeaderboard() {
+        writeLock.lock();
+        try {
+            courseLeaderboard.refresh();
+            readLock.lock();
+        } finally {
+            writeLock.unlock();
         }
-        double courseCompletionPercentage = (getEarnedCoursePoints(studentId) * 100.0)
-                / platformCourse.getTotalNumberOfPointsToFinish();
-        BigDecimal bigDecimalCourseCompletionPercentage = BigDecimal.valueOf(courseCompletionPercentage);
-        bigDecimalCourseCompletionPercentage = bigDecimalCourseCompletionPercentage.setScale(BIG_DECIMAL_SCALE, RoundingMode.HALF_UP);
-        return bigDecimalCourseCompletionPercentage.doubleValue();
     }
 
-    public void getTopLearners() {
-        LinkedHashMap<String, Integer> sortedIdToEarnedPoints = idToEarnedPoints.entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
-                        .thenComparing(Map.Entry.comparingByKey()))
-                .collect(Collectors.toMap(Map.Entry<String, Integer>::getKey, Map.Entry::getValue,
-                        (oldValue, newValue) -> oldValue, LinkedHashMap::new));
-        System.out.format("%-6s%-10s%-9s\n", "id", "points", "completed");
-        sortedIdToEarnedPoints.forEach((id, earnedPoints) -> System.out.printf("%-6s%-10d%.1f%%\n", id, earnedPoints
-                , calculateCourseCompletionForStudent(id)));
+    /**
+     * Prints a page of the leaderboard: at most {@code limit} students starting from the 0-based position {@code offset}
+     * */
+    public void getTopLearners(OutputSink outputSink, int offset, int limit) {
+        lockRefreshedLeaderboard();
+        try {
+            outputSink.println("id    points    completed");
+            // fixed-width table "%-6s%-10d%.1f%%" printed without a Formatter
+            courseLeaderboard.forEachInRange(offset, limit, slot -> {
+                outputSink.printPadded(courseScores.getId(slot), 6);
+                outputSink.printPadded(courseScores.getEarnedPoints(slot), 10);
+                outputSink.printTenths(calculateCourseCompletionTenthsForSlot(slot));
+                outputSink.println("%");
+            });
+        } finally {
+            readLock.unlock();
+        }
     }
 
+    /**
+     * Copies a page of the leaderboard: at most {@code limit} students starting from the 0-based position
+     * {@code offset}, the same rows {@link #getTopLearners(OutputSink, int, int)} prints
+     * */
+    public LeaderboardPage getLeaderboardPage(int offset, int limit) {
+        lockRefreshedLeaderboard();
+        try {
+            int numberOfEnrolledStudents = courseScores.size();
+            int pageSize = offset >= numberOfEnrolledStudents ? 0
+                    : Math.max(0, Math.min(limit, numberOfEnrolledStudents - offset));
+            long[] studentIds = new long[pageSize];
+            int[] points = new int[pageSize];
+            long[] completionTenths = new long[pageSize];
+            int[] row = {0};
+            courseLeaderboard.forEachInRange(offset, pageSize, slot -> {
+                studentIds[row[0]] = courseScores.getId(slot);
+                points[row[0]] = courseScores.getEarnedPoints(slot);
+                completionTenths[row[0]++] = calculateCourseCompletionTenthsForSlot(slot);
+            });
+            return new LeaderboardPage(platformCourse, offset, numberOfEnrolledStudents, studentIds, points,
+                    completionTenths);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return ids of at most {@code k} students with the most points, in leaderboard order
+     * */
+    public long[] getTopLearnerIds(int k) {
+        readLock.lock();
+        try {
+            // after a bulk of updates a scan answers under the read lock, the rebuild waits for the next query
+            // that needs positions
+            if (k <= MAX_SCANNED_TOP_LEARNERS && courseLeaderboard.isRebuildDue()) {
+                int[] topSlots = CourseScans.findTopSlots(courseScores, k, scanParallelism);
+                long[] topLearnerIds = new long[topSlots.length];
+                for (int i = 0; i < topSlots.length; i++) {
+                    topLearnerIds[i] = courseScores.getId(topSlots[i]);
+                }
+                return topLearnerIds;
+            }
+        } finally {
+            readLock.unlock();
+        }
+        lockRefreshedLeaderboard();
+        try {
+            long[] topLearnerIds = new long[Math.max(0, Math.min(k, courseScores.size()))];
+            int[] position = {0};
+            courseLeaderboard.forEachInRange(0, topLearnerIds.length,
+                    slot -> topLearnerIds[position[0]++] = courseScores.getId(slot));
+            return topLearnerIds;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return 1-based leaderboard position of the student or 0 if the student is not enrolled
+     * */
+    public int getRankOfStudent(long studentId) {
+        lockRefreshedLeaderboard();
+        try {
+            int slot = courseScores.findSlot(studentId);
+            return slot == CourseScores.NO_SLOT ? 0 : courseLeaderboard.rankOf(slot);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return the students who have completed the course, in enrollment order
+     * */
     public List<Student> getStudentsFinishedCourse() {
-        List<Student> studentsFinishedCourse = new ArrayList<>();
-        for (Map.Entry<String, Student> studentEntry: idToStudent.entrySet()) {
-            if (isCourseFinished(studentEntry.getKey())) {
-                studentsFinishedCourse.add(studentEntry.getValue());
+        readLock.lock();
+        try {
+            int[] completedSlots = CourseScans.findCompletedSlots(courseScores,
+                    platformCourse.getTotalNumberOfPointsToFinish(), scanParallelism);
+            List<Student> studentsFinishedCourse = new ArrayList<>(completedSlots.length);
+            for (int slot : completedSlots) {
+                studentsFinishedCourse.add(getStudentOfSlot(slot));
+            }
+            return studentsFinishedCourse;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Hands out the students who have completed the course since the last call, so every student is handed out
+     * once. The caller marks a student with {@link #markNotified(long)} once its notification is delivered or
+     * hands it back with {@link #returnStudentToNotify(long)} if the delivery failed. Costs O(k log k) for
+     * k newly completed students, they are returned in enrollment order
+     * */
+    public List<Student> drainStudentsToNotify() {
+        writeLock.lock();
+        try {
+            Arrays.sort(newlyCompletedSlots, 0, numberOfNewlyCompletedSlots);
+            List<Student> studentsToNotify = new ArrayList<>(numberOfNewlyCompletedSlots);
+            for (int i = 0; i < numberOfNewlyCompletedSlots; i++) {
+                int slot = newlyCompletedSlots[i];
+                if (!notifiedSlots.get(slot)) {
+                    studentsToNotify.add(getStudentOfSlot(slot));
+                }
+            }
+            numberOfNewlyCompletedSlots = 0;
+            return studentsToNotify;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Marks the student as notified about the completion, once its notification is delivered or when the
+     * notification is replayed from a log
+     * */
+    public void markNotified(long studentId) {
+        writeLock.lock();
+        try {
+            int slot = courseScores.findSlot(studentId);
+            if (slot == CourseScores.NO_SLOT) {
+                throw new IllegalArgumentException("Student " + studentId + " is not enrolled in " + this);
+            }
+            notifiedSlots.set(slot);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Hands a student of {@link #drainStudentsToNotify()} whose notification failed to the next drain
+     * */
+    public void returnStudentToNotify(long studentId) {
+        writeLock.lock();
+        try {
+            int slot = courseScores.findSlot(studentId);
+            if (slot == CourseScores.NO_SLOT) {
+                throw new IllegalArgumentException("Student " + studentId + " is not enrolled in " + this);
+            }
+            if (!notifiedSlots.get(slot)) {
+                addNewlyCompletedSlot(slot);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public CourseSnapshot snapshot() {
+        readLock.lock();
+        try {
+            return new CourseSnapshot(courseScores.copyIds(), courseScores.copyEarnedPoints(),
+                    courseScores.copySubmissions(), notifiedSlots.toLongArray());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Fills an empty course from a snapshot, slots keep their order
+     * @param students resolves a student id of the snapshot to the registered student
+     * */
+    public void restore(CourseSnapshot courseSnapshot, LongFunction<Student> students) {
+        writeLock.lock();
+        try {
+            if (courseScores.size() != 0) {
+                throw new IllegalStateException(this + " can be restored only while it is empty");
+            }
+            long[] studentIds = courseSnapshot.getStudentIds();
+            BitSet restoredNotifiedSlots = BitSet.valueOf(courseSnapshot.getNotifiedSlots());
+            for (int i = 0; i < courseSnapshot.size(); i++) {
+                int slot = findOrEnrollSlot(studentIds[i], students.apply(studentIds[i]), NOT_TIMESTAMPED);
+                courseScores.restore(slot, courseSnapshot.getEarnedPoints()[i], courseSnapshot.getSubmissions()[i]);
+                totalNumberOfSubmissions += courseScores.getSubmissions(slot);
+                totalNumberOfEarnedPoints += courseScores.getEarnedPoints(slot);
+                if (isCourseFinishedForSlot(slot)) {
+                    numberOfStudentsCompletedCourse++;
+                    if (!restoredNotifiedSlots.get(slot)) {
+                        addNewlyCompletedSlot(slot);
+                    }
+                }
             }
+            notifiedSlots.or(restoredNotifiedSlots);
+        } finally {
+            writeLock.unlock();
         }
-        return studentsFinishedCourse;
     }
 
     @Override
@@ -135,7 +679,7 @@ public class Course {
         return platformCourse.getCourseName();
     }
 
-    public PlatformCourses getPlatformCourse() {
+    public PlatformCourse getPlatformCourse() {
         return platformCourse;
     }
 }
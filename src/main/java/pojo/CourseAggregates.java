@@ -0,0 +1,53 @@
+package pojo;
+
+/**
+ * Aggregates of a course taken at one point in time, see {@link Course#getAggregates()}
+ * */
+public class CourseAggregates {
+
+    private final int numberOfEnrolledStudents;
+    private final long totalNumberOfSubmissions;
+    private final long totalNumberOfEarnedPoints;
+    private final int numberOfStudentsCompletedCourse;
+
+    public CourseAggregates(int numberOfEnrolledStudents, long totalNumberOfSubmissions,
+                            long totalNumberOfEarnedPoints, int numberOfStudentsCompletedCourse) {
+        this.numberOfEnrolledStudents = numberOfEnrolledStudents;
+        this.totalNumberOfSubmissions = totalNumberOfSubmissions;
+        this.totalNumberOfEarnedPoints = totalNumberOfEarnedPoints;
+        this.numberOfStudentsCompletedCourse = numberOfStudentsCompletedCourse;
+    }
+
+    public int getNumberOfEnrolledStudents() {
+        return numberOfEnrolledStudents;
+    }
+
+    public long getTotalNumberOfSubmissions() {
+        return totalNumberOfSubmissions;
+    }
+
+    public long getTotalNumberOfEarnedPoints() {
+        return totalNumberOfEarnedPoints;
+    }
+
+    public int getNumberOfStudentsCompletedCourse() {
+        return numberOfStudentsCompletedCourse;
+    }
+
+    /**
+     * @return aggregates of the students of both, which are disjoint sets of students, e.g. two shards of a course
+     * */
+    public CourseAggregates plus(CourseAggregates other) {
+        return new CourseAggregates(numberOfEnrolledStudents + other.numberOfEnrolledStudents,
+                totalNumberOfSubmissions + other.totalNumberOfSubmissions,
+                totalNumberOfEarnedPoints + other.totalNumberOfEarnedPoints,
+                numberOfStudentsCompletedCourse + other.numberOfStudentsCompletedCourse);
+    }
+
+    /**
+     * @return NaN if there are no submissions
+     * */
+    public double getAverageGradePerAssignment() {
+        return (double) totalNumberOfEarnedPoints / totalNumberOfSubmissions;
+    }
+}
@@ -0,0 +1,450 @@
+package pojo;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.IntConsumer;
+
+/**
+ * Order-statistic tree over the slots of {@link CourseScores}, ordered by earned points descending and id ascending.
+ * It is an array-based treap: nodes are the slots themselves and every node keeps the size of its subtree,
+ * so rank and positioning at an offset take O(log N) expected time.
+ * Links of a node and its sort key are stored next to each other, so visiting a node touches two cache lines.
+ * <p>
+ * Point updates only mark the slot as changed. Before the next query the changed slots are repositioned one by one,
+ * or the whole tree is rebuilt from a sorted order when a large share of the course has changed,
+ * so a bulk of updates between two queries never costs more than one rebuild.
+ * The sort of a rebuild is split across threads for a large course, see {@link ScanParallelism}.
+ * */
+class CourseLeaderboard {
+
+    private static final int NO_NODE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_STACK_CAPACITY = 64;
+    private static final int REBUILD_DIVISOR = 16;
+    // layout of a node in the nodes array
+    private static final int NODE_STRIDE = 4;
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+    private static final int PRIORITY = 2;
+    private static final int SUBTREE_SIZE = 3;
+    // layout of a sort key in the keys array, the key is a copy of the points the node is positioned by
+    private static final int KEY_STRIDE = 2;
+    private static final int POINTS = 0;
+    private static final int ID = 1;
+    private static final long NOT_IN_TREE = -1;
+
+    private final CourseScores courseScores;
+    private final SplittableRandom random = new SplittableRandom(0x5EED);
+    private ScanParallelism scanParallelism = ScanParallelism.getDefault();
+    private int[] nodes = new int[INITIAL_CAPACITY * NODE_STRIDE];
+    private long[] keys = new long[INITIAL_CAPACITY * KEY_STRIDE];
+    private int root = NO_NODE;
+    private int[] changedSlots = new int[INITIAL_CAPACITY];
+    private int numberOfChangedSlots;
+    private boolean[] changed = new boolean[INITIAL_CAPACITY];
+    // results of split(), kept in fields to avoid allocating a pair per call
+    private int splitLeft;
+    private int splitRight;
+
+    CourseLeaderboard(CourseScores courseScores) {
+        this.courseScores = courseScores;
+    }
+
+    void setScanParallelism(ScanParallelism scanParallelism) {
+        this.scanParallelism = scanParallelism;
+    }
+
+    /**
+     * @return {@code true} if so many slots have changed that the next query rebuilds the whole tree
+     * */
+    boolean isRebuildDue() {
+        return numberOfChangedSlots > courseScores.size() / REBUILD_DIVISOR;
+    }
+
+    /**
+     * Registers a newly enrolled slot, it takes its place on the leaderboard before the next query
+     * */
+    void add(int slot) {
+        ensureCapacity(slot + 1);
+        keys[slot * KEY_STRIDE + POINTS] = NOT_IN_TREE;
+        markChanged(slot);
+    }
+
+    /**
+     * Registers a change of the slot's points
+     * */
+    void markChanged(int slot) {
+        if (!changed[slot]) {
+            changed[slot] = true;
+            if (numberOfChangedSlots == changedSlots.length) {
+                changedSlots = Arrays.copyOf(changedSlots, numberOfChangedSlots * 2);
+            }
+            changedSlots[numberOfChangedSlots++] = slot;
+        }
+    }
+
+    int size() {
+        refresh();
+        return sizeOf(root);
+    }
+
+    /**
+     * @return 1-based position of the slot in the leaderboard
+     * */
+    int rankOf(int slot) {
+        refresh();
+        int rank = 1;
+        int node = root;
+        while (node != NO_NODE) {
+            int comparison = compare(slot, node);
+            if (comparison == 0) {
+                return rank + sizeOf(left(node));
+            }
+            if (comparison < 0) {
+                node = left(node);
+            } else {
+                rank += sizeOf(left(node)) + 1;
+                node = right(node);
+            }
+        }
+        throw new IllegalArgumentException("Slot " + slot + " is not on the leaderboard");
+    }
+
+    /**
+     * Passes at most {@code limit} slots starting from the 0-based position {@code offset} in leaderboard order
+     * */
+    void forEachInRange(int offset, int limit, IntConsumer slotConsumer) {
+        if (offset >= size() || limit <= 0) {
+            return;
+        }
+        // descend to the node at the offset, remembering the ancestors still to be visited in order
+        int[] stack = new int[INITIAL_STACK_CAPACITY];
+        int stackSize = 0;
+        int node = root;
+        int remainingOffset = offset;
+        while (node != NO_NODE) {
+            int leftSize = sizeOf(left(node));
+            if (remainingOffset < leftSize) {
+                stack = push(stack, stackSize++, node);
+                node = left(node);
+            } else if (remainingOffset == leftSize) {
+                stack = push(stack, stackSize++, node);
+                break;
+            } else {
+                remainingOffset -= leftSize + 1;
+                node = right(node);
+            }
+        }
+        int visited = 0;
+        while (stackSize > 0 && visited < limit) {
+            node = stack[--stackSize];
+            slotConsumer.accept(node);
+            visited++;
+            for (int child = right(node); child != NO_NODE; child = left(child)) {
+                stack = push(stack, stackSize++, child);
+            }
+        }
+    }
+
+    /**
+     * Repositions the changed slots. Queries call it on their own, a caller that lets several threads query
+     * at once must call it exclusively beforehand, after that the queries only read the tree
+     * */
+    void refresh() {
+        if (numberOfChangedSlots == 0) {
+            return;
+        }
+        if (isRebuildDue()) {
+            rebuild();
+        } else {
+            for (int i = 0; i < numberOfChangedSlots; i++) {
+                int slot = changedSlots[i];
+                if (keys[slot * KEY_STRIDE + POINTS] != NOT_IN_TREE) {
+                    root = remove(root, slot);
+                }
+                resetNode(slot);
+                root = insert(root, slot);
+            }
+        }
+        for (int i = 0; i < numberOfChangedSlots; i++) {
+            changed[changedSlots[i]] = false;
+        }
+        numberOfChangedSlots = 0;
+    }
+
+    /**
+     * Sorts all slots and links them into a balanced tree whose priorities decrease level by level
+     * */
+    private void rebuild() {
+        int size = courseScores.size();
+        int[] sortedSlots = new int[size];
+        for (int slot = 0; slot < size; slot++) {
+            resetNode(slot);
+            sortedSlots[slot] = slot;
+        }
+        sortSlots(sortedSlots);
+        int[] priorities = new int[size];
+        for (int i = 0; i < size; i++) {
+            priorities[i] = random.nextInt();
+        }
+        Arrays.sort(priorities);
+        root = NO_NODE;
+        // ranges of sorted slots are linked breadth-first and take the priorities from the highest down,
+        // so every parent outranks its children; a queue entry is (from, to, parent, isLeftChild)
+        int[] rangeQueue = new int[Math.max(1, size) * 4];
+        int head = 0;
+        int tail = 0;
+        if (size > 0) {
+            tail = enqueueRange(rangeQueue, tail, 0, size, NO_NODE, true);
+        }
+        int nextPriority = size - 1;
+        while (head < tail) {
+            int from = rangeQueue[head++];
+            int to = rangeQueue[head++];
+            int parent = rangeQueue[head++];
+            boolean isLeftChild = rangeQueue[head++] == 1;
+            int middle = (from + to - 1) >>> 1;
+            int node = sortedSlots[middle];
+            nodes[node * NODE_STRIDE + PRIORITY] = priorities[nextPriority--];
+            nodes[node * NODE_STRIDE + SUBTREE_SIZE] = to - from;
+            if (parent == NO_NODE) {
+                root = node;
+            } else if (isLeftChild) {
+                setLeft(parent, node);
+            } else {
+                setRight(parent, node);
+            }
+            if (from < middle) {
+                tail = enqueueRange(rangeQueue, tail, from, middle, node, true);
+            }
+            if (middle + 1 < to) {
+                tail = enqueueRange(rangeQueue, tail, middle + 1, to, node, false);
+            }
+        }
+    }
+
+    private static int enqueueRange(int[] rangeQueue, int tail, int from, int to, int parent, boolean isLeftChild) {
+        rangeQueue[tail++] = from;
+        rangeQueue[tail++] = to;
+        rangeQueue[tail++] = parent;
+        rangeQueue[tail++] = isLeftChild ? 1 : 0;
+        return tail;
+    }
+
+    /**
+     * Sorts the slots in leaderboard order, a large course is sorted by the pool of the scan parallelism:
+     * the halves are sorted by forked tasks and then merged
+     * */
+    private void sortSlots(int[] slots) {
+        int[] buffer = new int[slots.length];
+        if (scanParallelism.isParallel(slots.length)) {
+            try {
+                scanParallelism.invoke(new SortTask(slots, buffer, 0, slots.length,
+                        scanParallelism.rangeSize(slots.length)));
+                return;
+            } catch (RejectedExecutionException | CancellationException e) {
+                // the parallelism was closed after the check: the pool rejected the sort or dropped it unstarted
+            }
+        }
+        mergeSort(slots, buffer, 0, slots.length);
+    }
+
+    private class SortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] slots;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+        private final int rangeSize;
+
+        private SortTask(int[] slots, int[] buffer, int from, int to, int rangeSize) {
+            this.slots = slots;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.rangeSize = rangeSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= rangeSize) {
+                mergeSort(slots, buffer, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(slots, buffer, from, middle, rangeSize),
+                    new SortTask(slots, buffer, middle, to, rangeSize));
+            merge(slots, buffer, from, middle, to);
+        }
+    }
+
+    private void mergeSort(int[] slots, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(slots, buffer, from, middle);
+        mergeSort(slots, buffer, middle, to);
+        merge(slots, buffer, from, middle, to);
+    }
+
+    /**
+     * Merges the sorted runs {@code [from, middle)} and {@code [middle, to)} through the same range of the buffer
+     * */
+    private void merge(int[] slots, int[] buffer, int from, int middle, int to) {
+        if (compare(slots[middle - 1], slots[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(slots, from, buffer, from, to - from);
+        int leftIndex = from;
+        int rightIndex = middle;
+        for (int i = from; i < to; i++) {
+            if (rightIndex == to || (leftIndex < middle && compare(buffer[leftIndex], buffer[rightIndex]) <= 0)) {
+                slots[i] = buffer[leftIndex++];
+            } else {
+                slots[i] = buffer[rightIndex++];
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > changed.length) {
+            int newCapacity = Math.max(changed.length * 2, capacity);
+            nodes = Arrays.copyOf(nodes, newCapacity * NODE_STRIDE);
+            keys = Arrays.copyOf(keys, newCapacity * KEY_STRIDE);
+            changed = Arrays.copyOf(changed, newCapacity);
+        }
+    }
+
+    private void resetNode(int slot) {
+        setLeft(slot, NO_NODE);
+        setRight(slot, NO_NODE);
+        nodes[slot * NODE_STRIDE + PRIORITY] = random.nextInt();
+        nodes[slot * NODE_STRIDE + SUBTREE_SIZE] = 1;
+        keys[slot * KEY_STRIDE + POINTS] = courseScores.getEarnedPoints(slot);
+        keys[slot * KEY_STRIDE + ID] = courseScores.getId(slot);
+    }
+
+    private static int[] push(int[] stack, int position, int node) {
+        int[] target = position == stack.length ? Arrays.copyOf(stack, stack.length * 2) : stack;
+        target[position] = node;
+        return target;
+    }
+
+    private int insert(int node, int slot) {
+        if (node == NO_NODE) {
+            return slot;
+        }
+        if (priority(slot) > priority(node)) {
+            split(node, slot);
+            setLeft(slot, splitLeft);
+            setRight(slot, splitRight);
+            update(slot);
+            return slot;
+        }
+        if (compare(slot, node) < 0) {
+            setLeft(node, insert(left(node), slot));
+        } else {
+            setRight(node, insert(right(node), slot));
+        }
+        update(node);
+        return node;
+    }
+
+    private int remove(int node, int slot) {
+        if (node == NO_NODE) {
+            throw new IllegalArgumentException("Slot " + slot + " is not on the leaderboard");
+        }
+        if (node == slot) {
+            return merge(left(node), right(node));
+        }
+        if (compare(slot, node) < 0) {
+            setLeft(node, remove(left(node), slot));
+        } else {
+            setRight(node, remove(right(node), slot));
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Splits the subtree into nodes ordered before the slot ({@link #splitLeft}) and after it ({@link #splitRight})
+     * */
+    private void split(int node, int slot) {
+        if (node == NO_NODE) {
+            splitLeft = NO_NODE;
+            splitRight = NO_NODE;
+            return;
+        }
+        if (compare(node, slot) < 0) {
+            split(right(node), slot);
+            setRight(node, splitLeft);
+            update(node);
+            splitLeft = node;
+        } else {
+            split(left(node), slot);
+            setLeft(node, splitRight);
+            update(node);
+            splitRight = node;
+        }
+    }
+
+    private int merge(int leftNode, int rightNode) {
+        if (leftNode == NO_NODE) {
+            return rightNode;
+        }
+        if (rightNode == NO_NODE) {
+            return leftNode;
+        }
+        if (priority(leftNode) > priority(rightNode)) {
+            setRight(leftNode, merge(right(leftNode), rightNode));
+            update(leftNode);
+            return leftNode;
+        }
+        setLeft(rightNode, merge(leftNode, left(rightNode)));
+        update(rightNode);
+        return rightNode;
+    }
+
+    private void update(int node) {
+        nodes[node * NODE_STRIDE + SUBTREE_SIZE] = 1 + sizeOf(left(node)) + sizeOf(right(node));
+    }
+
+    private int sizeOf(int node) {
+        return node == NO_NODE ? 0 : nodes[node * NODE_STRIDE + SUBTREE_SIZE];
+    }
+
+    private int left(int node) {
+        return nodes[node * NODE_STRIDE + LEFT];
+    }
+
+    private int right(int node) {
+        return nodes[node * NODE_STRIDE + RIGHT];
+    }
+
+    private int priority(int node) {
+        return nodes[node * NODE_STRIDE + PRIORITY];
+    }
+
+    private void setLeft(int node, int child) {
+        nodes[node * NODE_STRIDE + LEFT] = child;
+    }
+
+    private void setRight(int node, int child) {
+        nodes[node * NODE_STRIDE + RIGHT] = child;
+    }
+
+    /**
+     * More points come first, equal points are ordered by id
+     * */
+    private int compare(int firstSlot, int secondSlot) {
+        int comparison = Long.compare(keys[secondSlot * KEY_STRIDE + POINTS], keys[firstSlot * KEY_STRIDE + POINTS]);
+        return comparison != 0 ? comparison
+                : Long.compare(keys[firstSlot * KEY_STRIDE + ID], keys[secondSlot * KEY_STRIDE + ID]);
+    }
+}
@@ -0,0 +1,245 @@
+package pojo;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Full scans over the slots of {@link CourseScores}. A large course is split into ranges of slots, the ranges are
+ * scanned by the pool of the {@link ScanParallelism} and their partial results are combined pairwise.
+ * The caller holds the course lock for the whole scan, so the columns do not change under the pool threads
+ * */
+final class CourseScans {
+
+    private CourseScans() {
+    }
+
+    /**
+     * Totals recomputed from the columns, see {@link Course#verifyAggregates()}
+     * */
+    static final class Totals {
+
+        final long submissions;
+        final long earnedPoints;
+        final int studentsCompletedCourse;
+
+        private Totals(long submissions, long earnedPoints, int studentsCompletedCourse) {
+            this.submissions = submissions;
+            this.earnedPoints = earnedPoints;
+            this.studentsCompletedCourse = studentsCompletedCourse;
+        }
+
+        private Totals plus(Totals other) {
+            return new Totals(submissions + other.submissions, earnedPoints + other.earnedPoints,
+                    studentsCompletedCourse + other.studentsCompletedCourse);
+        }
+    }
+
+    static Totals sumTotals(CourseScores courseScores, int totalNumberOfPointsToFinish,
+                            ScanParallelism scanParallelism) {
+        return scan(courseScores.size(), scanParallelism, new RangeScan<>() {
+            @Override
+            public Totals scan(int from, int to) {
+                long submissions = 0;
+                long earnedPoints = 0;
+                int studentsCompletedCourse = 0;
+                for (int slot = from; slot < to; slot++) {
+                    submissions += courseScores.getSubmissions(slot);
+                    int earnedPointsOfSlot = courseScores.getEarnedPoints(slot);
+                    earnedPoints += earnedPointsOfSlot;
+                    if (earnedPointsOfSlot >= totalNumberOfPointsToFinish) {
+                        studentsCompletedCourse++;
+                    }
+                }
+                return new Totals(submissions, earnedPoints, studentsCompletedCourse);
+            }
+
+            @Override
+            public Totals combine(Totals left, Totals right) {
+                return left.plus(right);
+            }
+        });
+    }
+
+    /**
+     * @return slots of the students who have completed the course, in slot order
+     * */
+    static int[] findCompletedSlots(CourseScores courseScores, int totalNumberOfPointsToFinish,
+                                    ScanParallelism scanParallelism) {
+        return scan(courseScores.size(), scanParallelism, new RangeScan<>() {
+            @Override
+            public int[] scan(int from, int to) {
+                int[] completedSlots = new int[Math.min(to - from, 16)];
+                int numberOfCompletedSlots = 0;
+                for (int slot = from; slot < to; slot++) {
+                    if (courseScores.getEarnedPoints(slot) >= totalNumberOfPointsToFinish) {
+                        if (numberOfCompletedSlots == completedSlots.length) {
+                            completedSlots = Arrays.copyOf(completedSlots, numberOfCompletedSlots * 2);
+                        }
+                        completedSlots[numberOfCompletedSlots++] = slot;
+                    }
+                }
+                return Arrays.copyOf(completedSlots, numberOfCompletedSlots);
+            }
+
+            @Override
+            public int[] combine(int[] left, int[] right) {
+                int[] completedSlots = Arrays.copyOf(left, left.length + right.length);
+                System.arraycopy(right, 0, completedSlots, left.length, right.length);
+                return completedSlots;
+            }
+        });
+    }
+
+    /**
+     * Every range keeps its own {@code k} best slots in a heap, the sorted tops of two ranges are merged and cut
+     * to {@code k} again, so no more than {@code k} slots per range are ever sorted
+     * @return slots of at most {@code k} students with the most points in leaderboard order: points descending,
+     * equal points by id
+     * */
+    static int[] findTopSlots(CourseScores courseScores, int k, ScanParallelism scanParallelism) {
+        int size = courseScores.size();
+        if (k <= 0 || size == 0) {
+            return new int[0];
+        }
+        return scan(size, scanParallelism, new RangeScan<>() {
+            @Override
+            public int[] scan(int from, int to) {
+                // a heap with the worst of the kept slots on top
+                int[] heap = new int[Math.min(k, to - from)];
+                int heapSize = 0;
+                for (int slot = from; slot < to; slot++) {
+                    if (heapSize < heap.length) {
+                        heap[heapSize] = slot;
+                        siftUp(courseScores, heap, heapSize++);
+                    } else if (compare(courseScores, slot, heap[0]) < 0) {
+                        heap[0] = slot;
+                        siftDown(courseScores, heap, heapSize);
+                    }
+                }
+                // taking the worst off the top fills the array from its end
+                int[] topSlots = new int[heapSize];
+                while (heapSize > 0) {
+                    topSlots[heapSize - 1] = heap[0];
+                    heap[0] = heap[--heapSize];
+                    siftDown(courseScores, heap, heapSize);
+                }
+                return topSlots;
+            }
+
+            @Override
+            public int[] combine(int[] left, int[] right) {
+                int[] topSlots = new int[Math.min(k, left.length + right.length)];
+                int leftIndex = 0;
+                int rightIndex = 0;
+                for (int i = 0; i < topSlots.length; i++) {
+                    if (rightIndex == right.length || (leftIndex < left.length
+                            && compare(courseScores, left[leftIndex], right[rightIndex]) <= 0)) {
+                        topSlots[i] = left[leftIndex++];
+                    } else {
+                        topSlots[i] = right[rightIndex++];
+                    }
+                }
+                return topSlots;
+            }
+        });
+    }
+
+    /**
+     * More points come first, equal points are ordered by id, like the leaderboard
+     * */
+    private static int compare(CourseScores courseScores, int firstSlot, int secondSlot) {
+        int comparison = Integer.compare(courseScores.getEarnedPoints(secondSlot),
+                courseScores.getEarnedPoints(firstSlot));
+        return comparison != 0 ? comparison
+                : Long.compare(courseScores.getId(firstSlot), courseScores.getId(secondSlot));
+    }
+
+    private static void siftUp(CourseScores courseScores, int[] heap, int position) {
+        int slot = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (compare(courseScores, heap[parent], slot) >= 0) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = slot;
+    }
+
+    private static void siftDown(CourseScores courseScores, int[] heap, int heapSize) {
+        if (heapSize == 0) {
+            return;
+        }
+        int slot = heap[0];
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && compare(courseScores, heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (compare(courseScores, heap[child], slot) <= 0) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = slot;
+    }
+
+    /**
+     * A scan of a range of slots whose results of adjacent ranges can be combined, left before right
+     * */
+    private interface RangeScan<T> {
+
+        T scan(int from, int to);
+
+        T combine(T left, T right);
+    }
+
+    private static <T> T scan(int size, ScanParallelism scanParallelism, RangeScan<T> rangeScan) {
+        if (!scanParallelism.isParallel(size)) {
+            return rangeScan.scan(0, size);
+        }
+        try {
+            return scanParallelism.invoke(new RangeTask<>(rangeScan, 0, size, scanParallelism.rangeSize(size)));
+        } catch (RejectedExecutionException | CancellationException e) {
+            // the parallelism was closed after the check: the pool rejected the scan or dropped it unstarted
+            return rangeScan.scan(0, size);
+        }
+    }
+
+    private static class RangeTask<T> extends RecursiveTask<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RangeScan<T> rangeScan;
+        private final int from;
+        private final int to;
+        private final int rangeSize;
+
+        private RangeTask(RangeScan<T> rangeScan, int from, int to, int rangeSize) {
+            this.rangeScan = rangeScan;
+            this.from = from;
+            this.to = to;
+            this.rangeSize = rangeSize;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from <= rangeSize) {
+                return rangeScan.scan(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            RangeTask<T> left = new RangeTask<>(rangeScan, from, middle, rangeSize);
+            left.fork();
+            T right = new RangeTask<>(rangeScan, middle, to, rangeSize).compute();
+            return rangeScan.combine(left.join(), right);
+        }
+    }
+}
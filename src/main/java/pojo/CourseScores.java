@@ -0,0 +1,135 @@
+package pojo;
+
+import java.util.Arrays;
+
+/**
+ * Columnar storage of the students enrolled in a course.
+ * Every enrolled student gets a dense slot in enrollment order; ids, earned points, submissions and
+ * student references are kept in parallel arrays indexed by that slot. The references are left out when the
+ * course looks its students up by id.
+ * Slots are found by an open-addressing (linear probing) long to int map from the student id.
+ * */
+class CourseScores {
+
+    private static final int INITIAL_CAPACITY = 16;
+    static final int NO_SLOT = -1;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] earnedPoints = new int[INITIAL_CAPACITY];
+    private int[] submissions = new int[INITIAL_CAPACITY];
+    // null when the references are left out
+    private Student[] students;
+    private int size;
+
+    // hash table keeps slot + 1, zero marks an empty bucket
+    private int[] buckets = new int[INITIAL_CAPACITY * 2];
+
+    CourseScores(boolean keepsStudents) {
+        this.students = keepsStudents ? new Student[INITIAL_CAPACITY] : null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int findSlot(long studentId) {
+        int mask = buckets.length - 1;
+        for (int bucket = hash(studentId) & mask; buckets[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int slot = buckets[bucket] - 1;
+            if (ids[slot] == studentId) {
+                return slot;
+            }
+        }
+        return NO_SLOT;
+    }
+
+    boolean contains(long studentId) {
+        return findSlot(studentId) != NO_SLOT;
+    }
+
+    int enroll(long studentId, Student student) {
+        int existingSlot = findSlot(studentId);
+        if (existingSlot != NO_SLOT) {
+            return existingSlot;
+        }
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            earnedPoints = Arrays.copyOf(earnedPoints, capacity);
+            submissions = Arrays.copyOf(submissions, capacity);
+            if (students != null) {
+                students = Arrays.copyOf(students, capacity);
+            }
+            rehash(capacity * 2);
+        }
+        int slot = size++;
+        ids[slot] = studentId;
+        if (students != null) {
+            students[slot] = student;
+        }
+        insertIntoBuckets(studentId, slot);
+        return slot;
+    }
+
+    void addPoints(int slot, int pointsToAdd) {
+        earnedPoints[slot] += pointsToAdd;
+        submissions[slot]++;
+    }
+
+    /**
+     * Sets the totals of a slot restored from a snapshot
+     * */
+    void restore(int slot, int earnedPointsOfSlot, int submissionsOfSlot) {
+        earnedPoints[slot] = earnedPointsOfSlot;
+        submissions[slot] = submissionsOfSlot;
+    }
+
+    long[] copyIds() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    int[] copyEarnedPoints() {
+        return Arrays.copyOf(earnedPoints, size);
+    }
+
+    int[] copySubmissions() {
+        return Arrays.copyOf(submissions, size);
+    }
+
+    long getId(int slot) {
+        return ids[slot];
+    }
+
+    int getEarnedPoints(int slot) {
+        return earnedPoints[slot];
+    }
+
+    int getSubmissions(int slot) {
+        return submissions[slot];
+    }
+
+    Student getStudent(int slot) {
+        return students[slot];
+    }
+
+    private void rehash(int numberOfBuckets) {
+        buckets = new int[numberOfBuckets];
+        for (int slot = 0; slot < size; slot++) {
+            insertIntoBuckets(ids[slot], slot);
+        }
+    }
+
+    private void insertIntoBuckets(long studentId, int slot) {
+        int mask = buckets.length - 1;
+        int bucket = hash(studentId) & mask;
+        while (buckets[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        buckets[bucket] = slot + 1;
+    }
+
+    private static int hash(long studentId) {
+        long hash = studentId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
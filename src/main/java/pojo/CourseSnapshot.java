@@ -0,0 +1,46 @@
+package pojo;
+
+/**
+ * Copy of the columns of a course in slot order, see {@link Course#snapshot()}.
+ * The aggregates, the leaderboard and the pending completions are derived from it on {@link Course#restore}.
+ * */
+public class CourseSnapshot {
+
+    private final long[] studentIds;
+    private final int[] earnedPoints;
+    private final int[] submissions;
+    private final long[] notifiedSlots;
+
+    /**
+     * @param notifiedSlots bits of the notified slots as returned by {@link java.util.BitSet#toLongArray()}
+     * */
+    public CourseSnapshot(long[] studentIds, int[] earnedPoints, int[] submissions, long[] notifiedSlots) {
+        if (earnedPoints.length != studentIds.length || submissions.length != studentIds.length) {
+            throw new IllegalArgumentException("Every column must have a value for every student");
+        }
+        this.studentIds = studentIds;
+        this.earnedPoints = earnedPoints;
+        this.submissions = submissions;
+        this.notifiedSlots = notifiedSlots;
+    }
+
+    public int size() {
+        return studentIds.length;
+    }
+
+    public long[] getStudentIds() {
+        return studentIds;
+    }
+
+    public int[] getEarnedPoints() {
+        return earnedPoints;
+    }
+
+    public int[] getSubmissions() {
+        return submissions;
+    }
+
+    public long[] getNotifiedSlots() {
+        return notifiedSlots;
+    }
+}
@@ -0,0 +1,69 @@
+package pojo;
+
+import tracker.PlatformCourse;
+
+/**
+ * A page of a course leaderboard taken at one point in time, see {@link Course#getLeaderboardPage(int, int)}.
+ * Rows are held in primitive columns, row {@code i} is the student at the 1-based rank {@code offset + i + 1}
+ * */
+public class LeaderboardPage {
+
+    private final PlatformCourse platformCourse;
+    private final int offset;
+    private final int numberOfEnrolledStudents;
+    private final long[] studentIds;
+    private final int[] points;
+    private final long[] completionTenths;
+
+    public LeaderboardPage(PlatformCourse platformCourse, int offset, int numberOfEnrolledStudents,
+                           long[] studentIds, int[] points, long[] completionTenths) {
+        this.platformCourse = platformCourse;
+        this.offset = offset;
+        this.numberOfEnrolledStudents = numberOfEnrolledStudents;
+        this.studentIds = studentIds;
+        this.points = points;
+        this.completionTenths = completionTenths;
+    }
+
+    public PlatformCourse getPlatformCourse() {
+        return platformCourse;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return number of students on the whole leaderboard, not only on the page
+     * */
+    public int getNumberOfEnrolledStudents() {
+        return numberOfEnrolledStudents;
+    }
+
+    public int size() {
+        return studentIds.length;
+    }
+
+    public long getStudentId(int row) {
+        return studentIds[row];
+    }
+
+    public int getPoints(int row) {
+        return points[row];
+    }
+
+    /**
+     * @return course completion of the row in tenths of a percent
+     * */
+    public long getCompletionTenths(int row) {
+        return completionTenths[row];
+    }
+
+    public int getRank(int row) {
+        return offset + row + 1;
+    }
+
+    public boolean hasNextPage() {
+        return offset + studentIds.length < numberOfEnrolledStudents;
+    }
+}
@@ -0,0 +1,106 @@
+package pojo;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * How the full scans of a course run, see {@link Course#setScanParallelism(ScanParallelism)}: sequentially,
+ * or split into ranges of slots that the threads of a fork-join pool scan at once.
+ * Only courses with at least {@code threshold} enrolled students are scanned in parallel, below that forking
+ * costs more than it saves; {@code benchmark.ParallelScanBenchmark} shows where the crossover is on a machine.
+ * Every parallelism of {@link #of(int, int)} owns its pool and is closed once its courses are done with it,
+ * the courses that still use a closed one scan sequentially. The default and {@link #SEQUENTIAL} are shared
+ * and never closed.
+ * */
+public final class ScanParallelism implements AutoCloseable {
+
+    // -Dtracker.scanParallelism=<threads> scans large courses on that many threads, 1 scans sequentially
+    private static final int DEFAULT_PARALLELISM =
+            Integer.getInteger("tracker.scanParallelism", Runtime.getRuntime().availableProcessors());
+    // -Dtracker.parallelScanThreshold=<students> is the smallest course that is scanned in parallel
+    private static final int DEFAULT_THRESHOLD = Integer.getInteger("tracker.parallelScanThreshold", 1 << 16);
+    private static final int MIN_RANGE_SIZE = 1024;
+    // more ranges than threads, so that a thread that finishes early takes over the ranges of a slower one
+    private static final int RANGES_PER_THREAD = 4;
+
+    public static final ScanParallelism SEQUENTIAL = new ScanParallelism(1, Integer.MAX_VALUE, true);
+
+    private final int parallelism;
+    private final int threshold;
+    // null when the scans are sequential
+    private final ForkJoinPool pool;
+    private final boolean shared;
+
+    private ScanParallelism(int parallelism, int threshold, boolean shared) {
+        this.parallelism = parallelism;
+        this.threshold = threshold;
+        this.pool = parallelism == 1 ? null : new ForkJoinPool(parallelism);
+        this.shared = shared;
+    }
+
+    private static class DefaultHolder {
+        private static final ScanParallelism INSTANCE = create(DEFAULT_PARALLELISM, DEFAULT_THRESHOLD, true);
+    }
+
+    /**
+     * @return the parallelism of the system properties, shared by every course that is not set otherwise
+     * */
+    public static ScanParallelism getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * @param parallelism number of threads of the pool, 1 scans sequentially
+     * @param threshold smallest number of enrolled students that is scanned in parallel
+     * @return a new parallelism with its own pool, which {@link #close()} shuts down
+     * */
+    public static ScanParallelism of(int parallelism, int threshold) {
+        return create(parallelism, threshold, false);
+    }
+
+    private static ScanParallelism create(int parallelism, int threshold, boolean shared) {
+        if (parallelism < 1 || threshold < 0) {
+            throw new IllegalArgumentException("Parallelism " + parallelism + " must be positive, threshold "
+                    + threshold + " must not be negative");
+        }
+        return parallelism == 1 ? SEQUENTIAL : new ScanParallelism(parallelism, threshold, shared);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    boolean isParallel(int size) {
+        return pool != null && size >= threshold && !pool.isShutdown();
+    }
+
+    /**
+     * @return size of the ranges a scan of {@code size} slots is split into
+     * */
+    int rangeSize(int size) {
+        return Math.max(MIN_RANGE_SIZE, size / (parallelism * RANGES_PER_THREAD));
+    }
+
+    <T> T invoke(ForkJoinTask<T> task) {
+        return pool.invoke(task);
+    }
+
+    /**
+     * Shuts the pool down once the running scans are done, does nothing for a shared parallelism
+     * */
+    @Override
+    public void close() {
+        if (pool != null && !shared) {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return pool == null ? "sequential" : parallelism + " threads from " + threshold + " students";
+    }
+}
@@ -1,13 +1,14 @@
 package pojo;
 
+/**
+ * A registered student. Students are immutable and equal by id, the same student may be handed out as different
+ * objects, e.g. by a {@code registry.CompactStudentTable} that creates a view of its row on every lookup.
+ * */
 public class Student {
-    private String id;
-    private String firstName;
-    private String lastName;
-    private String email;
-
-    public Student() {
-    }
+    private final String id;
+    private final String firstName;
+    private final String lastName;
+    private final String email;
 
     public Student(String id, String firstName, String lastName, String email) {
         this.id = id;
@@ -16,35 +17,36 @@ public class Student {
         this.email = email;
     }
 
-    public String getFirstName() {
-        return firstName;
+    /**
+     * For views that read their fields from elsewhere and override every getter
+     * */
+    protected Student() {
+        this(null, null, null, null);
     }
 
-    public void setFirstName(String firstName) {
-        this.firstName = firstName;
+    public String getFirstName() {
+        return firstName;
     }
 
     public String getLastName() {
         return lastName;
     }
 
-    public void setLastName(String lastName) {
-        this.lastName = lastName;
-    }
-
     public String getEmail() {
         return email;
     }
 
-    public void setEmail(String email) {
-        this.email = email;
-    }
-
     public String getId() {
         return id;
     }
 
-    public void setId(String id) {
-        this.id = id;
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof Student && getId().equals(((Student) other).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getId().hashCode();
     }
 }
@@ -0,0 +1,72 @@
+package pojo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only column store of the timestamped submissions of a course.
+ * Rows are kept in fixed-size chunks of primitive columns, so appending never copies the history and a row
+ * costs 20 bytes. Timestamps never decrease: a timestamp earlier than the last one is stored as the last one,
+ * so a time range is found by binary search.
+ * Not thread-safe, the course guards it.
+ * */
+final class SubmissionHistory {
+
+    private static final int CHUNK_SHIFT = 13;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final List<long[]> timestampChunks = new ArrayList<>();
+    private final List<long[]> studentIdChunks = new ArrayList<>();
+    private final List<int[]> pointsChunks = new ArrayList<>();
+    private long size;
+    private long lastTimestampMillis = Long.MIN_VALUE;
+
+    void append(long timestampMillis, long studentId, int points) {
+        int row = (int) (size & CHUNK_MASK);
+        if (row == 0) {
+            timestampChunks.add(new long[CHUNK_SIZE]);
+            studentIdChunks.add(new long[CHUNK_SIZE]);
+            pointsChunks.add(new int[CHUNK_SIZE]);
+        }
+        int chunk = (int) (size >>> CHUNK_SHIFT);
+        lastTimestampMillis = Math.max(lastTimestampMillis, timestampMillis);
+        timestampChunks.get(chunk)[row] = lastTimestampMillis;
+        studentIdChunks.get(chunk)[row] = studentId;
+        pointsChunks.get(chunk)[row] = points;
+        size++;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Passes the submissions from {@code fromMillis} inclusive to {@code toMillis} exclusive in the order they were made
+     * */
+    void forEachInRange(long fromMillis, long toMillis, Course.SubmissionConsumer submissionConsumer) {
+        for (long position = firstPositionAtOrAfter(fromMillis); position < size; position++) {
+            int chunk = (int) (position >>> CHUNK_SHIFT);
+            int row = (int) (position & CHUNK_MASK);
+            long timestampMillis = timestampChunks.get(chunk)[row];
+            if (timestampMillis >= toMillis) {
+                return;
+            }
+            submissionConsumer.accept(timestampMillis, studentIdChunks.get(chunk)[row], pointsChunks.get(chunk)[row]);
+        }
+    }
+
+    private long firstPositionAtOrAfter(long timestampMillis) {
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (timestampChunks.get((int) (middle >>> CHUNK_SHIFT))[(int) (middle & CHUNK_MASK)] < timestampMillis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
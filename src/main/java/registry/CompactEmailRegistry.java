@@ -0,0 +1,170 @@
+package registry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Memory-compact email registry.
+ * Emails are kept sorted and deduplicated in a single byte arena, so each entry costs its bytes plus an offset
+ * instead of a String object and a hash set node. Fresh emails are collected in a small pending set and merged
+ * into the arena in batches. A Bloom filter answers most "not registered" lookups without touching either store.
+ * The registry is guarded by its monitor, a merge rewrites the arena in place.
+ * */
+public class CompactEmailRegistry implements EmailRegistry {
+
+    private static final int MIN_MERGE_THRESHOLD = 1024;
+    private static final int MERGE_THRESHOLD_DIVISOR = 8;
+    private static final int BLOOM_BITS_PER_ENTRY = 10;
+    private static final int BLOOM_HASH_FUNCTIONS = 7;
+    private static final int INITIAL_BLOOM_CAPACITY = 1024;
+
+    private byte[] arena = new byte[0];
+    private int[] offsets = {0};
+    private int sortedSize;
+    private final Set<String> pendingEmails = new HashSet<>();
+    private long[] bloomBits;
+    private int bloomCapacity;
+
+    public CompactEmailRegistry() {
+        resetBloomFilter(INITIAL_BLOOM_CAPACITY);
+    }
+
+    @Override
+    public synchronized boolean add(String email) {
+        String normalizedEmail = EmailRegistry.normalize(email);
+        if (containsNormalized(normalizedEmail)) {
+            return false;
+        }
+        pendingEmails.add(normalizedEmail);
+        addToBloomFilter(normalizedEmail);
+        if (pendingEmails.size() >= Math.max(MIN_MERGE_THRESHOLD, sortedSize / MERGE_THRESHOLD_DIVISOR)) {
+            mergePendingEmails();
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean contains(String email) {
+        return containsNormalized(EmailRegistry.normalize(email));
+    }
+
+    @Override
+    public synchronized int size() {
+        return sortedSize + pendingEmails.size();
+    }
+
+    private boolean containsNormalized(String normalizedEmail) {
+        if (!mightContain(normalizedEmail)) {
+            return false;
+        }
+        return pendingEmails.contains(normalizedEmail)
+                || binarySearch(normalizedEmail.getBytes(StandardCharsets.UTF_8)) >= 0;
+    }
+
+    private int binarySearch(byte[] key) {
+        int low = 0;
+        int high = sortedSize - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = Arrays.compareUnsigned(arena, offsets[middle], offsets[middle + 1], key, 0, key.length);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void mergePendingEmails() {
+        byte[][] pending = new byte[pendingEmails.size()][];
+        int pendingBytes = 0;
+        int index = 0;
+        for (String pendingEmail : pendingEmails) {
+            pending[index] = pendingEmail.getBytes(StandardCharsets.UTF_8);
+            pendingBytes += pending[index].length;
+            index++;
+        }
+        Arrays.sort(pending, Arrays::compareUnsigned);
+
+        int mergedSize = sortedSize + pending.length;
+        byte[] mergedArena = new byte[offsets[sortedSize] + pendingBytes];
+        int[] mergedOffsets = new int[mergedSize + 1];
+        int sortedIndex = 0;
+        int pendingIndex = 0;
+        int position = 0;
+        for (int i = 0; i < mergedSize; i++) {
+            mergedOffsets[i] = position;
+            boolean takeSorted = pendingIndex == pending.length || (sortedIndex < sortedSize
+                    && Arrays.compareUnsigned(arena, offsets[sortedIndex], offsets[sortedIndex + 1],
+                    pending[pendingIndex], 0, pending[pendingIndex].length) < 0);
+            if (takeSorted) {
+                int length = offsets[sortedIndex + 1] - offsets[sortedIndex];
+                System.arraycopy(arena, offsets[sortedIndex], mergedArena, position, length);
+                position += length;
+                sortedIndex++;
+            } else {
+                System.arraycopy(pending[pendingIndex], 0, mergedArena, position, pending[pendingIndex].length);
+                position += pending[pendingIndex].length;
+                pendingIndex++;
+            }
+        }
+        mergedOffsets[mergedSize] = position;
+
+        arena = mergedArena;
+        offsets = mergedOffsets;
+        sortedSize = mergedSize;
+        pendingEmails.clear();
+        if (sortedSize > bloomCapacity) {
+            rebuildBloomFilter();
+        }
+    }
+
+    private void rebuildBloomFilter() {
+        resetBloomFilter(Math.max(bloomCapacity * 2, sortedSize * 2));
+        for (int i = 0; i < sortedSize; i++) {
+            addToBloomFilter(new String(arena, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8));
+        }
+    }
+
+    private void resetBloomFilter(int capacity) {
+        bloomCapacity = capacity;
+        bloomBits = new long[(int) (((long) capacity * BLOOM_BITS_PER_ENTRY + Long.SIZE - 1) / Long.SIZE)];
+    }
+
+    private void addToBloomFilter(String normalizedEmail) {
+        long numberOfBits = (long) bloomBits.length * Long.SIZE;
+        int firstHash = normalizedEmail.hashCode();
+        int secondHash = mix(firstHash);
+        for (int i = 0; i < BLOOM_HASH_FUNCTIONS; i++) {
+            long bit = Math.floorMod(firstHash + (long) i * secondHash, numberOfBits);
+            bloomBits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    private boolean mightContain(String normalizedEmail) {
+        long numberOfBits = (long) bloomBits.length * Long.SIZE;
+        int firstHash = normalizedEmail.hashCode();
+        int secondHash = mix(firstHash);
+        for (int i = 0; i < BLOOM_HASH_FUNCTIONS; i++) {
+            long bit = Math.floorMod(firstHash + (long) i * secondHash, numberOfBits);
+            if ((bloomBits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash | 1;
+    }
+}
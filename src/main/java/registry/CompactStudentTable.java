@@ -0,0 +1,332 @@
+package registry;
+
+import pojo.Student;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Memory-compact student table.
+ * Every student is a row of parallel columns: the numeric id, references to the first and the last name and
+ * the position of the email in a byte arena, so a student costs about 20 bytes of columns and the bytes of its
+ * email instead of a {@link Student}, four strings and a map node. Names are interned: the first
+ * {@value #MAX_INTERNED_NAMES} distinct names are kept once in a dictionary shared by first and last names,
+ * which the common names reach early, rarer names later on are written to the arena like the emails.
+ * The arena is made of pages that never move, an entry is its length as a varint followed by its UTF-8 bytes.
+ * <p>
+ * Rows are found by an open-addressing (linear probing) map from the id like the slots of a course.
+ * Students are handed out as views of their rows that decode their fields on every call,
+ * so a lookup allocates no strings. Rows are listed in the order of registration.
+ * <p>
+ * Additions take the write lock. Lookups by id read optimistically and take the read lock only when they raced
+ * an addition, so concurrent points updates do not contend on the table; reading the fields of a view takes the
+ * read lock.
+ * */
+public class CompactStudentTable implements StudentTable {
+
+    private static final int MAX_INTERNED_NAMES = 1 << 16;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int MAX_PAGES = 1 << (Integer.SIZE - 1 - PAGE_BITS);
+    private static final int NO_ROW = -1;
+
+    private final StampedLock lock = new StampedLock();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    // >= 0 is an interned name, < 0 is -(arena position + 1)
+    private int[] firstNames = new int[INITIAL_CAPACITY];
+    private int[] lastNames = new int[INITIAL_CAPACITY];
+    private int[] emails = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // hash table keeps row + 1, zero marks an empty bucket
+    private int[] buckets = new int[INITIAL_CAPACITY * 2];
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int numberOfNames;
+    // read and written under the write lock only
+    private final Map<String, Integer> nameIds = new HashMap<>();
+
+    private byte[][] pages = new byte[INITIAL_CAPACITY][];
+    private int numberOfPages;
+    // write position in the last page
+    private int pagePosition;
+
+    @Override
+    public void add(long studentId, String firstName, String lastName, String email) {
+        long stamp = lock.writeLock();
+        try {
+            if (probe(studentId) != NO_ROW) {
+                throw new IllegalArgumentException("The id " + studentId + " is already taken");
+            }
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                firstNames = Arrays.copyOf(firstNames, capacity);
+                lastNames = Arrays.copyOf(lastNames, capacity);
+                emails = Arrays.copyOf(emails, capacity);
+                rehash(capacity * 2);
+            }
+            int row = size;
+            ids[row] = studentId;
+            firstNames[row] = internName(firstName);
+            lastNames[row] = internName(lastName);
+            emails[row] = append(email);
+            size++;
+            // the lookups find the row once its bucket is set, after its fields
+            insertIntoBuckets(studentId, row);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Student get(long studentId) {
+        int row = findRow(studentId);
+        return row == NO_ROW ? null : new StudentView(studentId, row);
+    }
+
+    @Override
+    public boolean contains(long studentId) {
+        return findRow(studentId) != NO_ROW;
+    }
+
+    @Override
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int currentSize = size;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                currentSize = size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return currentSize;
+    }
+
+    /**
+     * Passes the students registered so far, the action runs without the lock and may read the students
+     * */
+    @Override
+    public void forEach(Consumer<Student> action) {
+        long[] rowIds;
+        int numberOfRows;
+        long stamp = lock.readLock();
+        try {
+            // the ids of the rows never change, a later growth copies them to a new column
+            rowIds = ids;
+            numberOfRows = size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        for (int row = 0; row < numberOfRows; row++) {
+            action.accept(new StudentView(rowIds[row], row));
+        }
+    }
+
+    private int findRow(long studentId) {
+        long stamp = lock.tryOptimisticRead();
+        int row = probe(studentId);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                row = probe(studentId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Runs under the lock or optimistically, in which case the columns may be replaced meanwhile:
+     * the probe reads every array once and checks its bounds, the caller discards the result if it raced
+     * */
+    private int probe(long studentId) {
+        int[] currentBuckets = buckets;
+        long[] currentIds = ids;
+        int mask = currentBuckets.length - 1;
+        for (int bucket = hash(studentId) & mask; currentBuckets[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int row = currentBuckets[bucket] - 1;
+            if (row < currentIds.length && currentIds[row] == studentId) {
+                return row;
+            }
+        }
+        return NO_ROW;
+    }
+
+    private void rehash(int numberOfBuckets) {
+        // filled before it is published, an optimistic probe sees either table whole
+        int[] rehashedBuckets = new int[numberOfBuckets];
+        int mask = numberOfBuckets - 1;
+        for (int row = 0; row < size; row++) {
+            int bucket = hash(ids[row]) & mask;
+            while (rehashedBuckets[bucket] != 0) {
+                bucket = (bucket + 1) & mask;
+            }
+            rehashedBuckets[bucket] = row + 1;
+        }
+        buckets = rehashedBuckets;
+    }
+
+    private void insertIntoBuckets(long studentId, int row) {
+        int mask = buckets.length - 1;
+        int bucket = hash(studentId) & mask;
+        while (buckets[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        buckets[bucket] = row + 1;
+    }
+
+    private static int hash(long studentId) {
+        long hash = studentId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private int internName(String name) {
+        Integer nameId = nameIds.get(name);
+        if (nameId != null) {
+            return nameId;
+        }
+        if (numberOfNames == MAX_INTERNED_NAMES) {
+            return -(append(name) + 1);
+        }
+        if (numberOfNames == names.length) {
+            names = Arrays.copyOf(names, numberOfNames * 2);
+        }
+        names[numberOfNames] = name;
+        nameIds.put(name, numberOfNames);
+        return numberOfNames++;
+    }
+
+    /**
+     * @return arena position of the entry: the page in the high bits, the offset in the page in the low bits
+     * */
+    private int append(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int entryLength = varIntLength(bytes.length) + bytes.length;
+        if (numberOfPages == 0 || pagePosition + entryLength > pages[numberOfPages - 1].length) {
+            // an entry longer than a page gets a page of its own
+            addPage(Math.max(PAGE_SIZE, entryLength));
+        }
+        byte[] page = pages[numberOfPages - 1];
+        int position = (numberOfPages - 1) << PAGE_BITS | pagePosition;
+        int offset = pagePosition;
+        for (int length = bytes.length; ; length >>>= 7) {
+            if (length < 0x80) {
+                page[offset++] = (byte) length;
+                break;
+            }
+            page[offset++] = (byte) (length & 0x7F | 0x80);
+        }
+        System.arraycopy(bytes, 0, page, offset, bytes.length);
+        pagePosition = offset + bytes.length;
+        return position;
+    }
+
+    private void addPage(int pageSize) {
+        if (numberOfPages == MAX_PAGES) {
+            throw new IllegalStateException("The arena of the student table is full");
+        }
+        if (numberOfPages == pages.length) {
+            pages = Arrays.copyOf(pages, numberOfPages * 2);
+        }
+        pages[numberOfPages++] = new byte[pageSize];
+        pagePosition = 0;
+    }
+
+    private static int varIntLength(int value) {
+        int length = 1;
+        while (value >= 0x80) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private String decode(int position) {
+        byte[] page = pages[position >>> PAGE_BITS];
+        int offset = position & (PAGE_SIZE - 1);
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte lengthByte = page[offset++];
+            length |= (lengthByte & 0x7F) << shift;
+            if (lengthByte >= 0) {
+                break;
+            }
+        }
+        return new String(page, offset, length, StandardCharsets.UTF_8);
+    }
+
+    private String decodeName(int nameReference) {
+        return nameReference >= 0 ? names[nameReference] : decode(-(nameReference + 1));
+    }
+
+    private String readFirstName(int row) {
+        long stamp = lock.readLock();
+        try {
+            return decodeName(firstNames[row]);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private String readLastName(int row) {
+        long stamp = lock.readLock();
+        try {
+            return decodeName(lastNames[row]);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private String readEmail(int row) {
+        long stamp = lock.readLock();
+        try {
+            return decode(emails[row]);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * A flyweight of a row, created on every lookup and equal to any other student with the same id
+     * */
+    private class StudentView extends Student {
+
+        private final long studentId;
+        private final int row;
+
+        private StudentView(long studentId, int row) {
+            this.studentId = studentId;
+            this.row = row;
+        }
+
+        @Override
+        public String getId() {
+            return String.valueOf(studentId);
+        }
+
+        @Override
+        public String getFirstName() {
+            return readFirstName(row);
+        }
+
+        @Override
+        public String getLastName() {
+            return readLastName(row);
+        }
+
+        @Override
+        public String getEmail() {
+            return readEmail(row);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package registry;
+
+import java.util.Locale;
+
+/**
+ * Set of registered emails. Implementations are safe for concurrent use.
+ * */
+public interface EmailRegistry {
+
+    /**
+     * Registers the email if it is not taken yet, the check and the registration are one atomic step.
+     * @return {@code false} if the email (compared case-insensitively) is already registered
+     * */
+    boolean add(String email);
+
+    boolean contains(String email);
+
+    int size();
+
+    static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,11 @@
+package registry;
+
+public class EmailRegistryFactory {
+
+    public static EmailRegistry createEmailRegistry(String registryType) {
+        if (registryType.equals("compact")) {
+            return new CompactEmailRegistry();
+        }
+        return new HashedEmailRegistry();
+    }
+}
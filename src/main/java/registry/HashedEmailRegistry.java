@@ -0,0 +1,27 @@
+package registry;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe registry over a concurrent hash set, {@link #add(String)} is an atomic check-and-add
+ * */
+public class HashedEmailRegistry implements EmailRegistry {
+
+    private final Set<String> normalizedEmails = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean add(String email) {
+        return normalizedEmails.add(EmailRegistry.normalize(email));
+    }
+
+    @Override
+    public boolean contains(String email) {
+        return normalizedEmails.contains(EmailRegistry.normalize(email));
+    }
+
+    @Override
+    public int size() {
+        return normalizedEmails.size();
+    }
+}
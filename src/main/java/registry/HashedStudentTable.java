@@ -0,0 +1,44 @@
+package registry;
+
+import pojo.Student;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Students in a concurrent hash map keyed by the id as a string, every student is kept as a {@link Student}.
+ * Students are listed in the order of the map.
+ * */
+public class HashedStudentTable implements StudentTable {
+
+    private final Map<String, Student> students = new ConcurrentHashMap<>();
+
+    @Override
+    public void add(long studentId, String firstName, String lastName, String email) {
+        String id = String.valueOf(studentId);
+        if (students.putIfAbsent(id, new Student(id, firstName, lastName, email)) != null) {
+            throw new IllegalArgumentException("The id " + studentId + " is already taken");
+        }
+    }
+
+    @Override
+    public Student get(long studentId) {
+        return students.get(String.valueOf(studentId));
+    }
+
+    @Override
+    public boolean contains(long studentId) {
+        return students.containsKey(String.valueOf(studentId));
+    }
+
+    @Override
+    public int size() {
+        return students.size();
+    }
+
+    @Override
+    public void forEach(Consumer<Student> action) {
+        students.values().forEach(action);
+    }
+}
@@ -0,0 +1,31 @@
+package registry;
+
+import pojo.Student;
+
+import java.util.function.Consumer;
+
+/**
+ * Registered students by their numeric id. Implementations are safe for concurrent use.
+ * */
+public interface StudentTable {
+
+    /**
+     * Adds the student under an id that is not taken yet, the caller hands out the ids
+     * @throws IllegalArgumentException if the id is already taken
+     * */
+    void add(long studentId, String firstName, String lastName, String email);
+
+    /**
+     * @return the student or {@code null} if no student has the id
+     * */
+    Student get(long studentId);
+
+    boolean contains(long studentId);
+
+    int size();
+
+    /**
+     * Passes every student to the action, the order depends on the implementation
+     * */
+    void forEach(Consumer<Student> action);
+}
@@ -0,0 +1,11 @@
+package registry;
+
+public class StudentTableFactory {
+
+    public static StudentTable createStudentTable(String tableType) {
+        if (tableType.equals("compact")) {
+            return new CompactStudentTable();
+        }
+        return new HashedStudentTable();
+    }
+}
@@ -0,0 +1,101 @@
+package search;
+
+import java.util.Arrays;
+
+/**
+ * Finds the terms within a bounded Levenshtein distance of a query.
+ * Sorted terms are walked as an implicit trie: a term reuses the dynamic programming rows of the prefix it shares
+ * with the previous term, and as soon as every cell of a row exceeds the bound no term with that prefix can match,
+ * so the cursor skips all of them at once. Only the trie nodes within the bound of some query prefix are
+ * visited, which keeps a query far below a scan of every term.
+ * A cell farther than {@code maxEdits} from the diagonal exceeds the bound, so a row is computed only within
+ * that band and every other cell stays at {@code maxEdits + 1}. Rows never grow past
+ * {@code query length + maxEdits + 1}, a longer prefix is always pruned.
+ * Distances are counted in UTF-8 bytes, which are the characters of the ASCII values the platform accepts
+ * */
+final class FuzzyMatcher {
+
+    interface MatchConsumer {
+        void accept(TermCursor cursor, int distance);
+    }
+
+    private final byte[] query;
+    private final int maxEdits;
+    private final int[][] rows;
+
+    FuzzyMatcher(byte[] query, int maxEdits) {
+        this.query = query;
+        this.maxEdits = maxEdits;
+        this.rows = new int[query.length + maxEdits + 2][query.length + 1];
+        for (int depth = 0; depth < rows.length; depth++) {
+            Arrays.fill(rows[depth], maxEdits + 1);
+            // the first column is the same for every term
+            rows[depth][0] = Math.min(depth, maxEdits + 1);
+        }
+        for (int column = 0; column <= Math.min(maxEdits, query.length); column++) {
+            rows[0][column] = column;
+        }
+    }
+
+    /**
+     * Passes every term of the cursor within the bound to the consumer, in term order,
+     * with the cursor positioned at the term
+     * */
+    void forEachMatch(TermCursor cursor, MatchConsumer consumer) {
+        if (!cursor.seek(TermCursor.NO_BYTES)) {
+            return;
+        }
+        byte[] previousTerm = TermCursor.NO_BYTES;
+        int previousOffset = 0;
+        int previousLength = 0;
+        int computedDepth = 0;
+        while (true) {
+            byte[] term = cursor.termBytes();
+            int offset = cursor.termOffset();
+            int length = cursor.termLength();
+            int commonPrefixLength = Arrays.mismatch(previousTerm, previousOffset, previousOffset + previousLength,
+                    term, offset, offset + length);
+            int depth = Math.min(commonPrefixLength < 0 ? length : commonPrefixLength, computedDepth);
+            boolean isPruned = false;
+            while (depth < length && !isPruned) {
+                depth++;
+                isPruned = computeRow(depth, term[offset + depth - 1]) > maxEdits;
+            }
+            previousTerm = term;
+            previousOffset = offset;
+            previousLength = length;
+            computedDepth = depth;
+            if (isPruned) {
+                if (!cursor.skipPrefix(depth)) {
+                    return;
+                }
+            } else {
+                int distance = rows[depth][query.length];
+                if (distance <= maxEdits) {
+                    consumer.accept(cursor, distance);
+                }
+                if (!cursor.next()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the smallest cell of the row
+     * */
+    private int computeRow(int depth, byte termByte) {
+        int[] previousRow = rows[depth - 1];
+        int[] row = rows[depth];
+        int minimum = row[0];
+        int lastColumn = Math.min(query.length, depth + maxEdits);
+        for (int column = Math.max(1, depth - maxEdits); column <= lastColumn; column++) {
+            int substitution = previousRow[column - 1] + (query[column - 1] == termByte ? 0 : 1);
+            int cell = Math.min(Math.min(substitution, Math.min(previousRow[column], row[column - 1]) + 1),
+                    maxEdits + 1);
+            row[column] = cell;
+            minimum = Math.min(minimum, cell);
+        }
+        return minimum;
+    }
+}
@@ -0,0 +1,27 @@
+package search;
+
+import java.util.Arrays;
+
+/**
+ * Growable ids of the students having one term, in the order they were added
+ * */
+final class Postings {
+
+    private long[] studentIds = new long[1];
+    private int size;
+
+    void add(long studentId) {
+        if (size == studentIds.length) {
+            studentIds = Arrays.copyOf(studentIds, size * 2);
+        }
+        studentIds[size++] = studentId;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long get(int index) {
+        return studentIds[index];
+    }
+}
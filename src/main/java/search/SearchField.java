@@ -0,0 +1,55 @@
+package search;
+
+import pojo.Student;
+
+import java.util.Locale;
+
+/**
+ * A student field the {@link StudentSearchIndex} can be queried by, values are compared case-insensitively
+ * */
+public enum SearchField {
+    FIRST_NAME("first"),
+    LAST_NAME("last"),
+    EMAIL("email");
+
+    private final String shortName;
+
+    SearchField(String shortName) {
+        this.shortName = shortName;
+    }
+
+    public String getShortName() {
+        return shortName;
+    }
+
+    /**
+     * @return the field with the short name, e.g. "email", or {@code null} if there is none
+     * */
+    public static SearchField findByShortName(String shortName) {
+        for (SearchField searchField : values()) {
+            if (searchField.shortName.equals(shortName)) {
+                return searchField;
+            }
+        }
+        return null;
+    }
+
+    String termOf(Student student) {
+        switch (this) {
+            case FIRST_NAME:
+                return normalize(student.getFirstName());
+            case LAST_NAME:
+                return normalize(student.getLastName());
+            default:
+                return normalize(student.getEmail());
+        }
+    }
+
+    /**
+     * Returns the same instance if the text is in lower case already, so that an already lower-case value
+     * is shared by the student and the index
+     * */
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
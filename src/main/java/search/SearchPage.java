@@ -0,0 +1,46 @@
+package search;
+
+/**
+ * A page of search hits taken at one point in time. Rows are held in primitive columns, each row is a student
+ * with the normalized field value it was found by and its edit distance from the query, 0 for a prefix match
+ * */
+public class SearchPage {
+
+    private final int offset;
+    private final long[] studentIds;
+    private final String[] matchedTerms;
+    private final int[] distances;
+    private final boolean hasNextPage;
+
+    SearchPage(int offset, long[] studentIds, String[] matchedTerms, int[] distances, boolean hasNextPage) {
+        this.offset = offset;
+        this.studentIds = studentIds;
+        this.matchedTerms = matchedTerms;
+        this.distances = distances;
+        this.hasNextPage = hasNextPage;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int size() {
+        return studentIds.length;
+    }
+
+    public long getStudentId(int row) {
+        return studentIds[row];
+    }
+
+    public String getMatchedTerm(int row) {
+        return matchedTerms[row];
+    }
+
+    public int getDistance(int row) {
+        return distances[row];
+    }
+
+    public boolean hasNextPage() {
+        return hasNextPage;
+    }
+}
@@ -0,0 +1,79 @@
+package search;
+
+import pojo.Student;
+
+import java.util.Collection;
+
+/**
+ * In-memory index of the students by first name, last name and email, for paged prefix queries and for
+ * bounded edit-distance matching. Every field has its own {@link TermIndex} of the normalized values,
+ * a value shared by many students, like a common first name, is held once with all their ids.
+ * Students are added one at a time as they register, queries run concurrently with registrations
+ * */
+public class StudentSearchIndex {
+
+    /**
+     * Larger bounds match most of the short terms and visit most of the trie, so the latency is no longer bounded
+     * */
+    public static final int MAX_EDITS = 2;
+
+    private final TermIndex[] termIndexes = new TermIndex[SearchField.values().length];
+
+    public StudentSearchIndex() {
+        for (int i = 0; i < termIndexes.length; i++) {
+            termIndexes[i] = new TermIndex();
+        }
+    }
+
+    public void add(Student student) {
+        long studentId = Long.parseLong(student.getId());
+        for (SearchField searchField : SearchField.values()) {
+            termIndexes[searchField.ordinal()].add(searchField.termOf(student), studentId);
+        }
+    }
+
+    /**
+     * Adds the students of a restored platform at once, before any registration
+     * */
+    public void addAll(Collection<Student> students) {
+        Student[] studentArray = students.toArray(new Student[0]);
+        long[] studentIds = new long[studentArray.length];
+        for (int i = 0; i < studentArray.length; i++) {
+            studentIds[i] = Long.parseLong(studentArray[i].getId());
+        }
+        String[] terms = new String[studentArray.length];
+        for (SearchField searchField : SearchField.values()) {
+            for (int i = 0; i < studentArray.length; i++) {
+                terms[i] = searchField.termOf(studentArray[i]);
+            }
+            termIndexes[searchField.ordinal()].addAll(terms, studentIds, studentArray.length);
+        }
+    }
+
+    /**
+     * @param prefix compared case-insensitively, an empty prefix pages through all students
+     * @return students whose field starts with the prefix ordered by the field value, students with the same
+     * value in the order they registered
+     * */
+    public SearchPage findByPrefix(SearchField searchField, String prefix, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("The offset and the limit must not be negative: " + offset + ", "
+                    + limit);
+        }
+        return termIndexes[searchField.ordinal()].findByPrefix(SearchField.normalize(prefix), offset, limit);
+    }
+
+    /**
+     * @param query compared case-insensitively
+     * @param maxEdits the largest Levenshtein distance of a matching value from the query, up to {@link #MAX_EDITS}
+     * @return students whose field is within the distance, the closest values first, then ordered like
+     * {@link #findByPrefix(SearchField, String, int, int)}
+     * */
+    public SearchPage findSimilar(SearchField searchField, String query, int maxEdits, int limit) {
+        if (maxEdits < 0 || maxEdits > MAX_EDITS || limit < 0) {
+            throw new IllegalArgumentException("The edits must be from 0 to " + MAX_EDITS
+                    + " and the limit must not be negative: " + maxEdits + ", " + limit);
+        }
+        return termIndexes[searchField.ordinal()].findSimilar(SearchField.normalize(query), maxEdits, limit);
+    }
+}
@@ -0,0 +1,135 @@
+package search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Walks the distinct terms of one part of a {@link TermIndex} in ascending order of their UTF-8 bytes,
+ * together with the ids of the students having the current term.
+ * The current term is a slice of an array that does not change while the part is searchable, so a walker may keep
+ * referring to a term it has moved past
+ * */
+abstract class TermCursor {
+
+    static final byte[] NO_BYTES = new byte[0];
+
+    /**
+     * Moves to the first term that is not less than the given one
+     * @return {@code false} if there is no such term, the cursor is exhausted then
+     * */
+    abstract boolean seek(byte[] term);
+
+    /**
+     * @return {@code false} once the cursor has moved past the last term
+     * */
+    abstract boolean next();
+
+    /**
+     * Moves past every term that starts with the first {@code prefixLength} bytes of the current term
+     * @return {@code false} if there is no term left
+     * */
+    abstract boolean skipPrefix(int prefixLength);
+
+    abstract byte[] termBytes();
+
+    abstract int termOffset();
+
+    abstract int termLength();
+
+    abstract int postingsSize();
+
+    abstract long posting(int index);
+
+    String term() {
+        return new String(termBytes(), termOffset(), termLength(), StandardCharsets.UTF_8);
+    }
+
+    boolean termStartsWith(byte[] prefix) {
+        return termLength() >= prefix.length
+                && Arrays.equals(termBytes(), termOffset(), termOffset() + prefix.length, prefix, 0, prefix.length);
+    }
+
+    int compareTerm(TermCursor other) {
+        return Arrays.compareUnsigned(termBytes(), termOffset(), termOffset() + termLength(),
+                other.termBytes(), other.termOffset(), other.termOffset() + other.termLength());
+    }
+
+    /**
+     * @return the smallest term greater than every term starting with the first {@code length} bytes of the term,
+     * {@code null} if there is none
+     * */
+    static byte[] nextPrefix(byte[] term, int offset, int length) {
+        for (int index = length - 1; index >= 0; index--) {
+            if (term[offset + index] != (byte) 0xFF) {
+                byte[] nextPrefix = Arrays.copyOfRange(term, offset, offset + index + 1);
+                nextPrefix[index]++;
+                return nextPrefix;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cursor over the terms that are not flushed into a {@link TermSegment} yet
+     * */
+    static final class MapCursor extends TermCursor {
+
+        private final NavigableMap<byte[], Postings> terms;
+        private Iterator<Map.Entry<byte[], Postings>> iterator;
+        private Map.Entry<byte[], Postings> entry;
+
+        MapCursor(NavigableMap<byte[], Postings> terms) {
+            this.terms = terms;
+        }
+
+        @Override
+        boolean seek(byte[] term) {
+            iterator = terms.tailMap(term, true).entrySet().iterator();
+            return next();
+        }
+
+        @Override
+        boolean next() {
+            entry = iterator.hasNext() ? iterator.next() : null;
+            return entry != null;
+        }
+
+        @Override
+        boolean skipPrefix(int prefixLength) {
+            byte[] nextPrefix = nextPrefix(entry.getKey(), 0, prefixLength);
+            if (nextPrefix == null) {
+                entry = null;
+                return false;
+            }
+            return seek(nextPrefix);
+        }
+
+        @Override
+        byte[] termBytes() {
+            return entry.getKey();
+        }
+
+        @Override
+        int termOffset() {
+            return 0;
+        }
+
+        @Override
+        int termLength() {
+            return entry.getKey().length;
+        }
+
+        @Override
+        int postingsSize() {
+            return entry.getValue().size();
+        }
+
+        @Override
+        long posting(int index) {
+            return entry.getValue().get(index);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Terms of one student field with the ids of the students having each term, kept up to date one student at a time.
+ * <ul>
+ * <li>fresh terms go to a small sorted map, which is flushed once it holds {@value #MAX_FRESH_POSTINGS} ids</li>
+ * <li>a flush merges the map into a recent {@link TermSegment}</li>
+ * <li>the recent segment is merged into the main one once it holds an eighth of the main segment's ids,
+ * like the pending emails of {@link registry.CompactEmailRegistry}</li>
+ * </ul>
+ * So the main segment is rewritten only every so often, and a query walks at most four parts.
+ * Flushing is copy-on-write: the map is frozen and replaced by an empty one, the thread that filled it builds
+ * the new segments outside the lock and swaps them in, so registrations and queries never wait for a merge.
+ * Queries see the main and the recent segment, the frozen map during a flush and the fresh map; ids of a term
+ * come in that order, which is the order the students were added in.
+ * */
+final class TermIndex {
+
+    private static final int MAX_FRESH_POSTINGS = 8192;
+    private static final int MERGE_THRESHOLD_DIVISOR = 8;
+    private static final int INITIAL_PAGE_CAPACITY = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TermSegment mainSegment = TermSegment.EMPTY;
+    private TermSegment recentSegment = TermSegment.EMPTY;
+    private NavigableMap<byte[], Postings> frozenTerms;
+    private NavigableMap<byte[], Postings> freshTerms = new TreeMap<>(Arrays::compareUnsigned);
+    private int freshPostings;
+    private int freshBytes;
+
+    void add(String term, long studentId) {
+        byte[] termBytes = term.getBytes(StandardCharsets.UTF_8);
+        NavigableMap<byte[], Postings> termsToFlush = null;
+        int postingsToFlush = 0;
+        int bytesToFlush = 0;
+        TermSegment mainSegmentToMerge = null;
+        TermSegment recentSegmentToMerge = null;
+        lock.writeLock().lock();
+        try {
+            int numberOfFreshTerms = freshTerms.size();
+            freshTerms.computeIfAbsent(termBytes, newTerm -> new Postings()).add(studentId);
+            if (freshTerms.size() > numberOfFreshTerms) {
+                freshBytes += termBytes.length;
+            }
+            if (++freshPostings >= MAX_FRESH_POSTINGS && frozenTerms == null) {
+                frozenTerms = freshTerms;
+                termsToFlush = freshTerms;
+                postingsToFlush = freshPostings;
+                bytesToFlush = freshBytes;
+                mainSegmentToMerge = mainSegment;
+                recentSegmentToMerge = recentSegment;
+                freshTerms = new TreeMap<>(Arrays::compareUnsigned);
+                freshPostings = 0;
+                freshBytes = 0;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (termsToFlush != null) {
+            // nothing changes the segments or the frozen terms until the merged segments replace them
+            TermSegment mergedRecentSegment = recentSegmentToMerge.merge(new TermCursor.MapCursor(termsToFlush),
+                    termsToFlush.size(), postingsToFlush, bytesToFlush);
+            TermSegment mergedMainSegment = mainSegmentToMerge;
+            if (mergedRecentSegment.numberOfPostings()
+                    >= mainSegmentToMerge.numberOfPostings() / MERGE_THRESHOLD_DIVISOR) {
+                mergedMainSegment = merge(mainSegmentToMerge, mergedRecentSegment);
+                mergedRecentSegment = TermSegment.EMPTY;
+            }
+            lock.writeLock().lock();
+            try {
+                mainSegment = mergedMainSegment;
+                recentSegment = mergedRecentSegment;
+                frozenTerms = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Adds many students at once, sorting them instead of going through the fresh map.
+     * Not concurrent with {@link #add(String, long)}, it is meant for filling the index on restore
+     * */
+    void addAll(String[] terms, long[] studentIds, int size) {
+        TermPosting[] termPostings = new TermPosting[size];
+        for (int i = 0; i < size; i++) {
+            termPostings[i] = new TermPosting(terms[i].getBytes(StandardCharsets.UTF_8), studentIds[i]);
+        }
+        // stable, so the ids of a term stay in the order they were given
+        Arrays.sort(termPostings, (first, second) -> Arrays.compareUnsigned(first.term, second.term));
+        byte[][] sortedTerms = new byte[size][];
+        long[] sortedStudentIds = new long[size];
+        for (int i = 0; i < size; i++) {
+            sortedTerms[i] = termPostings[i].term;
+            sortedStudentIds[i] = termPostings[i].studentId;
+        }
+        TermSegment addedSegment = TermSegment.ofSorted(sortedTerms, sortedStudentIds, size);
+        lock.writeLock().lock();
+        try {
+            mainSegment = merge(merge(mainSegment, recentSegment), addedSegment);
+            recentSegment = TermSegment.EMPTY;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static TermSegment merge(TermSegment olderSegment, TermSegment newerSegment) {
+        return olderSegment.merge(newerSegment.cursor(), newerSegment.numberOfTerms(),
+                newerSegment.numberOfPostings(), newerSegment.numberOfBytes());
+    }
+
+    /**
+     * @return the students of the terms starting with the prefix, ordered by term, skipping the first
+     * {@code offset} ones
+     * */
+    SearchPage findByPrefix(String prefix, int offset, int limit) {
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        long[] studentIds = new long[Math.min(limit, INITIAL_PAGE_CAPACITY)];
+        String[] matchedTerms = new String[studentIds.length];
+        int size = 0;
+        boolean hasNextPage = false;
+        lock.readLock().lock();
+        try {
+            TermCursor[] cursors = cursors();
+            boolean[] isInRange = new boolean[cursors.length];
+            for (int i = 0; i < cursors.length; i++) {
+                isInRange[i] = cursors[i].seek(prefixBytes) && cursors[i].termStartsWith(prefixBytes);
+            }
+            long studentsToSkip = offset;
+            while (!hasNextPage) {
+                TermCursor smallestCursor = null;
+                for (int i = 0; i < cursors.length; i++) {
+                    if (isInRange[i] && (smallestCursor == null || cursors[i].compareTerm(smallestCursor) < 0)) {
+                        smallestCursor = cursors[i];
+                    }
+                }
+                if (smallestCursor == null) {
+                    break;
+                }
+                boolean[] hasSmallestTerm = new boolean[cursors.length];
+                for (int i = 0; i < cursors.length; i++) {
+                    hasSmallestTerm[i] = isInRange[i] && cursors[i].compareTerm(smallestCursor) == 0;
+                }
+                String term = null;
+                for (int i = 0; i < cursors.length && !hasNextPage; i++) {
+                    if (!hasSmallestTerm[i]) {
+                        continue;
+                    }
+                    TermCursor cursor = cursors[i];
+                    int postingsSize = cursor.postingsSize();
+                    if (studentsToSkip >= postingsSize) {
+                        studentsToSkip -= postingsSize;
+                    } else {
+                        if (term == null) {
+                            term = cursor.term();
+                        }
+                        for (int posting = (int) studentsToSkip; posting < postingsSize; posting++) {
+                            if (size == limit) {
+                                hasNextPage = true;
+                                break;
+                            }
+                            if (size == studentIds.length) {
+                                studentIds = Arrays.copyOf(studentIds, Math.min(limit, size * 2));
+                                matchedTerms = Arrays.copyOf(matchedTerms, studentIds.length);
+                            }
+                            studentIds[size] = cursor.posting(posting);
+                            matchedTerms[size++] = term;
+                        }
+                        studentsToSkip = 0;
+                    }
+                    isInRange[i] = cursor.next() && cursor.termStartsWith(prefixBytes);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new SearchPage(offset, Arrays.copyOf(studentIds, size), Arrays.copyOf(matchedTerms, size),
+                new int[size], hasNextPage);
+    }
+
+    /**
+     * @return the students of the terms within {@code maxEdits} edits of the query, the closest terms first,
+     * then by term
+     * */
+    SearchPage findSimilar(String query, int maxEdits, int limit) {
+        List<TermMatch> termMatches = new ArrayList<>();
+        // one more than the page takes tells whether there is a next page
+        int maxStudentIdsPerTerm = (int) Math.min(Integer.MAX_VALUE, limit + 1L);
+        lock.readLock().lock();
+        try {
+            FuzzyMatcher fuzzyMatcher = new FuzzyMatcher(query.getBytes(StandardCharsets.UTF_8), maxEdits);
+            for (TermCursor cursor : cursors()) {
+                fuzzyMatcher.forEachMatch(cursor, (matchedCursor, distance) ->
+                        termMatches.add(new TermMatch(matchedCursor, distance, maxStudentIdsPerTerm)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // stable, the ids of a term found in several parts keep the order of the parts
+        termMatches.sort(Comparator.<TermMatch>comparingInt(termMatch -> termMatch.distance)
+                .thenComparing(termMatch -> termMatch.term));
+        long[] studentIds = new long[Math.min(limit, INITIAL_PAGE_CAPACITY)];
+        String[] matchedTerms = new String[studentIds.length];
+        int[] distances = new int[studentIds.length];
+        int size = 0;
+        boolean hasNextPage = false;
+        for (TermMatch termMatch : termMatches) {
+            for (long studentId : termMatch.studentIds) {
+                if (size == limit) {
+                    hasNextPage = true;
+                    break;
+                }
+                if (size == studentIds.length) {
+                    studentIds = Arrays.copyOf(studentIds, Math.min(limit, size * 2));
+                    matchedTerms = Arrays.copyOf(matchedTerms, studentIds.length);
+                    distances = Arrays.copyOf(distances, studentIds.length);
+                }
+                studentIds[size] = studentId;
+                matchedTerms[size] = termMatch.term;
+                distances[size++] = termMatch.distance;
+            }
+            if (hasNextPage) {
+                break;
+            }
+        }
+        return new SearchPage(0, Arrays.copyOf(studentIds, size), Arrays.copyOf(matchedTerms, size),
+                Arrays.copyOf(distances, size), hasNextPage);
+    }
+
+    /**
+     * Called under the lock
+     * @return cursors over every part of the index, from the oldest
+     * */
+    private TermCursor[] cursors() {
+        TermCursor freshCursor = new TermCursor.MapCursor(freshTerms);
+        return frozenTerms == null
+                ? new TermCursor[]{mainSegment.cursor(), recentSegment.cursor(), freshCursor}
+                : new TermCursor[]{mainSegment.cursor(), recentSegment.cursor(),
+                        new TermCursor.MapCursor(frozenTerms), freshCursor};
+    }
+
+    private static final class TermPosting {
+
+        private final byte[] term;
+        private final long studentId;
+
+        TermPosting(byte[] term, long studentId) {
+            this.term = term;
+            this.studentId = studentId;
+        }
+    }
+
+    /**
+     * A term within the bound with at most as many of its ids as a page can take
+     * */
+    private static final class TermMatch {
+
+        private final String term;
+        private final int distance;
+        private final long[] studentIds;
+
+        TermMatch(TermCursor cursor, int distance, int maxStudentIds) {
+            this.term = cursor.term();
+            this.distance = distance;
+            this.studentIds = new long[Math.min(cursor.postingsSize(), maxStudentIds)];
+            for (int i = 0; i < studentIds.length; i++) {
+                studentIds[i] = cursor.posting(i);
+            }
+        }
+    }
+}
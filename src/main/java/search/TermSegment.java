@@ -0,0 +1,358 @@
+package search;
+
+import java.util.Arrays;
+
+/**
+ * Immutable sorted run of distinct terms with the ids of the students having each term.
+ * Like in {@link registry.CompactEmailRegistry}, the UTF-8 bytes of the terms are packed in one arena sliced by
+ * {@code termOffsets}, and the ids in one array sliced by {@code postingsStarts}. A term costs its bytes and two
+ * offsets instead of a String and a map entry, and walking the terms in order reads memory sequentially.
+ * Terms are found by binary search, the terms with a common prefix are a contiguous slice.
+ * <p>
+ * Skipping the slice of a prefix, which the {@link FuzzyMatcher} does for every pruned trie node, would take
+ * a dozen random reads of the arena by binary search. Instead every term keeps the length of its common prefix
+ * with the previous term, and the slice of a prefix of length {@code d} ends at the first term whose common prefix
+ * is shorter than {@code d}. Levels of minimums over blocks of {@value #SKIP_BLOCK_SIZE} entries find that term
+ * by scanning a few short runs of bytes
+ * */
+final class TermSegment {
+
+    static final TermSegment EMPTY = new TermSegment(new byte[0], new int[]{0}, new int[]{0}, new long[0], 0,
+            new byte[0]);
+
+    private static final int SKIP_BLOCK_SHIFT = 6;
+    private static final int SKIP_BLOCK_SIZE = 1 << SKIP_BLOCK_SHIFT;
+    private static final int MAX_COMMON_PREFIX_LENGTH = 0xFF;
+
+    private final byte[] arena;
+    private final int[] termOffsets;
+    private final int[] postingsStarts;
+    private final long[] postings;
+    private final int numberOfTerms;
+    // level 0 holds the common prefix length of every term with the previous one, at most 255, every next level
+    // holds the smallest entry of each block of the level below
+    private final byte[][] skipLevels;
+
+    private TermSegment(byte[] arena, int[] termOffsets, int[] postingsStarts, long[] postings, int numberOfTerms,
+                        byte[] commonPrefixLengths) {
+        this.arena = arena;
+        this.termOffsets = termOffsets;
+        this.postingsStarts = postingsStarts;
+        this.postings = postings;
+        this.numberOfTerms = numberOfTerms;
+        this.skipLevels = buildSkipLevels(commonPrefixLengths);
+    }
+
+    private static byte[][] buildSkipLevels(byte[] commonPrefixLengths) {
+        byte[][] levels = {commonPrefixLengths};
+        while (levels[levels.length - 1].length > SKIP_BLOCK_SIZE) {
+            byte[] lowerLevel = levels[levels.length - 1];
+            byte[] level = new byte[(lowerLevel.length + SKIP_BLOCK_SIZE - 1) >>> SKIP_BLOCK_SHIFT];
+            Arrays.fill(level, (byte) MAX_COMMON_PREFIX_LENGTH);
+            for (int i = 0; i < lowerLevel.length; i++) {
+                int block = i >>> SKIP_BLOCK_SHIFT;
+                level[block] = (byte) Math.min(level[block] & 0xFF, lowerLevel[i] & 0xFF);
+            }
+            levels = Arrays.copyOf(levels, levels.length + 1);
+            levels[levels.length - 1] = level;
+        }
+        return levels;
+    }
+
+    /**
+     * @return index of the first term from {@code from} on whose common prefix with the previous term is shorter
+     * than {@code prefixLength}, {@code numberOfTerms} if there is none
+     * */
+    private int findPrefixEnd(int from, int prefixLength) {
+        int level = 0;
+        int position = from;
+        while (true) {
+            byte[] minimums = skipLevels[level];
+            boolean isTopLevel = level == skipLevels.length - 1;
+            int blockEnd = isTopLevel ? minimums.length
+                    : Math.min(minimums.length, ((position >>> SKIP_BLOCK_SHIFT) + 1) << SKIP_BLOCK_SHIFT);
+            while (position < blockEnd && (minimums[position] & 0xFF) >= prefixLength) {
+                position++;
+            }
+            if (position < blockEnd) {
+                // the block at the position has a shorter prefix, it is in the first such block of the level below
+                while (level > 0) {
+                    level--;
+                    position <<= SKIP_BLOCK_SHIFT;
+                    while ((skipLevels[level][position] & 0xFF) >= prefixLength) {
+                        position++;
+                    }
+                }
+                return position;
+            }
+            if (isTopLevel || blockEnd == minimums.length) {
+                return numberOfTerms;
+            }
+            level++;
+            position = blockEnd >>> SKIP_BLOCK_SHIFT;
+        }
+    }
+
+    int numberOfTerms() {
+        return numberOfTerms;
+    }
+
+    int numberOfPostings() {
+        return postingsStarts[numberOfTerms];
+    }
+
+    int numberOfBytes() {
+        return termOffsets[numberOfTerms];
+    }
+
+    TermCursor cursor() {
+        return new SegmentCursor();
+    }
+
+    private int compareTerm(int termIndex, byte[] term, int offset, int length) {
+        return Arrays.compareUnsigned(arena, termOffsets[termIndex], termOffsets[termIndex + 1],
+                term, offset, offset + length);
+    }
+
+    /**
+     * @return index of the first term from {@code from} on that is not less than the given one, found by galloping
+     * from {@code from}, so a term a few places ahead is found in a few comparisons
+     * */
+    private int gallop(byte[] term, int offset, int length, int from) {
+        int low = from;
+        int bound = from;
+        int step = 1;
+        while (bound < numberOfTerms && compareTerm(bound, term, offset, length) < 0) {
+            low = bound + 1;
+            bound += step;
+            step <<= 1;
+        }
+        int high = Math.min(bound, numberOfTerms);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareTerm(middle, term, offset, length) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean startsWith(int termIndex, byte[] prefix, int offset, int length) {
+        int termOffset = termOffsets[termIndex];
+        return termOffsets[termIndex + 1] - termOffset >= length
+                && Arrays.equals(arena, termOffset, termOffset + length, prefix, offset, offset + length);
+    }
+
+    /**
+     * Builds a segment of the terms of this one and of the cursor, ids of a common term are kept in the order
+     * this segment first, then the cursor.
+     * The terms of this segment between two terms of the cursor are found by galloping and copied as one run,
+     * so merging a few terms into a big segment costs about a copy of its arrays
+     * */
+    TermSegment merge(TermCursor added, int numberOfAddedTerms, int numberOfAddedPostings, int numberOfAddedBytes) {
+        Builder builder = new Builder(numberOfTerms + numberOfAddedTerms, numberOfPostings() + numberOfAddedPostings,
+                numberOfBytes() + numberOfAddedBytes);
+        int termIndex = 0;
+        boolean hasAddedTerm = added.seek(TermCursor.NO_BYTES);
+        while (hasAddedTerm) {
+            byte[] addedTerm = added.termBytes();
+            int addedOffset = added.termOffset();
+            int addedLength = added.termLength();
+            int runEnd = gallop(addedTerm, addedOffset, addedLength, termIndex);
+            if (runEnd < numberOfTerms && compareTerm(runEnd, addedTerm, addedOffset, addedLength) == 0) {
+                // the ids of the added term follow the ids of the same term in this segment
+                builder.copyRun(this, termIndex, runEnd + 1);
+                termIndex = runEnd + 1;
+            } else {
+                builder.copyRun(this, termIndex, runEnd);
+                termIndex = runEnd;
+                builder.addTerm(addedTerm, addedOffset, addedLength);
+            }
+            for (int posting = 0; posting < added.postingsSize(); posting++) {
+                builder.addPosting(added.posting(posting));
+            }
+            hasAddedTerm = added.next();
+        }
+        builder.copyRun(this, termIndex, numberOfTerms);
+        return builder.build();
+    }
+
+    /**
+     * Builds a segment of terms sorted by their bytes with their ids, equal terms are adjacent
+     * */
+    static TermSegment ofSorted(byte[][] sortedTerms, long[] studentIds, int size) {
+        int numberOfBytes = 0;
+        for (int i = 0; i < size; i++) {
+            numberOfBytes += sortedTerms[i].length;
+        }
+        Builder builder = new Builder(size, size, numberOfBytes);
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || !Arrays.equals(sortedTerms[i - 1], sortedTerms[i])) {
+                builder.addTerm(sortedTerms[i], 0, sortedTerms[i].length);
+            }
+            builder.addPosting(studentIds[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Appends terms in order, the ids added after a term are the ids of that term
+     * */
+    private static final class Builder {
+
+        private final byte[] arena;
+        private final int[] termOffsets;
+        private final int[] postingsStarts;
+        private final long[] postings;
+        private final byte[] commonPrefixLengths;
+        private int numberOfTerms;
+        private int numberOfBytes;
+        private int numberOfPostings;
+
+        Builder(int maxTerms, int maxPostings, int maxBytes) {
+            this.arena = new byte[maxBytes];
+            this.termOffsets = new int[maxTerms + 1];
+            this.postingsStarts = new int[maxTerms + 1];
+            this.postings = new long[maxPostings];
+            this.commonPrefixLengths = new byte[maxTerms];
+        }
+
+        void addTerm(byte[] term, int offset, int length) {
+            System.arraycopy(term, offset, arena, numberOfBytes, length);
+            termOffsets[numberOfTerms] = numberOfBytes;
+            postingsStarts[numberOfTerms] = numberOfPostings;
+            numberOfBytes += length;
+            setCommonPrefixLength(numberOfTerms++);
+        }
+
+        private void setCommonPrefixLength(int termIndex) {
+            if (termIndex == 0) {
+                return;
+            }
+            int previousOffset = termOffsets[termIndex - 1];
+            int termOffset = termOffsets[termIndex];
+            int termEnd = termIndex + 1 < numberOfTerms ? termOffsets[termIndex + 1] : numberOfBytes;
+            int mismatch = Arrays.mismatch(arena, previousOffset, termOffset, arena, termOffset, termEnd);
+            // only equal ranges have no mismatch, terms are distinct
+            int commonPrefixLength = mismatch < 0 ? termOffset - previousOffset : mismatch;
+            commonPrefixLengths[termIndex] = (byte) Math.min(commonPrefixLength, MAX_COMMON_PREFIX_LENGTH);
+        }
+
+        void addPosting(long studentId) {
+            postings[numberOfPostings++] = studentId;
+        }
+
+        /**
+         * Appends the terms {@code [from, to)} of the segment with their ids
+         * */
+        void copyRun(TermSegment segment, int from, int to) {
+            if (from == to) {
+                return;
+            }
+            int firstTermIndex = numberOfTerms;
+            int bytesStart = segment.termOffsets[from];
+            int postingsStart = segment.postingsStarts[from];
+            int bytesShift = numberOfBytes - bytesStart;
+            int postingsShift = numberOfPostings - postingsStart;
+            for (int termIndex = from; termIndex < to; termIndex++) {
+                termOffsets[numberOfTerms] = segment.termOffsets[termIndex] + bytesShift;
+                postingsStarts[numberOfTerms++] = segment.postingsStarts[termIndex] + postingsShift;
+            }
+            int runBytes = segment.termOffsets[to] - bytesStart;
+            int runPostings = segment.postingsStarts[to] - postingsStart;
+            System.arraycopy(segment.arena, bytesStart, arena, numberOfBytes, runBytes);
+            System.arraycopy(segment.postings, postingsStart, postings, numberOfPostings, runPostings);
+            System.arraycopy(segment.skipLevels[0], from, commonPrefixLengths, firstTermIndex, to - from);
+            numberOfBytes += runBytes;
+            numberOfPostings += runPostings;
+            // only the first term of the run follows another term than in the segment
+            commonPrefixLengths[firstTermIndex] = 0;
+            setCommonPrefixLength(firstTermIndex);
+        }
+
+        TermSegment build() {
+            termOffsets[numberOfTerms] = numberOfBytes;
+            postingsStarts[numberOfTerms] = numberOfPostings;
+            return new TermSegment(arena, termOffsets, postingsStarts, postings, numberOfTerms,
+                    Arrays.copyOf(commonPrefixLengths, numberOfTerms));
+        }
+    }
+
+    private final class SegmentCursor extends TermCursor {
+
+        private int termIndex = numberOfTerms;
+
+        @Override
+        boolean seek(byte[] term) {
+            // a walking cursor mostly seeks a few terms ahead, the search starts at the current term then
+            boolean isAhead = termIndex < numberOfTerms
+                    && TermSegment.this.compareTerm(termIndex, term, 0, term.length) < 0;
+            termIndex = gallop(term, 0, term.length, isAhead ? termIndex + 1 : 0);
+            return termIndex < numberOfTerms;
+        }
+
+        @Override
+        boolean next() {
+            return ++termIndex < numberOfTerms;
+        }
+
+        @Override
+        boolean skipPrefix(int prefixLength) {
+            termIndex = prefixLength <= MAX_COMMON_PREFIX_LENGTH ? findPrefixEnd(termIndex + 1, prefixLength)
+                    : gallopPastPrefix(prefixLength);
+            return termIndex < numberOfTerms;
+        }
+
+        /**
+         * Binary search for the end of a prefix too long for the common prefix lengths
+         * */
+        private int gallopPastPrefix(int prefixLength) {
+            int prefixOffset = termOffsets[termIndex];
+            int low = termIndex + 1;
+            int bound = low;
+            int step = 1;
+            while (bound < numberOfTerms && startsWith(bound, arena, prefixOffset, prefixLength)) {
+                low = bound + 1;
+                bound += step;
+                step <<= 1;
+            }
+            int high = Math.min(bound, numberOfTerms);
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (startsWith(middle, arena, prefixOffset, prefixLength)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        @Override
+        byte[] termBytes() {
+            return arena;
+        }
+
+        @Override
+        int termOffset() {
+            return termOffsets[termIndex];
+        }
+
+        @Override
+        int termLength() {
+            return termOffsets[termIndex + 1] - termOffsets[termIndex];
+        }
+
+        @Override
+        int postingsSize() {
+            return postingsStarts[termIndex + 1] - postingsStarts[termIndex];
+        }
+
+        @Override
+        long posting(int index) {
+            return postings[postingsStarts[termIndex] + index];
+        }
+    }
+}
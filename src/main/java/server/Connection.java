@@ -0,0 +1,123 @@
+package server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+/**
+ * A client connection of the {@link TrackerServer}, used by the selector thread only.
+ * Requests are read into a fixed buffer and split into lines, responses are appended to a growing buffer
+ * and written out when the socket takes them. A client that does not read its responses stops being read
+ * once {@value #MAX_PENDING_OUTPUT} bytes are pending, so a pipelining client cannot grow the buffer without bound.
+ * */
+final class Connection {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_WRITE_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_PENDING_OUTPUT = 1 << 20;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    // always in fill mode, flipped only for the duration of a write
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(INITIAL_WRITE_BUFFER_SIZE);
+    private boolean closeAfterFlush;
+    // set while the request processor holds points of this connection that are not applied yet
+    boolean hasBatchedPoints;
+    // set while the request processor collects the responses of the round
+    boolean hasResponses;
+
+    Connection(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+    }
+
+    /**
+     * Reads what the socket has and passes every complete line, without the line terminator, to {@code requests}
+     * @return {@code false} at the end of the stream
+     * @throws IOException also for a line that does not fit into the read buffer
+     * */
+    boolean readRequests(BiConsumer<Connection, String> requests) throws IOException {
+        if (channel.read(readBuffer) < 0) {
+            return false;
+        }
+        byte[] bytes = readBuffer.array();
+        int lineStart = 0;
+        for (int position = 0; position < readBuffer.position(); position++) {
+            if (bytes[position] == '\n') {
+                int lineEnd = position > lineStart && bytes[position - 1] == '\r' ? position - 1 : position;
+                requests.accept(this, new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+                lineStart = position + 1;
+            }
+        }
+        readBuffer.flip().position(lineStart);
+        readBuffer.compact();
+        if (!readBuffer.hasRemaining()) {
+            throw new IOException("A request is longer than " + READ_BUFFER_SIZE + " bytes");
+        }
+        return true;
+    }
+
+    void respond(String response) {
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        if (writeBuffer.remaining() < bytes.length + 1) {
+            ByteBuffer grownBuffer = ByteBuffer.allocate(
+                    Math.max(writeBuffer.capacity() * 2, writeBuffer.position() + bytes.length + 1));
+            writeBuffer.flip();
+            grownBuffer.put(writeBuffer);
+            writeBuffer = grownBuffer;
+        }
+        writeBuffer.put(bytes).put((byte) '\n');
+    }
+
+    /**
+     * Closes the connection once the responses so far are written
+     * */
+    void closeAfterFlush() {
+        closeAfterFlush = true;
+    }
+
+    boolean isClosingAfterFlush() {
+        return closeAfterFlush;
+    }
+
+    /**
+     * Writes as much of the pending output as the socket takes and waits for the rest with {@link SelectionKey#OP_WRITE}
+     * @return {@code false} if the connection is closed
+     * */
+    boolean flush() throws IOException {
+        writeBuffer.flip();
+        try {
+            channel.write(writeBuffer);
+        } finally {
+            writeBuffer.compact();
+        }
+        int pendingOutput = writeBuffer.position();
+        if (pendingOutput == 0 && closeAfterFlush) {
+            close();
+            return false;
+        }
+        int interestOps = closeAfterFlush || pendingOutput >= MAX_PENDING_OUTPUT ? 0 : SelectionKey.OP_READ;
+        if (pendingOutput > 0) {
+            interestOps |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(interestOps);
+        return true;
+    }
+
+    boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    void close() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // the connection is gone either way
+        }
+    }
+}
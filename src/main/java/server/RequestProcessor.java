@@ -0,0 +1,417 @@
+package server;
+
+import parser.PointsParser;
+import pojo.CourseAggregates;
+import pojo.LeaderboardPage;
+import search.SearchField;
+import search.SearchPage;
+import search.StudentSearchIndex;
+import tracker.CourseStatistics;
+import tracker.LearningPlatform;
+import tracker.NotificationReport;
+import tracker.PlatformCourse;
+import tracker.PointsUpdateResult;
+import tracker.RegistrationResult;
+import tracker.StudentPoints;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Executes the requests read in one round of the selector loop, in the order they were read.
+ * Points requests are not applied one by one: their rows are collected and applied as one batch, see
+ * {@link LearningPlatform#submitPoints(long[], int[], int, PointsUpdateResult[])}. The batch is applied before
+ * any other request of a connection that has rows in it, so a client always reads its own points;
+ * requests of other connections are concurrent with the batch anyway.
+ * Responses are written to the connections in request order once the round is done.
+ * Requests that a connection pipelined after its {@code QUIT} are neither executed nor answered.
+ * A request that fails with an exception is answered {@code ERR} with its message, the other requests of the
+ * round and the connections go on.
+ * */
+final class RequestProcessor {
+
+    private static final int INITIAL_ROUND_CAPACITY = 256;
+    private static final int MAX_BATCH_ROWS = 4096;
+    private static final long NO_STUDENT_ID = -1L;
+    private static final long MAX_WINDOW_DAYS = 400;
+    private static final String WINDOW_USAGE = "ERR The window is minutes, hours or days up to 400d, e.g. 24h";
+    private static final String SEARCH_USAGE = "ERR Usage: SEARCH first|last|email offset limit prefix";
+    private static final String SIMILAR_USAGE = "ERR Usage: SIMILAR first|last|email edits limit query, up to "
+            + StudentSearchIndex.MAX_EDITS + " edits";
+
+    private final LearningPlatform learningPlatform;
+    private final PointsParser pointsParser;
+    private final int numberOfCourses;
+
+    private Connection[] connections = new Connection[INITIAL_ROUND_CAPACITY];
+    private String[] requests = new String[INITIAL_ROUND_CAPACITY];
+    private String[] responses = new String[INITIAL_ROUND_CAPACITY];
+    private int numberOfRequests;
+
+    private final long[] batchStudentIds = new long[MAX_BATCH_ROWS];
+    private final int[] batchPoints;
+    private final int[] batchRequestIndexes = new int[MAX_BATCH_ROWS];
+    private final PointsUpdateResult[] batchResults = new PointsUpdateResult[MAX_BATCH_ROWS];
+    private int batchRows;
+
+    RequestProcessor(LearningPlatform learningPlatform) {
+        this.learningPlatform = learningPlatform;
+        this.numberOfCourses = learningPlatform.getCourseCatalog().size();
+        this.pointsParser = new PointsParser(numberOfCourses);
+        this.batchPoints = new int[MAX_BATCH_ROWS * numberOfCourses];
+    }
+
+    void add(Connection connection, String request) {
+        if (numberOfRequests == requests.length) {
+            connections = Arrays.copyOf(connections, numberOfRequests * 2);
+            requests = Arrays.copyOf(requests, numberOfRequests * 2);
+            responses = Arrays.copyOf(responses, numberOfRequests * 2);
+        }
+        connections[numberOfRequests] = connection;
+        requests[numberOfRequests++] = request;
+    }
+
+    /**
+     * Executes the requests of the round and hands every response to its connection
+     * @param connectionsWithResponses gets every connection with responses to write, once
+     * @return number of executed requests
+     * */
+    int processRound(List<Connection> connectionsWithResponses) {
+        for (int requestIndex = 0; requestIndex < numberOfRequests; requestIndex++) {
+            try {
+                process(requestIndex);
+            } catch (RuntimeException e) {
+                responses[requestIndex] = errorResponse(e);
+            }
+        }
+        applyPointsBatch();
+        for (int requestIndex = 0; requestIndex < numberOfRequests; requestIndex++) {
+            Connection connection = connections[requestIndex];
+            // a request after QUIT has no response
+            if (connection.isOpen() && responses[requestIndex] != null) {
+                connection.respond(responses[requestIndex]);
+                if (!connection.hasResponses) {
+                    connection.hasResponses = true;
+                    connectionsWithResponses.add(connection);
+                }
+            }
+        }
+        for (Connection connection : connectionsWithResponses) {
+            connection.hasResponses = false;
+        }
+        int processedRequests = numberOfRequests;
+        Arrays.fill(connections, 0, numberOfRequests, null);
+        Arrays.fill(requests, 0, numberOfRequests, null);
+        Arrays.fill(responses, 0, numberOfRequests, null);
+        numberOfRequests = 0;
+        return processedRequests;
+    }
+
+    private void process(int requestIndex) {
+        Connection connection = connections[requestIndex];
+        if (connection.isClosingAfterFlush()) {
+            return;
+        }
+        String request = requests[requestIndex];
+        int commandEnd = request.indexOf(' ');
+        String command = commandEnd < 0 ? request : request.substring(0, commandEnd);
+        String arguments = commandEnd < 0 ? "" : request.substring(commandEnd + 1);
+        if (command.equals("POINTS")) {
+            responses[requestIndex] = addToPointsBatch(requestIndex, arguments);
+            return;
+        }
+        if (connection.hasBatchedPoints) {
+            applyPointsBatch();
+        }
+        switch (command) {
+            case "REGISTER":
+                responses[requestIndex] = register(arguments);
+                break;
+            case "FIND":
+                responses[requestIndex] = find(arguments);
+                break;
+            case "TOP":
+                responses[requestIndex] = top(arguments);
+                break;
+            case "SEARCH":
+                responses[requestIndex] = search(arguments);
+                break;
+            case "SIMILAR":
+                responses[requestIndex] = findSimilar(arguments);
+                break;
+            case "STATS":
+                responses[requestIndex] = statistics(arguments);
+                break;
+            case "ACTIVITY":
+                responses[requestIndex] = activity(arguments);
+                break;
+            case "NOTIFY":
+                responses[requestIndex] = notifyCompletedStudents();
+                break;
+            case "PING":
+                responses[requestIndex] = "OK";
+                break;
+            case "QUIT":
+                responses[requestIndex] = "OK";
+                connection.closeAfterFlush();
+                break;
+            default:
+                responses[requestIndex] = "ERR Unknown command";
+                break;
+        }
+    }
+
+    private String register(String credentials) {
+        RegistrationResult registrationResult = learningPlatform.register(credentials);
+        return registrationResult.isRegistered() ? "OK " + registrationResult.getStudentId()
+                : "ERR " + registrationResult.getMessage();
+    }
+
+    /**
+     * @return the response if the request is rejected without the platform, {@code null} while the row waits
+     * in the batch
+     * */
+    private String addToPointsBatch(int requestIndex, String pointsLine) {
+        if (!pointsParser.parse(pointsLine)) {
+            return "ERR Incorrect points format.";
+        }
+        long studentId = parseStudentId(pointsParser.getStudentId());
+        if (studentId == NO_STUDENT_ID) {
+            return "ERR No student is found for id=" + pointsParser.getStudentId();
+        }
+        if (batchRows == MAX_BATCH_ROWS) {
+            applyPointsBatch();
+        }
+        batchStudentIds[batchRows] = studentId;
+        for (int courseIndex = 0; courseIndex < numberOfCourses; courseIndex++) {
+            batchPoints[batchRows * numberOfCourses + courseIndex] = pointsParser.getPoints(courseIndex);
+        }
+        batchRequestIndexes[batchRows++] = requestIndex;
+        connections[requestIndex].hasBatchedPoints = true;
+        return null;
+    }
+
+    private void applyPointsBatch() {
+        if (batchRows == 0) {
+            return;
+        }
+        String batchFailure = null;
+        try {
+            learningPlatform.submitPoints(batchStudentIds, batchPoints, batchRows, batchResults);
+        } catch (RuntimeException e) {
+            // every row of the batch gets the error, the batch is not retried
+            batchFailure = errorResponse(e);
+        }
+        for (int row = 0; row < batchRows; row++) {
+            int requestIndex = batchRequestIndexes[row];
+            connections[requestIndex].hasBatchedPoints = false;
+            if (batchFailure != null) {
+                responses[requestIndex] = batchFailure;
+            } else {
+                responses[requestIndex] = batchResults[row] == PointsUpdateResult.UPDATED ? "OK"
+                        : "ERR No student is found for id=" + batchStudentIds[row];
+            }
+        }
+        batchRows = 0;
+    }
+
+    /**
+     * @return {@code ERR} and the message of the exception on one line
+     * */
+    private static String errorResponse(RuntimeException e) {
+        String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        return "ERR " + message.replace('\r', ' ').replace('\n', ' ');
+    }
+
+    private String find(String studentId) {
+        long numericStudentId = parseStudentId(studentId.trim());
+        StudentPoints studentPoints = numericStudentId == NO_STUDENT_ID ? null
+                : learningPlatform.findStudentPoints(numericStudentId);
+        return studentPoints == null ? "ERR No student is found for id=" + studentId.trim() + "."
+                : "OK " + studentPoints.render();
+    }
+
+    /**
+     * {@code TOP offset limit course} answers {@code OK enrolled [id points completed%]...} on one line
+     * */
+    private String top(String arguments) {
+        String[] parts = arguments.split(" ", 3);
+        if (parts.length < 3) {
+            return "ERR Usage: TOP offset limit course";
+        }
+        int offset;
+        int limit;
+        try {
+            offset = Integer.parseInt(parts[0]);
+            limit = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            return "ERR Usage: TOP offset limit course";
+        }
+        if (offset < 0 || limit < 0) {
+            return "ERR Usage: TOP offset limit course";
+        }
+        PlatformCourse platformCourse = learningPlatform.getCourseCatalog().findByName(parts[2]);
+        if (platformCourse == null) {
+            return "ERR Unknown course.";
+        }
+        LeaderboardPage leaderboardPage = learningPlatform.getLeaderboardPage(platformCourse, offset, limit);
+        StringBuilder response = new StringBuilder("OK ").append(leaderboardPage.getNumberOfEnrolledStudents());
+        for (int row = 0; row < leaderboardPage.size(); row++) {
+            long completionTenths = leaderboardPage.getCompletionTenths(row);
+            response.append(' ').append(leaderboardPage.getStudentId(row))
+                    .append(' ').append(leaderboardPage.getPoints(row))
+                    .append(' ').append(completionTenths / 10).append('.').append(completionTenths % 10).append('%');
+        }
+        return response.toString();
+    }
+
+    /**
+     * {@code SEARCH field offset limit prefix} answers {@code OK more|end [id email]...} on one line,
+     * the prefix is the rest of the line and may be empty or have spaces
+     * */
+    private String search(String arguments) {
+        String[] parts = arguments.split(" ", 4);
+        SearchField searchField = SearchField.findByShortName(parts[0]);
+        int[] offsetAndLimit = parts.length < 3 || searchField == null ? null : parseNonNegative(parts[1], parts[2]);
+        if (offsetAndLimit == null) {
+            return SEARCH_USAGE;
+        }
+        String prefix = parts.length < 4 ? "" : parts[3];
+        SearchPage searchPage = learningPlatform.searchStudents(searchField, prefix, offsetAndLimit[0],
+                offsetAndLimit[1]);
+        StringBuilder response = new StringBuilder("OK ").append(searchPage.hasNextPage() ? "more" : "end");
+        for (int row = 0; row < searchPage.size(); row++) {
+            response.append(' ').append(searchPage.getStudentId(row))
+                    .append(' ').append(learningPlatform.findStudent(searchPage.getStudentId(row)).getEmail());
+        }
+        return response.toString();
+    }
+
+    /**
+     * {@code SIMILAR field edits limit query} answers {@code OK more|end [id distance email]...} on one line,
+     * the closest first
+     * */
+    private String findSimilar(String arguments) {
+        String[] parts = arguments.split(" ", 4);
+        SearchField searchField = SearchField.findByShortName(parts[0]);
+        int[] editsAndLimit = parts.length < 4 || searchField == null ? null : parseNonNegative(parts[1], parts[2]);
+        if (editsAndLimit == null || editsAndLimit[0] > StudentSearchIndex.MAX_EDITS) {
+            return SIMILAR_USAGE;
+        }
+        SearchPage searchPage = learningPlatform.findSimilarStudents(searchField, parts[3], editsAndLimit[0],
+                editsAndLimit[1]);
+        StringBuilder response = new StringBuilder("OK ").append(searchPage.hasNextPage() ? "more" : "end");
+        for (int row = 0; row < searchPage.size(); row++) {
+            response.append(' ').append(searchPage.getStudentId(row))
+                    .append(' ').append(searchPage.getDistance(row))
+                    .append(' ').append(learningPlatform.findStudent(searchPage.getStudentId(row)).getEmail());
+        }
+        return response.toString();
+    }
+
+    /**
+     * @return both numbers or {@code null} if either is not a non-negative number
+     * */
+    private static int[] parseNonNegative(String first, String second) {
+        try {
+            int[] numbers = {Integer.parseInt(first), Integer.parseInt(second)};
+            return numbers[0] >= 0 && numbers[1] >= 0 ? numbers : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String statistics(String window) {
+        CourseStatistics courseStatistics;
+        if (window.isBlank()) {
+            courseStatistics = learningPlatform.getCourseStatistics();
+        } else {
+            Duration duration = parseWindow(window.trim());
+            if (duration == null) {
+                return WINDOW_USAGE;
+            }
+            courseStatistics = learningPlatform.getCourseStatistics(duration);
+        }
+        return "OK Most Popular: " + CourseStatistics.render(courseStatistics.getMostPopularCourses())
+                + " | Least Popular: " + CourseStatistics.render(courseStatistics.getLeastPopularCourses())
+                + " | Highest activity: " + CourseStatistics.render(courseStatistics.getHighestActivityCourses())
+                + " | Lowest Activity: " + CourseStatistics.render(courseStatistics.getLowestActivityCourses())
+                + " | Easiest course: " + CourseStatistics.render(courseStatistics.getEasiestCourses())
+                + " | Hardest course: " + CourseStatistics.render(courseStatistics.getHardestCourses());
+    }
+
+    /**
+     * {@code ACTIVITY window} answers {@code OK [course submissions points enrolled completed]...} on one line
+     * */
+    private String activity(String window) {
+        Duration duration = parseWindow(window.trim());
+        if (duration == null) {
+            return WINDOW_USAGE;
+        }
+        StringBuilder response = new StringBuilder("OK");
+        for (PlatformCourse platformCourse : learningPlatform.getCourseCatalog().getCourses()) {
+            CourseAggregates activity = learningPlatform.getCourseActivity(platformCourse, duration);
+            response.append(' ').append(platformCourse.getCourseName())
+                    .append(' ').append(activity.getTotalNumberOfSubmissions())
+                    .append(' ').append(activity.getTotalNumberOfEarnedPoints())
+                    .append(' ').append(activity.getNumberOfEnrolledStudents())
+                    .append(' ').append(activity.getNumberOfStudentsCompletedCourse());
+        }
+        return response.toString();
+    }
+
+    /**
+     * @param window a number of minutes, hours or days, e.g. "90m", "24h" or "7d"
+     * @return {@code null} if the window is malformed or longer than the activity buckets reach
+     * */
+    private static Duration parseWindow(String window) {
+        if (window.length() < 2) {
+            return null;
+        }
+        long amount;
+        try {
+            amount = Long.parseLong(window.substring(0, window.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (amount <= 0 || amount > MAX_WINDOW_DAYS * 24 * 60) {
+            return null;
+        }
+        Duration duration;
+        switch (window.charAt(window.length() - 1)) {
+            case 'm':
+                duration = Duration.ofMinutes(amount);
+                break;
+            case 'h':
+                duration = Duration.ofHours(amount);
+                break;
+            case 'd':
+                duration = Duration.ofDays(amount);
+                break;
+            default:
+                return null;
+        }
+        return duration.toDays() <= MAX_WINDOW_DAYS ? duration : null;
+    }
+
+    private String notifyCompletedStudents() {
+        NotificationReport notificationReport = learningPlatform.notifyCompletedStudents();
+        return notificationReport.isDelivered() ? "OK " + notificationReport.getNumberOfNotifiedStudents()
+                : "ERR Some notifications could not be delivered: " + notificationReport.getDeliveryFailure();
+    }
+
+    /**
+     * @return the id or {@link #NO_STUDENT_ID} unless the text is an id in its canonical form, as the platform
+     * registers it
+     * */
+    private static long parseStudentId(String studentId) {
+        try {
+            long numericStudentId = Long.parseLong(studentId);
+            return numericStudentId >= 0 && String.valueOf(numericStudentId).equals(studentId) ? numericStudentId
+                    : NO_STUDENT_ID;
+        } catch (NumberFormatException e) {
+            return NO_STUDENT_ID;
+        }
+    }
+}
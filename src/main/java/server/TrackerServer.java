@@ -0,0 +1,234 @@
+package server;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import metrics.Timer;
+import tracker.LearningPlatform;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.LongSupplier;
+
+/**
+ * Serves the platform to several local clients over a line protocol, on a TCP port of the loopback interface
+ * or on a Unix domain socket.
+ * <p>
+ * Every request is one line, {@code COMMAND arguments}, answered by one line that starts with {@code OK} or
+ * {@code ERR}. A client may pipeline: send many requests without waiting, the responses come in request order.
+ * <ul>
+ * <li>{@code REGISTER firstName lastName email}: {@code OK id}</li>
+ * <li>{@code POINTS id points...}: {@code OK}, one number for every catalog course</li>
+ * <li>{@code FIND id}: {@code OK id points: Java=8; DSA=7; ...}</li>
+ * <li>{@code TOP offset limit course}: {@code OK enrolled id points completed% ...}</li>
+ * <li>{@code SEARCH first|last|email offset limit prefix}: {@code OK more|end id email ...}, students whose
+ * field starts with the prefix, ignoring case</li>
+ * <li>{@code SIMILAR first|last|email edits limit query}: {@code OK more|end id distance email ...}, students
+ * whose field is at most that many edits away from the query, the closest first</li>
+ * <li>{@code STATS [window]}: the six statistics categories on one line, of the last window if given,
+ * e.g. {@code STATS 7d}</li>
+ * <li>{@code ACTIVITY window}: {@code OK course submissions points enrolled completed ...} of the last window</li>
+ * <li>{@code NOTIFY}: {@code OK number of notified students}, answered once the notifications are delivered</li>
+ * <li>{@code PING}: {@code OK}; {@code QUIT}: {@code OK}, then the server closes the connection, requests pipelined
+ * after it are ignored</li>
+ * </ul>
+ * One selector thread reads every connection, executes the requests of a round with a {@link RequestProcessor},
+ * which applies the points of all connections as one batch, and writes the responses. A request that blocks,
+ * such as NOTIFY with a slow mail server, holds up the other connections meanwhile.
+ * Metrics: "server.requests", "server.connections" and the "server.round" timer.
+ * Usage: {@code java server.TrackerServer [port | unix:socketFile]}, port {@value #DEFAULT_PORT} by default
+ * */
+public class TrackerServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 7070;
+    private static final String UNIX_SOCKET_PREFIX = "unix:";
+    private static final String CONNECTIONS_GAUGE = "server.connections";
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final RequestProcessor requestProcessor;
+    private final List<Connection> connectionsWithResponses = new ArrayList<>();
+    private final Counter requests;
+    private final Timer rounds;
+    private volatile int numberOfConnections;
+    private final LongSupplier connectionsGauge = () -> numberOfConnections;
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile Thread selectorThread;
+    private volatile boolean isClosed;
+
+    public TrackerServer(LearningPlatform learningPlatform, SocketAddress address) throws IOException {
+        this.serverChannel = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX) : ServerSocketChannel.open();
+        this.serverChannel.bind(address);
+        this.serverChannel.configureBlocking(false);
+        this.selector = Selector.open();
+        this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.requestProcessor = new RequestProcessor(learningPlatform);
+        MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+        this.requests = metricsRegistry.counter("server.requests");
+        this.rounds = metricsRegistry.timer("server.round", 1);
+        metricsRegistry.registerGauge(CONNECTIONS_GAUGE, connectionsGauge);
+    }
+
+    public static void main(String[] args) throws IOException {
+        SocketAddress address = parseAddress(args.length > 0 ? args[0] : String.valueOf(DEFAULT_PORT));
+        LearningPlatform learningPlatform = LearningPlatform.getInstance();
+        TrackerServer trackerServer = new TrackerServer(learningPlatform, address);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            trackerServer.close();
+            learningPlatform.close();
+        }, "tracker-server-shutdown"));
+        System.out.println("Learning Progress Tracker serving on " + trackerServer.getLocalAddress());
+        trackerServer.run();
+    }
+
+    /**
+     * @param address a port of the loopback interface or {@code unix:} and the path of a socket file
+     * */
+    public static SocketAddress parseAddress(String address) {
+        if (address.startsWith(UNIX_SOCKET_PREFIX)) {
+            return UnixDomainSocketAddress.of(address.substring(UNIX_SOCKET_PREFIX.length()));
+        }
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+    }
+
+    public SocketAddress getLocalAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Serves on the calling thread until {@link #close()}
+     * */
+    public void run() {
+        selectorThread = Thread.currentThread();
+        try {
+            while (!isClosed) {
+                selector.select();
+                long start = System.nanoTime();
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        accept();
+                    } else if (key.isValid()) {
+                        handleConnection(key, (Connection) key.attachment());
+                    }
+                }
+                int processedRequests = requestProcessor.processRound(connectionsWithResponses);
+                if (processedRequests > 0) {
+                    requests.add(processedRequests);
+                    flushResponses();
+                    rounds.record(System.nanoTime() - start);
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            // closed while selecting
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            closeChannels();
+            terminated.countDown();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+        numberOfConnections++;
+    }
+
+    private void handleConnection(SelectionKey key, Connection connection) {
+        try {
+            if (key.isWritable() && !connection.flush()) {
+                numberOfConnections--;
+                return;
+            }
+            if (key.isValid() && key.isReadable() && !connection.readRequests(requestProcessor::add)) {
+                closeConnection(connection);
+            }
+        } catch (IOException e) {
+            closeConnection(connection);
+        }
+    }
+
+    private void flushResponses() {
+        for (Connection connection : connectionsWithResponses) {
+            try {
+                if (connection.isOpen() && !connection.flush()) {
+                    numberOfConnections--;
+                }
+            } catch (IOException e) {
+                closeConnection(connection);
+            }
+        }
+        connectionsWithResponses.clear();
+    }
+
+    private void closeConnection(Connection connection) {
+        if (connection.isOpen()) {
+            connection.close();
+            numberOfConnections--;
+        }
+    }
+
+    private void closeChannels() {
+        if (!selector.isOpen()) {
+            return;
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                ((Connection) key.attachment()).close();
+            }
+        }
+        try {
+            selector.close();
+            SocketAddress localAddress = serverChannel.getLocalAddress();
+            serverChannel.close();
+            if (localAddress instanceof UnixDomainSocketAddress) {
+                Files.deleteIfExists(((UnixDomainSocketAddress) localAddress).getPath());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stops {@link #run()} after the current round and waits until every connection is closed
+     * */
+    @Override
+    public void close() {
+        isClosed = true;
+        MetricsRegistry.getInstance().unregisterGauge(CONNECTIONS_GAUGE, connectionsGauge);
+        selector.wakeup();
+        Thread runningThread = selectorThread;
+        if (runningThread == null) {
+            closeChannels();
+        } else if (runningThread != Thread.currentThread()) {
+            try {
+                terminated.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
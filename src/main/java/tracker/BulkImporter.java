@@ -0,0 +1,107 @@
+package tracker;
+
+import parser.CredentialsParser;
+import parser.CredentialsParsingResult;
+import parser.PointsParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams "add students" and "add points" lines from a file without printing a message per line.
+ * Blank lines are skipped, every other line is counted as accepted or rejected.
+ * Points lines are validated and collected into batches which are applied to the courses at once.
+ * */
+public class BulkImporter {
+
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final int POINTS_BATCH_SIZE = 8192;
+
+    private final LearningPlatform learningPlatform;
+    private final CredentialsParser credentialsParser = new CredentialsParser();
+    private final PointsParser pointsParser;
+
+    public BulkImporter(LearningPlatform learningPlatform) {
+        this.learningPlatform = learningPlatform;
+        this.pointsParser = new PointsParser(learningPlatform.getCourseCatalog().size());
+    }
+
+    public ImportSummary importStudents(Path studentsFile) throws IOException {
+        long start = System.nanoTime();
+        long accepted = 0;
+        long rejected = 0;
+        try (BufferedReader reader = openReader(studentsFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                CredentialsParsingResult parsingResult = credentialsParser.parse(line);
+                if (parsingResult != CredentialsParsingResult.VALID) {
+                    learningPlatform.getMetrics().recordRejectedCredentials(parsingResult);
+                    rejected++;
+                } else if (!learningPlatform.registerStudent(credentialsParser.getFirstName(),
+                        credentialsParser.getLastName(), credentialsParser.getEmail())) {
+                    learningPlatform.getMetrics().recordEmailTaken();
+                    rejected++;
+                } else {
+                    accepted++;
+                }
+            }
+        }
+        return new ImportSummary(accepted, rejected, System.nanoTime() - start);
+    }
+
+    public ImportSummary importPoints(Path pointsFile) throws IOException {
+        long start = System.nanoTime();
+        long accepted = 0;
+        long rejected = 0;
+        int numberOfCourses = pointsParser.getNumberOfCourses();
+        long[] batchStudentIds = new long[POINTS_BATCH_SIZE];
+        int[] batchPoints = new int[POINTS_BATCH_SIZE * numberOfCourses];
+        int batchRows = 0;
+        try (BufferedReader reader = openReader(pointsFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (!pointsParser.parse(line)) {
+                    learningPlatform.getMetrics().recordIncorrectPointsFormat();
+                    rejected++;
+                    continue;
+                }
+                long studentId = learningPlatform.findRegisteredStudentId(pointsParser.getStudentId());
+                if (studentId == LearningPlatform.NO_STUDENT_ID) {
+                    learningPlatform.getMetrics().recordUnknownStudent();
+                    rejected++;
+                    continue;
+                }
+                batchStudentIds[batchRows] = studentId;
+                for (int courseIndex = 0; courseIndex < numberOfCourses; courseIndex++) {
+                    batchPoints[batchRows * numberOfCourses + courseIndex] = pointsParser.getPoints(courseIndex);
+                }
+                batchRows++;
+                accepted++;
+                if (batchRows == POINTS_BATCH_SIZE) {
+                    learningPlatform.addPointsBatch(batchStudentIds, batchPoints, batchRows);
+                    batchRows = 0;
+                }
+            }
+        }
+        learningPlatform.addPointsBatch(batchStudentIds, batchPoints, batchRows);
+        return new ImportSummary(accepted, rejected, System.nanoTime() - start);
+    }
+
+    private static BufferedReader openReader(Path file) throws IOException {
+        FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+        return new BufferedReader(new InputStreamReader(Channels.newInputStream(fileChannel), StandardCharsets.UTF_8),
+                READ_BUFFER_SIZE);
+    }
+}
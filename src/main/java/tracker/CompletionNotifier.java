@@ -0,0 +1,85 @@
+package tracker;
+
+import notifications.Notification;
+import notifications.NotificationService;
+import notifications.NotificationsFactory;
+import output.ConsoleOutputSink;
+import output.OutputSink;
+import pojo.Student;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Notifies the students who have completed a course for {@link LearningPlatform} and {@link ShardedPlatform}.
+ * The notifications of a run are sent as one batch, the platform hears of every notification once it is delivered
+ * or has failed, and marks the student as notified or keeps it for the next run.
+ * The notification service is created by the first run and prints through the output sink.
+ * */
+class CompletionNotifier implements AutoCloseable {
+
+    // -Dtracker.notifications=email|async-email|fake-smtp, see NotificationsFactory
+    private static final String NOTIFICATION_TYPE = System.getProperty("tracker.notifications", "email");
+
+    private OutputSink outputSink = new ConsoleOutputSink();
+    private NotificationService notificationService;
+
+    synchronized void setOutputSink(OutputSink outputSink) {
+        this.outputSink = outputSink;
+        // the next run creates the service for the new sink
+        close();
+    }
+
+    /**
+     * Sends the notifications and waits for every delivery, the listener hears of them in the given order
+     * */
+    synchronized NotificationReport send(List<Notification> notifications, DeliveryListener deliveryListener) {
+        if (notificationService == null) {
+            notificationService = NotificationsFactory.createNotificationService(NOTIFICATION_TYPE, outputSink);
+        }
+        List<CompletableFuture<Void>> deliveries = notificationService.sendEach(notifications);
+        Set<Student> notifiedStudents = new HashSet<>();
+        String deliveryFailure = null;
+        for (int i = 0; i < notifications.size(); i++) {
+            Notification notification = notifications.get(i);
+            boolean delivered = true;
+            try {
+                deliveries.get(i).join();
+                notifiedStudents.add(notification.getStudent());
+            } catch (CompletionException e) {
+                // notified again by the next run
+                delivered = false;
+                deliveryFailure = e.getCause().getMessage();
+            }
+            deliveryListener.deliveryCompleted(notification.getCompletedCourse().getIndex(),
+                    Long.parseLong(notification.getStudent().getId()), delivered);
+        }
+        return new NotificationReport(notifiedStudents.size(), notifications.size(), deliveryFailure);
+    }
+
+    /**
+     * Closes the notification service, which delivers its queued notifications
+     * */
+    @Override
+    public synchronized void close() {
+        if (notificationService instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) notificationService).close();
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot close the notification service", e);
+            }
+        }
+        notificationService = null;
+    }
+
+    interface DeliveryListener {
+
+        /**
+         * @param delivered {@code false} if the notification failed and the student is to be notified again
+         * */
+        void deliveryCompleted(int courseIndex, long studentId, boolean delivered);
+    }
+}
@@ -0,0 +1,245 @@
+package tracker;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import metrics.MetricsSnapshot;
+import output.OutputSink;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The console command language, fed one line at a time.
+ * Commands such as "add points" switch to a mode that handles the following lines until "back",
+ * so the same session serves the interactive console and headless drivers that push lines from a stream.
+ * Every line is classified as a {@link Command} and counted in the {@link MetricsRegistry} as "console.*".
+ * */
+public class ConsoleSession {
+
+    private static final String IMPORT_STUDENTS_COMMAND = "import students ";
+    private static final String IMPORT_POINTS_COMMAND = "import points ";
+    private static final String EXPORT_IMAGE_COMMAND = "export image ";
+
+    /**
+     * What the next line is taken for
+     * */
+    public enum Mode {
+        MAIN_MENU,
+        ADD_STUDENTS,
+        ADD_POINTS,
+        FIND,
+        STATISTICS,
+        NOTIFY
+    }
+
+    /**
+     * What a line does, "back" and the commands that only switch the mode are navigation
+     * */
+    public enum Command {
+        NAVIGATION,
+        REGISTER,
+        ADD_POINTS,
+        FIND,
+        LIST,
+        STATISTICS,
+        TOP_LEARNERS,
+        NOTIFY,
+        IMPORT,
+        EXPORT,
+        METRICS,
+        UNKNOWN,
+        EXIT
+    }
+
+    private final LearningPlatform learningPlatform;
+    private final OutputSink outputSink;
+    private final Counter[] commandCounters = new Counter[Command.values().length];
+    private Mode mode = Mode.MAIN_MENU;
+    private int numOfAddedStudents;
+    private MetricsSnapshot previousMetrics;
+
+    public ConsoleSession(LearningPlatform learningPlatform, OutputSink outputSink) {
+        this.learningPlatform = learningPlatform;
+        this.outputSink = outputSink;
+        for (Command command : Command.values()) {
+            commandCounters[command.ordinal()] =
+                    MetricsRegistry.getInstance().counter("console." + command.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return the command the line stands for in the current mode
+     * */
+    public Command classify(String line) {
+        switch (mode) {
+            case MAIN_MENU:
+                return classifyMainMenuCommand(line);
+            case ADD_STUDENTS:
+                return line.equals("back") ? Command.NAVIGATION : Command.REGISTER;
+            case ADD_POINTS:
+                return line.equals("back") ? Command.NAVIGATION : Command.ADD_POINTS;
+            case FIND:
+                return line.equals("back") ? Command.NAVIGATION : Command.FIND;
+            case STATISTICS:
+                return line.equals("back") ? Command.NAVIGATION : Command.TOP_LEARNERS;
+            case NOTIFY:
+                return line.equals("back") ? Command.NAVIGATION : Command.NOTIFY;
+            default:
+                throw new IllegalStateException("Unexpected mode " + mode);
+        }
+    }
+
+    private static Command classifyMainMenuCommand(String command) {
+        if (command.equals("exit")) {
+            return Command.EXIT;
+        }
+        if (command.startsWith(IMPORT_STUDENTS_COMMAND) || command.startsWith(IMPORT_POINTS_COMMAND)) {
+            return Command.IMPORT;
+        }
+        if (command.startsWith(EXPORT_IMAGE_COMMAND)) {
+            return Command.EXPORT;
+        }
+        switch (command) {
+            case "back":
+            case "add students":
+            case "add points":
+            case "find":
+                return Command.NAVIGATION;
+            case "list":
+                return Command.LIST;
+            case "statistics":
+                return Command.STATISTICS;
+            case "notify":
+                return Command.NOTIFY;
+            case "metrics":
+                return Command.METRICS;
+            default:
+                return Command.UNKNOWN;
+        }
+    }
+
+    /**
+     * @return {@code false} once the line "exit" has closed the platform
+     * */
+    public boolean processLine(String line) {
+        Command command = classify(line);
+        commandCounters[command.ordinal()].increment();
+        switch (command) {
+            case NAVIGATION:
+                navigate(line);
+                break;
+            case REGISTER:
+                if (learningPlatform.registerStudentToPlatform(line)) {
+                    numOfAddedStudents += 1;
+                }
+                break;
+            case ADD_POINTS:
+                learningPlatform.addPoints(line);
+                break;
+            case FIND:
+                learningPlatform.printStudentPointsInAllPlatformCourses(line);
+                break;
+            case LIST:
+                learningPlatform.listStudentsRegisteredOnPlatform();
+                break;
+            case STATISTICS:
+                outputSink.println("Type the name of a course to see details or 'back' to quit:");
+                learningPlatform.retrieveCoursesStatistic();
+                mode = Mode.STATISTICS;
+                break;
+            case TOP_LEARNERS:
+                learningPlatform.getTopLearnersForSpecificCourse(line);
+                break;
+            case NOTIFY:
+                // runs at once and again for every line until "back"
+                learningPlatform.notifyStudentByEmailIfCourseComplete();
+                mode = Mode.NOTIFY;
+                break;
+            case IMPORT:
+                importFile(line);
+                break;
+            case EXPORT:
+                exportImage(line.substring(EXPORT_IMAGE_COMMAND.length()).trim());
+                break;
+            case METRICS:
+                printMetrics();
+                break;
+            case EXIT:
+                learningPlatform.close();
+                outputSink.println("Bye!");
+                return false;
+            default:
+                outputSink.println(line.isBlank() ? "No input." : "Unknown command!");
+                break;
+        }
+        return true;
+    }
+
+    private void navigate(String line) {
+        if (mode != Mode.MAIN_MENU) {
+            if (mode == Mode.ADD_STUDENTS) {
+                outputSink.printf("Total %d students have been added.%n", numOfAddedStudents);
+            }
+            mode = Mode.MAIN_MENU;
+            return;
+        }
+        switch (line) {
+            case "add students":
+                outputSink.println("Enter student credentials or 'back' to return");
+                numOfAddedStudents = 0;
+                mode = Mode.ADD_STUDENTS;
+                break;
+            case "add points":
+                outputSink.println("Enter an id and points or 'back' to return");
+                mode = Mode.ADD_POINTS;
+                break;
+            case "find":
+                outputSink.println("Enter an id or 'back' to return");
+                mode = Mode.FIND;
+                break;
+            default:
+                outputSink.println("Enter 'exit' to exit the program.");
+                break;
+        }
+    }
+
+    /**
+     * Prints every metric, rates cover the time since the previous "metrics" command of the session
+     * */
+    private void printMetrics() {
+        MetricsSnapshot metrics = MetricsRegistry.getInstance().snapshot();
+        outputSink.print(metrics.toText(previousMetrics));
+        previousMetrics = metrics;
+    }
+
+    private void importFile(String command) {
+        boolean importStudents = command.startsWith(IMPORT_STUDENTS_COMMAND);
+        String fileName = command.substring(importStudents ? IMPORT_STUDENTS_COMMAND.length()
+                : IMPORT_POINTS_COMMAND.length()).trim();
+        BulkImporter bulkImporter = new BulkImporter(learningPlatform);
+        try {
+            ImportSummary importSummary = importStudents ? bulkImporter.importStudents(Path.of(fileName))
+                    : bulkImporter.importPoints(Path.of(fileName));
+            outputSink.printf("Imported %d lines in %d ms: %d accepted, %d rejected.%n",
+                    importSummary.getTotalLines(), importSummary.getElapsedMillis(),
+                    importSummary.getAcceptedLines(), importSummary.getRejectedLines());
+        } catch (IOException e) {
+            outputSink.printf("Cannot read file %s.%n", fileName);
+        }
+    }
+
+    private void exportImage(String fileName) {
+        long start = System.nanoTime();
+        try {
+            learningPlatform.exportImage(Path.of(fileName));
+            outputSink.printf("Exported the image in %d ms.%n", (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            outputSink.printf("Cannot write file %s.%n", fileName);
+        }
+    }
+}
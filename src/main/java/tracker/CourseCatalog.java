@@ -0,0 +1,137 @@
+package tracker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Registry of the courses offered on the platform with O(1) lookup by index and by case-insensitive name.
+ * Course definitions are lines {@code <course name>=<points to finish>}, blank lines and lines starting with '#'
+ * are ignored, and the order of the lines is the order of the points in a points line.
+ * */
+public class CourseCatalog {
+
+    public static final String COURSES_FILE_PROPERTY = "tracker.courses";
+    private static final String COURSES_RESOURCE = "/courses.properties";
+    private static final String DEFAULT_COURSES = "Java=600\nDSA=400\nDatabases=480\nSpring=550\n";
+
+    private final List<PlatformCourse> courses;
+    private final Map<String, PlatformCourse> nameToCourse;
+
+    private CourseCatalog(List<PlatformCourse> courses) {
+        this.courses = Collections.unmodifiableList(courses);
+        this.nameToCourse = new HashMap<>(courses.size() * 2);
+        for (PlatformCourse course : courses) {
+            if (nameToCourse.put(normalize(course.getCourseName()), course) != null) {
+                throw new IllegalArgumentException("Course " + course.getCourseName() + " is defined twice");
+            }
+        }
+    }
+
+    /**
+     * Loads the file given by {@code -Dtracker.courses}, then the {@code courses.properties} classpath resource,
+     * and falls back to the Java, DSA, Databases and Spring courses
+     * */
+    public static CourseCatalog load() {
+        String coursesFile = System.getProperty(COURSES_FILE_PROPERTY);
+        try {
+            if (coursesFile != null) {
+                try (BufferedReader reader = Files.newBufferedReader(Path.of(coursesFile), StandardCharsets.UTF_8)) {
+                    return parse(reader);
+                }
+            }
+            InputStream coursesResource = CourseCatalog.class.getResourceAsStream(COURSES_RESOURCE);
+            if (coursesResource != null) {
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(coursesResource, StandardCharsets.UTF_8))) {
+                    return parse(reader);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read course definitions", e);
+        }
+        return defaultCatalog();
+    }
+
+    public static CourseCatalog defaultCatalog() {
+        try {
+            return parse(new BufferedReader(new StringReader(DEFAULT_COURSES)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static CourseCatalog parse(BufferedReader reader) throws IOException {
+        List<PlatformCourse> courses = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int separator = line.indexOf('=');
+            String courseName = separator < 0 ? "" : line.substring(0, separator).strip();
+            String points = separator < 0 ? "" : line.substring(separator + 1).strip();
+            if (courseName.isEmpty() || !points.matches("\\d{1,9}") || Integer.parseInt(points) == 0) {
+                throw new IllegalArgumentException("Incorrect course definition at line " + lineNumber + ": " + line);
+            }
+            courses.add(new PlatformCourse(courses.size(), courseName, Integer.parseInt(points)));
+        }
+        if (courses.isEmpty()) {
+            throw new IllegalArgumentException("No courses are defined");
+        }
+        return new CourseCatalog(courses);
+    }
+
+    public int size() {
+        return courses.size();
+    }
+
+    public PlatformCourse getByIndex(int index) {
+        return courses.get(index);
+    }
+
+    /**
+     * @return the course with the given name ignoring case, or {@code null} if there is no such course
+     * */
+    public PlatformCourse findByName(String courseName) {
+        return nameToCourse.get(normalize(courseName));
+    }
+
+    public List<PlatformCourse> getCourses() {
+        return courses;
+    }
+
+    /**
+     * @return whether {@code points} holds a value that is not negative for every course from {@code rowOffset} on
+     * */
+    public boolean isValidPointsRow(int[] points, int rowOffset) {
+        if (points.length < rowOffset + courses.size()) {
+            return false;
+        }
+        for (int courseIndex = 0; courseIndex < courses.size(); courseIndex++) {
+            if (points[rowOffset + courseIndex] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String courseName) {
+        return courseName.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,199 +1,167 @@
 package tracker;
 
 import pojo.Course;
+import pojo.CourseAggregates;
 
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
+import java.util.function.Function;
 
 public class CourseStatisticAnalyzer {
 
     private List<Course> coursesToAnalyze;
+    private CourseStatistics courseStatistics;
 
     public CourseStatisticAnalyzer(List<Course> coursesToAnalyze) {
         this.coursesToAnalyze = coursesToAnalyze;
     }
 
     /**
-     * The most popular has the biggest number of enrolled students
+     * Takes one snapshot of the per-course aggregates and finds the extremes of every category in a single pass.
+     * <ul>
+     * <li>popularity is the number of enrolled students</li>
+     * <li>activity is the number of submissions</li>
+     * <li>difficulty is the average grade per assignment, only courses with submissions take part</li>
+     * </ul>
+     * The "least", "lowest" and "hardest" categories are not applicable when every ranked course has the same value.
      * */
-    public String getMostPopularCourse() {
-        // in case of [0(Java) 0(DSA) 0(Database) 0 (Spring)] popular course should be "n/a"
-        if (!areStudentsEnrolledInCourses()) {
-            return "n/a";
+    public CourseStatistics analyze() {
+        courseStatistics = analyze(Course::getAggregates);
+        return courseStatistics;
+    }
+
+    /**
+     * Same categories over the activity of the last {@code window}, see {@link Course#getActivity(Duration)}:
+     * popularity is the number of students enrolled in the window, activity and difficulty count only the
+     * submissions of the window. The result is not kept for the getters of the all-time categories
+     * */
+    public CourseStatistics analyze(Duration window) {
+        return analyze(course -> course.getActivity(window));
+    }
+
+    private CourseStatistics analyze(Function<Course, CourseAggregates> aggregatesOfCourse) {
+        List<String> courseNames = new ArrayList<>(coursesToAnalyze.size());
+        CourseAggregates[] courseAggregates = new CourseAggregates[coursesToAnalyze.size()];
+        for (int i = 0; i < courseAggregates.length; i++) {
+            // every course is read under its own lock, so its aggregates are consistent with each other
+            courseAggregates[i] = aggregatesOfCourse.apply(coursesToAnalyze.get(i));
+            courseNames.add(coursesToAnalyze.get(i).toString());
         }
-        StringBuilder mostPopularCourse = new StringBuilder();
-        List<Course> sortedCourses = sortCoursesBySpecificComparator(
-                Comparator.comparingInt(Course::getNumberOfEnrolledStudents));
-        // in case of [0(Java) 1(DSA) 1(Database) 2(Spring)] popular course should be 2(Spring)
-        mostPopularCourse.append(sortedCourses.get(sortedCourses.size() - 1));
-        // in case of [0(Java) 0(DSA) 2(Database) 2 (Spring)] popular course should be "Database, Spring"
-        // in case of [2(Java) 2(DSA) 2(Database) 2 (Spring)] popular course should be "Java, DSA, Database, Spring"
-        for (int i = sortedCourses.size() - 2; i >= 0; i--) {
-            if (sortedCourses.get(sortedCourses.size() - 1).getNumberOfEnrolledStudents()
-                    == sortedCourses.get(i).getNumberOfEnrolledStudents()) {
-                mostPopularCourse.insert(0, sortedCourses.get(i) + ", ");
+        return analyze(courseNames, courseAggregates);
+    }
+
+    /**
+     * Finds the extremes of every category among aggregates taken elsewhere, e.g. merged from the shards of a
+     * {@link ShardedPlatform}
+     * @param courseNames names of the courses in the order of the aggregates
+     * */
+    static CourseStatistics analyze(List<String> courseNames, CourseAggregates[] courseAggregates) {
+        int numberOfCourses = courseAggregates.length;
+        long[] enrolledStudents = new long[numberOfCourses];
+        long[] submissions = new long[numberOfCourses];
+        double[] averageGrades = new double[numberOfCourses];
+        boolean areStudentsEnrolled = false;
+        long maxEnrolled = Long.MIN_VALUE;
+        long minEnrolled = Long.MAX_VALUE;
+        long maxSubmissions = Long.MIN_VALUE;
+        long minSubmissions = Long.MAX_VALUE;
+        double maxAverageGrade = Double.NEGATIVE_INFINITY;
+        double minAverageGrade = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < numberOfCourses; i++) {
+            enrolledStudents[i] = courseAggregates[i].getNumberOfEnrolledStudents();
+            submissions[i] = courseAggregates[i].getTotalNumberOfSubmissions();
+            // in a window, students enrolled before it may still submit
+            areStudentsEnrolled |= enrolledStudents[i] != 0 || submissions[i] != 0;
+            maxEnrolled = Math.max(maxEnrolled, enrolledStudents[i]);
+            minEnrolled = Math.min(minEnrolled, enrolledStudents[i]);
+            maxSubmissions = Math.max(maxSubmissions, submissions[i]);
+            minSubmissions = Math.min(minSubmissions, submissions[i]);
+            if (submissions[i] != 0) {
+                averageGrades[i] = courseAggregates[i].getAverageGradePerAssignment();
+                maxAverageGrade = Math.max(maxAverageGrade, averageGrades[i]);
+                minAverageGrade = Math.min(minAverageGrade, averageGrades[i]);
             } else {
-                break;
+                averageGrades[i] = Double.NaN;
+            }
+        }
+
+        List<String> mostPopularCourses = new ArrayList<>();
+        List<String> leastPopularCourses = new ArrayList<>();
+        List<String> highestActivityCourses = new ArrayList<>();
+        List<String> lowestActivityCourses = new ArrayList<>();
+        List<String> easiestCourses = new ArrayList<>();
+        List<String> hardestCourses = new ArrayList<>();
+        // in case of [0(Java) 0(DSA) 0(Database) 0 (Spring)] enrolled students every category should be "n/a"
+        if (areStudentsEnrolled) {
+            for (int i = 0; i < numberOfCourses; i++) {
+                String courseName = courseNames.get(i);
+                // in case of [0(Java) 0(DSA) 2(Database) 2 (Spring)] popular course should be "Databases, Spring"
+                addIf(mostPopularCourses, courseName, enrolledStudents[i] == maxEnrolled);
+                // in case of [2(Java) 2(DSA) 2(Database) 2 (Spring)] the least popular course should be "n/a"
+                addIf(leastPopularCourses, courseName, enrolledStudents[i] == minEnrolled
+                        && minEnrolled != maxEnrolled);
+                addIf(highestActivityCourses, courseName, submissions[i] == maxSubmissions);
+                addIf(lowestActivityCourses, courseName, submissions[i] == minSubmissions
+                        && minSubmissions != maxSubmissions);
+                addIf(easiestCourses, courseName, averageGrades[i] == maxAverageGrade);
+                addIf(hardestCourses, courseName, averageGrades[i] == minAverageGrade
+                        && minAverageGrade != maxAverageGrade);
             }
         }
-        return mostPopularCourse.toString();
+        return new CourseStatistics(mostPopularCourses, leastPopularCourses, highestActivityCourses,
+                lowestActivityCourses, easiestCourses, hardestCourses);
+    }
+
+    private static void addIf(List<String> courseNames, String courseName, boolean condition) {
+        if (condition) {
+            courseNames.add(courseName);
+        }
+    }
+
+    private CourseStatistics getCourseStatistics() {
+        return courseStatistics == null ? analyze() : courseStatistics;
+    }
+
+    /**
+     * The most popular has the biggest number of enrolled students
+     * */
+    public String getMostPopularCourse() {
+        return CourseStatistics.render(getCourseStatistics().getMostPopularCourses());
     }
 
     /**
      * The least popular has the fewest number of enrolled students
      * */
     public String getLeastPopularCourse() {
-        // in case of [0(Java) 0(DSA) 0(Database) 0 (Spring)] popular course should be "n/a"
-        if (!areStudentsEnrolledInCourses()) {
-            return "n/a";
-        }
-        StringBuilder leastPopularCourse = new StringBuilder();
-        List<Course> sortedCourses = sortCoursesBySpecificComparator(
-                Comparator.comparingInt(Course::getNumberOfEnrolledStudents));
-        // in case of [0(Java) 1(DSA) 1(Database) 2(Spring)] the least popular course should be 0(Java)
-        leastPopularCourse.append(sortedCourses.get(0));
-        int temp = 1;
-        for (int i = 1; i < sortedCourses.size(); i++) {
-            if (sortedCourses.get(0).getNumberOfEnrolledStudents()
-                    == sortedCourses.get(i).getNumberOfEnrolledStudents()) {
-                // in case of [2(Java) 2(DSA) 2(Database) 2 (Spring)] the least popular course should be "n/a"
-                temp++;
-                if (temp == sortedCourses.size()) {
-                    return "n/a";
-                }
-                // in case of [0(Java) 0(DSA) 2(Database) 2 (Spring)] popular course should be "Java, DSA"
-                leastPopularCourse.insert(0, sortedCourses.get(i) + ", ");
-            } else {
-                break;
-            }
-        }
-        return leastPopularCourse.toString();
+        return CourseStatistics.render(getCourseStatistics().getLeastPopularCourses());
     }
 
     /**
      * Higher student activity means a bigger number of completed tasks
      * */
     public String getHighestActivityCourse() {
-        if (!areStudentsEnrolledInCourses()) {
-            return "n/a";
-        }
-        StringBuilder highestActivityCourse = new StringBuilder();
-        List<Course> sortedCourses = sortCoursesBySpecificComparator(
-                Comparator.comparingInt(Course::getTotalNumberOfSubmissionOfAllStudents));
-        // In case of [0(Java) 1(DSA) 1(Database) 2(Spring)] the highest activity course should be 2(Spring)
-        highestActivityCourse.append(sortedCourses.get(sortedCourses.size() - 1));
-        // In case of [2(Java) 2(DSA) 2(Database) 2 (Spring)] the highest activity course should be "Java, DSA, Database, Spring"?
-        // In case of [0(Java) 0(DSA) 2(Database) 2 (Spring)] the highest activity course should be "Database, Spring"
-        for (int i = sortedCourses.size() - 2; i >= 0; i--) {
-            if (sortedCourses.get(sortedCourses.size() - 1).getTotalNumberOfSubmissionOfAllStudents()
-                    == sortedCourses.get(i).getTotalNumberOfSubmissionOfAllStudents()) {
-                highestActivityCourse.insert(0, sortedCourses.get(i) + ", ");
-            } else {
-                break;
-            }
-        }
-        return highestActivityCourse.toString();
+        return CourseStatistics.render(getCourseStatistics().getHighestActivityCourses());
     }
 
     /**
      * Lowest student activity means the fewest number of completed tasks
      * */
     public String getLowestActivityCourse() {
-        if (!areStudentsEnrolledInCourses()) {
-            return "n/a";
-        }
-        StringBuilder lowestActivityCourse = new StringBuilder();
-        List<Course> sortedCourses = sortCoursesBySpecificComparator(
-                Comparator.comparingInt(Course::getTotalNumberOfSubmissionOfAllStudents));
-        // In case of [0(Java) 1(DSA) 1(Database) 2(Spring)] the lowest activity course should be 0(Java)
-        lowestActivityCourse.append(sortedCourses.get(0));
-        int temp = 1;
-        for (int i = 1; i < sortedCourses.size(); i++) {
-            if (sortedCourses.get(0).getTotalNumberOfSubmissionOfAllStudents()
-                    == sortedCourses.get(i).getTotalNumberOfSubmissionOfAllStudents()) {
-                //  In case of [2(Java) 2(DSA) 2(Database) 2 (Spring)] the lowest activity course should be "n/a"
-                temp++;
-                if (temp == sortedCourses.size()) {
-                    return "n/a";
-                }
-                // In case of [0(Java) 0(DSA) 2(Database) 2 (Spring)] the lowest activity course should "Java, DSA"
-                lowestActivityCourse.insert(0, sortedCourses.get(i) + ", ");
-            } else {
-                break;
-            }
-        }
-        return lowestActivityCourse.toString();
+        return CourseStatistics.render(getCourseStatistics().getLowestActivityCourses());
     }
 
     /**
      * The easiest course has the highest average grade per assignment;
      * */
     public String getEasiestCourse() {
-        if (!areStudentsEnrolledInCourses()) {
-            return "n/a";
-        }
-        StringBuilder easiestCourse = new StringBuilder();
-        List<Course> sortedCourses = sortCoursesBySpecificComparator(
-                Comparator.comparingDouble(Course::getAverageGradePerAssignment));
-        // In case of [0.0(Java) 1.0(DSA) 1.0(Database) 2.0(Spring)] easiest course should be 2.0(Spring)
-        easiestCourse.append(sortedCourses.get(sortedCourses.size() - 1));
-        // In case of [2.0(Java) 2.0(DSA) 2.0(Database) 2.0 (Spring)] easiest course should be "Java, DSA, Database, Spring"
-        // In case of [0(Java) 0(DSA) 2.0(Database) 2.0(Spring)] easiest course should be "Database, Spring"
-        for (int i = sortedCourses.size() - 2; i >= 0; i--) {
-            if (sortedCourses.get(sortedCourses.size() - 1).getAverageGradePerAssignment()
-                    == sortedCourses.get(i).getAverageGradePerAssignment()) {
-                easiestCourse.insert(0, sortedCourses.get(i) + ", ");
-            } else {
-                break;
-            }
-        }
-        return easiestCourse.toString();
+        return CourseStatistics.render(getCourseStatistics().getEasiestCourses());
     }
 
     /**
      * The hardest course has the lowest average grade per assignment;
      * */
     public String getHardestCourse() {
-        if (!areStudentsEnrolledInCourses()) {
-            return "n/a";
-        }
-        StringBuilder hardestCourse = new StringBuilder();
-        List<Course> sortedCourses = sortCoursesBySpecificComparator(
-                Comparator.comparingDouble(Course::getAverageGradePerAssignment));
-        // In case of [0.0(Java) 1.0(DSA) 1.0(Database) 2.0(Spring)] hardest course should be 0(Java)
-        hardestCourse.append(sortedCourses.get(0));
-        int temp = 1;
-        for (int i = 1; i < sortedCourses.size(); i++) {
-            if (sortedCourses.get(0).getAverageGradePerAssignment()
-                    == sortedCourses.get(i).getAverageGradePerAssignment()) {
-                //  In case of [2.0(Java) 2.0(DSA) 2.0(Database) 2.0 (Spring)] hardest course should be "n/a"
-                temp++;
-                if (temp == sortedCourses.size()) {
-                    return "n/a";
-                }
-                // In case of [0.0(Java) 0.0(DSA) 2.0(Database) 2.0 (Spring)] hardest course should be "Java, DSA"
-                hardestCourse.insert(0, sortedCourses.get(i) + ", ");
-            } else {
-                break;
-            }
-        }
-
-        return hardestCourse.toString();
-    }
-
-    private boolean areStudentsEnrolledInCourses() {
-        for (Course course: coursesToAnalyze) {
-            if (course.getNumberOfEnrolledStudents() != 0) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private List<Course> sortCoursesBySpecificComparator(Comparator<Course> comparator) {
-        List<Course> courses = new ArrayList<>(coursesToAnalyze);
-        courses.sort(comparator);
-        return courses;
+        return CourseStatistics.render(getCourseStatistics().getHardestCourses());
     }
-}
\ No newline at end of file
+}
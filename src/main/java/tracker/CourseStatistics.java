@@ -0,0 +1,62 @@
+package tracker;
+
+import java.util.List;
+
+/**
+ * Result of {@link CourseStatisticAnalyzer#analyze()}.
+ * Every category holds the names of the courses sharing the extreme value in catalog order,
+ * an empty list means the category is not applicable ("n/a").
+ * */
+public class CourseStatistics {
+
+    private static final String NOT_APPLICABLE = "n/a";
+
+    private final List<String> mostPopularCourses;
+    private final List<String> leastPopularCourses;
+    private final List<String> highestActivityCourses;
+    private final List<String> lowestActivityCourses;
+    private final List<String> easiestCourses;
+    private final List<String> hardestCourses;
+
+    public CourseStatistics(List<String> mostPopularCourses, List<String> leastPopularCourses,
+                            List<String> highestActivityCourses, List<String> lowestActivityCourses,
+                            List<String> easiestCourses, List<String> hardestCourses) {
+        this.mostPopularCourses = List.copyOf(mostPopularCourses);
+        this.leastPopularCourses = List.copyOf(leastPopularCourses);
+        this.highestActivityCourses = List.copyOf(highestActivityCourses);
+        this.lowestActivityCourses = List.copyOf(lowestActivityCourses);
+        this.easiestCourses = List.copyOf(easiestCourses);
+        this.hardestCourses = List.copyOf(hardestCourses);
+    }
+
+    public List<String> getMostPopularCourses() {
+        return mostPopularCourses;
+    }
+
+    public List<String> getLeastPopularCourses() {
+        return leastPopularCourses;
+    }
+
+    public List<String> getHighestActivityCourses() {
+        return highestActivityCourses;
+    }
+
+    public List<String> getLowestActivityCourses() {
+        return lowestActivityCourses;
+    }
+
+    public List<String> getEasiestCourses() {
+        return easiestCourses;
+    }
+
+    public List<String> getHardestCourses() {
+        return hardestCourses;
+    }
+
+    /**
+     * Renders a category the way the statistics command prints it, e.g. "Java, DSA" or "n/a"
+     * */
+    public static String render(List<String> courseNames) {
+        return courseNames.isEmpty() ? NOT_APPLICABLE : String.join(", ", courseNames);
+    }
+}
@@ -0,0 +1,30 @@
+package tracker;
+
+public class ImportSummary {
+
+    private final long acceptedLines;
+    private final long rejectedLines;
+    private final long elapsedNanos;
+
+    public ImportSummary(long acceptedLines, long rejectedLines, long elapsedNanos) {
+        this.acceptedLines = acceptedLines;
+        this.rejectedLines = rejectedLines;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getAcceptedLines() {
+        return acceptedLines;
+    }
+
+    public long getRejectedLines() {
+        return rejectedLines;
+    }
+
+    public long getTotalLines() {
+        return acceptedLines + rejectedLines;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+}
@@ -1,259 +1,711 @@
 package tracker;
 
-import notifications.NotificationService;
-import notifications.NotificationsFactory;
+import metrics.MetricsDumper;
+import metrics.MetricsRegistry;
+import notifications.Notification;
+import output.ConsoleOutputSink;
+import output.OutputSink;
+import parser.CredentialsParser;
+import parser.CredentialsParsingResult;
+import parser.PointsParser;
+import persistence.PlatformImage;
+import persistence.PlatformSnapshot;
 import pojo.Course;
+import pojo.CourseAggregates;
+import pojo.CourseSnapshot;
+import pojo.LeaderboardPage;
 import pojo.Student;
-
+import registry.EmailRegistry;
+import registry.EmailRegistryFactory;
+import registry.StudentTable;
+import registry.StudentTableFactory;
+import search.SearchField;
+import search.SearchPage;
+import search.StudentSearchIndex;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.Set;
-
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * The platform is safe for concurrent use: registrations and points may come from several threads at once.
+ * Students and emails are kept in concurrent registries, every course guards its own scores,
+ * so points for different courses are applied in parallel. The courses keep the ids of their students only
+ * and look the students up in the student table.
+ * <p>
+ * Every command has a typed form that returns its result without printing, e.g. {@link #register(String)},
+ * {@link #submitPoints(long[], int[], int)}, {@link #findStudentPoints(long)}, {@link #getCourseStatistics()},
+ * {@link #getLeaderboardPage(PlatformCourse, int, int)} and {@link #notifyCompletedStudents()}.
+ * The console forms print the same results to the {@link OutputSink} in the console format.
+ * */
 public class LearningPlatform {
-    private static LearningPlatform learningPlatform;
-    private NotificationService notificationService;
-    private Map<String, Student> registeredOnPlatformStudents = new HashMap<>();
-    private List<String> registeredOnPlatformStudentsEmails = new ArrayList<>();
-    private Course javaCourse = new Course(PlatformCourses.JAVA);
-    private Course databaseCourse = new Course(PlatformCourses.DATABASES);
-    private Course dsaCourse = new Course(PlatformCourses.DSA);
-    private Course springCourse = new Course(PlatformCourses.SPRING);
-    private Map<PlatformCourses, List<Student>> courseToAlreadyNotifiedStudent = new HashMap<>();
-
-    private static long idCounter = 10000L;
-    public static final String NAME_REGEX = "[^-']([A-Za-z]*[-']?[A-Za-z])+";
-    public static final String EMAIL_REGEX = "[\\w.]+@\\w+\\.\\w+";
-    public static final String POINTS_REGEX = "\\w+\\s(\\d+\\s){3}\\d+";
-
-    public static final int JAVA_COURSE_INDEX = 1;
-    public static final int DSA_COURSE_INDEX = 2;
-    public static final int DATABASE_COURSE_INDEX = 3;
-    public static final int SPRING_COURSE_INDEX = 4;
+    private final CompletionNotifier completionNotifier = new CompletionNotifier();
+    private volatile OutputSink outputSink = new ConsoleOutputSink();
+    // -Dtracker.studentTable=hashed|compact, see StudentTableFactory
+    private final StudentTable registeredOnPlatformStudents =
+            StudentTableFactory.createStudentTable(System.getProperty("tracker.studentTable", "hashed"));
+    private EmailRegistry registeredOnPlatformStudentsEmails =
+            EmailRegistryFactory.createEmailRegistry(System.getProperty("tracker.emailRegistry", "hashed"));
+    private final StudentSearchIndex searchIndex = new StudentSearchIndex();
+    private final CourseCatalog courseCatalog = CourseCatalog.load();
+    // timestamps submissions for the activity windows, see setClock
+    private volatile Clock clock = Clock.systemUTC();
+    // -Dtracker.submissionHistory=true keeps every timestamped submission, see Course#forEachSubmission
+    private static final boolean KEEP_SUBMISSION_HISTORY = Boolean.getBoolean("tracker.submissionHistory");
+    // indexed like the catalog, which is the order of the points line
+    private final Course[] coursesByIndex = createCourses(courseCatalog);
+    // parsers keep the fields of the last parsed line, so every thread gets its own
+    private final ThreadLocal<CredentialsParser> credentialsParsers = ThreadLocal.withInitial(CredentialsParser::new);
+    private final ThreadLocal<PointsParser> pointsParsers =
+            ThreadLocal.withInitial(() -> new PointsParser(courseCatalog.size()));
+    private final PlatformMetrics metrics = new PlatformMetrics(MetricsRegistry.getInstance(), coursesByIndex);
+
+    private static final AtomicLong ID_COUNTER = new AtomicLong(10000L);
+    private static final Pattern WHITESPACES_PATTERN = Pattern.compile("\\s+");
+
     private static final int STUDENT_ID_INDEX = 0;
+    static final long NO_STUDENT_ID = -1L;
+    // longer ids could overflow a long, the counter never gets there
+    private static final int MAX_STUDENT_ID_DIGITS = 18;
+    // -Dtracker.verifyAggregates=true rescans every course before statistics are calculated
+    private static final boolean VERIFY_AGGREGATES = Boolean.getBoolean("tracker.verifyAggregates");
+    // -Dtracker.dataDir=<directory> keeps the state in a write-ahead log and snapshots, see PlatformPersistence
+    private static final String DATA_DIRECTORY = System.getProperty("tracker.dataDir");
+    private static final long WAL_SYNC_INTERVAL_MILLIS = Long.getLong("tracker.walSyncMillis", 50L);
+    private static final long SNAPSHOT_EVERY_EVENTS = Long.getLong("tracker.snapshotEvery", 1_000_000L);
+    // -Dtracker.metricsFile=<file> writes the metrics every tracker.metricsDumpMillis, as JSON to a .json file
+    private static final String METRICS_FILE = System.getProperty("tracker.metricsFile");
+    private static final long METRICS_DUMP_INTERVAL_MILLIS = Long.getLong("tracker.metricsDumpMillis", 10_000L);
+
+    private final MetricsDumper metricsDumper = METRICS_FILE == null ? null
+            : new MetricsDumper(MetricsRegistry.getInstance(), Path.of(METRICS_FILE), METRICS_DUMP_INTERVAL_MILLIS);
+
+    // replaced by open() once the platform is constructed, published with the instance
+    private PlatformPersistence persistence = PlatformPersistence.disabled();
 
     private LearningPlatform() {
     }
 
-    public static LearningPlatform getInstance() {
-        if (Objects.isNull(learningPlatform)) {
-            learningPlatform = new LearningPlatform();
+    /**
+     * Creates the platform and, with a data directory, recovers its state into the fully constructed platform
+     * */
+    private static LearningPlatform open() {
+        LearningPlatform learningPlatform = new LearningPlatform();
+        if (DATA_DIRECTORY != null) {
+            learningPlatform.persistence = PlatformPersistence.open(learningPlatform, Path.of(DATA_DIRECTORY),
+                    WAL_SYNC_INTERVAL_MILLIS, SNAPSHOT_EVERY_EVENTS);
         }
         return learningPlatform;
     }
 
+    private Course[] createCourses(CourseCatalog courseCatalog) {
+        Course[] courses = new Course[courseCatalog.size()];
+        for (PlatformCourse platformCourse : courseCatalog.getCourses()) {
+            courses[platformCourse.getIndex()] =
+                    new Course(platformCourse, () -> clock.millis(), KEEP_SUBMISSION_HISTORY,
+                            registeredOnPlatformStudents::get);
+        }
+        return courses;
+    }
+
+    private static class InstanceHolder {
+        private static final LearningPlatform INSTANCE = open();
+    }
+
+    /**
+     * The instance is created on the first call, class initialization makes it safe to call from any thread
+     * */
+    public static LearningPlatform getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    public CourseCatalog getCourseCatalog() {
+        return courseCatalog;
+    }
+
+    public Course getCourse(PlatformCourse platformCourse) {
+        return coursesByIndex[platformCourse.getIndex()];
+    }
+
+    /**
+     * Replaces the clock that timestamps the updates from now on, e.g. to replay a recorded session at its own pace
+     * */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public OutputSink getOutputSink() {
+        return outputSink;
+    }
+
+    public synchronized void setOutputSink(OutputSink outputSink) {
+        this.outputSink = outputSink;
+        completionNotifier.setOutputSink(outputSink);
+    }
+
+    /**
+     * Registers the student from a credentials line and prints the outcome, see {@link #register(String)}
+     * @return {@code true} if the student has been added
+     * */
     public boolean registerStudentToPlatform(String userInputStudentCredentials) {
-        String[] userInputEntries = userInputStudentCredentials.split("\\s");
-        if (validateStudentCredentials(userInputEntries)) {
-            Student newStudent = setUpStudentData(userInputEntries);
-            String newStudentId = createID();
-            newStudent.setId(newStudentId);
-            registeredOnPlatformStudents.put(newStudentId, newStudent);
-            registeredOnPlatformStudentsEmails.add(newStudent.getEmail());
-            System.out.println("The student has been added.");
-            return true;
+        RegistrationResult registrationResult = register(userInputStudentCredentials);
+        outputSink.println(registrationResult.getMessage());
+        return registrationResult.isRegistered();
+    }
+
+    /**
+     * Registers the student from a credentials line {@code firstName lastName email} without printing anything
+     * */
+    public RegistrationResult register(String studentCredentials) {
+        long start = metrics.registerStudent.start();
+        RegistrationResult registrationResult = registerStudentFromCredentials(studentCredentials);
+        metrics.registerStudent.stop(start);
+        return registrationResult;
+    }
+
+    private RegistrationResult registerStudentFromCredentials(String studentCredentials) {
+        CredentialsParser credentialsParser = credentialsParsers.get();
+        CredentialsParsingResult parsingResult = credentialsParser.parse(studentCredentials);
+        if (parsingResult != CredentialsParsingResult.VALID) {
+            metrics.recordRejectedCredentials(parsingResult);
+            return RegistrationResult.invalidCredentials(parsingResult);
+        }
+
+        long studentId = registerStudentAndGetId(credentialsParser.getFirstName(), credentialsParser.getLastName(),
+                credentialsParser.getEmail());
+        if (studentId == NO_STUDENT_ID) {
+            metrics.recordEmailTaken();
+            return RegistrationResult.emailTaken();
         }
-        return false;
+        return RegistrationResult.registered(studentId);
     }
 
-    private String createID() {
-        return String.valueOf(idCounter++);
+    /**
+     * Claims the email and registers the student under a new id
+     * @return {@code false} if the email is already taken, even by a concurrent registration
+     * */
+    boolean registerStudent(String firstName, String lastName, String email) {
+        return registerStudentAndGetId(firstName, lastName, email) != NO_STUDENT_ID;
     }
 
-    private boolean validateStudentCredentials(String[] userInputEntries) {
-        if (userInputEntries.length < 3) {
-            System.out.println("Incorrect credentials.");
-            return false;
+    /**
+     * @return id of the new student or {@link #NO_STUDENT_ID} if the email is already taken
+     * */
+    private long registerStudentAndGetId(String firstName, String lastName, String email) {
+        if (!registeredOnPlatformStudentsEmails.add(email)) {
+            return NO_STUDENT_ID;
+        }
+        long numericStudentId;
+        Student newStudent;
+        persistence.beginUpdate();
+        try {
+            String newStudentId = createID();
+            numericStudentId = Long.parseLong(newStudentId);
+            // logged before the student becomes visible, so the student's points are always logged after it
+            persistence.logRegistration(numericStudentId, firstName, lastName, email);
+            registeredOnPlatformStudents.add(numericStudentId, firstName, lastName, email);
+            newStudent = new Student(newStudentId, firstName, lastName, email);
+        } finally {
+            persistence.endUpdate();
         }
+        // the index is not part of a snapshot, an occasional merge of the index must not hold snapshots back
+        searchIndex.add(newStudent);
+        return numericStudentId;
+    }
+
+    boolean isStudentRegistered(String studentId) {
+        return findRegisteredStudentId(studentId) != NO_STUDENT_ID;
+    }
+
+    /**
+     * Only the canonical form of an id is registered, "010000" is not the student 10000
+     * @return the id of the registered student or {@link #NO_STUDENT_ID}
+     * */
+    long findRegisteredStudentId(String studentId) {
+        long numericStudentId = parseStudentId(studentId);
+        return numericStudentId != NO_STUDENT_ID && registeredOnPlatformStudents.contains(numericStudentId)
+                ? numericStudentId : NO_STUDENT_ID;
+    }
 
-        if (!isNameValid(userInputEntries[0])) {
-            System.out.println("Incorrect first name.");
-            return false;
+    private static long parseStudentId(String studentId) {
+        int length = studentId.length();
+        if (length == 0 || length > MAX_STUDENT_ID_DIGITS || (studentId.charAt(0) == '0' && length > 1)) {
+            return NO_STUDENT_ID;
         }
-        for (int i = 1; i < userInputEntries.length - 1; i++) {
-            if (!isNameValid(userInputEntries[i])) {
-                System.out.println("Incorrect last name.");
-                return false;
+        for (int i = 0; i < length; i++) {
+            if (studentId.charAt(i) < '0' || studentId.charAt(i) > '9') {
+                return NO_STUDENT_ID;
             }
         }
-        if (!isEmailValid(userInputEntries[userInputEntries.length - 1])) {
-            System.out.println("Incorrect email.");
-            return false;
+        return Long.parseLong(studentId);
+    }
+
+    private String createID() {
+        return String.valueOf(ID_COUNTER.getAndIncrement());
+    }
+
+    /**
+     * Adds the points of a points line and prints the outcome, see {@link #submitPoints(String)}
+     * */
+    public void addPoints(String pointsToAdd) {
+        PointsParser pointsParser = pointsParsers.get();
+        switch (submitPoints(pointsParser, pointsToAdd)) {
+            case UPDATED:
+                outputSink.println("Points updated.");
+                break;
+            case INCORRECT_FORMAT:
+                outputSink.println("Incorrect points format.");
+                break;
+            default:
+                outputSink.println("No student is found for id=" + pointsParser.getStudentId());
+                break;
         }
+    }
+
+    /**
+     * Adds the points of a points line {@code studentId points...}, one number for every catalog course,
+     * without printing anything
+     * */
+    public PointsUpdateResult submitPoints(String pointsLine) {
+        return submitPoints(pointsParsers.get(), pointsLine);
+    }
 
-        if (registeredOnPlatformStudentsEmails.contains(userInputEntries[userInputEntries.length - 1])) {
-            System.out.println("This email is already taken");
-            return false;
+    private PointsUpdateResult submitPoints(PointsParser pointsParser, String pointsLine) {
+        long start = metrics.addPoints.start();
+        PointsUpdateResult pointsUpdateResult = validatePointsInput(pointsParser, pointsLine);
+        if (pointsUpdateResult == PointsUpdateResult.UPDATED) {
+            updateStudentPoints(pointsParser);
         }
-        return true;
+        metrics.addPoints.stop(start);
+        return pointsUpdateResult;
     }
 
-    private boolean isNameValid(String nameString) {
-        return nameString.matches(NAME_REGEX);
+    /**
+     * Adds {@code points}, indexed like the catalog, to the student
+     * */
+    public PointsUpdateResult submitPoints(long studentId, int[] points) {
+        long start = metrics.addPoints.start();
+        PointsUpdateResult pointsUpdateResult;
+        if (points.length != coursesByIndex.length || !courseCatalog.isValidPointsRow(points, 0)) {
+            metrics.recordIncorrectPointsFormat();
+            pointsUpdateResult = PointsUpdateResult.INCORRECT_FORMAT;
+        } else if (!registeredOnPlatformStudents.contains(studentId)) {
+            metrics.recordUnknownStudent();
+            pointsUpdateResult = PointsUpdateResult.UNKNOWN_STUDENT;
+        } else {
+            addPointsBatch(new long[]{studentId}, points, 1);
+            pointsUpdateResult = PointsUpdateResult.UPDATED;
+        }
+        metrics.addPoints.stop(start);
+        return pointsUpdateResult;
     }
 
-    private boolean isEmailValid(String emailString) {
-        return emailString.matches(EMAIL_REGEX);
+    /**
+     * Adds the points of many students at once, every course is locked once for the whole batch.
+     * {@code points} holds a value for every catalog course per row in the order of the points line,
+     * rows of unknown students and rows with negative points are skipped
+     * @return number of applied rows
+     * */
+    public int submitPoints(long[] studentIds, int[] points, int numberOfRows) {
+        return submitPoints(studentIds, points, numberOfRows, null);
     }
 
-    private Student setUpStudentData(String[] userInputEntries) {
-        Student student = new Student();
-        student.setFirstName(userInputEntries[0]);
-        student.setEmail(userInputEntries[userInputEntries.length - 1]);
-        // last name can consist of two or more words
-        StringBuilder lastName = new StringBuilder();
-        for (int i = 1; i < userInputEntries.length - 1; i++) {
-            lastName.append(userInputEntries[i]);
+    /**
+     * Same as {@link #submitPoints(long[], int[], int)}, the result of every row is stored in {@code rowResults}
+     * unless it is {@code null}
+     * */
+    public int submitPoints(long[] studentIds, int[] points, int numberOfRows, PointsUpdateResult[] rowResults) {
+        int numberOfCourses = coursesByIndex.length;
+        if (studentIds.length < numberOfRows || points.length < numberOfRows * numberOfCourses) {
+            throw new IllegalArgumentException("Fewer than " + numberOfRows + " rows of " + numberOfCourses
+                    + " courses");
         }
-        student.setLastName(lastName.toString());
-        return student;
+        long[] acceptedStudentIds = new long[numberOfRows];
+        int[] acceptedPoints = new int[numberOfRows * numberOfCourses];
+        int acceptedRows = 0;
+        for (int row = 0; row < numberOfRows; row++) {
+            PointsUpdateResult rowResult;
+            if (!courseCatalog.isValidPointsRow(points, row * numberOfCourses)) {
+                metrics.recordIncorrectPointsFormat();
+                rowResult = PointsUpdateResult.INCORRECT_FORMAT;
+            } else if (!registeredOnPlatformStudents.contains(studentIds[row])) {
+                metrics.recordUnknownStudent();
+                rowResult = PointsUpdateResult.UNKNOWN_STUDENT;
+            } else {
+                acceptedStudentIds[acceptedRows] = studentIds[row];
+                System.arraycopy(points, row * numberOfCourses, acceptedPoints, acceptedRows * numberOfCourses,
+                        numberOfCourses);
+                acceptedRows++;
+                rowResult = PointsUpdateResult.UPDATED;
+            }
+            if (rowResults != null) {
+                rowResults[row] = rowResult;
+            }
+        }
+        if (acceptedRows > 0) {
+            addPointsBatch(acceptedStudentIds, acceptedPoints, acceptedRows);
+        }
+        return acceptedRows;
     }
 
-    public void addPoints(String pointsToAdd) {
-        if (validatePointsInput(pointsToAdd)) {
-            updateStudentPoints(pointsToAdd);
-            System.out.println("Points updated.");
+    private PointsUpdateResult validatePointsInput(PointsParser pointsParser, String userInput) {
+
+        if (!pointsParser.parse(userInput)) {
+            metrics.recordIncorrectPointsFormat();
+            return PointsUpdateResult.INCORRECT_FORMAT;
+        }
+
+        // direct lookup by id, the registry is keyed by the student id
+        if (!isStudentRegistered(pointsParser.getStudentId())) {
+            metrics.recordUnknownStudent();
+            return PointsUpdateResult.UNKNOWN_STUDENT;
         }
+
+        return PointsUpdateResult.UPDATED;
     }
 
-    private boolean validatePointsInput(String userInput) {
+    private void updateStudentPoints(PointsParser pointsParser) {
+        // 0(Java) 0(DSA) 0(Database) 0(Spring) for the default catalog
+        int[] points = new int[coursesByIndex.length];
+        for (int courseIndex = 0; courseIndex < coursesByIndex.length; courseIndex++) {
+            points[courseIndex] = pointsParser.getPoints(courseIndex);
+        }
+        addPointsBatch(new long[]{Long.parseLong(pointsParser.getStudentId())}, points, 1);
+    }
 
-        if (!isPointsInputValid(userInput)) {
-            System.out.println("Incorrect points format.");
-            return false;
+    /**
+     * Applies a batch of validated points rows course by course.
+     * {@code points} holds a value for every catalog course per row in the order of the points line.
+     * Every course is locked once per batch
+     * */
+    void addPointsBatch(long[] studentIds, int[] points, int numberOfRows) {
+        int numberOfCourses = coursesByIndex.length;
+        persistence.beginUpdate();
+        try {
+            for (int row = 0; row < numberOfRows; row++) {
+                persistence.logPoints(studentIds[row], points, row * numberOfCourses, numberOfCourses);
+            }
+            applyPointsBatch(studentIds, points, numberOfRows);
+        } finally {
+            persistence.endUpdate();
         }
+    }
 
-        String studentId = userInput.split("\\s+")[0];
-        Optional<Student> student = registeredOnPlatformStudents.values().stream().filter(registeredOnPlatformStudent
-                -> registeredOnPlatformStudent.getId().matches(studentId)).findAny();
-        if (student.isEmpty()) {
-            System.out.printf("No student is found for id=%s\n", studentId);
-            return false;
+    private void applyPointsBatch(long[] studentIds, int[] points, int numberOfRows) {
+        int numberOfCourses = coursesByIndex.length;
+        long timestampMillis = clock.millis();
+        for (int courseIndex = 0; courseIndex < numberOfCourses; courseIndex++) {
+            coursesByIndex[courseIndex].addPointsToTheCourse(studentIds, points, courseIndex, numberOfCourses,
+                    numberOfRows, timestampMillis);
         }
+    }
 
-        return true;
+    /**
+     * Writes a snapshot when the platform keeps its state in a data directory
+     * */
+    public void takeSnapshot() {
+        persistence.snapshot();
     }
 
-    private static boolean isPointsInputValid(String userInputPointsString) {
-        return userInputPointsString.matches(POINTS_REGEX);
+    /**
+     * Delivers the queued notifications, writes a final snapshot with a data directory
+     * and the final metrics with a metrics file
+     * */
+    public synchronized void close() {
+        completionNotifier.close();
+        persistence.close();
+        if (metricsDumper != null) {
+            metricsDumper.close();
+        }
     }
 
+    PlatformMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Writes a read-only {@link PlatformImage} of the current state, which can be queried without loading it
+     * */
+    public void exportImage(Path imageFile) throws IOException {
+        PlatformImage.write(imageFile, snapshot(0), courseCatalog.getCourses());
+    }
 
-    private void updateStudentPoints(String userInput) {
-        // 0(Java) 0(DSA) 0(Database) 0(Spring)
-        String[] userInputPointsEntries = userInput.split("\\s+");
-        String studentId = userInputPointsEntries[STUDENT_ID_INDEX];
-        if (Integer.parseInt(userInputPointsEntries[JAVA_COURSE_INDEX]) != 0) {
-            updateStudentPointsForCourse(javaCourse, studentId, Integer.parseInt(userInputPointsEntries[JAVA_COURSE_INDEX]));
+    /**
+     * Copies the state, called by the persistence while no update runs.
+     * The courses are copied before the students, so that every student of a copied course is among the copied
+     * students even when updates do run
+     * */
+    PlatformSnapshot snapshot(long lastSequenceNumber) {
+        List<String> courseNames = new ArrayList<>(coursesByIndex.length);
+        List<CourseSnapshot> courseSnapshots = new ArrayList<>(coursesByIndex.length);
+        for (Course course : coursesByIndex) {
+            courseNames.add(course.getPlatformCourse().getCourseName());
+            courseSnapshots.add(course.snapshot());
         }
-        if (Integer.parseInt(userInputPointsEntries[DSA_COURSE_INDEX]) != 0) {
-            updateStudentPointsForCourse(dsaCourse, studentId, Integer.parseInt(userInputPointsEntries[DSA_COURSE_INDEX]));
+        List<Student> students = new ArrayList<>(registeredOnPlatformStudents.size());
+        registeredOnPlatformStudents.forEach(students::add);
+        return new PlatformSnapshot(lastSequenceNumber, ID_COUNTER.get(), courseNames, students, courseSnapshots);
+    }
+
+    /**
+     * Fills the empty platform from a snapshot written with the same course catalog
+     * */
+    void restore(PlatformSnapshot platformSnapshot) {
+        List<String> courseNames = new ArrayList<>(coursesByIndex.length);
+        for (Course course : coursesByIndex) {
+            courseNames.add(course.getPlatformCourse().getCourseName());
+        }
+        if (!courseNames.equals(platformSnapshot.getCourseNames())) {
+            throw new IllegalStateException("The snapshot was taken with the courses " + platformSnapshot.getCourseNames()
+                    + ", the catalog has " + courseNames);
+        }
+        for (Student student : platformSnapshot.getStudents()) {
+            registeredOnPlatformStudents.add(Long.parseLong(student.getId()), student.getFirstName(),
+                    student.getLastName(), student.getEmail());
+            registeredOnPlatformStudentsEmails.add(student.getEmail());
         }
-        if (Integer.parseInt(userInputPointsEntries[DATABASE_COURSE_INDEX]) != 0) {
-            updateStudentPointsForCourse(databaseCourse, studentId, Integer.parseInt(userInputPointsEntries[DATABASE_COURSE_INDEX]));
+        searchIndex.addAll(platformSnapshot.getStudents());
+        for (int courseIndex = 0; courseIndex < coursesByIndex.length; courseIndex++) {
+            coursesByIndex[courseIndex].restore(platformSnapshot.getCourses().get(courseIndex),
+                    registeredOnPlatformStudents::get);
         }
-        if (Integer.parseInt(userInputPointsEntries[SPRING_COURSE_INDEX]) != 0) {
-            updateStudentPointsForCourse(springCourse, studentId, Integer.parseInt(userInputPointsEntries[SPRING_COURSE_INDEX]));
+        advanceIdCounter(platformSnapshot.getNextStudentId());
+    }
+
+    void replayRegistration(long studentId, String firstName, String lastName, String email) {
+        registeredOnPlatformStudents.add(studentId, firstName, lastName, email);
+        registeredOnPlatformStudentsEmails.add(email);
+        searchIndex.add(new Student(String.valueOf(studentId), firstName, lastName, email));
+        advanceIdCounter(studentId + 1);
+    }
+
+    /**
+     * Applies replayed points rows like {@link #addPointsBatch} without logging them again,
+     * a student is looked up only when it is enrolled in a course
+     * */
+    void replayPointsBatch(long[] studentIds, int[] points, int numberOfRows) {
+        int numberOfCourses = coursesByIndex.length;
+        for (int courseIndex = 0; courseIndex < numberOfCourses; courseIndex++) {
+            coursesByIndex[courseIndex].addPointsToTheCourse(studentIds, this::findReplayedStudent, points,
+                    courseIndex, numberOfCourses, numberOfRows);
         }
     }
 
-    private void updateStudentPointsForCourse(Course course, String studentId, int pointsToAdd) {
-        if (!course.isStudentExist(studentId)) {
-            course.addStudentToTheCourse(studentId, registeredOnPlatformStudents.get(studentId));
+    private Student findReplayedStudent(long studentId) {
+        Student student = registeredOnPlatformStudents.get(studentId);
+        if (student == null) {
+            throw new IllegalStateException("The log has points for the unknown student " + studentId);
         }
-        course.addPointsToTheCourse(studentId, pointsToAdd);
+        return student;
     }
 
+    void replayNotified(int courseIndex, long studentId) {
+        coursesByIndex[courseIndex].markNotified(studentId);
+    }
 
+    private static void advanceIdCounter(long nextStudentId) {
+        ID_COUNTER.accumulateAndGet(nextStudentId, Math::max);
+    }
+
+
+    /**
+     * Prints the points of the student whose id is the first word of the line, see {@link #findStudentPoints(long)}
+     * */
     public void printStudentPointsInAllPlatformCourses(String studentToFind) {
-        String studentId = studentToFind.split("\\s+")[STUDENT_ID_INDEX];
-        if (registeredOnPlatformStudents.containsKey(studentId)) {
-            System.out.printf("%s points: Java=%d; DSA=%d; Databases=%d; Spring=%d", studentId,
-                    javaCourse.getStudentPoints(studentId),
-                    dsaCourse.getStudentPoints(studentId),
-                    databaseCourse.getStudentPoints(studentId),
-                    springCourse.getStudentPoints(studentId));
+        String studentId = WHITESPACES_PATTERN.split(studentToFind, 2)[STUDENT_ID_INDEX];
+        long registeredStudentId = findRegisteredStudentId(studentId);
+        StudentPoints studentPoints = registeredStudentId != NO_STUDENT_ID ? findStudentPoints(registeredStudentId)
+                : null;
+        if (studentPoints != null) {
+            // 10000 points: Java=8; DSA=7; Databases=7; Spring=5
+            outputSink.println(studentPoints.render());
         } else {
-            System.out.println(System.out.printf("No student is found for id=%s.", studentId));
+            outputSink.println("No student is found for id=" + studentId + ".");
         }
     }
 
+    /**
+     * @return points of the student in every catalog course or {@code null} if the student is not registered
+     * */
+    public StudentPoints findStudentPoints(long studentId) {
+        long start = metrics.find.start();
+        StudentPoints studentPoints = null;
+        if (registeredOnPlatformStudents.contains(studentId)) {
+            int[] points = new int[coursesByIndex.length];
+            for (int courseIndex = 0; courseIndex < coursesByIndex.length; courseIndex++) {
+                points[courseIndex] = coursesByIndex[courseIndex].getStudentPoints(studentId);
+            }
+            studentPoints = new StudentPoints(studentId, courseCatalog.getCourses(), points);
+        }
+        metrics.find.stop(start);
+        return studentPoints;
+    }
+
+    /**
+     * @return the registered student or {@code null} if there is none with the id
+     * */
+    public Student findStudent(long studentId) {
+        return registeredOnPlatformStudents.get(studentId);
+    }
+
+    /**
+     * @return a page of the students whose field starts with the prefix, see
+     * {@link StudentSearchIndex#findByPrefix(SearchField, String, int, int)}
+     * @throws IllegalArgumentException if the offset or the limit is negative
+     * */
+    public SearchPage searchStudents(SearchField searchField, String prefix, int offset, int limit) {
+        long start = metrics.search.start();
+        SearchPage searchPage = searchIndex.findByPrefix(searchField, prefix, offset, limit);
+        metrics.search.stop(start);
+        return searchPage;
+    }
+
+    /**
+     * @return the students whose field is at most {@code maxEdits} edits away from the query, see
+     * {@link StudentSearchIndex#findSimilar(SearchField, String, int, int)}
+     * @throws IllegalArgumentException if the edits are out of range or the limit is negative
+     * */
+    public SearchPage findSimilarStudents(SearchField searchField, String query, int maxEdits, int limit) {
+        long start = metrics.similar.start();
+        SearchPage searchPage = searchIndex.findSimilar(searchField, query, maxEdits, limit);
+        metrics.similar.stop(start);
+        return searchPage;
+    }
+
     public void listStudentsRegisteredOnPlatform() {
-        if (registeredOnPlatformStudents.isEmpty()) {
-            System.out.println("No students found.");
+        long start = metrics.list.start();
+        if (registeredOnPlatformStudents.size() == 0) {
+            outputSink.println("No students found.");
         } else {
-            System.out.println("Students: ");
-            registeredOnPlatformStudents.keySet().forEach(System.out::println);
+            outputSink.println("Students: ");
+            registeredOnPlatformStudents.forEach(student -> outputSink.println(student.getId()));
         }
+        metrics.list.stop(start);
     }
 
     public void retrieveCoursesStatistic() {
-        CourseStatisticAnalyzer courseStatisticAnalyzer =
-                new CourseStatisticAnalyzer(List.of(javaCourse, dsaCourse, databaseCourse, springCourse));
-        System.out.printf("Most Popular: %s\n", courseStatisticAnalyzer.getMostPopularCourse());
-        System.out.printf("Least Popular: %s\n", courseStatisticAnalyzer.getLeastPopularCourse());
-        System.out.printf("Highest activity: %s\n", courseStatisticAnalyzer.getHighestActivityCourse());
-        System.out.printf("Lowest Activity: %s\n", courseStatisticAnalyzer.getLowestActivityCourse());
-        System.out.printf("Easiest course: %s\n", courseStatisticAnalyzer.getEasiestCourse());
-        System.out.printf("Hardest course: %s\n", courseStatisticAnalyzer.getHardestCourse());
+        CourseStatistics courseStatistics = getCourseStatistics();
+        outputSink.println("Most Popular: " + CourseStatistics.render(courseStatistics.getMostPopularCourses()));
+        outputSink.println("Least Popular: " + CourseStatistics.render(courseStatistics.getLeastPopularCourses()));
+        outputSink.println("Highest activity: " + CourseStatistics.render(courseStatistics.getHighestActivityCourses()));
+        outputSink.println("Lowest Activity: " + CourseStatistics.render(courseStatistics.getLowestActivityCourses()));
+        outputSink.println("Easiest course: " + CourseStatistics.render(courseStatistics.getEasiestCourses()));
+        outputSink.println("Hardest course: " + CourseStatistics.render(courseStatistics.getHardestCourses()));
+    }
+
+    public CourseStatistics getCourseStatistics() {
+        long start = metrics.statistics.start();
+        if (VERIFY_AGGREGATES) {
+            for (Course course : coursesByIndex) {
+                course.verifyAggregates();
+            }
+        }
+        CourseStatistics courseStatistics =
+                new CourseStatisticAnalyzer(List.of(coursesByIndex)).analyze();
+        metrics.statistics.stop(start);
+        return courseStatistics;
+    }
+
+    /**
+     * Statistics of the last {@code window} only, e.g. the most active course of the last 7 days,
+     * see {@link CourseStatisticAnalyzer#analyze(Duration)}
+     * */
+    public CourseStatistics getCourseStatistics(Duration window) {
+        long start = metrics.statistics.start();
+        CourseStatistics courseStatistics = new CourseStatisticAnalyzer(List.of(coursesByIndex)).analyze(window);
+        metrics.statistics.stop(start);
+        return courseStatistics;
+    }
+
+    /**
+     * @return submissions, earned points, completions and new enrollments of the course in the last {@code window},
+     * see {@link Course#getActivity(Duration)}
+     * */
+    public CourseAggregates getCourseActivity(PlatformCourse platformCourse, Duration window) {
+        return coursesByIndex[platformCourse.getIndex()].getActivity(window);
     }
 
+    /**
+     * Prints the whole leaderboard of the course named by the line.
+     * The rows are streamed to the sink under the read lock, nothing is copied however large the course is
+     * @return {@code false} if there is no such course
+     * */
     public boolean getTopLearnersForSpecificCourse(String userInput) {
-        switch (userInput.toLowerCase()) {
-            case "java":
-                System.out.println("Java");
-                javaCourse.getTopLearners();
-                break;
-            case "dsa":
-                System.out.println("DSA");
-                dsaCourse.getTopLearners();
-                break;
-            case "databases":
-                System.out.println("Databases");
-                databaseCourse.getTopLearners();
-                break;
-            case "spring":
-                System.out.println("Spring");
-                springCourse.getTopLearners();
-                break;
-            default:
-                System.out.println("Unknown course.");
-                return false;
+        long start = metrics.topLearners.start();
+        PlatformCourse platformCourse = courseCatalog.findByName(userInput);
+        if (platformCourse == null) {
+            outputSink.println("Unknown course.");
+        } else {
+            outputSink.println(platformCourse.getCourseName());
+            coursesByIndex[platformCourse.getIndex()].getTopLearners(outputSink);
         }
-        return true;
+        metrics.topLearners.stop(start);
+        return platformCourse != null;
     }
 
+    /**
+     * @return at most {@code limit} students of the course leaderboard starting from the 0-based position
+     * {@code offset}
+     * */
+    public LeaderboardPage getLeaderboardPage(PlatformCourse platformCourse, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Negative offset " + offset + " or limit " + limit);
+        }
+        long start = metrics.topLearners.start();
+        LeaderboardPage leaderboardPage = coursesByIndex[platformCourse.getIndex()].getLeaderboardPage(offset, limit);
+        metrics.topLearners.stop(start);
+        return leaderboardPage;
+    }
 
-    public void notifyStudentByEmailIfCourseComplete() {
-        notificationService = NotificationsFactory.createNotificationService("email");
-        Set<Student> notifiedStudents = new HashSet<>();
-        notifiedStudents.addAll(notifyStudentByEmailIfCourseComplete(javaCourse));
-        notifiedStudents.addAll(notifyStudentByEmailIfCourseComplete(dsaCourse));
-        notifiedStudents.addAll(notifyStudentByEmailIfCourseComplete(databaseCourse));
-        notifiedStudents.addAll(notifyStudentByEmailIfCourseComplete(springCourse));
-        System.out.printf("Total %d students have been notified.\n", notifiedStudents.size());
+
+    /**
+     * Notifies the students who have completed a course since the previous run, course by course.
+     * Runs one at a time, so the total of a run counts only its own students
+     * */
+    public synchronized void notifyStudentByEmailIfCourseComplete() {
+        NotificationReport notificationReport = notifyCompletedStudents();
+        if (!notificationReport.isDelivered()) {
+            outputSink.println("Some notifications could not be delivered: " + notificationReport.getDeliveryFailure());
+        }
+        outputSink.println("Total " + notificationReport.getNumberOfNotifiedStudents()
+                + " students have been notified.");
     }
 
-    private List<Student> notifyStudentByEmailIfCourseComplete(Course course) {
-        List<Student> studentsFinishedCourse = course.getStudentsFinishedCourse();
-        List<Student> newNotifiedStudents = new ArrayList<>();
-        for (Student studentFinishedCourse : studentsFinishedCourse) {
-            if (courseToAlreadyNotifiedStudent.containsKey(course.getPlatformCourse())) {
-                if (!courseToAlreadyNotifiedStudent.get(course.getPlatformCourse()).contains(studentFinishedCourse)) {
-                    courseToAlreadyNotifiedStudent.get(course.getPlatformCourse()).add(studentFinishedCourse);
-                    notificationService.sendNotification(course.getPlatformCourse(), studentFinishedCourse);
-                    newNotifiedStudents.add(studentFinishedCourse);
-                }
-            } else {
-                courseToAlreadyNotifiedStudent.put(course.getPlatformCourse(), new ArrayList<>(List.of(studentFinishedCourse)));
-                notificationService.sendNotification(course.getPlatformCourse(), studentFinishedCourse);
-                newNotifiedStudents.add(studentFinishedCourse);
+    /**
+     * Same as {@link #notifyStudentByEmailIfCourseComplete()}, returns once every notification of the run is
+     * delivered or has failed. Only the notification service itself prints
+     * */
+    public synchronized NotificationReport notifyCompletedStudents() {
+        long start = metrics.notify.start();
+        List<Notification> notifications = new ArrayList<>();
+        for (Course course : coursesByIndex) {
+            // only the students who have completed the course since the previous run, nothing is rescanned
+            for (Student studentToNotify : course.drainStudentsToNotify()) {
+                notifications.add(new Notification(course.getPlatformCourse(), studentToNotify));
             }
         }
-        return newNotifiedStudents;
+        // sent without the state lock, a snapshot waiting for it would hold up every update until the last delivery
+        NotificationReport notificationReport = completionNotifier.send(notifications,
+                (courseIndex, studentId, delivered) -> {
+                    if (!delivered) {
+                        coursesByIndex[courseIndex].returnStudentToNotify(studentId);
+                        return;
+                    }
+                    persistence.beginUpdate();
+                    try {
+                        // only a delivered notification is logged, a student is never skipped after a recovery
+                        persistence.logNotified(courseIndex, studentId);
+                        coursesByIndex[courseIndex].markNotified(studentId);
+                    } finally {
+                        persistence.endUpdate();
+                    }
+                });
+        metrics.notify.stop(start);
+        return notificationReport;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package tracker;
+
+/**
+ * Result of {@link LearningPlatform#notifyCompletedStudents()}
+ * */
+public class NotificationReport {
+
+    private final int numberOfNotifiedStudents;
+    private final int numberOfNotifications;
+    private final String deliveryFailure;
+
+    NotificationReport(int numberOfNotifiedStudents, int numberOfNotifications, String deliveryFailure) {
+        this.numberOfNotifiedStudents = numberOfNotifiedStudents;
+        this.numberOfNotifications = numberOfNotifications;
+        this.deliveryFailure = deliveryFailure;
+    }
+
+    /**
+     * @return number of distinct students notified by the run
+     * */
+    public int getNumberOfNotifiedStudents() {
+        return numberOfNotifiedStudents;
+    }
+
+    /**
+     * @return number of completed courses notified by the run, a student may have completed several
+     * */
+    public int getNumberOfNotifications() {
+        return numberOfNotifications;
+    }
+
+    public boolean isDelivered() {
+        return deliveryFailure == null;
+    }
+
+    /**
+     * @return why some notifications could not be delivered, {@code null} if all were delivered
+     * */
+    public String getDeliveryFailure() {
+        return deliveryFailure;
+    }
+}
@@ -0,0 +1,34 @@
+package tracker;
+
+/**
+ * Definition of a course offered on the platform, its index is the position of its points in a points line
+ * */
+public class PlatformCourse {
+
+    private final int index;
+    private final String courseName;
+    private final int totalNumberOfPointsToFinish;
+
+    public PlatformCourse(int index, String courseName, int totalNumberOfPointsToFinish) {
+        this.index = index;
+        this.courseName = courseName;
+        this.totalNumberOfPointsToFinish = totalNumberOfPointsToFinish;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getCourseName() {
+        return courseName;
+    }
+
+    public int getTotalNumberOfPointsToFinish() {
+        return totalNumberOfPointsToFinish;
+    }
+
+    @Override
+    public String toString() {
+        return courseName;
+    }
+}
@@ -0,0 +1,82 @@
+package tracker;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import metrics.Timer;
+import parser.CredentialsParsingResult;
+import pojo.Course;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Metrics of the platform commands, looked up once in the {@link MetricsRegistry}.
+ * <ul>
+ * <li>"platform.*" timers count every command, the frequent ones sample the latency of one call in
+ * {@value #HOT_PATH_SAMPLE_EVERY}</li>
+ * <li>"validation.*" counters count rejected input by reason, from the console and from imports</li>
+ * <li>"course.*.submissions" are the running totals of the courses, reports turn them into update rates</li>
+ * </ul>
+ * */
+class PlatformMetrics {
+
+    private static final int HOT_PATH_SAMPLE_EVERY = 64;
+
+    final Timer registerStudent;
+    final Timer addPoints;
+    final Timer find;
+    final Timer list;
+    final Timer search;
+    final Timer similar;
+    final Timer statistics;
+    final Timer topLearners;
+    final Timer notify;
+    private final Map<CredentialsParsingResult, Counter> rejectedCredentials =
+            new EnumMap<>(CredentialsParsingResult.class);
+    private final Counter emailTaken;
+    private final Counter incorrectPointsFormat;
+    private final Counter unknownStudent;
+
+    PlatformMetrics(MetricsRegistry metricsRegistry, Course[] courses) {
+        this.registerStudent = metricsRegistry.timer("platform.registerStudent", HOT_PATH_SAMPLE_EVERY);
+        this.addPoints = metricsRegistry.timer("platform.addPoints", HOT_PATH_SAMPLE_EVERY);
+        this.find = metricsRegistry.timer("platform.find", 1);
+        this.list = metricsRegistry.timer("platform.list", 1);
+        this.search = metricsRegistry.timer("platform.search", 1);
+        this.similar = metricsRegistry.timer("platform.similar", 1);
+        this.statistics = metricsRegistry.timer("platform.statistics", 1);
+        this.topLearners = metricsRegistry.timer("platform.topLearners", 1);
+        this.notify = metricsRegistry.timer("platform.notify", 1);
+        for (CredentialsParsingResult result : CredentialsParsingResult.values()) {
+            if (result != CredentialsParsingResult.VALID) {
+                rejectedCredentials.put(result,
+                        metricsRegistry.counter("validation." + result.name().toLowerCase(Locale.ROOT)));
+            }
+        }
+        this.emailTaken = metricsRegistry.counter("validation.email_taken");
+        this.incorrectPointsFormat = metricsRegistry.counter("validation.incorrect_points_format");
+        this.unknownStudent = metricsRegistry.counter("validation.unknown_student");
+        for (Course course : courses) {
+            metricsRegistry.registerCumulativeGauge(
+                    "course." + course.getPlatformCourse().getCourseName() + ".submissions",
+                    () -> course.getAggregates().getTotalNumberOfSubmissions());
+        }
+    }
+
+    void recordRejectedCredentials(CredentialsParsingResult result) {
+        rejectedCredentials.get(result).increment();
+    }
+
+    void recordEmailTaken() {
+        emailTaken.increment();
+    }
+
+    void recordIncorrectPointsFormat() {
+        incorrectPointsFormat.increment();
+    }
+
+    void recordUnknownStudent() {
+        unknownStudent.increment();
+    }
+}
@@ -0,0 +1,229 @@
+package tracker;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import persistence.LogEventHandler;
+import persistence.PlatformSnapshot;
+import persistence.SnapshotFile;
+import persistence.WriteAheadLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the platform state in a data directory.
+ * Every change is appended to the {@link WriteAheadLog} before it is applied, between {@link #beginUpdate()} and
+ * {@link #endUpdate()}. A snapshot waits for the running updates and copies the state while no update runs,
+ * so it covers exactly the events up to the sequence number it records; the log before it is deleted afterwards.
+ * Snapshots are taken in the background every {@code snapshotEveryEvents} events and on {@link #close()}.
+ * <p>
+ * A disabled instance, used when no data directory is configured, does nothing.
+ * */
+class PlatformPersistence implements AutoCloseable {
+
+    private static final long SNAPSHOT_CHECK_INTERVAL_MILLIS = 1_000;
+
+    private final LearningPlatform learningPlatform;
+    private final Path dataDirectory;
+    private final long snapshotEveryEvents;
+    private final WriteAheadLog writeAheadLog;
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private final LongAdder eventsSinceSnapshot = new LongAdder();
+    private final ScheduledExecutorService snapshotter;
+    private final Counter snapshotFailures = MetricsRegistry.getInstance().counter("persistence.snapshot_failures");
+
+    private PlatformPersistence() {
+        this.learningPlatform = null;
+        this.dataDirectory = null;
+        this.snapshotEveryEvents = 0;
+        this.writeAheadLog = null;
+        this.snapshotter = null;
+    }
+
+    private PlatformPersistence(LearningPlatform learningPlatform, Path dataDirectory, long syncIntervalMillis,
+                                long snapshotEveryEvents) throws IOException {
+        this.learningPlatform = learningPlatform;
+        this.dataDirectory = dataDirectory;
+        this.snapshotEveryEvents = snapshotEveryEvents;
+        long lastSequenceNumber = recover();
+        this.writeAheadLog = WriteAheadLog.open(dataDirectory, lastSequenceNumber, syncIntervalMillis);
+        this.snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "platform-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(this::snapshotIfDue, SNAPSHOT_CHECK_INTERVAL_MILLIS,
+                SNAPSHOT_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    static PlatformPersistence disabled() {
+        return new PlatformPersistence();
+    }
+
+    /**
+     * Loads the latest snapshot into the (empty) platform, replays the log after it and starts logging
+     * */
+    static PlatformPersistence open(LearningPlatform learningPlatform, Path dataDirectory, long syncIntervalMillis,
+                                    long snapshotEveryEvents) {
+        try {
+            return new PlatformPersistence(learningPlatform, dataDirectory, syncIntervalMillis, snapshotEveryEvents);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot recover the platform from " + dataDirectory, e);
+        }
+    }
+
+    boolean isEnabled() {
+        return writeAheadLog != null;
+    }
+
+    void beginUpdate() {
+        if (isEnabled()) {
+            stateLock.readLock().lock();
+        }
+    }
+
+    void endUpdate() {
+        if (isEnabled()) {
+            stateLock.readLock().unlock();
+            eventsSinceSnapshot.increment();
+        }
+    }
+
+    void logRegistration(long studentId, String firstName, String lastName, String email) {
+        if (isEnabled()) {
+            writeAheadLog.appendRegistration(studentId, firstName, lastName, email);
+        }
+    }
+
+    void logPoints(long studentId, int[] points, int offset, int numberOfCourses) {
+        if (isEnabled()) {
+            writeAheadLog.appendPoints(studentId, points, offset, numberOfCourses);
+        }
+    }
+
+    void logNotified(int courseIndex, long studentId) {
+        if (isEnabled()) {
+            writeAheadLog.appendNotified(courseIndex, studentId);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the current state and deletes the log it covers
+     * */
+    synchronized void snapshot() {
+        if (!isEnabled()) {
+            return;
+        }
+        PlatformSnapshot platformSnapshot;
+        stateLock.writeLock().lock();
+        try {
+            long lastSequenceNumber = writeAheadLog.rotate();
+            platformSnapshot = learningPlatform.snapshot(lastSequenceNumber);
+            eventsSinceSnapshot.reset();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        // updates go on while the copy is written out
+        try {
+            SnapshotFile.write(dataDirectory, platformSnapshot);
+            writeAheadLog.deleteSegmentsUpTo(platformSnapshot.getLastSequenceNumber());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write a snapshot to " + dataDirectory, e);
+        }
+    }
+
+    /**
+     * A failed snapshot must not cancel the following ones, the next check tries again
+     * */
+    private synchronized void snapshotIfDue() {
+        if (eventsSinceSnapshot.sum() >= snapshotEveryEvents) {
+            try {
+                snapshot();
+            } catch (RuntimeException e) {
+                snapshotFailures.increment();
+                System.err.println("Cannot take a snapshot: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!isEnabled()) {
+            return;
+        }
+        snapshotter.shutdown();
+        snapshot();
+        try {
+            writeAheadLog.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long recover() throws IOException {
+        PlatformSnapshot platformSnapshot = SnapshotFile.read(dataDirectory);
+        long snapshotSequenceNumber = 0;
+        if (platformSnapshot != null) {
+            learningPlatform.restore(platformSnapshot);
+            snapshotSequenceNumber = platformSnapshot.getLastSequenceNumber();
+        }
+        ReplayHandler replayHandler = new ReplayHandler(learningPlatform.getCourseCatalog().size());
+        long lastSequenceNumber = WriteAheadLog.replay(dataDirectory, snapshotSequenceNumber,
+                learningPlatform.getCourseCatalog().size(), replayHandler);
+        replayHandler.applyPoints();
+        return lastSequenceNumber;
+    }
+
+    /**
+     * Collects replayed points into batches, so that every course is locked once per batch as in a bulk import.
+     * A batch is applied before a notification, which may refer to a completion in the batch
+     * */
+    private class ReplayHandler implements LogEventHandler {
+
+        private static final int BATCH_SIZE = 8192;
+
+        private final int numberOfCourses;
+        private final long[] batchStudentIds = new long[BATCH_SIZE];
+        private final int[] batchPoints;
+        private int batchRows;
+
+        private ReplayHandler(int numberOfCourses) {
+            this.numberOfCourses = numberOfCourses;
+            this.batchPoints = new int[BATCH_SIZE * numberOfCourses];
+        }
+
+        @Override
+        public void onRegistration(long studentId, String firstName, String lastName, String email) {
+            learningPlatform.replayRegistration(studentId, firstName, lastName, email);
+        }
+
+        @Override
+        public void onPoints(long studentId, int[] points) {
+            batchStudentIds[batchRows] = studentId;
+            System.arraycopy(points, 0, batchPoints, batchRows * numberOfCourses, numberOfCourses);
+            if (++batchRows == BATCH_SIZE) {
+                applyPoints();
+            }
+        }
+
+        @Override
+        public void onNotified(int courseIndex, long studentId) {
+            applyPoints();
+            learningPlatform.replayNotified(courseIndex, studentId);
+        }
+
+        private void applyPoints() {
+            learningPlatform.replayPointsBatch(batchStudentIds, batchPoints, batchRows);
+            batchRows = 0;
+        }
+    }
+}
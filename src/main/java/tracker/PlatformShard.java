@@ -0,0 +1,234 @@
+package tracker;
+
+import pojo.Course;
+import pojo.CourseAggregates;
+import pojo.LeaderboardPage;
+import pojo.Student;
+import registry.StudentTable;
+import registry.StudentTableFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * One partition of a {@link ShardedPlatform}: the students whose id maps to the shard and their own courses.
+ * A single thread owns the shard and runs the queued commands one after another in queue order,
+ * so the students need no synchronization and the locks of the courses are never contended.
+ * The methods other than {@link #submit(Function)} and {@link #stop()} run on the owner thread only
+ * */
+class PlatformShard {
+
+    private static final int MAX_COMMANDS_PER_DRAIN = 64;
+
+    private final BlockingQueue<ShardCommand<?>> commands;
+    // indexed like the catalog
+    private final Course[] courses;
+    private final StudentTable students =
+            StudentTableFactory.createStudentTable(System.getProperty("tracker.studentTable", "hashed"));
+    private final LongSupplier currentTimeMillis;
+    private final Thread owner;
+    private volatile boolean closed;
+    // set by the last command, read by the owner thread only
+    private boolean stopped;
+
+    PlatformShard(int shardIndex, CourseCatalog courseCatalog, LongSupplier currentTimeMillis, int queueCapacity) {
+        this.commands = new ArrayBlockingQueue<>(queueCapacity);
+        this.currentTimeMillis = currentTimeMillis;
+        this.courses = new Course[courseCatalog.size()];
+        for (PlatformCourse platformCourse : courseCatalog.getCourses()) {
+            courses[platformCourse.getIndex()] = new Course(platformCourse, currentTimeMillis, false, students::get);
+        }
+        this.owner = new Thread(this::runCommands, "platform-shard-" + shardIndex);
+        owner.setDaemon(true);
+        owner.start();
+    }
+
+    /**
+     * Queues the command for the owner thread, blocking while the queue is full
+     * @return future completed with the result of the command once the owner thread has run it
+     * */
+    <T> CompletableFuture<T> submit(Function<PlatformShard, T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new IllegalStateException("The shard is closed"));
+            return result;
+        }
+        ShardCommand<T> shardCommand = new ShardCommand<>(command, result);
+        try {
+            commands.put(shardCommand);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+            return result;
+        }
+        // closed meanwhile: the owner may have left already, unless it has taken the command
+        if (closed && commands.remove(shardCommand)) {
+            result.completeExceptionally(new IllegalStateException("The shard is closed"));
+        }
+        return result;
+    }
+
+    int getQueueDepth() {
+        return commands.size();
+    }
+
+    /**
+     * Runs the commands queued so far and stops the owner thread, the commands queued later fail
+     * */
+    void stop() throws InterruptedException {
+        // fails at once if the owner thread has died, which has failed the queued commands already
+        submit(shard -> {
+            shard.stopped = true;
+            return null;
+        });
+        closed = true;
+        owner.join();
+    }
+
+    private void runCommands() {
+        List<ShardCommand<?>> batch = new ArrayList<>(MAX_COMMANDS_PER_DRAIN);
+        try {
+            while (!stopped) {
+                batch.add(commands.take());
+                commands.drainTo(batch, MAX_COMMANDS_PER_DRAIN - 1);
+                for (ShardCommand<?> command : batch) {
+                    command.run(this);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // stopped, or the owner thread dies: nothing queued would run, producers blocked on the full queue
+            // get through and fail in submit
+            closed = true;
+            IllegalStateException shardClosed = new IllegalStateException("The shard is closed");
+            for (ShardCommand<?> command : batch) {
+                command.result.completeExceptionally(shardClosed);
+            }
+            for (ShardCommand<?> command = commands.poll(); command != null; command = commands.poll()) {
+                command.result.completeExceptionally(shardClosed);
+            }
+        }
+    }
+
+    void registerStudent(long studentId, String firstName, String lastName, String email) {
+        students.add(studentId, firstName, lastName, email);
+    }
+
+    /**
+     * Applies the rows of the known students like {@link LearningPlatform#submitPoints(long[], int[], int)},
+     * the arrays belong to the command and are compacted in place
+     * @return number of applied rows
+     * */
+    int applyPoints(long[] studentIds, int[] points, int numberOfRows) {
+        int numberOfCourses = courses.length;
+        int knownRows = 0;
+        for (int row = 0; row < numberOfRows; row++) {
+            if (!students.contains(studentIds[row])) {
+                continue;
+            }
+            if (knownRows != row) {
+                studentIds[knownRows] = studentIds[row];
+                System.arraycopy(points, row * numberOfCourses, points, knownRows * numberOfCourses,
+                        numberOfCourses);
+            }
+            knownRows++;
+        }
+        if (knownRows > 0) {
+            long timestampMillis = currentTimeMillis.getAsLong();
+            for (int courseIndex = 0; courseIndex < numberOfCourses; courseIndex++) {
+                courses[courseIndex].addPointsToTheCourse(studentIds, points, courseIndex, numberOfCourses,
+                        knownRows, timestampMillis);
+            }
+        }
+        return knownRows;
+    }
+
+    /**
+     * @return points of the student indexed like the catalog or {@code null} if the student is not registered
+     * */
+    int[] getStudentPoints(long studentId) {
+        if (!students.contains(studentId)) {
+            return null;
+        }
+        int[] points = new int[courses.length];
+        for (int courseIndex = 0; courseIndex < courses.length; courseIndex++) {
+            points[courseIndex] = courses[courseIndex].getStudentPoints(studentId);
+        }
+        return points;
+    }
+
+    CourseAggregates[] getAggregates() {
+        CourseAggregates[] courseAggregates = new CourseAggregates[courses.length];
+        for (int courseIndex = 0; courseIndex < courses.length; courseIndex++) {
+            courseAggregates[courseIndex] = courses[courseIndex].getAggregates();
+        }
+        return courseAggregates;
+    }
+
+    CourseAggregates[] getActivity(Duration window) {
+        CourseAggregates[] courseActivity = new CourseAggregates[courses.length];
+        for (int courseIndex = 0; courseIndex < courses.length; courseIndex++) {
+            courseActivity[courseIndex] = courses[courseIndex].getActivity(window);
+        }
+        return courseActivity;
+    }
+
+    /**
+     * @return the first {@code limit} rows of the shard's leaderboard of the course
+     * */
+    LeaderboardPage getTopLearners(int courseIndex, int limit) {
+        return courses[courseIndex].getLeaderboardPage(0, limit);
+    }
+
+    /**
+     * @return the students to notify of every course, indexed like the catalog, see
+     * {@link Course#drainStudentsToNotify()}
+     * */
+    List<List<Student>> drainStudentsToNotify() {
+        List<List<Student>> studentsToNotify = new ArrayList<>(courses.length);
+        for (Course course : courses) {
+            studentsToNotify.add(course.drainStudentsToNotify());
+        }
+        return studentsToNotify;
+    }
+
+    /**
+     * Marks the student of a drained notification as notified if it was delivered, otherwise hands it to the
+     * next drain
+     * */
+    void completeNotification(int courseIndex, long studentId, boolean delivered) {
+        if (delivered) {
+            courses[courseIndex].markNotified(studentId);
+        } else {
+            courses[courseIndex].returnStudentToNotify(studentId);
+        }
+    }
+
+    private static class ShardCommand<T> {
+
+        private final Function<PlatformShard, T> command;
+        private final CompletableFuture<T> result;
+
+        private ShardCommand(Function<PlatformShard, T> command, CompletableFuture<T> result) {
+            this.command = command;
+            this.result = result;
+        }
+
+        private void run(PlatformShard shard) {
+            try {
+                result.complete(command.apply(shard));
+            } catch (Throwable e) {
+                // an Error fails the command only, the owner thread goes on with the next one
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
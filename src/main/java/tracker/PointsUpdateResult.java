@@ -0,0 +1,10 @@
+package tracker;
+
+/**
+ * Result of {@link LearningPlatform#submitPoints(String)} and {@link LearningPlatform#submitPoints(long, int[])}
+ * */
+public enum PointsUpdateResult {
+    UPDATED,
+    INCORRECT_FORMAT,
+    UNKNOWN_STUDENT
+}
@@ -0,0 +1,79 @@
+package tracker;
+
+import parser.CredentialsParsingResult;
+
+/**
+ * Result of {@link LearningPlatform#register(String)}: the id of the new student
+ * or the reason the credentials were rejected
+ * */
+public class RegistrationResult {
+
+    public enum Status {
+        REGISTERED,
+        INVALID_CREDENTIALS,
+        EMAIL_TAKEN
+    }
+
+    private static final long NO_STUDENT_ID = -1L;
+    private static final RegistrationResult EMAIL_TAKEN =
+            new RegistrationResult(Status.EMAIL_TAKEN, CredentialsParsingResult.VALID, NO_STUDENT_ID);
+
+    private final Status status;
+    private final CredentialsParsingResult credentialsParsingResult;
+    private final long studentId;
+
+    private RegistrationResult(Status status, CredentialsParsingResult credentialsParsingResult, long studentId) {
+        this.status = status;
+        this.credentialsParsingResult = credentialsParsingResult;
+        this.studentId = studentId;
+    }
+
+    static RegistrationResult registered(long studentId) {
+        return new RegistrationResult(Status.REGISTERED, CredentialsParsingResult.VALID, studentId);
+    }
+
+    static RegistrationResult invalidCredentials(CredentialsParsingResult credentialsParsingResult) {
+        return new RegistrationResult(Status.INVALID_CREDENTIALS, credentialsParsingResult, NO_STUDENT_ID);
+    }
+
+    static RegistrationResult emailTaken() {
+        return EMAIL_TAKEN;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isRegistered() {
+        return status == Status.REGISTERED;
+    }
+
+    /**
+     * @return which part of the credentials is invalid, {@link CredentialsParsingResult#VALID} unless the status is
+     * {@link Status#INVALID_CREDENTIALS}
+     * */
+    public CredentialsParsingResult getCredentialsParsingResult() {
+        return credentialsParsingResult;
+    }
+
+    /**
+     * @return id of the registered student, -1 if the student is not registered
+     * */
+    public long getStudentId() {
+        return studentId;
+    }
+
+    /**
+     * @return the line the console prints for the result
+     * */
+    public String getMessage() {
+        switch (status) {
+            case REGISTERED:
+                return "The student has been added.";
+            case EMAIL_TAKEN:
+                return "This email is already taken";
+            default:
+                return credentialsParsingResult.getMessage();
+        }
+    }
+}
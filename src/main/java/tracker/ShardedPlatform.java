@@ -0,0 +1,362 @@
+package tracker;
+
+import metrics.MetricsRegistry;
+import notifications.Notification;
+import output.OutputSink;
+import parser.CredentialsParser;
+import parser.CredentialsParsingResult;
+import pojo.CourseAggregates;
+import pojo.LeaderboardPage;
+import pojo.Student;
+import registry.EmailRegistry;
+import registry.EmailRegistryFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * An in-memory platform partitioned into shards by student id, so that points are applied on several cores.
+ * <ul>
+ * <li>every shard is owned by one thread with its own students and course columns, see {@link PlatformShard}</li>
+ * <li>points are routed to the shard of the student through the shard's bounded queue, the caller does not wait
+ * for them to be applied unless it joins the returned future</li>
+ * <li>reads are scattered to every shard and merged: statistics from the summed course aggregates,
+ * a leaderboard page by a K-way merge of the shards' leaderboards, notifications from every shard</li>
+ * </ul>
+ * Registration claims the email and the id on the calling thread and queues the student to its shard,
+ * the student's later points are queued behind it. A read sees the updates queued before it on every shard,
+ * but it is not a snapshot across shards while updates run.
+ * Unlike {@link LearningPlatform} there is no persistence, search index or console output other than the
+ * notifications.
+ * */
+public class ShardedPlatform implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final long FIRST_STUDENT_ID = 10000L;
+    // Fibonacci hashing spreads consecutive ids evenly, also when they are taken in strides of the shard count
+    private static final long ID_HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final CourseCatalog courseCatalog;
+    private final PlatformShard[] shards;
+    private final LongSupplier[] queueDepthGauges;
+    private final EmailRegistry registeredEmails =
+            EmailRegistryFactory.createEmailRegistry(System.getProperty("tracker.emailRegistry", "hashed"));
+    private final AtomicLong idCounter = new AtomicLong(FIRST_STUDENT_ID);
+    // parsers keep the fields of the last parsed line, so every thread gets its own
+    private final ThreadLocal<CredentialsParser> credentialsParsers = ThreadLocal.withInitial(CredentialsParser::new);
+    private volatile Clock clock = Clock.systemUTC();
+    private final CompletionNotifier completionNotifier = new CompletionNotifier();
+
+    public ShardedPlatform(int numberOfShards) {
+        this(CourseCatalog.load(), numberOfShards, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public ShardedPlatform(CourseCatalog courseCatalog, int numberOfShards, int queueCapacity) {
+        if (numberOfShards < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("The number of shards and the queue capacity must be positive");
+        }
+        this.courseCatalog = courseCatalog;
+        this.shards = new PlatformShard[numberOfShards];
+        this.queueDepthGauges = new LongSupplier[numberOfShards];
+        MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+        for (int shardIndex = 0; shardIndex < numberOfShards; shardIndex++) {
+            PlatformShard shard = new PlatformShard(shardIndex, courseCatalog, () -> clock.millis(), queueCapacity);
+            shards[shardIndex] = shard;
+            queueDepthGauges[shardIndex] = shard::getQueueDepth;
+            metricsRegistry.registerGauge(queueDepthGauge(shardIndex), queueDepthGauges[shardIndex]);
+        }
+    }
+
+    public CourseCatalog getCourseCatalog() {
+        return courseCatalog;
+    }
+
+    public int getNumberOfShards() {
+        return shards.length;
+    }
+
+    /**
+     * Replaces the clock that timestamps the updates from now on
+     * */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public void setOutputSink(OutputSink outputSink) {
+        completionNotifier.setOutputSink(outputSink);
+    }
+
+    private static String queueDepthGauge(int shardIndex) {
+        return "platform.shard." + shardIndex + ".queueDepth";
+    }
+
+    private PlatformShard shardOf(long studentId) {
+        return shards[indexOfShard(studentId)];
+    }
+
+    /**
+     * Scales the upper 32 bits of the hash to the number of shards, which needs no division
+     * */
+    private int indexOfShard(long studentId) {
+        return (int) (((studentId * ID_HASH_MULTIPLIER) >>> 32) * shards.length >>> 32);
+    }
+
+    /**
+     * Registers the student from a credentials line {@code firstName lastName email},
+     * see {@link LearningPlatform#register(String)}
+     * */
+    public RegistrationResult register(String studentCredentials) {
+        CredentialsParser credentialsParser = credentialsParsers.get();
+        CredentialsParsingResult parsingResult = credentialsParser.parse(studentCredentials);
+        if (parsingResult != CredentialsParsingResult.VALID) {
+            return RegistrationResult.invalidCredentials(parsingResult);
+        }
+        if (!registeredEmails.add(credentialsParser.getEmail())) {
+            return RegistrationResult.emailTaken();
+        }
+        long studentId = idCounter.getAndIncrement();
+        // the parser is reused by the next registration of the thread, the shard gets the fields
+        String firstName = credentialsParser.getFirstName();
+        String lastName = credentialsParser.getLastName();
+        String email = credentialsParser.getEmail();
+        shardOf(studentId).submit(shard -> {
+            shard.registerStudent(studentId, firstName, lastName, email);
+            return null;
+        });
+        return RegistrationResult.registered(studentId);
+    }
+
+    /**
+     * Queues {@code points}, indexed like the catalog, to the shard of the student
+     * @return future of the outcome, completed once the points are applied
+     * */
+    public CompletableFuture<PointsUpdateResult> submitPoints(long studentId, int[] points) {
+        if (points.length != courseCatalog.size() || !courseCatalog.isValidPointsRow(points, 0)) {
+            return CompletableFuture.completedFuture(PointsUpdateResult.INCORRECT_FORMAT);
+        }
+        long[] studentIds = {studentId};
+        int[] rowPoints = points.clone();
+        return shardOf(studentId).submit(shard -> shard.applyPoints(studentIds, rowPoints, 1) == 1
+                ? PointsUpdateResult.UPDATED : PointsUpdateResult.UNKNOWN_STUDENT);
+    }
+
+    /**
+     * Splits the rows by shard and queues one command per shard, like
+     * {@link LearningPlatform#submitPoints(long[], int[], int)} rows of unknown students and rows with negative
+     * points are skipped. The arrays are copied, the caller may reuse them at once
+     * @return future of the number of applied rows, completed once every shard has applied its rows
+     * */
+    public CompletableFuture<Integer> submitPoints(long[] studentIds, int[] points, int numberOfRows) {
+        int numberOfCourses = courseCatalog.size();
+        if (studentIds.length < numberOfRows || points.length < numberOfRows * numberOfCourses) {
+            throw new IllegalArgumentException("Fewer than " + numberOfRows + " rows of " + numberOfCourses
+                    + " courses");
+        }
+        int[] rowShards = new int[numberOfRows];
+        int[] rowsPerShard = new int[shards.length];
+        for (int row = 0; row < numberOfRows; row++) {
+            rowShards[row] = courseCatalog.isValidPointsRow(points, row * numberOfCourses)
+                    ? indexOfShard(studentIds[row]) : -1;
+            if (rowShards[row] >= 0) {
+                rowsPerShard[rowShards[row]]++;
+            }
+        }
+        long[][] shardStudentIds = new long[shards.length][];
+        int[][] shardPoints = new int[shards.length][];
+        for (int shardIndex = 0; shardIndex < shards.length; shardIndex++) {
+            shardStudentIds[shardIndex] = new long[rowsPerShard[shardIndex]];
+            shardPoints[shardIndex] = new int[rowsPerShard[shardIndex] * numberOfCourses];
+            rowsPerShard[shardIndex] = 0;
+        }
+        for (int row = 0; row < numberOfRows; row++) {
+            int shardIndex = rowShards[row];
+            if (shardIndex >= 0) {
+                int shardRow = rowsPerShard[shardIndex]++;
+                shardStudentIds[shardIndex][shardRow] = studentIds[row];
+                System.arraycopy(points, row * numberOfCourses, shardPoints[shardIndex], shardRow * numberOfCourses,
+                        numberOfCourses);
+            }
+        }
+        CompletableFuture<Integer> appliedRows = CompletableFuture.completedFuture(0);
+        for (int shardIndex = 0; shardIndex < shards.length; shardIndex++) {
+            int shardRows = rowsPerShard[shardIndex];
+            if (shardRows > 0) {
+                long[] rowStudentIds = shardStudentIds[shardIndex];
+                int[] rowPoints = shardPoints[shardIndex];
+                appliedRows = appliedRows.thenCombine(
+                        shards[shardIndex].submit(shard -> shard.applyPoints(rowStudentIds, rowPoints, shardRows)),
+                        Integer::sum);
+            }
+        }
+        return appliedRows;
+    }
+
+    /**
+     * Waits until every shard has applied the updates queued before the call
+     * */
+    public void flush() {
+        scatterGather(shard -> null);
+    }
+
+    /**
+     * @return points of the student in every catalog course or {@code null} if the student is not registered
+     * */
+    public StudentPoints findStudentPoints(long studentId) {
+        int[] points = shardOf(studentId).submit(shard -> shard.getStudentPoints(studentId)).join();
+        return points == null ? null : new StudentPoints(studentId, courseCatalog.getCourses(), points);
+    }
+
+    /**
+     * Statistics of the course aggregates summed over the shards, see {@link CourseStatisticAnalyzer#analyze()}
+     * */
+    public CourseStatistics getCourseStatistics() {
+        return analyze(scatterGather(PlatformShard::getAggregates));
+    }
+
+    /**
+     * Statistics of the last {@code window} summed over the shards, see
+     * {@link CourseStatisticAnalyzer#analyze(Duration)}
+     * */
+    public CourseStatistics getCourseStatistics(Duration window) {
+        return analyze(scatterGather(shard -> shard.getActivity(window)));
+    }
+
+    private CourseStatistics analyze(List<CourseAggregates[]> shardAggregates) {
+        CourseAggregates[] courseAggregates = shardAggregates.get(0);
+        for (int shardIndex = 1; shardIndex < shardAggregates.size(); shardIndex++) {
+            for (int courseIndex = 0; courseIndex < courseAggregates.length; courseIndex++) {
+                courseAggregates[courseIndex] =
+                        courseAggregates[courseIndex].plus(shardAggregates.get(shardIndex)[courseIndex]);
+            }
+        }
+        List<String> courseNames = new ArrayList<>(courseAggregates.length);
+        for (PlatformCourse platformCourse : courseCatalog.getCourses()) {
+            courseNames.add(platformCourse.getCourseName());
+        }
+        return CourseStatisticAnalyzer.analyze(courseNames, courseAggregates);
+    }
+
+    /**
+     * Every shard hands out its first {@code offset + limit} rows, a K-way merge of them in leaderboard order,
+     * points descending and id ascending, gives the page.
+     * Deep pages are expensive: every shard copies all the rows up to the end of the page
+     * @return at most {@code limit} students of the course leaderboard starting from the 0-based position
+     * {@code offset}
+     * */
+    public LeaderboardPage getLeaderboardPage(PlatformCourse platformCourse, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Negative offset " + offset + " or limit " + limit);
+        }
+        int courseIndex = platformCourse.getIndex();
+        int pageEnd = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        List<LeaderboardPage> shardPages = scatterGather(shard -> shard.getTopLearners(courseIndex, pageEnd));
+        int numberOfEnrolledStudents = 0;
+        for (LeaderboardPage shardPage : shardPages) {
+            numberOfEnrolledStudents += shardPage.getNumberOfEnrolledStudents();
+        }
+        int pageSize = offset >= numberOfEnrolledStudents ? 0 : Math.min(limit, numberOfEnrolledStudents - offset);
+        long[] studentIds = new long[pageSize];
+        int[] points = new int[pageSize];
+        long[] completionTenths = new long[pageSize];
+
+        // the heap holds the shards that have rows left, ordered by their next row
+        int[] nextRows = new int[shardPages.size()];
+        PriorityQueue<Integer> shardHeads = new PriorityQueue<>(shardPages.size(), (left, right) ->
+                compareRows(shardPages.get(left), nextRows[left], shardPages.get(right), nextRows[right]));
+        for (int shardIndex = 0; shardIndex < shardPages.size(); shardIndex++) {
+            if (shardPages.get(shardIndex).size() > 0) {
+                shardHeads.add(shardIndex);
+            }
+        }
+        // an empty page past the end has no rows to skip either
+        int mergedRows = pageSize == 0 ? 0 : offset + pageSize;
+        for (int position = 0; position < mergedRows; position++) {
+            int shardIndex = shardHeads.poll();
+            LeaderboardPage shardPage = shardPages.get(shardIndex);
+            int row = nextRows[shardIndex]++;
+            if (position >= offset) {
+                studentIds[position - offset] = shardPage.getStudentId(row);
+                points[position - offset] = shardPage.getPoints(row);
+                completionTenths[position - offset] = shardPage.getCompletionTenths(row);
+            }
+            if (nextRows[shardIndex] < shardPage.size()) {
+                shardHeads.add(shardIndex);
+            }
+        }
+        return new LeaderboardPage(platformCourse, offset, numberOfEnrolledStudents, studentIds, points,
+                completionTenths);
+    }
+
+    private static int compareRows(LeaderboardPage left, int leftRow, LeaderboardPage right, int rightRow) {
+        int byPoints = Integer.compare(right.getPoints(rightRow), left.getPoints(leftRow));
+        return byPoints != 0 ? byPoints : Long.compare(left.getStudentId(leftRow), right.getStudentId(rightRow));
+    }
+
+    /**
+     * Notifies the students who have completed a course since the previous run, drained from every shard,
+     * see {@link LearningPlatform#notifyCompletedStudents()}
+     * */
+    public synchronized NotificationReport notifyCompletedStudents() {
+        List<List<List<Student>>> shardStudentsToNotify = scatterGather(PlatformShard::drainStudentsToNotify);
+        List<Notification> notifications = new ArrayList<>();
+        for (PlatformCourse platformCourse : courseCatalog.getCourses()) {
+            for (List<List<Student>> studentsToNotify : shardStudentsToNotify) {
+                for (Student studentToNotify : studentsToNotify.get(platformCourse.getIndex())) {
+                    notifications.add(new Notification(platformCourse, studentToNotify));
+                }
+            }
+        }
+        List<CompletableFuture<Void>> outcomes = new ArrayList<>(notifications.size());
+        NotificationReport notificationReport = completionNotifier.send(notifications,
+                (courseIndex, studentId, delivered) -> outcomes.add(shardOf(studentId).submit(shard -> {
+                    shard.completeNotification(courseIndex, studentId, delivered);
+                    return null;
+                })));
+        CompletableFuture.allOf(outcomes.toArray(new CompletableFuture<?>[0])).join();
+        return notificationReport;
+    }
+
+    /**
+     * Runs the command on every shard at once and waits for all the results
+     * @return results indexed like the shards
+     * */
+    private <T> List<T> scatterGather(Function<PlatformShard, T> command) {
+        List<CompletableFuture<T>> pendingResults = new ArrayList<>(shards.length);
+        for (PlatformShard shard : shards) {
+            pendingResults.add(shard.submit(command));
+        }
+        List<T> results = new ArrayList<>(shards.length);
+        for (CompletableFuture<T> pendingResult : pendingResults) {
+            results.add(pendingResult.join());
+        }
+        return results;
+    }
+
+    /**
+     * Applies the queued updates, stops the shard threads, removes their gauges and delivers the queued
+     * notifications. Nothing may be submitted concurrently
+     * */
+    @Override
+    public synchronized void close() {
+        try {
+            for (PlatformShard shard : shards) {
+                shard.stop();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+            for (int shardIndex = 0; shardIndex < shards.length; shardIndex++) {
+                metricsRegistry.unregisterGauge(queueDepthGauge(shardIndex), queueDepthGauges[shardIndex]);
+            }
+        }
+        completionNotifier.close();
+    }
+}
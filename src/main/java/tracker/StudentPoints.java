@@ -0,0 +1,53 @@
+package tracker;
+
+import java.util.List;
+
+/**
+ * Points of one student in every course of the catalog, see {@link LearningPlatform#findStudentPoints(long)}
+ * */
+public class StudentPoints {
+
+    private final long studentId;
+    private final List<PlatformCourse> courses;
+    // indexed like the catalog
+    private final int[] points;
+
+    StudentPoints(long studentId, List<PlatformCourse> courses, int[] points) {
+        this.studentId = studentId;
+        this.courses = courses;
+        this.points = points;
+    }
+
+    public long getStudentId() {
+        return studentId;
+    }
+
+    /**
+     * @return the catalog courses in the order of the points line
+     * */
+    public List<PlatformCourse> getCourses() {
+        return courses;
+    }
+
+    public int getPoints(PlatformCourse platformCourse) {
+        return points[platformCourse.getIndex()];
+    }
+
+    public int getPoints(int courseIndex) {
+        return points[courseIndex];
+    }
+
+    /**
+     * @return the line the console prints, e.g. {@code 10000 points: Java=8; DSA=7; Databases=7; Spring=5}
+     * */
+    public String render() {
+        StringBuilder studentPoints = new StringBuilder().append(studentId).append(" points: ");
+        for (PlatformCourse platformCourse : courses) {
+            if (platformCourse.getIndex() != 0) {
+                studentPoints.append("; ");
+            }
+            studentPoints.append(platformCourse.getCourseName()).append('=').append(points[platformCourse.getIndex()]);
+        }
+        return studentPoints.toString();
+    }
+}